@@ -0,0 +1,30 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.dbcp.impl;
+
+import org.seasar.extension.dbcp.impl.ConnectionPoolMetrics.Clock;
+
+/**
+ * {@link System#nanoTime()}を使用する{@link Clock}の実装です。
+ * 
+ */
+public class NanoTimeClock implements Clock {
+
+    public long currentTimeMicros() {
+        return System.nanoTime() / 1000L;
+    }
+
+}
@@ -15,6 +15,8 @@
  */
 package org.seasar.extension.jdbc;
 
+import java.util.Iterator;
+
 import javax.persistence.OptimisticLockException;
 
 /**
@@ -40,4 +42,26 @@ public interface AutoBatchDelete<T> extends BatchUpdate<AutoBatchDelete<T>> {
      */
     AutoBatchDelete<T> suppresOptimisticLockException();
 
+    /**
+     * バッチ更新の進捗を通知するリスナーを設定します。
+     * 
+     * @param listener
+     *            バッチ更新の進捗を通知するリスナー
+     * @return このインスタンス自身
+     */
+    AutoBatchDelete<T> listener(BatchUpdateListener listener);
+
+    /**
+     * 指定した回数のバッチを実行するごとにコミットします。
+     * <p>
+     * エンティティを{@link Iterator}で渡した場合にだけ有効です。
+     * バッチは<code>commitInterval</code>回ごとにトランザクション属性REQUIRES_NEWの新しいトランザクションで実行されます。
+     * </p>
+     * 
+     * @param commitInterval
+     *            コミットするまでに実行するバッチの回数
+     * @return このインスタンス自身
+     */
+    AutoBatchDelete<T> commitInterval(int commitInterval);
+
 }
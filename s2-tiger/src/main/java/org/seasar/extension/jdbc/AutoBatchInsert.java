@@ -15,6 +15,8 @@
  */
 package org.seasar.extension.jdbc;
 
+import java.util.Iterator;
+
 /**
  * SQLを自動生成するバッチ挿入です。
  * 
@@ -42,4 +44,40 @@ public interface AutoBatchInsert<T> extends BatchUpdate<AutoBatchInsert<T>> {
      */
     AutoBatchInsert<T> excludes(CharSequence... propertyNames);
 
+    /**
+     * 複数のエンティティを複数行のvalues句を持つ1つのINSERT文で挿入します。
+     * <p>
+     * 1つのINSERT文で挿入するエンティティの数はバッチサイズと方言がサポートするバインド変数の最大数で制限されます。
+     * 方言が複数行のvalues句を持つINSERT文をサポートしていない場合や、
+     * 識別子の値を自動生成するIDジェネレータがバッチ更新をサポートしていない場合は通常のバッチ更新で挿入します。
+     * </p>
+     * 
+     * @return このインスタンス自身
+     * @see DbmsDialect#supportsMultiRowInsert()
+     * @see DbmsDialect#getMaxBindVariableSize()
+     */
+    AutoBatchInsert<T> multiRowInsert();
+
+    /**
+     * バッチ更新の進捗を通知するリスナーを設定します。
+     * 
+     * @param listener
+     *            バッチ更新の進捗を通知するリスナー
+     * @return このインスタンス自身
+     */
+    AutoBatchInsert<T> listener(BatchUpdateListener listener);
+
+    /**
+     * 指定した回数のバッチを実行するごとにコミットします。
+     * <p>
+     * エンティティを{@link Iterator}で渡した場合にだけ有効です。
+     * バッチは<code>commitInterval</code>回ごとにトランザクション属性REQUIRES_NEWの新しいトランザクションで実行されます。
+     * </p>
+     * 
+     * @param commitInterval
+     *            コミットするまでに実行するバッチの回数
+     * @return このインスタンス自身
+     */
+    AutoBatchInsert<T> commitInterval(int commitInterval);
+
 }
@@ -15,6 +15,8 @@
  */
 package org.seasar.extension.jdbc;
 
+import java.util.Iterator;
+
 import javax.persistence.OptimisticLockException;
 
 /**
@@ -63,4 +65,26 @@ public interface AutoBatchUpdate<T> extends BatchUpdate<AutoBatchUpdate<T>> {
      */
     AutoBatchUpdate<T> suppresOptimisticLockException();
 
+    /**
+     * バッチ更新の進捗を通知するリスナーを設定します。
+     * 
+     * @param listener
+     *            バッチ更新の進捗を通知するリスナー
+     * @return このインスタンス自身
+     */
+    AutoBatchUpdate<T> listener(BatchUpdateListener listener);
+
+    /**
+     * 指定した回数のバッチを実行するごとにコミットします。
+     * <p>
+     * エンティティを{@link Iterator}で渡した場合にだけ有効です。
+     * バッチは<code>commitInterval</code>回ごとにトランザクション属性REQUIRES_NEWの新しいトランザクションで実行されます。
+     * </p>
+     * 
+     * @param commitInterval
+     *            コミットするまでに実行するバッチの回数
+     * @return このインスタンス自身
+     */
+    AutoBatchUpdate<T> commitInterval(int commitInterval);
+
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc;
+
+/**
+ * バッチ更新の進捗を通知されるリスナーです。
+ * <p>
+ * 更新行数はバッチごとに通知されるため、 大量のエンティティを{@link java.util.Iterator}で渡した場合でも
+ * 一定のメモリで進捗を把握できます。
+ * </p>
+ * 
+ * @see AutoBatchInsert#listener(BatchUpdateListener)
+ * @see AutoBatchUpdate#listener(BatchUpdateListener)
+ * @see AutoBatchDelete#listener(BatchUpdateListener)
+ */
+public interface BatchUpdateListener {
+
+    /**
+     * バッチを実行した後に通知されます。
+     * 
+     * @param batchCount
+     *            これまでに実行したバッチの数
+     * @param entityCount
+     *            これまでに処理したエンティティの数
+     * @param rows
+     *            今回実行したバッチで更新した行数の配列
+     */
+    void batchExecuted(int batchCount, long entityCount, int[] rows);
+
+    /**
+     * コミットした後に通知されます。
+     * <p>
+     * {@link AutoBatchInsert#commitInterval(int)}などででコミットの間隔を指定した場合にだけ通知されます。
+     * </p>
+     * 
+     * @param batchCount
+     *            これまでに実行したバッチの数
+     * @param entityCount
+     *            これまでにコミットしたエンティティの数
+     */
+    void committed(int batchCount, long entityCount);
+
+}
@@ -15,7 +15,9 @@
  */
 package org.seasar.extension.jdbc;
 
+import java.sql.Connection;
 import java.sql.Statement;
+import java.util.Iterator;
 import java.util.List;
 
 import javax.persistence.GeneratedValue;
@@ -233,6 +235,51 @@ public interface DbmsDialect {
      */
     boolean supportsBatchUpdateResults();
 
+    /**
+     * 複数行のvalues句を持つINSERT文をサポートしていれば<code>true</code>を返します。
+     * 
+     * @return 複数行のvalues句を持つINSERT文をサポートしていれば<code>true</code>
+     */
+    boolean supportsMultiRowInsert();
+
+    /**
+     * 1つのSQLにバインドできる変数の最大数を返します。
+     * 
+     * @return 1つのSQLにバインドできる変数の最大数。<code>0</code>以下の場合は制限がありません
+     */
+    int getMaxBindVariableSize();
+
+    /**
+     * ベンダー固有の高速な経路でバルクロードできる場合は<code>true</code>を返します。
+     * 
+     * @param propertyMetaList
+     *            ロードする列のプロパティメタデータのリスト
+     * @return ベンダー固有の高速な経路でバルクロードできる場合は<code>true</code>
+     */
+    boolean supportsBulkLoad(List<PropertyMeta> propertyMetaList);
+
+    /**
+     * ベンダー固有の高速な経路でバルクロードします。
+     * <p>
+     * JDBCドライバが必要なAPIを提供していない場合は、 行を取り出さずに<code>-1</code>を返します。
+     * </p>
+     * 
+     * @param connection
+     *            コネクション
+     * @param tableName
+     *            テーブル名
+     * @param propertyMetaList
+     *            ロードする列のプロパティメタデータのリスト
+     * @param rows
+     *            行の値の配列を返す{@link Iterator}
+     * @param batchSize
+     *            バッチサイズ
+     * @return ロードした行数。JDBCドライバが必要なAPIを提供していない場合は<code>-1</code>
+     */
+    long bulkLoad(Connection connection, String tableName,
+            List<PropertyMeta> propertyMetaList, Iterator<Object[]> rows,
+            int batchSize);
+
     /**
      * 一意制約違反を原因とする例外であれば<code>true</code>を返します。
      * 
@@ -309,4 +356,62 @@ public interface DbmsDialect {
      * @return ヒントコメント
      */
     String getHintComment(String hint);
+
+    /**
+     * IN句のバインド変数の数を2のべき乗に切り上げるかどうかを返します。
+     * 
+     * @return IN句のバインド変数の数を2のべき乗に切り上げる場合は<code>true</code>
+     */
+    boolean isInClausePadding();
+
+    /**
+     * IN句のバインド変数の数を切り上げる上限を返します。
+     * <p>
+     * 切り上げた数が上限を超える場合は切り上げません。
+     * </p>
+     * 
+     * @return IN句のバインド変数の数を切り上げる上限。<code>0</code>以下の場合は上限なし
+     */
+    int getInClausePaddingLimit();
+
+    /**
+     * IN句に指定した値の数に対するバインド変数の数を返します。
+     * <p>
+     * 値の数よりも大きい場合、残りのバインド変数には最後の値を繰り返しバインドします。
+     * </p>
+     * 
+     * @param size
+     *            値の数
+     * @return バインド変数の数
+     */
+    int getInClauseBindSize(int size);
+
+    /**
+     * IN句の代わりに配列をバインドする条件を使うかどうかを返します。
+     * 
+     * @param size
+     *            値の数
+     * @return 配列をバインドする条件を使う場合は<code>true</code>
+     */
+    boolean isArrayInConditionTarget(int size);
+
+    /**
+     * 配列をバインドする条件を返します。
+     * 
+     * @param columnName
+     *            カラム名
+     * @param not
+     *            <code>not in</code>の場合は<code>true</code>
+     * @return 配列をバインドする条件
+     */
+    String getArrayInCondition(String columnName, boolean not);
+
+    /**
+     * 配列をバインドするための値タイプを返します。
+     * 
+     * @param propertyMeta
+     *            プロパティメタデータ
+     * @return 配列をバインドするための値タイプ。配列にできない型の場合は<code>null</code>
+     */
+    ValueType getArrayInConditionValueType(PropertyMeta propertyMeta);
 }
@@ -16,6 +16,7 @@
 package org.seasar.extension.jdbc;
 
 import java.sql.CallableStatement;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.Statement;
 
@@ -40,6 +41,16 @@ public interface JdbcContext {
      */
     boolean isTransactional();
 
+    /**
+     * コネクションを返します。
+     * <p>
+     * コネクションはこのコンテキストが管理しているので、 クローズしてはいけません。
+     * </p>
+     * 
+     * @return コネクション
+     */
+    Connection getConnection();
+
     /**
      * キャッシュしているステートメントを返します。
      * 
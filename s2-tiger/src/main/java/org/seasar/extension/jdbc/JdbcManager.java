@@ -17,6 +17,7 @@ package org.seasar.extension.jdbc;
 
 import java.io.Serializable;
 import java.util.Calendar;
+import java.util.Iterator;
 import java.util.List;
 
 import org.seasar.extension.jdbc.annotation.InOut;
@@ -208,6 +209,74 @@ public interface JdbcManager {
      */
     <T> AutoBatchInsert<T> insertBatch(List<T> entities);
 
+    /**
+     * {@link Iterable}からエンティティを順に取り出す自動バッチ挿入を作成します。
+     * <p>
+     * エンティティはバッチサイズごとに取り出されて実行されるため、 すべてのエンティティをメモリ上に保持する必要はありません。
+     * 更新した行数の配列は返されないので、 必要なら{@link BatchUpdateListener}で受け取ってください。
+     * </p>
+     * 
+     * @param <T>
+     *            挿入するエンティティの型です。
+     * @param entities
+     *            エンティティの{@link Iterable}
+     * @return 自動バッチ挿入
+     * @see AutoBatchInsert#listener(BatchUpdateListener)
+     * @see AutoBatchInsert#commitInterval(int)
+     */
+    <T> AutoBatchInsert<T> insertBatch(Iterable<T> entities);
+
+    /**
+     * {@link Iterator}からエンティティを順に取り出す自動バッチ挿入を作成します。
+     * <p>
+     * エンティティはバッチサイズごとに取り出されて実行されるため、 すべてのエンティティをメモリ上に保持する必要はありません。
+     * 更新した行数の配列は返されないので、 必要なら{@link BatchUpdateListener}で受け取ってください。
+     * </p>
+     * 
+     * @param <T>
+     *            挿入するエンティティの型です。
+     * @param entities
+     *            エンティティの{@link Iterator}
+     * @return 自動バッチ挿入
+     * @see AutoBatchInsert#listener(BatchUpdateListener)
+     * @see AutoBatchInsert#commitInterval(int)
+     */
+    <T> AutoBatchInsert<T> insertBatch(Iterator<T> entities);
+
+    /**
+     * {@link Iterable}からエンティティを順に取り出してバルクロードする自動バッチ挿入を作成します。
+     * <p>
+     * 方言がサポートしていれば、 PostgreSQLのCOPYやMySQLのLOAD DATAのようなベンダー固有の高速な経路でロードします。
+     * サポートしていなければ、 複数行のvalues句を持つINSERT文のバッチ更新で挿入します。
+     * </p>
+     * 
+     * @param <T>
+     *            挿入するエンティティの型です。
+     * @param entities
+     *            エンティティの{@link Iterable}
+     * @return 自動バッチ挿入
+     * @see DbmsDialect#bulkLoad(java.sql.Connection, String, List, Iterator,
+     *      int)
+     */
+    <T> AutoBatchInsert<T> bulkLoad(Iterable<T> entities);
+
+    /**
+     * {@link Iterator}からエンティティを順に取り出してバルクロードする自動バッチ挿入を作成します。
+     * <p>
+     * 方言がサポートしていれば、 PostgreSQLのCOPYやMySQLのLOAD DATAのようなベンダー固有の高速な経路でロードします。
+     * サポートしていなければ、 複数行のvalues句を持つINSERT文のバッチ更新で挿入します。
+     * </p>
+     * 
+     * @param <T>
+     *            挿入するエンティティの型です。
+     * @param entities
+     *            エンティティの{@link Iterator}
+     * @return 自動バッチ挿入
+     * @see DbmsDialect#bulkLoad(java.sql.Connection, String, List, Iterator,
+     *      int)
+     */
+    <T> AutoBatchInsert<T> bulkLoad(Iterator<T> entities);
+
     /**
      * 自動更新を作成します。
      * 
@@ -241,6 +310,40 @@ public interface JdbcManager {
      */
     <T> AutoBatchUpdate<T> updateBatch(List<T> entities);
 
+    /**
+     * {@link Iterable}からエンティティを順に取り出す自動バッチ更新を作成します。
+     * <p>
+     * エンティティはバッチサイズごとに取り出されて実行されるため、 すべてのエンティティをメモリ上に保持する必要はありません。
+     * 更新した行数の配列は返されないので、 必要なら{@link BatchUpdateListener}で受け取ってください。
+     * </p>
+     * 
+     * @param <T>
+     *            更新するエンティティの型です。
+     * @param entities
+     *            エンティティの{@link Iterable}
+     * @return 自動バッチ更新
+     * @see AutoBatchUpdate#listener(BatchUpdateListener)
+     * @see AutoBatchUpdate#commitInterval(int)
+     */
+    <T> AutoBatchUpdate<T> updateBatch(Iterable<T> entities);
+
+    /**
+     * {@link Iterator}からエンティティを順に取り出す自動バッチ更新を作成します。
+     * <p>
+     * エンティティはバッチサイズごとに取り出されて実行されるため、 すべてのエンティティをメモリ上に保持する必要はありません。
+     * 更新した行数の配列は返されないので、 必要なら{@link BatchUpdateListener}で受け取ってください。
+     * </p>
+     * 
+     * @param <T>
+     *            更新するエンティティの型です。
+     * @param entities
+     *            エンティティの{@link Iterator}
+     * @return 自動バッチ更新
+     * @see AutoBatchUpdate#listener(BatchUpdateListener)
+     * @see AutoBatchUpdate#commitInterval(int)
+     */
+    <T> AutoBatchUpdate<T> updateBatch(Iterator<T> entities);
+
     /**
      * SQL更新を返します。
      * 
@@ -376,6 +479,40 @@ public interface JdbcManager {
      */
     <T> AutoBatchDelete<T> deleteBatch(List<T> entities);
 
+    /**
+     * {@link Iterable}からエンティティを順に取り出す自動バッチ削除を作成します。
+     * <p>
+     * エンティティはバッチサイズごとに取り出されて実行されるため、 すべてのエンティティをメモリ上に保持する必要はありません。
+     * 更新した行数の配列は返されないので、 必要なら{@link BatchUpdateListener}で受け取ってください。
+     * </p>
+     * 
+     * @param <T>
+     *            削除するエンティティの型です。
+     * @param entities
+     *            エンティティの{@link Iterable}
+     * @return 自動バッチ削除
+     * @see AutoBatchDelete#listener(BatchUpdateListener)
+     * @see AutoBatchDelete#commitInterval(int)
+     */
+    <T> AutoBatchDelete<T> deleteBatch(Iterable<T> entities);
+
+    /**
+     * {@link Iterator}からエンティティを順に取り出す自動バッチ削除を作成します。
+     * <p>
+     * エンティティはバッチサイズごとに取り出されて実行されるため、 すべてのエンティティをメモリ上に保持する必要はありません。
+     * 更新した行数の配列は返されないので、 必要なら{@link BatchUpdateListener}で受け取ってください。
+     * </p>
+     * 
+     * @param <T>
+     *            削除するエンティティの型です。
+     * @param entities
+     *            エンティティの{@link Iterator}
+     * @return 自動バッチ削除
+     * @see AutoBatchDelete#listener(BatchUpdateListener)
+     * @see AutoBatchDelete#commitInterval(int)
+     */
+    <T> AutoBatchDelete<T> deleteBatch(Iterator<T> entities);
+
     /**
      * 自動プロシージャ呼び出しを返します。
      * 
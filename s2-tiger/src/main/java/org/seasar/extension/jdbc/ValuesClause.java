@@ -60,6 +60,28 @@ public class ValuesClause {
         return new String(sql);
     }
 
+    /**
+     * 複数行のvalues句のSQLに変換します。
+     * 
+     * @param rows
+     *            行数
+     * @return SQL
+     */
+    public String toSql(final int rows) {
+        if (rows <= 1 || sql.length() == 0) {
+            return toSql();
+        }
+        final int rowStart = sql.indexOf("(");
+        final int rowLength = sql.length() - rowStart;
+        final StringBuilder buf = new StringBuilder(sql.length()
+                + (rowLength + 2) * (rows - 1));
+        buf.append(sql);
+        for (int i = 1; i < rows; ++i) {
+            buf.append(", ").append(sql, rowStart, sql.length());
+        }
+        return new String(buf);
+    }
+
     /**
      * values句を追加します。
      * 
@@ -93,6 +93,11 @@ public class H2Dialect extends StandardDialect {
         return "call next value for " + sequenceName;
     }
 
+    @Override
+    public boolean supportsMultiRowInsert() {
+        return true;
+    }
+
     @Override
     public boolean isUniqueConstraintViolation(Throwable t) {
         final Integer code = getErrorCode(t);
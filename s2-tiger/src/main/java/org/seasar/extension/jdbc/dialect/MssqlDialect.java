@@ -103,4 +103,15 @@ public class MssqlDialect extends StandardDialect {
         return new String(buf);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 1つのSQLにバインドできるパラメータは2100個までなので、 他のパラメータの分を残して<code>2000</code>を返します。
+     * </p>
+     */
+    @Override
+    public int getInClausePaddingLimit() {
+        return 2000;
+    }
+
 }
@@ -15,11 +15,23 @@
  */
 package org.seasar.extension.jdbc.dialect;
 
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import javax.persistence.GenerationType;
 
+import org.seasar.extension.jdbc.PropertyMeta;
+import org.seasar.extension.jdbc.util.BulkLoadTextReader;
+import org.seasar.extension.jdbc.util.ConnectionUtil;
+import org.seasar.framework.exception.SQLRuntimeException;
+import org.seasar.framework.util.StatementUtil;
 import org.seasar.framework.util.tiger.CollectionsUtil;
 
 /**
@@ -84,6 +96,54 @@ public class MysqlDialect extends StandardDialect {
         return true;
     }
 
+    @Override
+    public boolean supportsMultiRowInsert() {
+        return true;
+    }
+
+    @Override
+    public int getMaxBindVariableSize() {
+        return 65535;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * <code>LOAD DATA LOCAL INFILE</code>でメモリ上のストリームからロードします。
+     * JDBCドライバの接続プロパティで<code>allowLoadLocalInfile</code>を有効にしてください。
+     * </p>
+     */
+    @Override
+    public boolean supportsBulkLoad(List<PropertyMeta> propertyMetaList) {
+        return BulkLoadTextReader.isTarget(propertyMetaList);
+    }
+
+    @Override
+    public long bulkLoad(Connection connection, String tableName,
+            List<PropertyMeta> propertyMetaList, Iterator<Object[]> rows,
+            int batchSize) {
+        final Statement statement = ConnectionUtil
+                .createStatement(getPhysicalConnection(connection));
+        try {
+            final Method setLocalInfileInputStreamMethod = getDriverMethod(
+                    statement, "setLocalInfileInputStream", InputStream.class);
+            if (setLocalInfileInputStreamMethod == null) {
+                return -1;
+            }
+            invokeDriverMethod(setLocalInfileInputStreamMethod, statement,
+                    new BulkLoadTextReader(propertyMetaList, rows, "1", "0")
+                            .toInputStream("UTF-8"));
+            final String sql = "load data local infile 'stream' into table "
+                    + tableName + " character set utf8mb4"
+                    + getBulkLoadColumnList(propertyMetaList);
+            return statement.executeUpdate(sql);
+        } catch (final SQLException e) {
+            throw new SQLRuntimeException(e);
+        } finally {
+            StatementUtil.close(statement);
+        }
+    }
+
     @Override
     public boolean isUniqueConstraintViolation(Throwable t) {
         final Integer code = getErrorCode(t);
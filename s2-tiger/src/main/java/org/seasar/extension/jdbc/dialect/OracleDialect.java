@@ -15,8 +15,10 @@
  */
 package org.seasar.extension.jdbc.dialect;
 
+import java.sql.Connection;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 
 import javax.persistence.GenerationType;
@@ -56,6 +58,9 @@ public class OracleDialect extends StandardDialect {
     /** Oracle固有の{@literal DATE}型を使用する場合は{@literal true} */
     protected boolean useOracleDate = true;
 
+    /** バルクロードでダイレクト・パス・インサートを使用する場合は{@literal true} */
+    protected boolean bulkLoadDirectPath;
+
     @Override
     public String getName() {
         return "oracle";
@@ -227,6 +232,29 @@ public class OracleDialect extends StandardDialect {
         this.useOracleDate = useOracleDate;
     }
 
+    /**
+     * バルクロードでダイレクト・パス・インサートを使用する場合は{@literal true}を返します。
+     * 
+     * @return バルクロードでダイレクト・パス・インサートを使用する場合は{@literal true}
+     */
+    public boolean isBulkLoadDirectPath() {
+        return bulkLoadDirectPath;
+    }
+
+    /**
+     * バルクロードでダイレクト・パス・インサートを使用する場合は{@literal true}を設定します。
+     * <p>
+     * {@literal true}の場合は<code>APPEND_VALUES</code>ヒントを指定します。
+     * ダイレクト・パス・インサートしたテーブルはコミットするまで同じトランザクションから参照できません。
+     * </p>
+     * 
+     * @param bulkLoadDirectPath
+     *            バルクロードでダイレクト・パス・インサートを使用する場合は{@literal true}
+     */
+    public void setBulkLoadDirectPath(boolean bulkLoadDirectPath) {
+        this.bulkLoadDirectPath = bulkLoadDirectPath;
+    }
+
     @Override
     public GenerationType getDefaultGenerationType() {
         return GenerationType.SEQUENCE;
@@ -284,6 +312,39 @@ public class OracleDialect extends StandardDialect {
         return "/*+ " + hint + " */ ";
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * IN句に指定できる値は1000個までなので、<code>1000</code>を返します。
+     * </p>
+     */
+    @Override
+    public int getInClausePaddingLimit() {
+        return 1000;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 配列バインドによるバッチ更新でロードします。
+     * SQLのログは出力しません。
+     * </p>
+     */
+    @Override
+    public boolean supportsBulkLoad(List<PropertyMeta> propertyMetaList) {
+        return true;
+    }
+
+    @Override
+    public long bulkLoad(Connection connection, String tableName,
+            List<PropertyMeta> propertyMetaList, Iterator<Object[]> rows,
+            int batchSize) {
+        final String hint = bulkLoadDirectPath ? getHintComment("APPEND_VALUES")
+                : "";
+        return bulkLoadByBatch(connection, hint, tableName, propertyMetaList,
+                rows, batchSize);
+    }
+
     @Override
     public boolean isUniqueConstraintViolation(Throwable t) {
         final Integer code = getErrorCode(t);
@@ -18,14 +18,21 @@ package org.seasar.extension.jdbc.dialect;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.Reader;
 import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
 import java.sql.Blob;
 import java.sql.CallableStatement;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.GenerationType;
 import javax.persistence.TemporalType;
@@ -33,10 +40,16 @@ import javax.persistence.TemporalType;
 import org.seasar.extension.jdbc.PropertyMeta;
 import org.seasar.extension.jdbc.SelectForUpdateType;
 import org.seasar.extension.jdbc.ValueType;
+import org.seasar.extension.jdbc.types.ArrayType;
 import org.seasar.extension.jdbc.types.BytesType;
 import org.seasar.extension.jdbc.types.SerializableType;
 import org.seasar.extension.jdbc.types.ValueTypes;
 import org.seasar.extension.jdbc.types.BytesType.Trait;
+import org.seasar.extension.jdbc.util.BulkLoadTextReader;
+import org.seasar.framework.exception.ClassNotFoundRuntimeException;
+import org.seasar.framework.exception.SQLRuntimeException;
+import org.seasar.framework.util.ClassUtil;
+import org.seasar.framework.util.tiger.CollectionsUtil;
 import org.seasar.framework.util.tiger.Pair;
 
 /**
@@ -64,6 +77,32 @@ public class PostgreDialect extends StandardDialect {
     public final static ValueType SERIALIZABLE_BLOB_TYPE = new SerializableType(
             new PostgreTrait());
 
+    /**
+     * 配列をバインドするための値タイプのマップです。
+     */
+    protected static final Map<Class<?>, ValueType> arrayTypes = CollectionsUtil
+            .newHashMap();
+    static {
+        arrayTypes.put(Short.class, new ArrayType("int2"));
+        arrayTypes.put(Integer.class, new ArrayType("int4"));
+        arrayTypes.put(Long.class, new ArrayType("int8"));
+        arrayTypes.put(Float.class, new ArrayType("float4"));
+        arrayTypes.put(Double.class, new ArrayType("float8"));
+        arrayTypes.put(BigDecimal.class, new ArrayType("numeric"));
+        arrayTypes.put(String.class, new ArrayType("varchar"));
+        arrayTypes.put(Boolean.class, new ArrayType("bool"));
+    }
+
+    /**
+     * <code>createArrayOf(String, Object[])</code>を実装しているJDBCドライバのコネクションのクラス名です。
+     */
+    protected static final String[] ARRAY_CONNECTION_CLASS_NAMES = new String[] {
+            "org.postgresql.jdbc.PgConnection",
+            "org.postgresql.jdbc4.AbstractJdbc4Connection" };
+
+    /** 配列をバインドする条件をサポートしている場合は<code>true</code> */
+    protected volatile Boolean arrayInConditionSupported;
+
     @Override
     public String getName() {
         return "postgre";
@@ -195,12 +234,112 @@ public class PostgreDialect extends StandardDialect {
         return false;
     }
 
+    @Override
+    public boolean supportsMultiRowInsert() {
+        return true;
+    }
+
+    @Override
+    public int getMaxBindVariableSize() {
+        return 32767;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * JDBCドライバの<code>CopyManager</code>を使い、 <code>COPY FROM STDIN</code>でロードします。
+     * </p>
+     */
+    @Override
+    public boolean supportsBulkLoad(List<PropertyMeta> propertyMetaList) {
+        return BulkLoadTextReader.isTarget(propertyMetaList);
+    }
+
+    @Override
+    public long bulkLoad(Connection connection, String tableName,
+            List<PropertyMeta> propertyMetaList, Iterator<Object[]> rows,
+            int batchSize) {
+        final Connection physicalConnection = getPhysicalConnection(connection);
+        final Method getCopyApiMethod = getDriverMethod(physicalConnection,
+                "getCopyAPI");
+        if (getCopyApiMethod == null) {
+            return -1;
+        }
+        try {
+            final Object copyManager = invokeDriverMethod(getCopyApiMethod,
+                    physicalConnection);
+            final Method copyInMethod = getDriverMethod(copyManager, "copyIn",
+                    String.class, Reader.class);
+            if (copyInMethod == null) {
+                return -1;
+            }
+            final String sql = "copy " + tableName
+                    + getBulkLoadColumnList(propertyMetaList) + " from stdin";
+            final Object count = invokeDriverMethod(copyInMethod, copyManager,
+                    sql, new BulkLoadTextReader(propertyMetaList, rows, "t",
+                            "f"));
+            return Number.class.cast(count).longValue();
+        } catch (final SQLException e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
+
     @Override
     public boolean isUniqueConstraintViolation(Throwable t) {
         final String state = getSQLState(t);
         return uniqueConstraintViolationCode.equals(state);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * JDBCドライバが<code>Connection#createArrayOf(String, Object[])</code>を実装していない場合は
+     * <code>false</code>を返すので、 通常のIN句が使われます。
+     * </p>
+     */
+    @Override
+    protected boolean supportsArrayInCondition() {
+        Boolean supported = arrayInConditionSupported;
+        if (supported == null) {
+            supported = Boolean.valueOf(ArrayType.isAvailable()
+                    && isCreateArrayOfImplemented());
+            arrayInConditionSupported = supported;
+        }
+        return supported.booleanValue();
+    }
+
+    /**
+     * JDBCドライバのコネクションが<code>createArrayOf(String, Object[])</code>を実装している場合は
+     * <code>true</code>を返します。
+     * 
+     * @return JDBCドライバのコネクションが<code>createArrayOf(String, Object[])</code>を実装している場合は
+     *         <code>true</code>
+     */
+    protected boolean isCreateArrayOfImplemented() {
+        for (final String className : ARRAY_CONNECTION_CLASS_NAMES) {
+            try {
+                final Method method = ClassUtil.forName(className).getMethod(
+                        "createArrayOf", String.class, Object[].class);
+                if (!Modifier.isAbstract(method.getModifiers())) {
+                    return true;
+                }
+            } catch (final ClassNotFoundRuntimeException e) {
+            } catch (final NoSuchMethodException e) {
+            } catch (final LinkageError e) {
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public ValueType getArrayInConditionValueType(PropertyMeta propertyMeta) {
+        if (propertyMeta.isLob() || propertyMeta.getTemporalType() != null) {
+            return null;
+        }
+        return arrayTypes.get(ClassUtil.getWrapperClassIfPrimitive(propertyMeta
+                .getPropertyClass()));
+    }
+
     /**
      * {@link Blob}を扱うトレイトです。
      * 
@@ -69,6 +69,16 @@ public class SqliteDialect extends StandardDialect {
         return "select last_insert_rowid()";
     }
 
+    @Override
+    public boolean supportsMultiRowInsert() {
+        return true;
+    }
+
+    @Override
+    public int getMaxBindVariableSize() {
+        return 999;
+    }
+
     @Override
     public boolean supportsForUpdate(final SelectForUpdateType type,
             boolean withTarget) {
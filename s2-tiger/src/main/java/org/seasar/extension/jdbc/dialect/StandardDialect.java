@@ -16,10 +16,15 @@
 package org.seasar.extension.jdbc.dialect;
 
 import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -28,16 +33,26 @@ import javax.persistence.GenerationType;
 import javax.persistence.TemporalType;
 
 import org.seasar.extension.jdbc.DbmsDialect;
+import org.seasar.extension.dbcp.ConnectionWrapper;
 import org.seasar.extension.jdbc.FromClause;
+import org.seasar.extension.jdbc.IntoClause;
 import org.seasar.extension.jdbc.JoinColumnMeta;
 import org.seasar.extension.jdbc.JoinType;
 import org.seasar.extension.jdbc.PropertyMeta;
 import org.seasar.extension.jdbc.SelectForUpdateType;
 import org.seasar.extension.jdbc.ValueType;
+import org.seasar.extension.jdbc.ValuesClause;
 import org.seasar.extension.jdbc.WhereClause;
 import org.seasar.extension.jdbc.exception.OrderByNotFoundRuntimeException;
 import org.seasar.extension.jdbc.types.ValueTypes;
+import org.seasar.extension.jdbc.util.ConnectionUtil;
+import org.seasar.extension.jdbc.util.InClauseUtil;
 import org.seasar.extension.jdbc.util.QueryTokenizer;
+import org.seasar.framework.exception.IllegalAccessRuntimeException;
+import org.seasar.framework.exception.InvocationTargetRuntimeException;
+import org.seasar.framework.exception.SQLRuntimeException;
+import org.seasar.framework.util.PreparedStatementUtil;
+import org.seasar.framework.util.StatementUtil;
 import org.seasar.framework.util.StringUtil;
 import org.seasar.framework.util.tiger.CollectionsUtil;
 import org.seasar.framework.util.tiger.Pair;
@@ -56,6 +71,17 @@ public class StandardDialect implements DbmsDialect {
     protected static final Set<String> entityExistsExceptionStateCode = CollectionsUtil
             .newHashSet(Arrays.asList("23", "27", "44"));
 
+    /**
+     * IN句のバインド変数の数を2のべき乗に切り上げるかどうかです。
+     */
+    protected boolean inClausePadding;
+
+    /**
+     * IN句の代わりに配列をバインドする条件を使う値の数のしきい値です。
+     * <code>0</code>以下の場合は使いません。
+     */
+    protected int arrayInConditionThreshold;
+
     public String getName() {
         return null;
     }
@@ -204,6 +230,170 @@ public class StandardDialect implements DbmsDialect {
         return true;
     }
 
+    public boolean supportsMultiRowInsert() {
+        return false;
+    }
+
+    public int getMaxBindVariableSize() {
+        return 0;
+    }
+
+    public boolean supportsBulkLoad(List<PropertyMeta> propertyMetaList) {
+        return false;
+    }
+
+    public long bulkLoad(Connection connection, String tableName,
+            List<PropertyMeta> propertyMetaList, Iterator<Object[]> rows,
+            int batchSize) {
+        return -1;
+    }
+
+    /**
+     * バルクロードする列のカラム名を括弧で囲んだリストを返します。
+     * 
+     * @param propertyMetaList
+     *            ロードする列のプロパティメタデータのリスト
+     * @return カラム名のリスト
+     */
+    protected String getBulkLoadColumnList(List<PropertyMeta> propertyMetaList) {
+        final IntoClause intoClause = new IntoClause();
+        for (final PropertyMeta propertyMeta : propertyMetaList) {
+            intoClause.addSql(propertyMeta.getColumnMeta().getName());
+        }
+        return intoClause.toSql();
+    }
+
+    /**
+     * バッチ更新でバルクロードします。
+     * 
+     * @param connection
+     *            コネクション
+     * @param hint
+     *            INSERT文のヒントコメント
+     * @param tableName
+     *            テーブル名
+     * @param propertyMetaList
+     *            ロードする列のプロパティメタデータのリスト
+     * @param rows
+     *            行の値の配列を返す{@link Iterator}
+     * @param batchSize
+     *            バッチサイズ
+     * @return ロードした行数
+     */
+    protected long bulkLoadByBatch(Connection connection, String hint,
+            String tableName, List<PropertyMeta> propertyMetaList,
+            Iterator<Object[]> rows, int batchSize) {
+        final ValuesClause valuesClause = new ValuesClause();
+        final ValueType[] valueTypes = new ValueType[propertyMetaList.size()];
+        for (int i = 0; i < valueTypes.length; ++i) {
+            valuesClause.addSql();
+            valueTypes[i] = getValueType(propertyMetaList.get(i));
+        }
+        final String sql = "insert " + hint + "into " + tableName
+                + getBulkLoadColumnList(propertyMetaList)
+                + valuesClause.toSql();
+        final PreparedStatement ps = ConnectionUtil.prepareStatement(
+                connection, sql);
+        try {
+            long count = 0;
+            int batched = 0;
+            while (rows.hasNext()) {
+                final Object[] values = rows.next();
+                for (int i = 0; i < valueTypes.length; ++i) {
+                    valueTypes[i].bindValue(ps, i + 1, values[i]);
+                }
+                PreparedStatementUtil.addBatch(ps);
+                ++count;
+                if (++batched == batchSize) {
+                    PreparedStatementUtil.executeBatch(ps);
+                    batched = 0;
+                }
+            }
+            if (batched > 0) {
+                PreparedStatementUtil.executeBatch(ps);
+            }
+            return count;
+        } catch (final SQLException e) {
+            throw new SQLRuntimeException(e);
+        } finally {
+            StatementUtil.close(ps);
+        }
+    }
+
+    /**
+     * 物理的なコネクションを返します。
+     * 
+     * @param connection
+     *            コネクション
+     * @return 物理的なコネクション
+     */
+    protected Connection getPhysicalConnection(Connection connection) {
+        if (connection instanceof ConnectionWrapper) {
+            return ConnectionWrapper.class.cast(connection)
+                    .getPhysicalConnection();
+        }
+        return connection;
+    }
+
+    /**
+     * JDBCドライバ固有のメソッドを返します。
+     * 
+     * @param target
+     *            JDBCドライバのオブジェクト
+     * @param methodName
+     *            メソッド名
+     * @param parameterTypes
+     *            引数の型の並び
+     * @return JDBCドライバ固有のメソッド。見つからない場合は<code>null</code>
+     */
+    protected Method getDriverMethod(Object target, String methodName,
+            Class<?>... parameterTypes) {
+        try {
+            final Method method = target.getClass().getMethod(methodName,
+                    parameterTypes);
+            method.setAccessible(true);
+            return method;
+        } catch (final NoSuchMethodException e) {
+            return null;
+        } catch (final SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * JDBCドライバ固有のメソッドを呼び出します。
+     * 
+     * @param method
+     *            メソッド
+     * @param target
+     *            JDBCドライバのオブジェクト
+     * @param args
+     *            引数の並び
+     * @return メソッドの戻り値
+     * @throws SQLException
+     *             SQL例外が発生した場合
+     */
+    protected Object invokeDriverMethod(Method method, Object target,
+            Object... args) throws SQLException {
+        try {
+            return method.invoke(target, args);
+        } catch (final InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw SQLException.class.cast(cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw RuntimeException.class.cast(cause);
+            }
+            if (cause instanceof Error) {
+                throw Error.class.cast(cause);
+            }
+            throw new InvocationTargetRuntimeException(target.getClass(), e);
+        } catch (final IllegalAccessException e) {
+            throw new IllegalAccessRuntimeException(target.getClass(), e);
+        }
+    }
+
     /**
      * 行番号ファンクション名を返します。
      * 
@@ -383,4 +573,85 @@ public class StandardDialect implements DbmsDialect {
         return "";
     }
 
+    public boolean isInClausePadding() {
+        return inClausePadding;
+    }
+
+    /**
+     * IN句のバインド変数の数を2のべき乗に切り上げるかどうかを設定します。
+     * 
+     * @param inClausePadding
+     *            IN句のバインド変数の数を2のべき乗に切り上げる場合は<code>true</code>
+     */
+    public void setInClausePadding(boolean inClausePadding) {
+        this.inClausePadding = inClausePadding;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * デフォルトでは{@link #getMaxBindVariableSize()}を返します。
+     * </p>
+     */
+    public int getInClausePaddingLimit() {
+        return getMaxBindVariableSize();
+    }
+
+    public int getInClauseBindSize(int size) {
+        if (!inClausePadding) {
+            return size;
+        }
+        return InClauseUtil.getPaddedSize(size, getInClausePaddingLimit());
+    }
+
+    /**
+     * IN句の代わりに配列をバインドする条件を使う値の数のしきい値を返します。
+     * 
+     * @return 配列をバインドする条件を使う値の数のしきい値
+     */
+    public int getArrayInConditionThreshold() {
+        return arrayInConditionThreshold;
+    }
+
+    /**
+     * IN句の代わりに配列をバインドする条件を使う値の数のしきい値を設定します。
+     * <p>
+     * 配列をバインドする条件をサポートしていない方言では無視されます。
+     * </p>
+     * 
+     * @param arrayInConditionThreshold
+     *            配列をバインドする条件を使う値の数のしきい値。<code>0</code>以下の場合は使いません。
+     */
+    public void setArrayInConditionThreshold(int arrayInConditionThreshold) {
+        this.arrayInConditionThreshold = arrayInConditionThreshold;
+    }
+
+    public boolean isArrayInConditionTarget(int size) {
+        return supportsArrayInCondition() && arrayInConditionThreshold > 0
+                && size >= arrayInConditionThreshold;
+    }
+
+    /**
+     * 配列をバインドする条件をサポートしている場合は<code>true</code>を返します。
+     * 
+     * @return 配列をバインドする条件をサポートしている場合は<code>true</code>
+     */
+    protected boolean supportsArrayInCondition() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 標準SQLの<code>= any</code>と<code>&lt;&gt; all</code>を使います。
+     * </p>
+     */
+    public String getArrayInCondition(String columnName, boolean not) {
+        return columnName + (not ? " <> all (?)" : " = any (?)");
+    }
+
+    public ValueType getArrayInConditionValueType(PropertyMeta propertyMeta) {
+        return null;
+    }
+
 }
@@ -29,18 +29,22 @@ import javax.persistence.TemporalType;
 import org.seasar.extension.jdbc.DbmsDialect;
 import org.seasar.extension.jdbc.PropertyType;
 import org.seasar.extension.jdbc.ResultSetHandler;
+import org.seasar.extension.jdbc.RowMapper;
 import org.seasar.extension.jdbc.ValueType;
 import org.seasar.extension.jdbc.impl.PropertyTypeImpl;
+import org.seasar.extension.jdbc.impl.RowMapperFactory;
 import org.seasar.framework.beans.BeanDesc;
 import org.seasar.framework.beans.PropertyDesc;
 import org.seasar.framework.beans.factory.BeanDescFactory;
 import org.seasar.framework.convention.PersistenceConvention;
 import org.seasar.framework.util.CaseInsensitiveMap;
-import org.seasar.framework.util.ClassUtil;
 import org.seasar.framework.util.StringUtil;
 
 /**
  * JavaBeans用の {@link ResultSetHandler}の抽象クラスです。
+ * <p>
+ * 行は{@link RowMapperFactory}が返す{@link RowMapper}で作成されます。
+ * </p>
  * 
  * @author higa
  * 
@@ -72,6 +76,8 @@ public abstract class AbstractBeanResultSetHandler implements ResultSetHandler {
      */
     protected String sql;
 
+    private volatile LastRowMapper lastRowMapper;
+
     /**
      * {@link AbstractBeanResultSetHandler}を作成します。
      * 
@@ -168,18 +174,25 @@ public abstract class AbstractBeanResultSetHandler implements ResultSetHandler {
     protected Object createRow(ResultSet rs, PropertyType[] propertyTypes)
             throws SQLException {
 
-        Object row = ClassUtil.newInstance(beanClass);
-        for (int i = 0; i < propertyTypes.length; ++i) {
-            PropertyType pt = propertyTypes[i];
-            if (pt == null) {
-                continue;
-            }
-            ValueType valueType = pt.getValueType();
-            Object value = valueType.getValue(rs, i + 1);
-            PropertyDesc pd = pt.getPropertyDesc();
-            pd.setValue(row, value);
+        return getRowMapper(propertyTypes).mapRow(rs);
+    }
+
+    /**
+     * プロパティの型の配列に対応する{@link RowMapper}を返します。
+     * 
+     * @param propertyTypes
+     *            プロパティの型の配列
+     * @return {@link RowMapper}
+     */
+    protected RowMapper getRowMapper(PropertyType[] propertyTypes) {
+        LastRowMapper last = lastRowMapper;
+        if (last != null && last.propertyTypes == propertyTypes) {
+            return last.rowMapper;
         }
-        return row;
+        RowMapper rowMapper = RowMapperFactory.getRowMapper(beanClass,
+                propertyTypes);
+        lastRowMapper = new LastRowMapper(propertyTypes, rowMapper);
+        return rowMapper;
     }
 
     /**
@@ -201,4 +214,24 @@ public abstract class AbstractBeanResultSetHandler implements ResultSetHandler {
         return dialect.getValueType(propertyDesc.getPropertyType(), lob,
                 temporalType);
     }
+
+    /**
+     * 直前に使った{@link PropertyType}の配列と{@link RowMapper}の組です。
+     * <p>
+     * ハンドラは複数のスレッドから使われるので、 変更できないオブジェクトとして<code>volatile</code>なフィールドに保持します。
+     * </p>
+     * 
+     */
+    private static final class LastRowMapper {
+
+        private final PropertyType[] propertyTypes;
+
+        private final RowMapper rowMapper;
+
+        private LastRowMapper(PropertyType[] propertyTypes,
+                RowMapper rowMapper) {
+            this.propertyTypes = propertyTypes;
+            this.rowMapper = rowMapper;
+        }
+    }
 }
\ No newline at end of file
@@ -16,17 +16,43 @@
 package org.seasar.extension.jdbc.id;
 
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.seasar.extension.jdbc.EntityMeta;
 import org.seasar.extension.jdbc.PropertyMeta;
 import org.seasar.extension.jdbc.SqlLogger;
 import org.seasar.extension.jdbc.manager.JdbcManagerImplementor;
+import org.seasar.framework.log.Logger;
+import org.seasar.framework.util.Disposable;
+import org.seasar.framework.util.DisposableUtil;
 import org.seasar.framework.util.tiger.CollectionsUtil;
 
 /**
  * INSERT前に識別子を自動生成するIDジェネレータの抽象クラスです。
+ * <p>
+ * 割り当てサイズ分の識別子をまとめてデータベースから取得し、 アトミックなカウンタでロックせずに払い出します。
+ * 払い出した識別子が割り当てサイズの{@value #PREFETCH_PERCENTAGE}%に達すると、
+ * 次のブロックを別スレッドで先読みするため、 INSERTするスレッドがデータベースの応答を待つことはほとんどありません。
+ * 先読みの間隔が短い場合は、 一度に取得するブロックの数を{@value #MAX_BLOCK_COUNT}まで増やします。
+ * 割り当てサイズが<code>2</code>より小さい場合は先読みしません。
+ * </p>
+ * <p>
+ * 先読みのスレッドはHOT deployなどで{@link DisposableUtil#dispose()}が呼び出されたときに終了します。
+ * </p>
  * 
  * @author koichik
  */
@@ -36,6 +62,27 @@ public abstract class AbstractPreAllocateIdGenerator extends
     /** {@link #idContextMap}に対するデフォルトのキー */
     protected static String DEFAULT_ID_CONTEXT_KEY = IdContext.class.getName();
 
+    /** 次のブロックを先読みする使用率(%) */
+    protected static final int PREFETCH_PERCENTAGE = 75;
+
+    /** 一度に取得するブロックの最大数 */
+    protected static final int MAX_BLOCK_COUNT = 16;
+
+    /** この時間(ミリ秒)より短い間隔で先読みした場合は一度に取得するブロックの数を増やします */
+    protected static final long GROW_INTERVAL = 1000L;
+
+    /** この時間(ミリ秒)より長い間隔で先読みした場合は一度に取得するブロックの数を減らします */
+    protected static final long SHRINK_INTERVAL = 60000L;
+
+    /** 先読みする最小の割り当てサイズ */
+    protected static final long MIN_PREFETCH_SIZE = 2L;
+
+    /** 先読みを実行する{@link ExecutorService} */
+    private static ExecutorService prefetchExecutor;
+
+    private static final Logger logger = Logger
+            .getLogger(AbstractPreAllocateIdGenerator.class);
+
     /** 割り当てサイズ */
     protected final long allocationSize;
 
@@ -113,6 +160,121 @@ public abstract class AbstractPreAllocateIdGenerator extends
     protected abstract long getNewInitialValue(
             JdbcManagerImplementor jdbcManager, SqlLogger sqlLogger);
 
+    /**
+     * 指定された数のブロックを取得して返します。
+     * <p>
+     * デフォルトでは{@link #getNewInitialValue(JdbcManagerImplementor, SqlLogger)}をブロックの数だけ呼び出します。
+     * 一度のラウンドトリップで連続したブロックを取得できるIDジェネレータはオーバーライドしてください。
+     * </p>
+     * 
+     * @param jdbcManager
+     *            内部的なJDBCマネージャ
+     * @param sqlLogger
+     *            SQLロガー
+     * @param blockCount
+     *            ブロックの数
+     * @return 取得したブロックのリスト
+     */
+    protected List<IdBlock> allocateIdBlocks(
+            final JdbcManagerImplementor jdbcManager,
+            final SqlLogger sqlLogger, final int blockCount) {
+        final List<IdBlock> blocks = new ArrayList<IdBlock>(blockCount);
+        for (int i = 0; i < blockCount; ++i) {
+            blocks.add(new IdBlock(getNewInitialValue(jdbcManager, sqlLogger),
+                    allocationSize));
+        }
+        return blocks;
+    }
+
+    /**
+     * 先読みを実行する{@link Executor}を返します。
+     * 
+     * @return 先読みを実行する{@link Executor}
+     */
+    protected Executor getPrefetchExecutor() {
+        return getDefaultPrefetchExecutor();
+    }
+
+    /**
+     * デフォルトの先読みを実行する{@link ExecutorService}を返します。
+     * <p>
+     * 最初に呼び出されたときに作成し、 {@link DisposableUtil#dispose()}が呼び出されたときに終了します。
+     * </p>
+     * 
+     * @return デフォルトの先読みを実行する{@link ExecutorService}
+     */
+    protected static synchronized ExecutorService getDefaultPrefetchExecutor() {
+        if (prefetchExecutor == null) {
+            prefetchExecutor = Executors
+                    .newCachedThreadPool(new ThreadFactory() {
+
+                        public Thread newThread(final Runnable runnable) {
+                            final Thread thread = new Thread(runnable,
+                                    "Seasar2-IdPrefetcher");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+
+                    });
+            DisposableUtil.add(new Disposable() {
+
+                public void dispose() {
+                    shutdownPrefetchExecutor();
+                }
+
+            });
+        }
+        return prefetchExecutor;
+    }
+
+    /**
+     * デフォルトの先読みを実行する{@link ExecutorService}を終了します。
+     * <p>
+     * 実行中の先読みは完了するまで実行されます。
+     * </p>
+     */
+    protected static synchronized void shutdownPrefetchExecutor() {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdown();
+            prefetchExecutor = null;
+        }
+    }
+
+    /**
+     * 連続した識別子の値のブロックです。
+     * 
+     */
+    public static class IdBlock {
+
+        /** 初期値 */
+        protected final long initialValue;
+
+        /** ブロックのサイズ */
+        protected final long size;
+
+        /** 次のブロックを先読みする位置、先読みしない場合は<code>-1</code> */
+        protected final long prefetchPoint;
+
+        /** 割り当て済みの値 */
+        protected final AtomicLong allocated = new AtomicLong();
+
+        /**
+         * インスタンスを構築します。
+         * 
+         * @param initialValue
+         *            初期値
+         * @param size
+         *            ブロックのサイズ
+         */
+        public IdBlock(final long initialValue, final long size) {
+            this.initialValue = initialValue;
+            this.size = size;
+            prefetchPoint = size < MIN_PREFETCH_SIZE ? -1 : size
+                    * PREFETCH_PERCENTAGE / 100;
+        }
+
+    }
+
     /**
      * 自動生成される識別子のコンテキスト情報を保持するクラスです。
      * 
@@ -120,11 +282,20 @@ public abstract class AbstractPreAllocateIdGenerator extends
      */
     public class IdContext {
 
-        /** 初期値 */
-        protected long initialValue;
+        /** 払い出し中のブロック */
+        protected final AtomicReference<IdBlock> currentBlock = new AtomicReference<IdBlock>();
 
-        /** 割り当て済みの値 */
-        protected long allocated = Long.MAX_VALUE;
+        /** 先読みしたブロックのキュー */
+        protected final Queue<IdBlock> reservedBlocks = new ConcurrentLinkedQueue<IdBlock>();
+
+        /** 実行中の先読み */
+        protected final AtomicReference<FutureTask<Object>> prefetchTask = new AtomicReference<FutureTask<Object>>();
+
+        /** 一度に取得するブロックの数 */
+        protected volatile int blockCount = 1;
+
+        /** 最後に先読みした時刻 */
+        protected volatile long lastPrefetchTime;
 
         /**
          * 自動生成された識別子の値を返します。
@@ -135,15 +306,138 @@ public abstract class AbstractPreAllocateIdGenerator extends
          *            SQLロガー
          * @return 自動生成された識別子の値
          */
-        public synchronized long getNextValue(
+        public long getNextValue(final JdbcManagerImplementor jdbcManager,
+                final SqlLogger sqlLogger) {
+            for (;;) {
+                final IdBlock block = currentBlock.get();
+                if (block != null) {
+                    final long offset = block.allocated.getAndIncrement();
+                    if (offset < block.size) {
+                        if (offset == block.prefetchPoint) {
+                            prefetch(jdbcManager, sqlLogger);
+                        }
+                        return block.initialValue + offset;
+                    }
+                }
+                switchBlock(jdbcManager, sqlLogger, block);
+            }
+        }
+
+        /**
+         * 使い切ったブロックを次のブロックに切り替えます。
+         * <p>
+         * 先読みしたブロックがない場合は、 実行中の先読みを待つか、 このスレッドでブロックを取得します。
+         * 先読みが間に合わなかった場合は一度に取得するブロックの数を増やします。
+         * </p>
+         * 
+         * @param jdbcManager
+         *            内部的なJDBCマネージャ
+         * @param sqlLogger
+         *            SQLロガー
+         * @param exhausted
+         *            使い切ったブロック
+         */
+        protected synchronized void switchBlock(
                 final JdbcManagerImplementor jdbcManager,
+                final SqlLogger sqlLogger, final IdBlock exhausted) {
+            if (currentBlock.get() != exhausted) {
+                return;
+            }
+            IdBlock next = reservedBlocks.poll();
+            if (next == null) {
+                awaitPrefetch();
+                next = reservedBlocks.poll();
+            }
+            if (next == null) {
+                if (exhausted != null) {
+                    growBlockCount();
+                }
+                reservedBlocks.addAll(allocateIdBlocks(jdbcManager, sqlLogger,
+                        blockCount));
+                next = reservedBlocks.poll();
+            }
+            currentBlock.set(next);
+        }
+
+        /**
+         * 次のブロックを別スレッドで先読みします。
+         * <p>
+         * 先読みしたブロックが残っている場合や先読みを実行中の場合は何もしません。
+         * 動的なデータソースを使用している場合は、 別スレッドからデータソースを選択できないため先読みしません。
+         * </p>
+         * 
+         * @param jdbcManager
+         *            内部的なJDBCマネージャ
+         * @param sqlLogger
+         *            SQLロガー
+         */
+        protected void prefetch(final JdbcManagerImplementor jdbcManager,
                 final SqlLogger sqlLogger) {
-            if (allocated < allocationSize) {
-                return initialValue + allocated++;
+            if (!reservedBlocks.isEmpty() || prefetchTask.get() != null
+                    || jdbcManager.getSelectableDataSourceName() != null) {
+                return;
             }
-            initialValue = getNewInitialValue(jdbcManager, sqlLogger);
-            allocated = 1;
-            return initialValue;
+            final long now = System.currentTimeMillis();
+            final long interval = now - lastPrefetchTime;
+            lastPrefetchTime = now;
+            if (interval < GROW_INTERVAL) {
+                growBlockCount();
+            } else if (interval > SHRINK_INTERVAL) {
+                shrinkBlockCount();
+            }
+            final int count = blockCount;
+            final FutureTask<Object> task = new FutureTask<Object>(
+                    new Runnable() {
+
+                        public void run() {
+                            try {
+                                reservedBlocks.addAll(allocateIdBlocks(
+                                        jdbcManager, sqlLogger, count));
+                            } catch (final Throwable t) {
+                                logger.log("ESSR0017", new Object[] { t }, t);
+                            } finally {
+                                prefetchTask.set(null);
+                            }
+                        }
+
+                    }, null);
+            if (prefetchTask.compareAndSet(null, task)) {
+                try {
+                    getPrefetchExecutor().execute(task);
+                } catch (final RejectedExecutionException e) {
+                    prefetchTask.set(null);
+                }
+            }
+        }
+
+        /**
+         * 実行中の先読みが終了するまで待機します。
+         */
+        protected void awaitPrefetch() {
+            final FutureTask<Object> task = prefetchTask.get();
+            if (task == null) {
+                return;
+            }
+            try {
+                task.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (final ExecutionException e) {
+            }
+        }
+
+        /**
+         * 一度に取得するブロックの数を増やします。
+         */
+        protected void growBlockCount() {
+            blockCount = Math.min(blockCount * 2, MAX_BLOCK_COUNT);
+        }
+
+        /**
+         * 一度に取得するブロックの数を減らします。
+         */
+        protected void shrinkBlockCount() {
+            blockCount = Math.max(blockCount / 2, 1);
         }
 
     }
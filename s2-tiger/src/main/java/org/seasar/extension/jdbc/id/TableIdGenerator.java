@@ -15,6 +15,9 @@
  */
 package org.seasar.extension.jdbc.id;
 
+import java.util.Collections;
+import java.util.List;
+
 import javax.persistence.TableGenerator;
 import javax.sql.DataSource;
 
@@ -100,6 +103,38 @@ public class TableIdGenerator extends AbstractPreAllocateIdGenerator {
     @Override
     protected long getNewInitialValue(final JdbcManagerImplementor jdbcManager,
             final SqlLogger sqlLogger) {
+        return getNewInitialValue(jdbcManager, sqlLogger, allocationSize);
+    }
+
+    /**
+     * 一度のラウンドトリップで連続したブロックを取得します。
+     */
+    @Override
+    protected List<IdBlock> allocateIdBlocks(
+            final JdbcManagerImplementor jdbcManager,
+            final SqlLogger sqlLogger, final int blockCount) {
+        final long size = allocationSize * blockCount;
+        return Collections.singletonList(new IdBlock(getNewInitialValue(
+                jdbcManager, sqlLogger, size), size));
+    }
+
+    /**
+     * 指定されたサイズを割り当てて次の初期値を返します。
+     * <p>
+     * サイズが割り当てサイズと等しい場合は、 サブクラスでオーバーライドされていても呼び出されるように
+     * {@link #updateIdTable(JdbcManagerImplementor)}で採番テーブルを更新します。
+     * </p>
+     * 
+     * @param jdbcManager
+     *            内部的なJDBCマネージャ
+     * @param sqlLogger
+     *            SQLロガー
+     * @param size
+     *            割り当てるサイズ
+     * @return 次の初期値
+     */
+    protected long getNewInitialValue(final JdbcManagerImplementor jdbcManager,
+            final SqlLogger sqlLogger, final long size) {
         try {
             final TransactionManagerAdapter txAdapter = SingletonS2Container
                     .getComponent(TransactionManagerAdapter.class);
@@ -109,11 +144,14 @@ public class TableIdGenerator extends AbstractPreAllocateIdGenerator {
                         public Object execute(
                                 final TransactionManagerAdapter adapter)
                                 throws Throwable {
-                            return updateIdTable(jdbcManager);
+                            if (size == allocationSize) {
+                                return updateIdTable(jdbcManager);
+                            }
+                            return updateIdTable(jdbcManager, size);
                         }
 
                     });
-            return Number.class.cast(result).longValue() - allocationSize;
+            return Number.class.cast(result).longValue() - size;
         } catch (final IdGenerationFailedRuntimeException e) {
             throw e;
         } catch (final Throwable t) {
@@ -133,10 +171,27 @@ public class TableIdGenerator extends AbstractPreAllocateIdGenerator {
      * @return 次の識別子の値
      */
     protected Number updateIdTable(final JdbcManagerImplementor jdbcManager) {
+        return updateIdTable(jdbcManager, allocationSize);
+    }
+
+    /**
+     * 採番テーブルを指定されたサイズだけ更新して次の識別子の値を返します。
+     * <p>
+     * このメソッドはエンティティのINSERTとは独立したトランザクションで実行されます。
+     * </p>
+     * 
+     * @param jdbcManager
+     *            内部的なJDBCマネージャ
+     * @param size
+     *            割り当てるサイズ
+     * @return 次の識別子の値
+     */
+    protected Number updateIdTable(final JdbcManagerImplementor jdbcManager,
+            final long size) {
         final DataSource ds = jdbcManager.getDataSource();
         final BasicUpdateHandler updateHandler = new BasicUpdateHandler(ds,
                 updateSql);
-        final int rows = updateHandler.execute(new Object[] { allocationSize,
+        final int rows = updateHandler.execute(new Object[] { size,
                 pkColumnValue });
         if (rows != 1) {
             throw new IdGenerationFailedRuntimeException(entityMeta.getName(),
@@ -112,6 +112,10 @@ public class JdbcContextImpl implements JdbcContext {
         return transactional;
     }
 
+    public Connection getConnection() {
+        return connection;
+    }
+
     public Statement getStatement() {
         if (statement != null) {
             return statement;
@@ -17,6 +17,7 @@ package org.seasar.extension.jdbc.manager;
 
 import java.sql.Connection;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import javax.sql.DataSource;
@@ -54,11 +55,13 @@ import org.seasar.extension.jdbc.exception.NoIdPropertyRuntimeException;
 import org.seasar.extension.jdbc.query.AutoBatchDeleteImpl;
 import org.seasar.extension.jdbc.query.AutoBatchInsertImpl;
 import org.seasar.extension.jdbc.query.AutoBatchUpdateImpl;
+import org.seasar.extension.jdbc.query.AutoBulkLoadImpl;
 import org.seasar.extension.jdbc.query.AutoDeleteImpl;
 import org.seasar.extension.jdbc.query.AutoFunctionCallImpl;
 import org.seasar.extension.jdbc.query.AutoInsertImpl;
 import org.seasar.extension.jdbc.query.AutoProcedureCallImpl;
 import org.seasar.extension.jdbc.query.AutoSelectImpl;
+import org.seasar.extension.jdbc.query.AutoSelectPlanCache;
 import org.seasar.extension.jdbc.query.AutoUpdateImpl;
 import org.seasar.extension.jdbc.query.SqlBatchUpdateImpl;
 import org.seasar.extension.jdbc.query.SqlFileBatchUpdateImpl;
@@ -135,6 +138,11 @@ public class JdbcManagerImpl implements JdbcManager, JdbcManagerImplementor {
      */
     protected boolean allowVariableSqlForBatchUpdate = true;
 
+    /**
+     * 自動検索のSQLとマッパーのキャッシュです。
+     */
+    protected AutoSelectPlanCache autoSelectPlanCache = new AutoSelectPlanCache();
+
     public <T> AutoSelect<T> from(Class<T> baseClass) {
         return new AutoSelectImpl<T>(this, baseClass).maxRows(maxRows)
                 .fetchSize(fetchSize).queryTimeout(queryTimeout);
@@ -186,6 +194,30 @@ public class JdbcManagerImpl implements JdbcManager, JdbcManagerImplementor {
                 .queryTimeout(queryTimeout);
     }
 
+    public <T> AutoBatchInsert<T> insertBatch(final Iterable<T> entities) {
+        if (entities == null) {
+            throw new NullPointerException("entities");
+        }
+        return insertBatch(entities.iterator());
+    }
+
+    public <T> AutoBatchInsert<T> insertBatch(final Iterator<T> entities) {
+        return new AutoBatchInsertImpl<T>(this, entities)
+                .queryTimeout(queryTimeout);
+    }
+
+    public <T> AutoBatchInsert<T> bulkLoad(final Iterable<T> entities) {
+        if (entities == null) {
+            throw new NullPointerException("entities");
+        }
+        return bulkLoad(entities.iterator());
+    }
+
+    public <T> AutoBatchInsert<T> bulkLoad(final Iterator<T> entities) {
+        return new AutoBulkLoadImpl<T>(this, entities)
+                .queryTimeout(queryTimeout);
+    }
+
     public <T> AutoUpdate<T> update(final T entity) {
         final EntityMeta entityMeta = entityMetaFactory.getEntityMeta(entity
                 .getClass());
@@ -230,6 +262,23 @@ public class JdbcManagerImpl implements JdbcManager, JdbcManagerImplementor {
                 .queryTimeout(queryTimeout);
     }
 
+    public <T> AutoBatchUpdate<T> updateBatch(final Iterable<T> entities) {
+        if (entities == null) {
+            throw new NullPointerException("entities");
+        }
+        return updateBatch(entities.iterator());
+    }
+
+    public <T> AutoBatchUpdate<T> updateBatch(final Iterator<T> entities) {
+        final AutoBatchUpdateImpl<T> batch = new AutoBatchUpdateImpl<T>(this, entities);
+        final EntityMeta entityMeta = batch.getEntityMeta();
+        if (entityMeta.getIdPropertyMetaList().isEmpty()) {
+            throw new NoIdPropertyRuntimeException("ESSR0761", entityMeta
+                    .getName());
+        }
+        return batch.queryTimeout(queryTimeout);
+    }
+
     public SqlUpdate updateBySql(String sql, Class<?>... paramClasses) {
         return new SqlUpdateImpl(this, sql, paramClasses)
                 .queryTimeout(queryTimeout);
@@ -305,6 +354,23 @@ public class JdbcManagerImpl implements JdbcManager, JdbcManagerImplementor {
                 .queryTimeout(queryTimeout);
     }
 
+    public <T> AutoBatchDelete<T> deleteBatch(final Iterable<T> entities) {
+        if (entities == null) {
+            throw new NullPointerException("entities");
+        }
+        return deleteBatch(entities.iterator());
+    }
+
+    public <T> AutoBatchDelete<T> deleteBatch(final Iterator<T> entities) {
+        final AutoBatchDeleteImpl<T> batch = new AutoBatchDeleteImpl<T>(this, entities);
+        final EntityMeta entityMeta = batch.getEntityMeta();
+        if (entityMeta.getIdPropertyMetaList().isEmpty()) {
+            throw new NoIdPropertyRuntimeException("ESSR0762", entityMeta
+                    .getName());
+        }
+        return batch.queryTimeout(queryTimeout);
+    }
+
     public AutoProcedureCall call(String procedureName) {
         return call(procedureName, null);
     }
@@ -589,6 +655,31 @@ public class JdbcManagerImpl implements JdbcManager, JdbcManagerImplementor {
         this.allowVariableSqlForBatchUpdate = allowVariableSqlForBatchUpdate;
     }
 
+    /**
+     * 自動検索のSQLとマッパーのキャッシュを返します。
+     * 
+     * @return 自動検索のSQLとマッパーのキャッシュ、キャッシュしない場合は<code>null</code>
+     */
+    public AutoSelectPlanCache getAutoSelectPlanCache() {
+        return autoSelectPlanCache;
+    }
+
+    /**
+     * 自動検索のSQLとマッパーをキャッシュする問い合わせの形の数の上限を設定します。
+     * <p>
+     * <code>0</code>以下の場合はキャッシュしません。デフォルトは{@link AutoSelectPlanCache#DEFAULT_LIMIT_SIZE}です。
+     * </p>
+     * 
+     * @param autoSelectPlanCacheSize
+     *            キャッシュする問い合わせの形の数の上限
+     */
+    public void setAutoSelectPlanCacheSize(int autoSelectPlanCacheSize) {
+        clearAutoSelectPlanCache();
+        autoSelectPlanCache = autoSelectPlanCacheSize > 0 ? new AutoSelectPlanCache(
+                autoSelectPlanCacheSize)
+                : null;
+    }
+
     /**
      * データソースファクトリを返します。
      * 
@@ -625,6 +716,7 @@ public class JdbcManagerImpl implements JdbcManager, JdbcManagerImplementor {
      */
     public void setDialect(DbmsDialect dialect) {
         this.dialect = dialect;
+        clearAutoSelectPlanCache();
     }
 
     /**
@@ -644,6 +736,16 @@ public class JdbcManagerImpl implements JdbcManager, JdbcManagerImplementor {
      */
     public void setEntityMetaFactory(EntityMetaFactory entityMetaFactory) {
         this.entityMetaFactory = entityMetaFactory;
+        clearAutoSelectPlanCache();
+    }
+
+    /**
+     * 自動検索のSQLとマッパーのキャッシュを空にします。
+     */
+    protected void clearAutoSelectPlanCache() {
+        if (autoSelectPlanCache != null) {
+            autoSelectPlanCache.clear();
+        }
     }
 
     public PersistenceConvention getPersistenceConvention() {
@@ -16,20 +16,27 @@
 package org.seasar.extension.jdbc.query;
 
 import java.sql.PreparedStatement;
+import java.util.Iterator;
 import java.util.List;
 
 import javax.persistence.OptimisticLockException;
 
 import org.seasar.extension.jdbc.BatchUpdate;
+import org.seasar.extension.jdbc.BatchUpdateListener;
 import org.seasar.extension.jdbc.DbmsDialect;
 import org.seasar.extension.jdbc.EntityMeta;
 import org.seasar.extension.jdbc.JdbcContext;
 import org.seasar.extension.jdbc.exception.SEntityExistsException;
 import org.seasar.extension.jdbc.exception.SOptimisticLockException;
 import org.seasar.extension.jdbc.manager.JdbcManagerImplementor;
+import org.seasar.extension.tx.TransactionCallback;
+import org.seasar.extension.tx.TransactionManagerAdapter;
+import org.seasar.framework.container.SingletonS2Container;
 import org.seasar.framework.exception.EmptyRuntimeException;
+import org.seasar.framework.exception.SRuntimeException;
 import org.seasar.framework.util.PreparedStatementUtil;
 import org.seasar.framework.util.StatementUtil;
+import org.seasar.framework.util.tiger.CollectionsUtil;
 
 /**
  * バッチ更新の抽象クラスです。
@@ -43,9 +50,30 @@ import org.seasar.framework.util.StatementUtil;
 public abstract class AbstractAutoBatchUpdate<T, S extends BatchUpdate<S>>
         extends AbstractQuery<S> implements BatchUpdate<S> {
 
-    /** エンティティのリスト */
+    /**
+     * {@link Iterator}からエンティティを取り出す場合にバッチサイズが決まらないときのバッチサイズ
+     */
+    protected static final int DEFAULT_ITERATION_BATCH_SIZE = 1000;
+
+    /** 更新した行数の空の配列 */
+    protected static final int[] EMPTY_ROWS = new int[0];
+
+    /**
+     * エンティティのリスト
+     * <p>
+     * エンティティを{@link Iterator}で渡した場合は、 実行中のバッチに含まれるエンティティのリストです。
+     * </p>
+     */
     protected final List<T> entities;
 
+    /**
+     * エンティティを取り出す{@link Iterator}
+     * <p>
+     * エンティティを{@link List}で渡した場合は<code>null</code>です。
+     * </p>
+     */
+    protected final Iterator<T> entityIterator;
+
     /** エンティティメタデータ */
     protected final EntityMeta entityMeta;
 
@@ -58,6 +86,18 @@ public abstract class AbstractAutoBatchUpdate<T, S extends BatchUpdate<S>>
      */
     protected boolean suppresOptimisticLockException;
 
+    /** バッチ更新の進捗を通知するリスナー */
+    protected BatchUpdateListener listener;
+
+    /** コミットするまでに実行するバッチの回数 */
+    protected int commitInterval;
+
+    /** 実行したバッチの数 */
+    protected int batchCount;
+
+    /** 処理したエンティティの数 */
+    protected long entityCount;
+
     /**
      * @param jdbcManager
      *            内部的なJDBCマネージャ
@@ -76,19 +116,75 @@ public abstract class AbstractAutoBatchUpdate<T, S extends BatchUpdate<S>>
             throw new EmptyRuntimeException("entities");
         }
         this.entities = entities;
+        entityIterator = null;
         entityMeta = jdbcManager.getEntityMetaFactory().getEntityMeta(
                 entities.get(0).getClass());
     }
 
+    /**
+     * @param jdbcManager
+     *            内部的なJDBCマネージャ
+     * @param entities
+     *            エンティティの{@link Iterator}
+     * @throws EmptyRuntimeException
+     *             エンティティの{@link Iterator}が空の場合
+     */
+    public AbstractAutoBatchUpdate(final JdbcManagerImplementor jdbcManager,
+            final Iterator<T> entities) {
+        super(jdbcManager);
+        if (entities == null) {
+            throw new NullPointerException("entities");
+        }
+        if (!entities.hasNext()) {
+            throw new EmptyRuntimeException("entities");
+        }
+        final T entity = entities.next();
+        this.entities = CollectionsUtil.newArrayList();
+        this.entities.add(entity);
+        entityIterator = entities;
+        entityMeta = jdbcManager.getEntityMetaFactory().getEntityMeta(
+                entity.getClass());
+    }
+
     @SuppressWarnings("unchecked")
     public S batchSize(final int batchSize) {
         this.batchSize = batchSize;
         return (S) this;
     }
 
+    /**
+     * バッチ更新の進捗を通知するリスナーを設定します。
+     * 
+     * @param listener
+     *            バッチ更新の進捗を通知するリスナー
+     * @return このインスタンス自身
+     */
+    @SuppressWarnings("unchecked")
+    public S listener(final BatchUpdateListener listener) {
+        this.listener = listener;
+        return (S) this;
+    }
+
+    /**
+     * 指定した回数のバッチを実行するごとにコミットします。
+     * 
+     * @param commitInterval
+     *            コミットするまでに実行するバッチの回数
+     * @return このインスタンス自身
+     */
+    @SuppressWarnings("unchecked")
+    public S commitInterval(final int commitInterval) {
+        this.commitInterval = commitInterval;
+        return (S) this;
+    }
+
     public int[] execute() {
         prepare("executeBatch");
         try {
+            if (entityIterator != null) {
+                executeIteration();
+                return EMPTY_ROWS;
+            }
             return executeInternal();
         } catch (final RuntimeException e) {
             if (getJdbcManager().getDialect().isUniqueConstraintViolation(e)) {
@@ -102,6 +198,9 @@ public abstract class AbstractAutoBatchUpdate<T, S extends BatchUpdate<S>>
 
     /**
      * エンティティのリストを返します。
+     * <p>
+     * エンティティを{@link Iterator}で渡した場合は、 実行中のバッチに含まれるエンティティのリストを返します。
+     * </p>
      * 
      * @return エンティティのリスト
      */
@@ -109,6 +208,15 @@ public abstract class AbstractAutoBatchUpdate<T, S extends BatchUpdate<S>>
         return entities;
     }
 
+    /**
+     * エンティティメタデータを返します。
+     * 
+     * @return エンティティメタデータ
+     */
+    public EntityMeta getEntityMeta() {
+        return entityMeta;
+    }
+
     /**
      * SQLを準備します。
      */
@@ -131,8 +239,7 @@ public abstract class AbstractAutoBatchUpdate<T, S extends BatchUpdate<S>>
     protected int[] executeInternal() {
         final JdbcContext jdbcContext = jdbcManager.getJdbcContext();
         try {
-            final PreparedStatement ps = getPreparedStatement(jdbcContext);
-            final int[] rows = executeBatch(ps);
+            final int[] rows = executeBatch(jdbcContext);
             if (entityMeta.hasVersionPropertyMeta()) {
                 incrementVersions();
             }
@@ -144,6 +251,144 @@ public abstract class AbstractAutoBatchUpdate<T, S extends BatchUpdate<S>>
         }
     }
 
+    /**
+     * {@link Iterator}からエンティティを取り出しながらデータベースのバッチ更新を実行します。
+     */
+    protected void executeIteration() {
+        final int batchSize = getIterationBatchSize();
+        if (commitInterval <= 0) {
+            executeIterationBatches(batchSize, 0);
+            return;
+        }
+        while (fetchEntities(batchSize)) {
+            executeIterationBatchesInNewTransaction(batchSize);
+            if (listener != null) {
+                listener.committed(batchCount, entityCount);
+            }
+        }
+    }
+
+    /**
+     * {@link Iterator}からエンティティを取り出しながらバッチを実行します。
+     * 
+     * @param batchSize
+     *            バッチサイズ
+     * @param maxBatches
+     *            実行するバッチの最大数、 <code>0</code>以下なら{@link Iterator}が空になるまで実行します
+     */
+    protected void executeIterationBatches(final int batchSize,
+            final int maxBatches) {
+        final JdbcContext jdbcContext = jdbcManager.getJdbcContext();
+        try {
+            for (int i = 0; (maxBatches <= 0 || i < maxBatches)
+                    && fetchEntities(batchSize); ++i) {
+                executeBatch(jdbcContext);
+                if (entityMeta.hasVersionPropertyMeta()) {
+                    incrementVersions();
+                }
+                entities.clear();
+            }
+        } finally {
+            if (!jdbcContext.isTransactional()) {
+                jdbcContext.destroy();
+            }
+        }
+    }
+
+    /**
+     * 新しいトランザクションで{@link Iterator}からエンティティを取り出しながらバッチを実行します。
+     * 
+     * @param batchSize
+     *            バッチサイズ
+     */
+    protected void executeIterationBatchesInNewTransaction(final int batchSize) {
+        try {
+            getTransactionManagerAdapter().requiresNew(
+                    new TransactionCallback() {
+
+                        public Object execute(
+                                final TransactionManagerAdapter adapter)
+                                throws Throwable {
+                            executeIterationBatches(batchSize, commitInterval);
+                            return null;
+                        }
+
+                    });
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Error e) {
+            throw e;
+        } catch (final Throwable t) {
+            throw new SRuntimeException("ESSR0017", new Object[] { t }, t);
+        }
+    }
+
+    /**
+     * トランザクションマネージャへのアダプタを返します。
+     * 
+     * @return トランザクションマネージャへのアダプタ
+     */
+    protected TransactionManagerAdapter getTransactionManagerAdapter() {
+        return SingletonS2Container
+                .getComponent(TransactionManagerAdapter.class);
+    }
+
+    /**
+     * {@link Iterator}からエンティティを取り出す場合のバッチサイズを返します。
+     * 
+     * @return バッチサイズ
+     */
+    protected int getIterationBatchSize() {
+        if (batchSize > 0) {
+            return batchSize;
+        }
+        final int defaultBatchSize = jdbcManager.getDialect()
+                .getDefaultBatchSize();
+        return defaultBatchSize > 0 ? defaultBatchSize
+                : DEFAULT_ITERATION_BATCH_SIZE;
+    }
+
+    /**
+     * バッチサイズに達するまで{@link Iterator}からエンティティを取り出してエンティティのリストに追加します。
+     * 
+     * @param batchSize
+     *            バッチサイズ
+     * @return エンティティのリストが空でなければ<code>true</code>
+     */
+    protected boolean fetchEntities(final int batchSize) {
+        while (entities.size() < batchSize && entityIterator.hasNext()) {
+            entities.add(entityIterator.next());
+        }
+        return !entities.isEmpty();
+    }
+
+    /**
+     * バッチを実行したことを通知します。
+     * 
+     * @param size
+     *            バッチに含まれるエンティティの数
+     * @param rows
+     *            更新した行数の配列
+     */
+    protected void notifyBatchExecuted(final int size, final int[] rows) {
+        ++batchCount;
+        entityCount += size;
+        if (listener != null) {
+            listener.batchExecuted(batchCount, entityCount, rows);
+        }
+    }
+
+    /**
+     * バッチ更新を実行します。
+     * 
+     * @param jdbcContext
+     *            JDBCコンテキスト
+     * @return 更新された行数の配列
+     */
+    protected int[] executeBatch(final JdbcContext jdbcContext) {
+        return executeBatch(getPreparedStatement(jdbcContext));
+    }
+
     /**
      * バッチ更新を実行します。
      * 
@@ -171,6 +416,7 @@ public abstract class AbstractAutoBatchUpdate<T, S extends BatchUpdate<S>>
                     validateRows(ps, rows);
                 }
                 System.arraycopy(rows, 0, updateRows, pos, rows.length);
+                notifyBatchExecuted(i + 1 - pos, rows);
                 pos = i + 1;
             }
         }
@@ -123,6 +123,7 @@ public abstract class AbstractAutoUpdate<T, S extends Update<S>> extends
             logSql();
             final PreparedStatement ps = getPreparedStatement(jdbcContext);
             final int rows = PreparedStatementUtil.executeUpdate(ps);
+            notifySqlExecuted(rows);
             postExecute(ps);
             if (isOptimisticLock()) {
                 validateRows(rows);
@@ -23,10 +23,12 @@ import java.util.List;
 
 import javax.persistence.TemporalType;
 
+import org.seasar.extension.jdbc.DbmsDialect;
 import org.seasar.extension.jdbc.ParamType;
 import org.seasar.extension.jdbc.PropertyMeta;
 import org.seasar.extension.jdbc.Query;
 import org.seasar.extension.jdbc.ResultSetHandler;
+import org.seasar.extension.jdbc.SqlExecutionLogRegistry;
 import org.seasar.extension.jdbc.SqlLog;
 import org.seasar.extension.jdbc.SqlLogRegistry;
 import org.seasar.extension.jdbc.SqlLogRegistryLocator;
@@ -39,6 +41,8 @@ import org.seasar.extension.jdbc.parameter.LobParameter;
 import org.seasar.extension.jdbc.parameter.TemporalParameter;
 import org.seasar.extension.jdbc.util.BindVariableUtil;
 import org.seasar.extension.sql.SqlArgWrapper;
+import org.seasar.extension.sql.SqlContext;
+import org.seasar.extension.sql.context.SqlContextImpl;
 import org.seasar.framework.exception.SQLRuntimeException;
 import org.seasar.framework.log.Logger;
 import org.seasar.framework.util.ResultSetUtil;
@@ -133,14 +137,13 @@ public abstract class AbstractQuery<S extends Query<S>> implements Query<S>,
         }
         SqlLogRegistry sqlLogRegistry = SqlLogRegistryLocator.getInstance();
         if (sqlLogRegistry != null) {
-            if (completeSql == null) {
-                completeSql = BindVariableUtil.getCompleteSql(sql, vars);
-            }
             Class<?>[] classes = new Class[vars.length];
             for (int i = 0; i < vars.length; ++i) {
                 classes[i] = vars[i].getClass();
             }
-            SqlLog sqlLog = new SqlLogImpl(sql, completeSql, vars, classes);
+            SqlLog sqlLog = completeSql != null ? new SqlLogImpl(sql,
+                    completeSql, vars, classes) : new SqlLogImpl(sql, vars,
+                    classes, null);
             sqlLogRegistry.add(sqlLog);
         }
     }
@@ -169,18 +172,32 @@ public abstract class AbstractQuery<S extends Query<S>> implements Query<S>,
         }
         SqlLogRegistry sqlLogRegistry = SqlLogRegistryLocator.getInstance();
         if (sqlLogRegistry != null) {
-            if (completeSql == null) {
-                vars = getParamValues();
-                valueTypes = getParamValueTypes();
-                completeSql = BindVariableUtil.getCompleteSql(executedSql,
-                        vars, valueTypes);
+            SqlLog sqlLog;
+            if (completeSql != null) {
+                sqlLog = new SqlLogImpl(executedSql, completeSql, vars,
+                        getParamClasses());
+            } else {
+                sqlLog = new SqlLogImpl(executedSql, getParamValues(),
+                        getParamClasses(), getParamValueTypes());
             }
-            SqlLog sqlLog = new SqlLogImpl(executedSql, completeSql, vars,
-                    getParamClasses());
             sqlLogRegistry.add(sqlLog);
         }
     }
 
+    /**
+     * {@link #logSql()}でログに出力したSQLの実行が完了したことを通知します。
+     * 
+     * @param rowCount
+     *            SQLが処理した行数、わからない場合<code>-1</code>
+     */
+    protected void notifySqlExecuted(int rowCount) {
+        SqlLogRegistry sqlLogRegistry = SqlLogRegistryLocator.getInstance();
+        if (sqlLogRegistry instanceof SqlExecutionLogRegistry) {
+            ((SqlExecutionLogRegistry) sqlLogRegistry)
+                    .notifyExecuted(rowCount);
+        }
+    }
+
     /**
      * 検索を呼び出すクラスとメソッド名を準備します。
      * 
@@ -302,6 +319,22 @@ public abstract class AbstractQuery<S extends Query<S>> implements Query<S>,
         return paramList.size();
     }
 
+    /**
+     * SQLファイルを評価するための{@link SqlContext}を作成します。
+     * <p>
+     * 方言がIN句のバインド変数の数を切り上げる場合は、そのように設定します。
+     * </p>
+     * 
+     * @return {@link SqlContext}
+     */
+    protected SqlContext createSqlContext() {
+        SqlContextImpl sqlContext = new SqlContextImpl();
+        DbmsDialect dialect = jdbcManager.getDialect();
+        sqlContext.setInClausePadding(dialect.isInClausePadding());
+        sqlContext.setInClausePaddingLimit(dialect.getInClausePaddingLimit());
+        return sqlContext;
+    }
+
     /**
      * パラメータを追加します。
      * 
@@ -494,4 +527,4 @@ public abstract class AbstractQuery<S extends Query<S>> implements Query<S>,
         completed = true;
     }
 
-}
\ No newline at end of file
+}
@@ -169,7 +169,9 @@ public abstract class AbstractSelect<T, S extends Select<T, S>> extends
         prepare("getResultList");
         logSql();
         try {
-            return getResultListInternal();
+            List<T> ret = getResultListInternal();
+            notifySqlExecuted(ret.size());
+            return ret;
         } finally {
             completed();
         }
@@ -179,7 +181,9 @@ public abstract class AbstractSelect<T, S extends Select<T, S>> extends
         prepare("getSingleResult");
         logSql();
         try {
-            return getSingleResultInternal();
+            T ret = getSingleResultInternal();
+            notifySqlExecuted(ret != null ? 1 : 0);
+            return ret;
         } finally {
             completed();
         }
@@ -189,7 +193,9 @@ public abstract class AbstractSelect<T, S extends Select<T, S>> extends
         prepare("iterate");
         logSql();
         try {
-            return iterateInternal(callback);
+            RESULT ret = iterateInternal(callback);
+            notifySqlExecuted(-1);
+            return ret;
         } finally {
             completed();
         }
@@ -205,7 +211,9 @@ public abstract class AbstractSelect<T, S extends Select<T, S>> extends
         prepare("getCount");
         logSql();
         try {
-            return Long.class.cast(getSingleResultInternal());
+            long ret = Long.class.cast(getSingleResultInternal());
+            notifySqlExecuted(1);
+            return ret;
         } finally {
             completed();
         }
@@ -475,4 +483,4 @@ public abstract class AbstractSelect<T, S extends Select<T, S>> extends
     public int getOffset() {
         return offset;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -15,6 +15,7 @@
  */
 package org.seasar.extension.jdbc.query;
 
+import java.util.Iterator;
 import java.util.List;
 
 import org.seasar.extension.jdbc.AutoBatchDelete;
@@ -56,6 +57,17 @@ public class AutoBatchDeleteImpl<T> extends
         super(jdbcManager, entities);
     }
 
+    /**
+     * @param jdbcManager
+     *            内部的なJDBCマネージャ
+     * @param entities
+     *            エンティティの{@link Iterator}
+     */
+    public AutoBatchDeleteImpl(final JdbcManagerImplementor jdbcManager,
+            final Iterator<T> entities) {
+        super(jdbcManager, entities);
+    }
+
     public AutoBatchDelete<T> ignoreVersion() {
         ignoreVersion = true;
         return this;
@@ -18,6 +18,7 @@ package org.seasar.extension.jdbc.query;
 import java.sql.PreparedStatement;
 import java.sql.Statement;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -25,6 +26,7 @@ import javax.persistence.GenerationType;
 
 import org.seasar.extension.jdbc.AutoBatchInsert;
 import org.seasar.extension.jdbc.AutoBatchUpdate;
+import org.seasar.extension.jdbc.DbmsDialect;
 import org.seasar.extension.jdbc.IdGenerator;
 import org.seasar.extension.jdbc.IntoClause;
 import org.seasar.extension.jdbc.JdbcContext;
@@ -78,6 +80,23 @@ public class AutoBatchInsertImpl<T> extends
     /** {@link Statement#getGeneratedKeys()}を使用する場合は<code>true</code> */
     protected boolean useGetGeneratedKeys;
 
+    /** 複数行のvalues句を持つINSERT文で挿入する場合は<code>true</code> */
+    protected boolean multiRowInsert;
+
+    /**
+     * 複数行のvalues句を持つINSERT文1つで挿入するエンティティの最大数
+     * <p>
+     * 複数行のvalues句を持つINSERT文を使わない場合は<code>0</code>です。
+     * </p>
+     */
+    protected int multiRowInsertSize;
+
+    /** 最後に組み立てた複数行のvalues句を持つINSERT文の行数 */
+    protected int multiRowSqlRows;
+
+    /** 最後に組み立てた複数行のvalues句を持つINSERT文 */
+    protected String multiRowSql;
+
     /**
      * @param jdbcManager
      *            内部的なJDBCマネージャ
@@ -89,6 +108,17 @@ public class AutoBatchInsertImpl<T> extends
         super(jdbcManager, entities);
     }
 
+    /**
+     * @param jdbcManager
+     *            内部的なJDBCマネージャ
+     * @param entities
+     *            エンティティの{@link Iterator}
+     */
+    public AutoBatchInsertImpl(final JdbcManagerImplementor jdbcManager,
+            final Iterator<T> entities) {
+        super(jdbcManager, entities);
+    }
+
     public AutoBatchInsert<T> includes(final CharSequence... propertyNames) {
         includesProperties.addAll(Arrays.asList(toStringArray(propertyNames)));
         return this;
@@ -99,6 +129,11 @@ public class AutoBatchInsertImpl<T> extends
         return this;
     }
 
+    public AutoBatchInsert<T> multiRowInsert() {
+        multiRowInsert = true;
+        return this;
+    }
+
     @Override
     protected void prepare(final String methodName) {
         prepareCallerClassAndMethodName(methodName);
@@ -106,6 +141,7 @@ public class AutoBatchInsertImpl<T> extends
         prepareIntoClause();
         prepareValuesClause();
         prepareSql();
+        prepareMultiRowInsertSize();
     }
 
     /**
@@ -164,6 +200,36 @@ public class AutoBatchInsertImpl<T> extends
         }
     }
 
+    /**
+     * 複数行のvalues句を持つINSERT文1つで挿入するエンティティの最大数を準備します。
+     * <p>
+     * 識別子の値を自動生成するIDジェネレータがバッチ更新をサポートしていない場合や、
+     * 方言が複数行のvalues句を持つINSERT文をサポートしていない場合は使いません。
+     * </p>
+     */
+    protected void prepareMultiRowInsertSize() {
+        if (!multiRowInsert || !supportBatch || useGetGeneratedKeys
+                || targetProperties.isEmpty()) {
+            return;
+        }
+        final DbmsDialect dialect = jdbcManager.getDialect();
+        if (!dialect.supportsMultiRowInsert()) {
+            return;
+        }
+        int size = batchSize > 0 ? batchSize : dialect.getDefaultBatchSize();
+        if (size <= 0) {
+            size = Integer.MAX_VALUE;
+        }
+        final int maxBindVariableSize = dialect.getMaxBindVariableSize();
+        if (maxBindVariableSize > 0) {
+            size = Math.min(size, maxBindVariableSize
+                    / targetProperties.size());
+        }
+        if (size > 1) {
+            multiRowInsertSize = size;
+        }
+    }
+
     /**
      * SQLに変換します。
      * 
@@ -171,12 +237,39 @@ public class AutoBatchInsertImpl<T> extends
      */
     @Override
     protected String toSql() {
+        return toSql(1);
+    }
+
+    /**
+     * 複数行のvalues句を持つSQLに変換します。
+     * 
+     * @param rows
+     *            行数
+     * @return SQL
+     */
+    protected String toSql(final int rows) {
         final String tableName = entityMeta.getTableMeta().getFullName();
+        final String values = valuesClause.toSql(rows);
         final StringBuilder buf = new StringBuilder(INSERT_STATEMENT.length()
                 + tableName.length() + intoClause.getLength()
-                + valuesClause.getLength());
+                + values.length());
         return new String(buf.append(INSERT_STATEMENT).append(tableName)
-                .append(intoClause.toSql()).append(valuesClause.toSql()));
+                .append(intoClause.toSql()).append(values));
+    }
+
+    /**
+     * 複数行のvalues句を持つSQLを返します。
+     * 
+     * @param rows
+     *            行数
+     * @return SQL
+     */
+    protected String getMultiRowSql(final int rows) {
+        if (multiRowSql == null || multiRowSqlRows != rows) {
+            multiRowSql = toSql(rows);
+            multiRowSqlRows = rows;
+        }
+        return multiRowSql;
     }
 
     @Override
@@ -189,6 +282,45 @@ public class AutoBatchInsertImpl<T> extends
         return super.createPreparedStatement(jdbcContext);
     }
 
+    @Override
+    protected int[] executeBatch(final JdbcContext jdbcContext) {
+        if (multiRowInsertSize > 1) {
+            return executeMultiRowInsert(jdbcContext);
+        }
+        return super.executeBatch(jdbcContext);
+    }
+
+    /**
+     * 複数行のvalues句を持つINSERT文でエンティティを挿入します。
+     * 
+     * @param jdbcContext
+     *            JDBCコンテキスト
+     * @return 更新された行数の配列
+     */
+    protected int[] executeMultiRowInsert(final JdbcContext jdbcContext) {
+        final int size = entities.size();
+        final int[] updateRows = new int[size];
+        for (int pos = 0; pos < size;) {
+            final int rows = Math.min(multiRowInsertSize, size - pos);
+            executedSql = getMultiRowSql(rows);
+            final PreparedStatement ps = getPreparedStatement(jdbcContext);
+            for (int i = pos; i < pos + rows; ++i) {
+                prepareParams(entities.get(i));
+            }
+            logSql();
+            prepareInParams(ps);
+            final int count = PreparedStatementUtil.executeUpdate(ps);
+            resetParams();
+            Arrays.fill(updateRows, pos, pos + rows,
+                    count == rows ? 1 : Statement.SUCCESS_NO_INFO);
+            final int[] batchRows = new int[rows];
+            System.arraycopy(updateRows, pos, batchRows, 0, rows);
+            notifyBatchExecuted(rows, batchRows);
+            pos += rows;
+        }
+        return updateRows;
+    }
+
     @Override
     protected int[] executeBatch(PreparedStatement ps) {
         if (supportBatch) {
@@ -204,6 +336,7 @@ public class AutoBatchInsertImpl<T> extends
             postExecute(ps, entity);
             resetParams();
         }
+        notifyBatchExecuted(updateRows.length, updateRows);
         return updateRows;
     }
 
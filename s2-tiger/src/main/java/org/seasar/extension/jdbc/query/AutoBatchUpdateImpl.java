@@ -17,6 +17,7 @@ package org.seasar.extension.jdbc.query;
 
 import java.lang.reflect.Field;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -77,6 +78,17 @@ public class AutoBatchUpdateImpl<T> extends
         super(jdbcManager, entities);
     }
 
+    /**
+     * @param jdbcManager
+     *            内部的なJDBCマネージャ
+     * @param entities
+     *            エンティティの{@link Iterator}
+     */
+    public AutoBatchUpdateImpl(final JdbcManagerImplementor jdbcManager,
+            final Iterator<T> entities) {
+        super(jdbcManager, entities);
+    }
+
     public AutoBatchUpdate<T> includesVersion() {
         includeVersion = true;
         return this;
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.query;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.seasar.extension.jdbc.AutoBatchInsert;
+import org.seasar.extension.jdbc.DbmsDialect;
+import org.seasar.extension.jdbc.JdbcContext;
+import org.seasar.extension.jdbc.manager.JdbcManagerImplementor;
+
+/**
+ * バルクロードを行う{@link AutoBatchInsert}の実装クラスです。
+ * <p>
+ * 方言がベンダー固有の高速な経路をサポートしている場合は
+ * {@link DbmsDialect#bulkLoad(java.sql.Connection, String, List, Iterator, int)}でロードします。
+ * それ以外の場合は、 {@link Iterator}からエンティティを取り出しながら複数行のvalues句を持つINSERT文のバッチ更新で挿入します。
+ * </p>
+ * <p>
+ * ベンダー固有の経路でロードした場合、 {@link #commitInterval(int)}は無視され、
+ * リスナーにはロードが終わった時に一度だけ通知されます。 このとき更新した行数の配列は空です。
+ * </p>
+ * 
+ * @param <T>
+ *            エンティティの型です。
+ */
+public class AutoBulkLoadImpl<T> extends AutoBatchInsertImpl<T> {
+
+    /**
+     * @param jdbcManager
+     *            内部的なJDBCマネージャ
+     * @param entities
+     *            エンティティの{@link Iterator}
+     */
+    public AutoBulkLoadImpl(final JdbcManagerImplementor jdbcManager,
+            final Iterator<T> entities) {
+        super(jdbcManager, entities);
+        multiRowInsert = true;
+    }
+
+    @Override
+    protected void executeIteration() {
+        if (!isBulkLoadTarget() || executeBulkLoad() < 0) {
+            super.executeIteration();
+        }
+    }
+
+    /**
+     * ベンダー固有の経路でロードできる場合は<code>true</code>を返します。
+     * <p>
+     * 識別子の値を自動生成するIDジェネレータがバッチ更新をサポートしていない場合はロードできません。
+     * </p>
+     * 
+     * @return ベンダー固有の経路でロードできる場合は<code>true</code>
+     */
+    protected boolean isBulkLoadTarget() {
+        return supportBatch && !useGetGeneratedKeys
+                && jdbcManager.getDialect().supportsBulkLoad(targetProperties);
+    }
+
+    /**
+     * ベンダー固有の経路でロードします。
+     * 
+     * @return ロードした行数。JDBCドライバが必要なAPIを提供していない場合は<code>-1</code>
+     */
+    protected long executeBulkLoad() {
+        final JdbcContext jdbcContext = jdbcManager.getJdbcContext();
+        try {
+            final long count = jdbcManager.getDialect().bulkLoad(
+                    jdbcContext.getConnection(),
+                    entityMeta.getTableMeta().getFullName(), targetProperties,
+                    new RowIterator(), getIterationBatchSize());
+            if (count >= 0) {
+                ++batchCount;
+                entityCount += count;
+                if (listener != null) {
+                    listener.batchExecuted(batchCount, entityCount, EMPTY_ROWS);
+                }
+            }
+            return count;
+        } finally {
+            if (!jdbcContext.isTransactional()) {
+                jdbcContext.destroy();
+            }
+        }
+    }
+
+    /**
+     * エンティティを取り出してロードする行の値の配列に変換する{@link Iterator}です。
+     * 
+     */
+    protected class RowIterator implements Iterator<Object[]> {
+
+        public boolean hasNext() {
+            return !entities.isEmpty() || entityIterator.hasNext();
+        }
+
+        public Object[] next() {
+            final T entity = entities.isEmpty() ? entityIterator.next()
+                    : entities.remove(0);
+            prepareParams(entity);
+            final Object[] values = getParamValues();
+            resetParams();
+            return values;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
+
+    }
+
+}
@@ -18,7 +18,9 @@ package org.seasar.extension.jdbc.query;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -56,6 +58,7 @@ import org.seasar.extension.jdbc.handler.BeanAutoResultSetHandler;
 import org.seasar.extension.jdbc.handler.BeanIterationAutoResultSetHandler;
 import org.seasar.extension.jdbc.handler.BeanListAutoResultSetHandler;
 import org.seasar.extension.jdbc.handler.ObjectResultSetHandler;
+import org.seasar.extension.jdbc.manager.JdbcManagerImpl;
 import org.seasar.extension.jdbc.manager.JdbcManagerImplementor;
 import org.seasar.extension.jdbc.mapper.AbstractEntityMapper;
 import org.seasar.extension.jdbc.mapper.AbstractRelationshipEntityMapper;
@@ -414,6 +417,15 @@ public class AutoSelectImpl<T> extends AbstractSelect<T, AutoSelect<T>>
     @Override
     protected void prepare(String methodName) {
         prepareCallerClassAndMethodName(methodName);
+        final AutoSelectPlanCache planCache = getAutoSelectPlanCache();
+        final Object planKey = planCache != null ? createPlanKey() : null;
+        if (planKey != null) {
+            final AutoSelectPlan plan = planCache.get(planKey);
+            if (plan != null) {
+                preparePlan(plan);
+                return;
+            }
+        }
         prepareTarget();
         prepareJoins();
         prepareIdVersion();
@@ -424,6 +436,116 @@ public class AutoSelectImpl<T> extends AbstractSelect<T, AutoSelect<T>>
         prepareForUpdate();
         prepareParams();
         prepareSql();
+        if (planKey != null) {
+            planCache.put(planKey, createPlan());
+        }
+    }
+
+    /**
+     * 自動検索のSQLとマッパーのキャッシュを返します。
+     * <p>
+     * キャッシュは{@link JdbcManagerImpl}が保持します。 それ以外の{@link JdbcManagerImplementor}の場合はキャッシュしません。
+     * </p>
+     * 
+     * @return 自動検索のSQLとマッパーのキャッシュ、キャッシュしない場合は<code>null</code>
+     */
+    protected AutoSelectPlanCache getAutoSelectPlanCache() {
+        if (jdbcManager instanceof JdbcManagerImpl) {
+            return ((JdbcManagerImpl) jdbcManager).getAutoSelectPlanCache();
+        }
+        return null;
+    }
+
+    /**
+     * 問い合わせの形を表すキーを作成します。
+     * <p>
+     * キーにはSQLとマッパーを決めるすべての指定を含めます。 パラメータの値によってSQLが変わる
+     * {@link #where(Map)}を使った場合や、サブクラスの場合はキャッシュしないので<code>null</code>を返します。
+     * </p>
+     * 
+     * @return 問い合わせの形を表すキー、キャッシュしない場合は<code>null</code>
+     */
+    protected Object createPlanKey() {
+        if (getClass() != AutoSelectImpl.class || conditions != null
+                && !conditions.isEmpty()) {
+            return null;
+        }
+        final List<Object> key = new ArrayList<Object>(32);
+        key.add(baseClass);
+        key.add(count);
+        key.add(limit);
+        key.add(offset);
+        key.add(hint);
+        key.add(new HashSet<String>(includesProperties));
+        key.add(new HashSet<String>(excludesProperties));
+        key.add(new HashSet<String>(eagerProperties));
+        key.add(joinMetaList.size());
+        for (final JoinMeta joinMeta : joinMetaList) {
+            key.add(joinMeta.getName());
+            key.add(joinMeta.getJoinType());
+            key.add(joinMeta.isFetch());
+            key.add(joinMeta.getCondition());
+            final String[] propertyNames = joinMeta
+                    .getConditionPropertyNames();
+            key.add(propertyNames != null ? Arrays.asList(propertyNames)
+                    : null);
+        }
+        if (idProperties != null) {
+            final List<Boolean> nulls = new ArrayList<Boolean>(
+                    idProperties.length);
+            for (final Object idProperty : idProperties) {
+                nulls.add(idProperty == null);
+            }
+            key.add(nulls);
+        } else {
+            key.add(null);
+        }
+        key.add(versionProperty != null);
+        key.add(whereParams.size());
+        key.add(criteria);
+        key.add(Arrays.asList(criteriaPropertyNames));
+        key.add(orderBy);
+        key.add(forUpdateType);
+        key.add(forUpdateWaitSeconds);
+        key.add(new ArrayList<String>(forUpdateTargets.keySet()));
+        key.add(new ArrayList<String>(forUpdateTargets.values()));
+        return key;
+    }
+
+    /**
+     * 組み立てたSQLとマッパーから{@link AutoSelectPlan}を作成します。
+     * 
+     * @return {@link AutoSelectPlan}
+     */
+    protected AutoSelectPlan createPlan() {
+        return new AutoSelectPlan(executedSql, getValueTypes(),
+                new HashMap<String, AbstractEntityMapper>(entityMapperMap),
+                new HashMap<String, String>(tableAliasMap),
+                new HashMap<String, EntityMeta>(entityMetaMap), entityName);
+    }
+
+    /**
+     * キャッシュされた{@link AutoSelectPlan}を使って準備をします。
+     * <p>
+     * SQLとマッパーは{@link AutoSelectPlan}のものを使い、パラメータだけを準備します。
+     * </p>
+     * 
+     * @param plan
+     *            {@link AutoSelectPlan}
+     */
+    protected void preparePlan(final AutoSelectPlan plan) {
+        entityName = plan.entityName;
+        tableAliasMap.putAll(plan.tableAliasMap);
+        entityMetaMap.putAll(plan.entityMetaMap);
+        entityMapperMap.putAll(plan.entityMapperMap);
+        valueTypeList.addAll(Arrays.asList(plan.valueTypes));
+        for (final JoinMeta joinMeta : joinMetaList) {
+            prepareJoinParams(joinMeta);
+        }
+        prepareIdVersionParams();
+        prepareWhere();
+        prepareParams();
+        executedSql = plan.executedSql;
     }
 
     /**
@@ -735,6 +857,16 @@ public class AutoSelectImpl<T> extends AbstractSelect<T, AutoSelect<T>>
                 inverseEntityMeta.getTableMeta().getFullName(), tableAlias,
                 fkTableAlias, pkTableAlias, joinColumnMetaList, lockHint,
                 convertCriteria(joinMeta.getCondition()));
+        prepareJoinParams(joinMeta);
+    }
+
+    /**
+     * 結合条件のパラメータを準備します。
+     * 
+     * @param joinMeta
+     *            結合メタデータ
+     */
+    protected void prepareJoinParams(JoinMeta joinMeta) {
         if (!StringUtil.isEmpty(joinMeta.getCondition())) {
             final Object[] params = joinMeta.getConditionParams();
             final String[] propertyNames = joinMeta.getConditionPropertyNames();
@@ -1119,6 +1251,14 @@ public class AutoSelectImpl<T> extends AbstractSelect<T, AutoSelect<T>>
                     propertyMeta.getName());
         }
         String columnName = columnMeta.getName();
+        if ((conditionType == ConditionType.IN || conditionType == ConditionType.NOT_IN)
+                && conditionType.isTarget(value)) {
+            if (prepareArrayInCondition(whereTerm, conditionType, tableAlias,
+                    columnName, propertyMeta, value)) {
+                return;
+            }
+            value = padInValues(value);
+        }
         List<Object> valueList = CollectionsUtil.newArrayList();
         int size = conditionType.addCondition(tableAlias, columnName, value,
                 whereTerm, valueList);
@@ -1128,6 +1268,73 @@ public class AutoSelectImpl<T> extends AbstractSelect<T, AutoSelect<T>>
         }
     }
 
+    /**
+     * IN句の代わりに配列をバインドする条件を準備します。
+     * 
+     * @param whereTerm
+     *            WHERE句の項
+     * @param conditionType
+     *            条件タイプ
+     * @param tableAlias
+     *            テーブルエイリアス
+     * @param columnName
+     *            カラム名
+     * @param propertyMeta
+     *            プロパティメタデータ
+     * @param value
+     *            プロパティの値
+     * @return 配列をバインドする条件を準備した場合は<code>true</code>
+     */
+    protected boolean prepareArrayInCondition(WhereClause whereTerm,
+            ConditionType conditionType, String tableAlias, String columnName,
+            PropertyMeta propertyMeta, Object value) {
+        DbmsDialect dialect = jdbcManager.getDialect();
+        Object[] values = value instanceof Collection ? Collection.class.cast(
+                value).toArray() : (Object[]) value;
+        if (!dialect.isArrayInConditionTarget(values.length)) {
+            return false;
+        }
+        ValueType valueType = dialect
+                .getArrayInConditionValueType(propertyMeta);
+        if (valueType == null) {
+            return false;
+        }
+        if (!StringUtil.isEmpty(tableAlias)) {
+            columnName = tableAlias + "." + columnName;
+        }
+        whereTerm.addAndSql(dialect.getArrayInCondition(columnName,
+                conditionType == ConditionType.NOT_IN));
+        addParam(values, Object[].class, valueType);
+        return true;
+    }
+
+    /**
+     * IN句の値を方言に応じたバインド変数の数まで最後の値で埋めます。
+     * 
+     * @param value
+     *            IN句の値
+     * @return 埋めた後の値
+     */
+    protected Object padInValues(Object value) {
+        int size = value instanceof Collection ? Collection.class.cast(value)
+                .size() : ((Object[]) value).length;
+        int bindSize = jdbcManager.getDialect().getInClauseBindSize(size);
+        if (bindSize <= size) {
+            return value;
+        }
+        List<Object> values = CollectionsUtil.newArrayList(bindSize);
+        if (value instanceof Collection) {
+            values.addAll(Collection.class.cast(value));
+        } else {
+            values.addAll(Arrays.asList((Object[]) value));
+        }
+        Object last = values.get(values.size() - 1);
+        while (values.size() < bindSize) {
+            values.add(last);
+        }
+        return values;
+    }
+
     /**
      * クライテリアの準備をします。
      */
@@ -1161,6 +1368,16 @@ public class AutoSelectImpl<T> extends AbstractSelect<T, AutoSelect<T>>
             where.eq(versionPropertyMeta.getName(), versionProperty);
         }
         whereClause.addSql(convertCriteria(where.getCriteria()));
+        prepareIdVersionParams();
+    }
+
+    /**
+     * IDプロパティ及びバージョンのパラメータを準備します。
+     */
+    protected void prepareIdVersionParams() {
+        if (idProperties == null) {
+            return;
+        }
         for (int i = 0; i < idProperties.length; ++i) {
             prepareParams(idPropertyMetaList.get(i).getName(), idProperties[i]);
         }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.query;
+
+import java.util.Map;
+
+import org.seasar.extension.jdbc.EntityMeta;
+import org.seasar.extension.jdbc.ValueType;
+import org.seasar.extension.jdbc.mapper.AbstractEntityMapper;
+
+/**
+ * {@link AutoSelectImpl}が組み立てたSQLとマッパーを保持するクラスです。
+ * <p>
+ * 同じ形の問い合わせで共有されるので、保持している内容を変更してはいけません。
+ * </p>
+ * 
+ */
+class AutoSelectPlan {
+
+    /** 実行するSQL */
+    final String executedSql;
+
+    /** 検索結果の値タイプの配列 */
+    final ValueType[] valueTypes;
+
+    /** 結合名をキー、エンティティマッパーを値とするマップ */
+    final Map<String, AbstractEntityMapper> entityMapperMap;
+
+    /** 結合名をキー、テーブル別名を値とするマップ */
+    final Map<String, String> tableAliasMap;
+
+    /** 結合名をキー、エンティティメタデータを値とするマップ */
+    final Map<String, EntityMeta> entityMetaMap;
+
+    /** エンティティ名 */
+    final String entityName;
+
+    /**
+     * インスタンスを構築します。
+     * 
+     * @param executedSql
+     *            実行するSQL
+     * @param valueTypes
+     *            検索結果の値タイプの配列
+     * @param entityMapperMap
+     *            結合名をキー、エンティティマッパーを値とするマップ
+     * @param tableAliasMap
+     *            結合名をキー、テーブル別名を値とするマップ
+     * @param entityMetaMap
+     *            結合名をキー、エンティティメタデータを値とするマップ
+     * @param entityName
+     *            エンティティ名
+     */
+    AutoSelectPlan(final String executedSql, final ValueType[] valueTypes,
+            final Map<String, AbstractEntityMapper> entityMapperMap,
+            final Map<String, String> tableAliasMap,
+            final Map<String, EntityMeta> entityMetaMap,
+            final String entityName) {
+        this.executedSql = executedSql;
+        this.valueTypes = valueTypes;
+        this.entityMapperMap = entityMapperMap;
+        this.tableAliasMap = tableAliasMap;
+        this.entityMetaMap = entityMetaMap;
+        this.entityName = entityName;
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.query;
+
+import org.seasar.framework.util.Disposable;
+import org.seasar.framework.util.DisposableUtil;
+import org.seasar.framework.util.LruHashMap;
+
+/**
+ * 同じ形の{@link AutoSelectImpl}の問い合わせで、組み立てたSQLとマッパーを再利用するためのキャッシュです。
+ * <p>
+ * キャッシュのキーは、対象のエンティティ、結合、WHERE句の構造、ORDER BY句、LIMIT、OFFSET、ロックモードなど、
+ * SQLとマッパーを決めるすべての指定から作成します。 キャッシュされた問い合わせはパラメータだけを設定し直して実行します。
+ * </p>
+ * <p>
+ * キャッシュはHOT deployなどで{@link DisposableUtil#dispose()}が呼び出されたときに空になります。
+ * </p>
+ * 
+ */
+public class AutoSelectPlanCache {
+
+    /** デフォルトの上限サイズ */
+    public static final int DEFAULT_LIMIT_SIZE = 500;
+
+    private final LruHashMap plans;
+
+    private final Disposable disposable = new Disposable() {
+        public void dispose() {
+            synchronized (AutoSelectPlanCache.this) {
+                plans.clear();
+                registered = false;
+            }
+        }
+    };
+
+    private boolean registered;
+
+    /**
+     * デフォルトの上限サイズを使用してインスタンスを構築します。
+     */
+    public AutoSelectPlanCache() {
+        this(DEFAULT_LIMIT_SIZE);
+    }
+
+    /**
+     * 上限サイズを指定してインスタンスを構築します。
+     * 
+     * @param limitSize
+     *            キャッシュする問い合わせの形の数の上限
+     */
+    public AutoSelectPlanCache(final int limitSize) {
+        plans = new LruHashMap(limitSize);
+    }
+
+    /**
+     * キャッシュする問い合わせの形の数の上限を返します。
+     * 
+     * @return キャッシュする問い合わせの形の数の上限
+     */
+    public int getLimitSize() {
+        return plans.getLimitSize();
+    }
+
+    /**
+     * キャッシュしている問い合わせの形の数を返します。
+     * 
+     * @return キャッシュしている問い合わせの形の数
+     */
+    public synchronized int size() {
+        return plans.size();
+    }
+
+    /**
+     * キャッシュを空にします。
+     */
+    public synchronized void clear() {
+        plans.clear();
+        if (registered) {
+            DisposableUtil.remove(disposable);
+            registered = false;
+        }
+    }
+
+    /**
+     * キャッシュしている{@link AutoSelectPlan}を返します。
+     * 
+     * @param key
+     *            問い合わせの形を表すキー
+     * @return キャッシュしている{@link AutoSelectPlan}、キャッシュしていない場合は<code>null</code>
+     */
+    synchronized AutoSelectPlan get(final Object key) {
+        return (AutoSelectPlan) plans.get(key);
+    }
+
+    /**
+     * {@link AutoSelectPlan}をキャッシュします。
+     * 
+     * @param key
+     *            問い合わせの形を表すキー
+     * @param plan
+     *            {@link AutoSelectPlan}
+     */
+    @SuppressWarnings("unchecked")
+    synchronized void put(final Object key, final AutoSelectPlan plan) {
+        if (!registered) {
+            DisposableUtil.add(disposable);
+            registered = true;
+        }
+        plans.put(key, plan);
+    }
+
+}
@@ -32,7 +32,6 @@ import org.seasar.extension.jdbc.types.ValueTypes;
 import org.seasar.extension.sql.Node;
 import org.seasar.extension.sql.SqlContext;
 import org.seasar.extension.sql.cache.NodeCache;
-import org.seasar.extension.sql.context.SqlContextImpl;
 import org.seasar.framework.beans.BeanDesc;
 import org.seasar.framework.beans.PropertyDesc;
 import org.seasar.framework.beans.factory.BeanDescFactory;
@@ -206,7 +205,7 @@ public class SqlFileBatchUpdateImpl<T> extends
      *            パラメータ
      */
     protected void prepareParameter(T parameter) {
-        sqlContext = new SqlContextImpl();
+        sqlContext = createSqlContext();
         if (parameter != null) {
             Class<?> clazz = parameter.getClass();
             if (ValueTypes.isSimpleType(clazz)
@@ -22,7 +22,6 @@ import org.seasar.extension.jdbc.manager.JdbcManagerImplementor;
 import org.seasar.extension.sql.Node;
 import org.seasar.extension.sql.SqlContext;
 import org.seasar.extension.sql.cache.NodeCache;
-import org.seasar.extension.sql.context.SqlContextImpl;
 import org.seasar.framework.exception.ResourceNotFoundRuntimeException;
 
 /**
@@ -138,7 +137,7 @@ public class SqlFileFunctionCallImpl<T> extends
      * SQLを準備します。
      */
     protected void prepareSql() {
-        final SqlContext sqlContext = new SqlContextImpl();
+        final SqlContext sqlContext = createSqlContext();
         node.accept(sqlContext);
         executedSql = sqlContext.getSql();
     }
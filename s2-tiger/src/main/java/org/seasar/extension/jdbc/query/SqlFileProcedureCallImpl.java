@@ -20,7 +20,6 @@ import org.seasar.extension.jdbc.manager.JdbcManagerImplementor;
 import org.seasar.extension.sql.Node;
 import org.seasar.extension.sql.SqlContext;
 import org.seasar.extension.sql.cache.NodeCache;
-import org.seasar.extension.sql.context.SqlContextImpl;
 import org.seasar.framework.exception.ResourceNotFoundRuntimeException;
 
 /**
@@ -132,7 +131,7 @@ public class SqlFileProcedureCallImpl extends
      * SQLを準備します。
      */
     protected void prepareSql() {
-        SqlContext sqlContext = new SqlContextImpl();
+        SqlContext sqlContext = createSqlContext();
         node.accept(sqlContext);
         executedSql = sqlContext.getSql();
     }
@@ -28,7 +28,6 @@ import org.seasar.extension.jdbc.types.ValueTypes;
 import org.seasar.extension.sql.Node;
 import org.seasar.extension.sql.SqlContext;
 import org.seasar.extension.sql.cache.NodeCache;
-import org.seasar.extension.sql.context.SqlContextImpl;
 import org.seasar.framework.beans.BeanDesc;
 import org.seasar.framework.beans.PropertyDesc;
 import org.seasar.framework.beans.factory.BeanDescFactory;
@@ -140,7 +139,7 @@ public class SqlFileSelectImpl<T> extends
      * パラメータを準備します。
      */
     protected void prepareParameter() {
-        sqlContext = new SqlContextImpl();
+        sqlContext = createSqlContext();
         if (parameter != null) {
             Class<?> clazz = parameter.getClass();
             if (ValueTypes.isSimpleType(clazz)
@@ -31,7 +31,6 @@ import org.seasar.extension.jdbc.types.ValueTypes;
 import org.seasar.extension.sql.Node;
 import org.seasar.extension.sql.SqlContext;
 import org.seasar.extension.sql.cache.NodeCache;
-import org.seasar.extension.sql.context.SqlContextImpl;
 import org.seasar.framework.beans.BeanDesc;
 import org.seasar.framework.beans.PropertyDesc;
 import org.seasar.framework.beans.factory.BeanDescFactory;
@@ -135,6 +134,7 @@ public class SqlFileUpdateImpl extends AbstractQuery<SqlFileUpdate> implements
         try {
             PreparedStatement ps = getPreparedStatement(jdbcContext);
             ret = PreparedStatementUtil.executeUpdate(ps);
+            notifySqlExecuted(ret);
         } finally {
             if (!jdbcContext.isTransactional()) {
                 jdbcContext.destroy();
@@ -187,7 +187,7 @@ public class SqlFileUpdateImpl extends AbstractQuery<SqlFileUpdate> implements
      * パラメータを準備します。
      */
     protected void prepareParameter() {
-        sqlContext = new SqlContextImpl();
+        sqlContext = createSqlContext();
         if (parameter != null) {
             Class<?> clazz = parameter.getClass();
             if (ValueTypes.isSimpleType(clazz)
@@ -110,6 +110,7 @@ public class SqlUpdateImpl extends AbstractQuery<SqlUpdate> implements
         try {
             PreparedStatement ps = getPreparedStatement(jdbcContext);
             ret = PreparedStatementUtil.executeUpdate(ps);
+            notifySqlExecuted(ret);
         } finally {
             if (!jdbcContext.isTransactional()) {
                 jdbcContext.destroy();
@@ -138,4 +139,4 @@ public class SqlUpdateImpl extends AbstractQuery<SqlUpdate> implements
     protected void prepare(String methodName) {
         prepareCallerClassAndMethodName(methodName);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
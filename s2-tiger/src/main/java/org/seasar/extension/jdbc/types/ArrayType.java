@@ -0,0 +1,183 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.types;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Array;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.seasar.extension.jdbc.util.BindVariableUtil;
+import org.seasar.framework.exception.IllegalAccessRuntimeException;
+import org.seasar.framework.exception.InvocationTargetRuntimeException;
+import org.seasar.framework.util.ClassUtil;
+
+/**
+ * 配列をSQLの<code>ARRAY</code>としてJDBCで扱うためのクラスです。
+ * <p>
+ * バインドする配列は<code>Connection#createArrayOf(String, Object[])</code>で作成します。
+ * このメソッドはJDBC 4.0で追加されたものなので、リフレクションで呼び出します。
+ * </p>
+ * 
+ */
+public class ArrayType extends AbstractValueType {
+
+    private static final Method CREATE_ARRAY_OF_METHOD = getCreateArrayOfMethod();
+
+    /**
+     * 要素の型名です。
+     */
+    protected final String elementTypeName;
+
+    /**
+     * <code>ArrayType</code>を作成します。
+     * 
+     * @param elementTypeName
+     *            データベースでの要素の型名
+     */
+    public ArrayType(String elementTypeName) {
+        super(Types.ARRAY);
+        this.elementTypeName = elementTypeName;
+    }
+
+    /**
+     * 配列を作成できるかどうかを返します。
+     * 
+     * @return 配列を作成できる場合は<code>true</code>
+     */
+    public static boolean isAvailable() {
+        return CREATE_ARRAY_OF_METHOD != null;
+    }
+
+    public Object getValue(ResultSet resultSet, int index) throws SQLException {
+        return toObjectArray(resultSet.getArray(index));
+    }
+
+    public Object getValue(ResultSet resultSet, String columnName)
+            throws SQLException {
+        return toObjectArray(resultSet.getArray(columnName));
+    }
+
+    public Object getValue(CallableStatement cs, int index) throws SQLException {
+        return toObjectArray(cs.getArray(index));
+    }
+
+    public Object getValue(CallableStatement cs, String parameterName)
+            throws SQLException {
+        return toObjectArray(cs.getArray(parameterName));
+    }
+
+    public void bindValue(PreparedStatement ps, int index, Object value)
+            throws SQLException {
+        if (value == null) {
+            setNull(ps, index);
+        } else {
+            ps.setArray(index, createArray(ps.getConnection(), value));
+        }
+    }
+
+    public void bindValue(CallableStatement cs, String parameterName,
+            Object value) throws SQLException {
+        if (value == null) {
+            setNull(cs, parameterName);
+        } else {
+            cs.setObject(parameterName, createArray(cs.getConnection(), value),
+                    Types.ARRAY);
+        }
+    }
+
+    public String toText(Object value) {
+        if (value == null) {
+            return BindVariableUtil.nullText();
+        }
+        final Object[] array = (Object[]) value;
+        final StringBuilder buf = new StringBuilder(10 + array.length * 5);
+        buf.append("array[");
+        for (int i = 0; i < array.length; ++i) {
+            if (i > 0) {
+                buf.append(", ");
+            }
+            buf.append(BindVariableUtil.toText(array[i]));
+        }
+        return buf.append(']').toString();
+    }
+
+    /**
+     * {@link Array}を作成します。
+     * 
+     * @param connection
+     *            コネクション
+     * @param value
+     *            値の配列
+     * @return {@link Array}
+     * @throws SQLException
+     *             SQL例外が発生した場合
+     */
+    protected Array createArray(final Connection connection, final Object value)
+            throws SQLException {
+        if (CREATE_ARRAY_OF_METHOD == null) {
+            throw new UnsupportedOperationException("createArrayOf");
+        }
+        try {
+            return Array.class.cast(CREATE_ARRAY_OF_METHOD.invoke(connection,
+                    elementTypeName, value));
+        } catch (final InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw SQLException.class.cast(cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw RuntimeException.class.cast(cause);
+            }
+            if (cause instanceof Error) {
+                throw Error.class.cast(cause);
+            }
+            throw new InvocationTargetRuntimeException(Connection.class, e);
+        } catch (final IllegalAccessException e) {
+            throw new IllegalAccessRuntimeException(Connection.class, e);
+        }
+    }
+
+    /**
+     * {@link Array}を配列に変換します。
+     * 
+     * @param array
+     *            {@link Array}
+     * @return 配列
+     * @throws SQLException
+     *             SQL例外が発生した場合
+     */
+    protected Object toObjectArray(final Array array) throws SQLException {
+        if (array == null) {
+            return null;
+        }
+        return array.getArray();
+    }
+
+    private static Method getCreateArrayOfMethod() {
+        try {
+            return ClassUtil.getMethod(Connection.class, "createArrayOf",
+                    new Class[] { String.class, Object[].class });
+        } catch (final RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.seasar.extension.jdbc.PropertyMeta;
+import org.seasar.extension.jdbc.ValueType;
+import org.seasar.extension.jdbc.types.EnumOrdinalType;
+import org.seasar.extension.jdbc.types.EnumType;
+import org.seasar.extension.jdbc.types.ValueTypes;
+
+/**
+ * バルクロードする行をタブ区切りのテキストとして読み込む{@link Reader}です。
+ * <p>
+ * PostgreSQLの<code>COPY FROM STDIN</code>やMySQLの<code>LOAD DATA LOCAL INFILE</code>の
+ * デフォルトのテキスト形式で出力します。 列はタブで、行は改行で区切られ、
+ * <code>null</code>は<code>\N</code>になります。 値に含まれるバックスラッシュ、タブ、改行、復帰はバックスラッシュでエスケープされます。
+ * </p>
+ * <p>
+ * 行は読み込まれるたびに{@link Iterator}から1行ずつ取り出されるので、 すべての行をメモリ上に保持することはありません。
+ * </p>
+ * 
+ */
+public class BulkLoadTextReader extends Reader {
+
+    /** <code>null</code>を表すテキスト */
+    protected static final String NULL_TEXT = "\\N";
+
+    /** テキストとして出力できる{@link ValueType}のセット */
+    protected static final Set<ValueType> TEXT_VALUE_TYPES = new HashSet<ValueType>(
+            Arrays.asList(ValueTypes.STRING, ValueTypes.CHARACTER,
+                    ValueTypes.BYTE, ValueTypes.SHORT, ValueTypes.INTEGER,
+                    ValueTypes.LONG, ValueTypes.FLOAT, ValueTypes.DOUBLE,
+                    ValueTypes.BIGDECIMAL, ValueTypes.BIGINTEGER,
+                    ValueTypes.TIME, ValueTypes.SQLDATE, ValueTypes.TIMESTAMP,
+                    ValueTypes.DATE_SQLDATE, ValueTypes.DATE_TIME,
+                    ValueTypes.DATE_TIMESTAMP, ValueTypes.CALENDAR_SQLDATE,
+                    ValueTypes.CALENDAR_TIME, ValueTypes.CALENDAR_TIMESTAMP,
+                    ValueTypes.BOOLEAN));
+
+    /** 列のプロパティメタデータのリスト */
+    protected final List<PropertyMeta> propertyMetaList;
+
+    /** 行の値の配列を返す{@link Iterator} */
+    protected final Iterator<Object[]> rows;
+
+    /** <code>true</code>を表すテキスト */
+    protected final String trueText;
+
+    /** <code>false</code>を表すテキスト */
+    protected final String falseText;
+
+    /** 現在の行のテキスト */
+    protected final StringBuilder line = new StringBuilder(256);
+
+    /** 現在の行のテキストで次に読み込む位置 */
+    protected int linePos;
+
+    /** 読み込んだ行数 */
+    protected long rowCount;
+
+    /**
+     * インスタンスを構築します。
+     * 
+     * @param propertyMetaList
+     *            列のプロパティメタデータのリスト
+     * @param rows
+     *            行の値の配列を返す{@link Iterator}
+     * @param trueText
+     *            <code>true</code>を表すテキスト
+     * @param falseText
+     *            <code>false</code>を表すテキスト
+     */
+    public BulkLoadTextReader(final List<PropertyMeta> propertyMetaList,
+            final Iterator<Object[]> rows, final String trueText,
+            final String falseText) {
+        this.propertyMetaList = propertyMetaList;
+        this.rows = rows;
+        this.trueText = trueText;
+        this.falseText = falseText;
+    }
+
+    /**
+     * プロパティの値をすべてテキストとして出力できる場合は<code>true</code>を返します。
+     * <p>
+     * すべてのプロパティの{@link ValueType}が{@link #TEXT_VALUE_TYPES}に含まれるか、
+     * {@link EnumType}または{@link EnumOrdinalType}の場合だけ<code>true</code>を返します。
+     * それ以外の{@link ValueType}は値をバインドするときに変換することがあるため、 テキストとしては出力しません。
+     * </p>
+     * 
+     * @param propertyMetaList
+     *            列のプロパティメタデータのリスト
+     * @return プロパティの値をすべてテキストとして出力できる場合は<code>true</code>
+     */
+    public static boolean isTarget(final List<PropertyMeta> propertyMetaList) {
+        for (final PropertyMeta propertyMeta : propertyMetaList) {
+            if (propertyMeta.isLob()) {
+                return false;
+            }
+            final ValueType valueType = propertyMeta.getValueType();
+            if (valueType == null) {
+                return false;
+            }
+            if (!TEXT_VALUE_TYPES.contains(valueType)
+                    && valueType.getClass() != EnumType.class
+                    && valueType.getClass() != EnumOrdinalType.class) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 読み込んだ行数を返します。
+     * 
+     * @return 読み込んだ行数
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (linePos >= line.length() && !nextLine()) {
+            return -1;
+        }
+        final int size = Math.min(len, line.length() - linePos);
+        line.getChars(linePos, linePos + size, cbuf, off);
+        linePos += size;
+        return size;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * 指定のエンコーディングでバイト列として読み込む{@link InputStream}を返します。
+     * 
+     * @param encoding
+     *            エンコーディング
+     * @return {@link InputStream}
+     */
+    public InputStream toInputStream(final String encoding) {
+        return new InputStream() {
+
+            private byte[] bytes = new byte[0];
+
+            private int pos;
+
+            @Override
+            public int read() throws IOException {
+                final byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+            }
+
+            @Override
+            public int read(final byte[] b, final int off, final int len)
+                    throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                if (pos >= bytes.length) {
+                    if (!nextLine()) {
+                        return -1;
+                    }
+                    bytes = line.toString().getBytes(encoding);
+                    linePos = line.length();
+                    pos = 0;
+                }
+                final int size = Math.min(len, bytes.length - pos);
+                System.arraycopy(bytes, pos, b, off, size);
+                pos += size;
+                return size;
+            }
+        };
+    }
+
+    /**
+     * 次の行をテキストにします。
+     * 
+     * @return 次の行がある場合は<code>true</code>
+     */
+    protected boolean nextLine() {
+        line.setLength(0);
+        linePos = 0;
+        if (!rows.hasNext()) {
+            return false;
+        }
+        final Object[] values = rows.next();
+        for (int i = 0; i < values.length; ++i) {
+            if (i > 0) {
+                line.append('\t');
+            }
+            if (values[i] == null) {
+                line.append(NULL_TEXT);
+            } else {
+                appendEscaped(toText(propertyMetaList.get(i), values[i]));
+            }
+        }
+        line.append('\n');
+        ++rowCount;
+        return true;
+    }
+
+    /**
+     * 値をテキストに変換します。
+     * 
+     * @param propertyMeta
+     *            プロパティメタデータ
+     * @param value
+     *            値
+     * @return テキスト
+     */
+    protected String toText(final PropertyMeta propertyMeta, Object value) {
+        final ValueType valueType = propertyMeta.getValueType();
+        if (value instanceof Boolean) {
+            return Boolean.class.cast(value).booleanValue() ? trueText
+                    : falseText;
+        }
+        if (value instanceof BigDecimal) {
+            return BigDecimal.class.cast(value).toPlainString();
+        }
+        if (value instanceof Enum) {
+            final Enum<?> e = Enum.class.cast(value);
+            return valueType instanceof EnumOrdinalType ? String.valueOf(e
+                    .ordinal()) : e.name();
+        }
+        if (value instanceof Calendar) {
+            value = Calendar.class.cast(value).getTime();
+        }
+        if (value instanceof java.sql.Date || value instanceof Time
+                || value instanceof Timestamp) {
+            return value.toString();
+        }
+        if (value instanceof Date) {
+            final long time = Date.class.cast(value).getTime();
+            if (valueType == ValueTypes.DATE_SQLDATE
+                    || valueType == ValueTypes.CALENDAR_SQLDATE) {
+                return new java.sql.Date(time).toString();
+            }
+            if (valueType == ValueTypes.DATE_TIME
+                    || valueType == ValueTypes.CALENDAR_TIME) {
+                return new Time(time).toString();
+            }
+            return new Timestamp(time).toString();
+        }
+        return value.toString();
+    }
+
+    /**
+     * テキストをエスケープして現在の行に追加します。
+     * 
+     * @param text
+     *            テキスト
+     */
+    protected void appendEscaped(final String text) {
+        final int length = text.length();
+        for (int i = 0; i < length; ++i) {
+            final char c = text.charAt(i);
+            switch (c) {
+            case '\\':
+                line.append("\\\\");
+                break;
+            case '\t':
+                line.append("\\t");
+                break;
+            case '\n':
+                line.append("\\n");
+                break;
+            case '\r':
+                line.append("\\r");
+                break;
+            default:
+                line.append(c);
+            }
+        }
+    }
+
+}
@@ -15,18 +15,49 @@
  */
 package org.seasar.extension.sql.cache;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
 import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.seasar.extension.sql.Node;
 import org.seasar.extension.sql.node.SqlNode;
+import org.seasar.extension.sql.node.SqlTemplateCompiler;
 import org.seasar.extension.sql.parser.SqlParserImpl;
+import org.seasar.framework.exception.ClassNotFoundRuntimeException;
+import org.seasar.framework.exception.IORuntimeException;
+import org.seasar.framework.log.Logger;
 import org.seasar.framework.util.Disposable;
 import org.seasar.framework.util.DisposableUtil;
+import org.seasar.framework.util.FileUtil;
 import org.seasar.framework.util.InputStreamReaderUtil;
+import org.seasar.framework.util.InputStreamUtil;
+import org.seasar.framework.util.MessageDigestUtil;
 import org.seasar.framework.util.ReaderUtil;
 import org.seasar.framework.util.ResourceUtil;
+import org.seasar.framework.util.ResourcesUtil;
+import org.seasar.framework.util.SerializeUtil;
+import org.seasar.framework.util.ResourceTraversal.ResourceHandler;
+import org.seasar.framework.util.ResourcesUtil.Resources;
 
 import static org.seasar.framework.util.tiger.CollectionsUtil.*;
 
@@ -36,12 +67,48 @@ import static org.seasar.framework.util.tiger.CollectionsUtil.*;
  */
 public class NodeCache {
 
+    private static final Logger logger = Logger.getLogger(NodeCache.class);
+
     private static final Node NOT_FOUND = new SqlNode("NOT FOUND");
 
+    private static final String SQL_EXTENSION = ".sql";
+
+    private static final String CACHE_FILE_EXTENSION = ".node";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * キャッシュファイルの形式のバージョンです。
+     * <p>
+     * ノードのクラスファイルから計算するハッシュ値と合わせてキャッシュファイルの名前に含めます。
+     * </p>
+     */
+    private static final String FORMAT_VERSION = "1";
+
+    private static final String NODE_PACKAGE = "org.seasar.extension.sql.node.";
+
+    private static final String NODE_PACKAGE_DIR = "org/seasar/extension/sql/node";
+
+    private static final String CLASS_EXTENSION = ".class";
+
+    private static volatile File cacheDirectory;
+
+    private static volatile String nodeVersion;
+
     private static volatile boolean initialized;
 
     private static ConcurrentHashMap<String, Node> nodeCache = newConcurrentHashMap(200);
 
+    /**
+     * {@link #warmUp(String, int)}で走査したディレクトリ('/'で終わるパス)のリストです。
+     */
+    private static final List<String> scannedDirectories = new CopyOnWriteArrayList<String>();
+
+    /**
+     * {@link #warmUp(String, int)}で見つけたSQLファイルのパス(拡張子なし)です。
+     */
+    private static final ConcurrentHashMap<String, Boolean> scannedPaths = newConcurrentHashMap(200);
+
     static {
         initialize();
     }
@@ -115,17 +182,328 @@ public class NodeCache {
     }
 
     private static Node createNode(String path, boolean allowVariableSql) {
+        if (isSqlFileAbsent(path)) {
+            return null;
+        }
         InputStream is = ResourceUtil.getResourceAsStreamNoException(path,
                 "sql");
         if (is == null) {
             return null;
         }
+        return parse(readSql(is), allowVariableSql);
+    }
+
+    /**
+     * {@link #warmUp(String, int)}で走査したディレクトリにSQLファイルが無いことがわかっている場合は<code>true</code>を返します。
+     * <p>
+     * 走査していないディレクトリのパスの場合は<code>false</code>を返し、 クラスパスからSQLファイルを探します。
+     * </p>
+     * 
+     * @param path
+     *            拡張子を除いたSQLファイルのパス
+     * @return SQLファイルが無いことがわかっている場合は<code>true</code>
+     */
+    protected static boolean isSqlFileAbsent(String path) {
+        for (String dir : scannedDirectories) {
+            if (path.startsWith(dir)) {
+                return !scannedPaths.containsKey(path);
+            }
+        }
+        return false;
+    }
+
+    private static String readSql(InputStream is) {
         Reader reader = InputStreamReaderUtil.create(is, "UTF-8");
         String sql = ReaderUtil.readText(reader);
         if (sql.length() > 0 && sql.charAt(0) == '\uFEFF') {
             sql = sql.substring(1);
         }
-        return new SqlParserImpl(sql, allowVariableSql).parse();
+        return sql;
+    }
+
+    /**
+     * SQLを解析します。
+     * <p>
+     * キャッシュディレクトリが設定されている場合は、SQLのハッシュ値をファイル名にしてシリアライズした結果を保存します。
+     * 同じSQLを次に解析するときは、保存した結果を読み込みます。
+     * </p>
+     * 
+     * @param sql
+     *            SQL
+     * @param allowVariableSql
+     *            可変なSQLを許可する場合は<code>true</code>
+     * @return 解析結果のノード
+     */
+    protected static Node parse(String sql, boolean allowVariableSql) {
+        File dir = cacheDirectory;
+        if (dir == null || getNodeVersion() == null) {
+            return compile(sql, allowVariableSql);
+        }
+        File file = new File(dir, getCacheFileName(sql, allowVariableSql));
+        if (file.exists()) {
+            try {
+                return readNode(file);
+            } catch (RuntimeException e) {
+                logger.log("WSSR0022", new Object[] { file.getPath() }, e);
+            }
+        }
+        Node node = compile(sql, allowVariableSql);
+        try {
+            File tmpFile = File.createTempFile(file.getName(), ".tmp", dir);
+            FileUtil.write(tmpFile.getPath(), SerializeUtil
+                    .fromObjectToBinary(node));
+            if (!tmpFile.renameTo(file)) {
+                tmpFile.delete();
+            }
+        } catch (Exception e) {
+            logger.log("WSSR0022", new Object[] { file.getPath() }, e);
+        }
+        return node;
+    }
+
+    /**
+     * キャッシュファイルからノードを読み込みます。
+     * <p>
+     * ノードのクラスとその値に使われるクラス以外はデシリアライズしません。
+     * </p>
+     * 
+     * @param file
+     *            キャッシュファイル
+     * @return ノード
+     */
+    protected static Node readNode(File file) {
+        try {
+            ObjectInputStream ois = new NodeObjectInputStream(
+                    new ByteArrayInputStream(FileUtil.getBytes(file)));
+            try {
+                return (Node) ois.readObject();
+            } finally {
+                ois.close();
+            }
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        } catch (ClassNotFoundException e) {
+            throw new ClassNotFoundRuntimeException(e);
+        }
+    }
+
+    private static Node compile(String sql, boolean allowVariableSql) {
+        return SqlTemplateCompiler.compile(new SqlParserImpl(sql,
+                allowVariableSql).parse());
+    }
+
+    /**
+     * キャッシュファイルの名前を返します。
+     * <p>
+     * 名前にはSQLのハッシュ値に加えて、 ノードのクラスのバージョンを含めます。
+     * ライブラリを更新してノードのクラスが変わった場合、 古いキャッシュファイルは読み込まれません。
+     * </p>
+     * 
+     * @param sql
+     *            SQL
+     * @param allowVariableSql
+     *            可変なSQLを許可する場合は<code>true</code>
+     * @return キャッシュファイルの名前
+     */
+    protected static String getCacheFileName(String sql,
+            boolean allowVariableSql) {
+        MessageDigest md = MessageDigestUtil.getInstance("SHA-1");
+        byte[] digest;
+        try {
+            digest = md.digest(sql.getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IORuntimeException(e);
+        }
+        StringBuilder buf = new StringBuilder(digest.length * 2 + 60);
+        appendHex(buf, digest);
+        buf.append('_').append(getNodeVersion());
+        if (!allowVariableSql) {
+            buf.append("_disallowVariableSql");
+        }
+        return buf.append(CACHE_FILE_EXTENSION).toString();
+    }
+
+    /**
+     * ノードのクラスのバージョンを返します。
+     * <p>
+     * キャッシュファイルの形式のバージョンとノードのパッケージにあるクラスファイルから計算したハッシュ値です。
+     * クラスファイルを読み込めない場合は<code>null</code>を返し、 キャッシュファイルは使いません。
+     * </p>
+     * 
+     * @return ノードのクラスのバージョン
+     */
+    protected static String getNodeVersion() {
+        String version = nodeVersion;
+        if (version == null) {
+            version = createNodeVersion();
+            nodeVersion = version;
+        }
+        return version.length() > 0 ? version : null;
+    }
+
+    private static String createNodeVersion() {
+        final Map<String, byte[]> classFiles = newTreeMap();
+        try {
+            Resources resources = ResourcesUtil
+                    .getResourcesType(NODE_PACKAGE_DIR);
+            if (resources == null) {
+                return "";
+            }
+            try {
+                resources.forEach(new ResourceHandler() {
+
+                    public void processResource(String path, InputStream is) {
+                        if (path.endsWith(CLASS_EXTENSION)) {
+                            classFiles.put(path, InputStreamUtil.getBytes(is));
+                        }
+                    }
+                });
+            } finally {
+                resources.close();
+            }
+        } catch (RuntimeException e) {
+            logger.log("WSSR0022", new Object[] { NODE_PACKAGE_DIR }, e);
+            return "";
+        }
+        if (classFiles.isEmpty()) {
+            return "";
+        }
+        MessageDigest md = MessageDigestUtil.getInstance("SHA-1");
+        try {
+            md.update(FORMAT_VERSION.getBytes("UTF-8"));
+            for (Map.Entry<String, byte[]> entry : classFiles.entrySet()) {
+                md.update(entry.getKey().getBytes("UTF-8"));
+                md.update(entry.getValue());
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IORuntimeException(e);
+        }
+        StringBuilder buf = new StringBuilder(40);
+        appendHex(buf, md.digest());
+        return buf.substring(0, 16);
+    }
+
+    private static void appendHex(StringBuilder buf, byte[] bytes) {
+        for (byte b : bytes) {
+            buf.append(HEX[(b >> 4) & 0x0f]).append(HEX[b & 0x0f]);
+        }
+    }
+
+    /**
+     * ルートディレクトリ以下のSQLファイルをあらかじめ解析してキャッシュします。
+     * <p>
+     * SQLファイルは順に読み込み、解析は指定したスレッド数で並列に行います。
+     * すでにキャッシュしているSQLファイルは解析しません。
+     * </p>
+     * <p>
+     * 見つけたSQLファイルのパスは記録されます。 それ以降、ルートディレクトリ以下のパスで
+     * DBMS固有のSQLファイルなど記録されていないファイルを{@link #getNode(String, String)}で探すときは、
+     * クラスパスを探さずにファイルが無いものとして扱います。
+     * </p>
+     * <p>
+     * 解析するのは可変なSQLを許可する場合のノードだけです。 可変なSQLを許可しない場合のノードは、
+     * {@link #getNode(String, String, boolean)}で最初に使われたときに解析されます。
+     * </p>
+     * 
+     * @param rootDir
+     *            ルートディレクトリ。META-INF/sqlのような'/'区切りのパスです。
+     * @param threads
+     *            解析に使うスレッドの数
+     * @return 解析したSQLファイルの数
+     */
+    public static int warmUp(final String rootDir, int threads) {
+        if (!initialized) {
+            initialize();
+        }
+        final String dir = rootDir.endsWith("/") ? rootDir : rootDir + "/";
+        final List<String> paths = newArrayList();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math
+                .max(threads, 1));
+        final List<Future<?>> futures = newArrayList();
+        final AtomicInteger count = new AtomicInteger();
+        try {
+            for (Resources resources : ResourcesUtil
+                    .getResourcesTypes(rootDir)) {
+                try {
+                    resources.forEach(new ResourceHandler() {
+
+                        public void processResource(String path, InputStream is) {
+                            if (!path.startsWith(rootDir)
+                                    || !path.endsWith(SQL_EXTENSION)) {
+                                return;
+                            }
+                            final String key = path.substring(0, path
+                                    .length()
+                                    - SQL_EXTENSION.length());
+                            paths.add(key);
+                            if (nodeCache.containsKey(key)) {
+                                return;
+                            }
+                            final String sql = readSql(is);
+                            futures.add(executor.submit(new Runnable() {
+
+                                public void run() {
+                                    putIfAbsent(nodeCache, key, parse(sql,
+                                            true));
+                                    count.incrementAndGet();
+                                }
+                            }));
+                        }
+                    });
+                } finally {
+                    resources.close();
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            for (String path : paths) {
+                scannedPaths.put(path, Boolean.TRUE);
+            }
+            if (!scannedDirectories.contains(dir)) {
+                scannedDirectories.add(dir);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw RuntimeException.class.cast(cause);
+            }
+            throw Error.class.cast(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+        return count.get();
+    }
+
+    /**
+     * キャッシュディレクトリを返します。
+     * 
+     * @return キャッシュディレクトリ
+     */
+    public static File getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * キャッシュディレクトリを設定します。
+     * <p>
+     * 設定すると、解析したノードをシリアライズしてこのディレクトリに保存します。
+     * <code>null</code>の場合は保存しません。
+     * </p>
+     * <p>
+     * キャッシュファイルはデシリアライズされるので、 このディレクトリはアプリケーション以外のユーザが書き込めないようにしてください。
+     * </p>
+     * 
+     * @param cacheDirectory
+     *            キャッシュディレクトリ
+     */
+    public static void setCacheDirectory(File cacheDirectory) {
+        if (cacheDirectory != null && !cacheDirectory.exists()) {
+            cacheDirectory.mkdirs();
+        }
+        NodeCache.cacheDirectory = cacheDirectory;
     }
 
     /**
@@ -146,6 +524,73 @@ public class NodeCache {
      */
     public static void clear() {
         nodeCache.clear();
+        scannedDirectories.clear();
+        scannedPaths.clear();
         initialized = false;
     }
+
+    /**
+     * ノードのクラスとその値に使われるクラスだけをデシリアライズする{@link ObjectInputStream}です。
+     * 
+     */
+    protected static class NodeObjectInputStream extends ObjectInputStream {
+
+        private static final Set<String> ALLOWED_CLASS_NAMES = newHashSet();
+        static {
+            for (Class<?> clazz : new Class<?>[] { Object.class, String.class,
+                    Number.class, Boolean.class, Character.class, Byte.class,
+                    Short.class, Integer.class, Long.class, Float.class,
+                    Double.class, BigInteger.class, BigDecimal.class,
+                    ArrayList.class, Node.class }) {
+                ALLOWED_CLASS_NAMES.add(clazz.getName());
+            }
+        }
+
+        /**
+         * インスタンスを構築します。
+         * 
+         * @param in
+         *            入力ストリーム
+         * @throws IOException
+         *             I/O例外が発生した場合
+         */
+        public NodeObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc)
+                throws IOException, ClassNotFoundException {
+            String name = desc.getName();
+            int dimensions = 0;
+            while (name.charAt(dimensions) == '[') {
+                ++dimensions;
+            }
+            if (dimensions > 0) {
+                if (name.charAt(dimensions) != 'L') {
+                    return super.resolveClass(desc);
+                }
+                name = name.substring(dimensions + 1, name.length() - 1);
+            }
+            if (!name.startsWith(NODE_PACKAGE)
+                    && !ALLOWED_CLASS_NAMES.contains(name)
+                    && !name.startsWith("ognl.")) {
+                throw new InvalidClassException(desc.getName(),
+                        "not allowed in the node cache");
+            }
+            Class<?> clazz = super.resolveClass(desc);
+            if (name.startsWith("ognl.")) {
+                Class<?> componentClass = clazz;
+                while (componentClass.isArray()) {
+                    componentClass = componentClass.getComponentType();
+                }
+                if (!ognl.Node.class.isAssignableFrom(componentClass)) {
+                    throw new InvalidClassException(desc.getName(),
+                            "not allowed in the node cache");
+                }
+            }
+            return clazz;
+        }
+
+    }
 }
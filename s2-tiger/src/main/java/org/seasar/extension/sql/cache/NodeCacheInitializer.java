@@ -0,0 +1,113 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.sql.cache;
+
+import java.io.File;
+import java.util.List;
+
+import org.seasar.framework.container.annotation.tiger.InitMethod;
+import org.seasar.framework.log.Logger;
+import org.seasar.framework.util.StringUtil;
+
+import static org.seasar.framework.util.tiger.CollectionsUtil.*;
+
+/**
+ * コンテナの初期化時に{@link NodeCache}を準備するコンポーネントです。
+ * <p>
+ * 次のようにdiconファイルに登録すると、META-INF/sql以下のSQLファイルを初期化時に解析します。
+ * </p>
+ * 
+ * <pre>
+ * &lt;component class=&quot;org.seasar.extension.sql.cache.NodeCacheInitializer&quot;&gt;
+ *     &lt;property name=&quot;cacheDirectory&quot;&gt;&quot;/var/cache/app/sql&quot;&lt;/property&gt;
+ * &lt;/component&gt;
+ * </pre>
+ * 
+ */
+public class NodeCacheInitializer {
+
+    private static final Logger logger = Logger
+            .getLogger(NodeCacheInitializer.class);
+
+    /**
+     * SQLファイルのルートディレクトリのリストです。
+     */
+    protected List<String> rootDirs = newArrayList();
+
+    /**
+     * 解析に使うスレッドの数です。
+     */
+    protected int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * キャッシュディレクトリです。
+     */
+    protected String cacheDirectory;
+
+    /**
+     * SQLファイルのルートディレクトリを追加します。
+     * 
+     * @param rootDir
+     *            ルートディレクトリ。META-INF/sqlのような'/'区切りのパスです。
+     */
+    public void addRootDir(String rootDir) {
+        rootDirs.add(rootDir);
+    }
+
+    /**
+     * 解析に使うスレッドの数を設定します。
+     * 
+     * @param threads
+     *            解析に使うスレッドの数
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * キャッシュディレクトリを設定します。
+     * 
+     * @param cacheDirectory
+     *            キャッシュディレクトリ
+     * @see NodeCache#setCacheDirectory(File)
+     */
+    public void setCacheDirectory(String cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * {@link NodeCache}を準備します。
+     */
+    @InitMethod
+    public void initialize() {
+        if (!StringUtil.isEmpty(cacheDirectory)) {
+            NodeCache.setCacheDirectory(new File(cacheDirectory));
+        }
+        if (rootDirs.isEmpty()) {
+            rootDirs.add("META-INF/sql");
+        }
+        long start = System.currentTimeMillis();
+        int count = 0;
+        for (String rootDir : rootDirs) {
+            count += NodeCache.warmUp(rootDir, threads);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("NodeCache warmed up with " + count
+                    + " SQL files in "
+                    + (System.currentTimeMillis() - start) + "ms");
+        }
+    }
+}
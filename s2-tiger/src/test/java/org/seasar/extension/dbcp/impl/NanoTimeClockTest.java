@@ -0,0 +1,40 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.dbcp.impl;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ */
+public class NanoTimeClockTest extends TestCase {
+
+    /**
+     * 
+     */
+    public void testGetClock() {
+        assertTrue(ConnectionPoolMetrics.clock instanceof NanoTimeClock);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testCurrentTimeMicros() throws Exception {
+        long start = ConnectionPoolMetrics.currentTimeMicros();
+        Thread.sleep(10);
+        assertTrue(ConnectionPoolMetrics.currentTimeMicros() - start >= 9000L);
+    }
+}
@@ -201,6 +201,16 @@ public class OracleDialectTest extends TestCase {
         assertEquals(ValueTypes.TIMESTAMP, dialect.getValueType(pm));
     }
 
+    /**
+     * 
+     */
+    public void testGetInClauseBindSize() {
+        dialect.setInClausePadding(true);
+        assertEquals(512, dialect.getInClauseBindSize(300));
+        assertEquals(513, dialect.getInClauseBindSize(513));
+        assertEquals(1000, dialect.getInClauseBindSize(1000));
+    }
+
     /**
      * @throws Exception
      */
@@ -23,6 +23,7 @@ import java.util.List;
 import junit.framework.TestCase;
 
 import org.seasar.extension.jdbc.PropertyMeta;
+import org.seasar.extension.jdbc.types.ArrayType;
 import org.seasar.extension.jdbc.types.ValueTypes;
 import org.seasar.framework.exception.SQLRuntimeException;
 
@@ -125,6 +126,42 @@ public class PostgreDialectTest extends TestCase {
         assertEquals(ValueTypes.POSTGRE_RESULT_SET, dialect.getValueType(pm));
     }
 
+    /**
+     * @throws Exception
+     */
+    public void testArrayInCondition() throws Exception {
+        dialect = new PostgreDialect() {
+
+            @Override
+            protected boolean isCreateArrayOfImplemented() {
+                return true;
+            }
+        };
+        assertFalse(dialect.isArrayInConditionTarget(100));
+        dialect.setArrayInConditionThreshold(100);
+        assertFalse(dialect.isArrayInConditionTarget(99));
+        assertTrue(dialect.isArrayInConditionTarget(100));
+        assertEquals("ID = any (?)", dialect.getArrayInCondition("ID", false));
+        assertEquals("ID <> all (?)", dialect.getArrayInCondition("ID", true));
+
+        PropertyMeta pm = new PropertyMeta();
+        pm.setField(getClass().getField("stringField"));
+        assertEquals(ArrayType.class, dialect.getArrayInConditionValueType(pm)
+                .getClass());
+        pm = new PropertyMeta();
+        pm.setField(getClass().getField("bytesField"));
+        assertNull(dialect.getArrayInConditionValueType(pm));
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testArrayInCondition_driverNotSupported() throws Exception {
+        dialect.setArrayInConditionThreshold(100);
+        assertFalse(dialect.isCreateArrayOfImplemented());
+        assertFalse(dialect.isArrayInConditionTarget(100));
+    }
+
     /**
      * @throws Exception
      */
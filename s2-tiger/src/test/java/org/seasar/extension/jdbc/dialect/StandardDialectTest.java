@@ -19,6 +19,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 
 import javax.persistence.TemporalType;
@@ -121,6 +122,40 @@ public class StandardDialectTest extends TestCase {
                 fromClause.toSql());
     }
 
+    /**
+     * 
+     */
+    public void testGetInClauseBindSize() {
+        assertEquals(3, dialect.getInClauseBindSize(3));
+        dialect.setInClausePadding(true);
+        assertEquals(1, dialect.getInClauseBindSize(1));
+        assertEquals(4, dialect.getInClauseBindSize(3));
+        assertEquals(64, dialect.getInClauseBindSize(33));
+        assertFalse(dialect.isArrayInConditionTarget(1000));
+    }
+
+    /**
+     * 
+     */
+    public void testGetArrayInCondition() {
+        assertEquals("ID = any (?)", dialect.getArrayInCondition("ID", false));
+        assertEquals("ID <> all (?)", dialect.getArrayInCondition("ID", true));
+    }
+
+    /**
+     * 
+     */
+    public void testBulkLoad() {
+        List<PropertyMeta> propertyMetaList = new ArrayList<PropertyMeta>();
+        List<Object[]> rows = new ArrayList<Object[]>();
+        rows.add(new Object[0]);
+        Iterator<Object[]> it = rows.iterator();
+        assertFalse(dialect.supportsBulkLoad(propertyMetaList));
+        assertEquals(-1, dialect.bulkLoad(null, "EMP", propertyMetaList, it,
+                10));
+        assertTrue(it.hasNext());
+    }
+
     /**
      * 
      */
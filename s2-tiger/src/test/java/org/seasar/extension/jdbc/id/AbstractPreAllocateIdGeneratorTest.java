@@ -0,0 +1,246 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.id;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import junit.framework.TestCase;
+
+import org.seasar.extension.jdbc.SqlLogger;
+import org.seasar.extension.jdbc.id.AbstractPreAllocateIdGenerator.IdContext;
+import org.seasar.extension.jdbc.manager.JdbcManagerImpl;
+import org.seasar.extension.jdbc.manager.JdbcManagerImplementor;
+import org.seasar.framework.util.DisposableUtil;
+
+/**
+ * 
+ */
+public class AbstractPreAllocateIdGeneratorTest extends TestCase {
+
+    private JdbcManagerImpl manager = new JdbcManagerImpl();
+
+    private List<Runnable> tasks = new ArrayList<Runnable>();
+
+    /**
+     * 
+     */
+    public void testGetNextValue() {
+        MyIdGenerator generator = new MyIdGenerator(4, null);
+        IdContext context = generator.getIdContext(manager);
+        for (int i = 1; i <= 12; ++i) {
+            assertEquals(i, context.getNextValue(manager, null));
+        }
+    }
+
+    /**
+     * 
+     */
+    public void testGetNextValue_prefetch() {
+        MyIdGenerator generator = new MyIdGenerator(4, new Executor() {
+
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        IdContext context = generator.getIdContext(manager);
+        assertEquals(1, context.getNextValue(manager, null));
+        assertEquals(2, context.getNextValue(manager, null));
+        assertEquals(3, context.getNextValue(manager, null));
+        assertEquals(0, tasks.size());
+        assertEquals(4, context.getNextValue(manager, null));
+        assertEquals(1, tasks.size());
+        assertEquals(1, generator.count.get());
+        tasks.get(0).run();
+        assertEquals(2, generator.count.get());
+        assertEquals(1, context.reservedBlocks.size());
+        assertEquals(5, context.getNextValue(manager, null));
+        assertEquals(2, generator.count.get());
+        assertEquals(0, context.reservedBlocks.size());
+    }
+
+    /**
+     * 
+     */
+    public void testGetNextValue_noPrefetch() {
+        MyIdGenerator generator = new MyIdGenerator(1, new Executor() {
+
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        IdContext context = generator.getIdContext(manager);
+        for (int i = 1; i <= 5; ++i) {
+            assertEquals(i, context.getNextValue(manager, null));
+        }
+        assertEquals(0, tasks.size());
+    }
+
+    /**
+     * 
+     */
+    public void testGetNextValue_rejected() {
+        MyIdGenerator generator = new MyIdGenerator(4, new Executor() {
+
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+        IdContext context = generator.getIdContext(manager);
+        for (int i = 1; i <= 12; ++i) {
+            assertEquals(i, context.getNextValue(manager, null));
+        }
+        assertNull(context.prefetchTask.get());
+    }
+
+    /**
+     * 
+     */
+    public void testShutdownPrefetchExecutor() {
+        ExecutorService executor = AbstractPreAllocateIdGenerator
+                .getDefaultPrefetchExecutor();
+        assertSame(executor, AbstractPreAllocateIdGenerator
+                .getDefaultPrefetchExecutor());
+        DisposableUtil.dispose();
+        assertTrue(executor.isShutdown());
+        ExecutorService executor2 = AbstractPreAllocateIdGenerator
+                .getDefaultPrefetchExecutor();
+        assertNotSame(executor, executor2);
+        assertFalse(executor2.isShutdown());
+    }
+
+    /**
+     * 
+     */
+    public void testGetNextValue_awaitPrefetch() {
+        MyIdGenerator generator = new MyIdGenerator(4, new Executor() {
+
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        final IdContext context = generator.getIdContext(manager);
+        for (int i = 1; i <= 4; ++i) {
+            context.getNextValue(manager, null);
+        }
+        assertNotNull(context.prefetchTask.get());
+        tasks.get(0).run();
+        assertNull(context.prefetchTask.get());
+        assertEquals(5, context.getNextValue(manager, null));
+        assertEquals(2, generator.count.get());
+    }
+
+    /**
+     * 
+     */
+    public void testGetNextValue_growBlockCount() {
+        MyIdGenerator generator = new MyIdGenerator(4, null);
+        IdContext context = generator.getIdContext(manager);
+        for (int i = 1; i <= 1000; ++i) {
+            assertEquals(i, context.getNextValue(manager, null));
+        }
+        assertEquals(AbstractPreAllocateIdGenerator.MAX_BLOCK_COUNT,
+                context.blockCount);
+    }
+
+    /**
+     * 
+     */
+    public void testShrinkBlockCount() {
+        MyIdGenerator generator = new MyIdGenerator(4, null);
+        IdContext context = generator.getIdContext(manager);
+        context.blockCount = 4;
+        context.shrinkBlockCount();
+        assertEquals(2, context.blockCount);
+        context.shrinkBlockCount();
+        context.shrinkBlockCount();
+        assertEquals(1, context.blockCount);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testGetNextValue_concurrent() throws Exception {
+        MyIdGenerator generator = new MyIdGenerator(10, null) {
+
+            @Override
+            protected Executor getPrefetchExecutor() {
+                return getDefaultPrefetchExecutor();
+            }
+        };
+        final IdContext context = generator.getIdContext(manager);
+        final ConcurrentMap<Long, Boolean> ids = new ConcurrentHashMap<Long, Boolean>();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread() {
+
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; ++j) {
+                        ids.put(context.getNextValue(manager, null), true);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(8000, ids.size());
+    }
+
+    private static class MyIdGenerator extends AbstractPreAllocateIdGenerator {
+
+        private AtomicLong count = new AtomicLong();
+
+        private AtomicLong next = new AtomicLong(1);
+
+        private Executor executor;
+
+        private MyIdGenerator(long allocationSize, Executor executor) {
+            super(null, null, allocationSize);
+            this.executor = executor;
+        }
+
+        @Override
+        protected long getNewInitialValue(JdbcManagerImplementor jdbcManager,
+                SqlLogger sqlLogger) {
+            count.incrementAndGet();
+            return next.getAndAdd(allocationSize);
+        }
+
+        @Override
+        protected Executor getPrefetchExecutor() {
+            if (executor != null) {
+                return executor;
+            }
+            return new Executor() {
+
+                public void execute(Runnable command) {
+                    command.run();
+                }
+            };
+        }
+
+    }
+
+}
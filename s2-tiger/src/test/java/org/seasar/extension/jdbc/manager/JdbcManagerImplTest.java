@@ -40,6 +40,7 @@ import org.seasar.extension.jdbc.meta.TableMetaFactoryImpl;
 import org.seasar.extension.jdbc.query.AutoBatchDeleteImpl;
 import org.seasar.extension.jdbc.query.AutoBatchInsertImpl;
 import org.seasar.extension.jdbc.query.AutoBatchUpdateImpl;
+import org.seasar.extension.jdbc.query.AutoBulkLoadImpl;
 import org.seasar.extension.jdbc.query.AutoDeleteImpl;
 import org.seasar.extension.jdbc.query.AutoFunctionCallImpl;
 import org.seasar.extension.jdbc.query.AutoInsertImpl;
@@ -367,6 +368,35 @@ public class JdbcManagerImplTest extends TestCase {
         assertSame(entities, query.getEntities());
     }
 
+    /**
+     * @throws Exception
+     */
+    public void testAutoBatchInsert_iterable() throws Exception {
+        List<Eee> entities = Arrays.asList(new Eee(1, "foo"),
+                new Eee(2, "bar"), new Eee(3, "baz"));
+        Iterable<Eee> iterable = entities;
+        AutoBatchInsertImpl<Eee> query = (AutoBatchInsertImpl<Eee>) manager
+                .insertBatch(iterable);
+        assertNotNull(query);
+        assertSame(manager, query.getJdbcManager());
+        assertEquals(1, query.getEntities().size());
+        assertSame(entities.get(0), query.getEntities().get(0));
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testBulkLoad() throws Exception {
+        List<Eee> entities = Arrays.asList(new Eee(1, "foo"),
+                new Eee(2, "bar"), new Eee(3, "baz"));
+        AutoBulkLoadImpl<Eee> query = (AutoBulkLoadImpl<Eee>) manager
+                .bulkLoad(entities);
+        assertNotNull(query);
+        assertSame(manager, query.getJdbcManager());
+        assertEquals(1, query.getEntities().size());
+        assertSame(entities.get(0), query.getEntities().get(0));
+    }
+
     /**
      * @throws Exception
      * 
@@ -429,6 +459,27 @@ public class JdbcManagerImplTest extends TestCase {
         }
     }
 
+    /**
+     * @throws Exception
+     */
+    public void testAutoBatchUpdate_iterator() throws Exception {
+        List<Eee> entities = Arrays.asList(new Eee(1, "foo"),
+                new Eee(2, "bar"), new Eee(3, "baz"));
+        AutoBatchUpdateImpl<Eee> query = (AutoBatchUpdateImpl<Eee>) manager
+                .updateBatch(entities.iterator());
+        assertNotNull(query);
+        assertSame(manager, query.getJdbcManager());
+        assertEquals(1, query.getEntities().size());
+        assertSame(entities.get(0), query.getEntities().get(0));
+
+        try {
+            manager.updateBatch(Arrays.asList(new Iii()).iterator());
+            fail();
+        } catch (NoIdPropertyRuntimeException expected) {
+            System.out.println(expected);
+        }
+    }
+
     /**
      * @throws Exception
      * 
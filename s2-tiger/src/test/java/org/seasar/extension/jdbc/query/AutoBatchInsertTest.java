@@ -17,20 +17,24 @@ package org.seasar.extension.jdbc.query;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import junit.framework.TestCase;
 
+import org.seasar.extension.jdbc.BatchUpdateListener;
 import org.seasar.extension.jdbc.JdbcContext;
 import org.seasar.extension.jdbc.PropertyMeta;
 import org.seasar.extension.jdbc.SqlLog;
 import org.seasar.extension.jdbc.SqlLogRegistry;
 import org.seasar.extension.jdbc.SqlLogRegistryLocator;
 import org.seasar.extension.jdbc.dialect.Db2Dialect;
+import org.seasar.extension.jdbc.dialect.H2Dialect;
 import org.seasar.extension.jdbc.dialect.HsqlDialect;
 import org.seasar.extension.jdbc.dialect.MssqlDialect;
 import org.seasar.extension.jdbc.dialect.OracleDialect;
+import org.seasar.extension.jdbc.dialect.SqliteDialect;
 import org.seasar.extension.jdbc.dialect.StandardDialect;
 import org.seasar.extension.jdbc.entity.Eee;
 import org.seasar.extension.jdbc.entity.Fff;
@@ -396,6 +400,168 @@ public class AutoBatchInsertTest extends TestCase {
         }
     }
 
+    /**
+     * @throws Exception
+     */
+    public void testExecute_iterator() throws Exception {
+        List<Eee> entities = Arrays.asList(new Eee(1, "foo"),
+                new Eee(2, "bar"), new Eee(3, "baz"));
+        AutoBatchInsertImpl<Eee> query = new AutoBatchInsertImpl<Eee>(manager,
+                entities.iterator()) {
+
+            @Override
+            protected PreparedStatement createPreparedStatement(
+                    JdbcContext jdbcContext) {
+                MockPreparedStatement ps = new MockPreparedStatement(null, null) {
+
+                    @Override
+                    public int[] executeBatch() throws SQLException {
+                        return addBatchCalled == 2 ? new int[] { 1, 1 }
+                                : new int[] { 1 };
+                    }
+
+                    @Override
+                    public void addBatch() throws SQLException {
+                        ++addBatchCalled;
+                    }
+                };
+                return ps;
+            }
+
+        };
+        final List<Long> entityCounts = new ArrayList<Long>();
+        query.batchSize(2).listener(new BatchUpdateListener() {
+
+            public void batchExecuted(int batchCount, long entityCount,
+                    int[] rows) {
+                entityCounts.add(entityCount);
+            }
+
+            public void committed(int batchCount, long entityCount) {
+                fail();
+            }
+        });
+        int[] result = query.execute();
+        assertEquals(3, addBatchCalled);
+        assertEquals(0, result.length);
+        assertEquals(Arrays.asList(2L, 3L), entityCounts);
+        SqlLog sqlLog = SqlLogRegistryLocator.getInstance().getLast();
+        assertEquals(
+                "insert into EEE (ID, NAME, LONG_TEXT, FFF_ID, VERSION) values (3, 'baz', null, null, 1)",
+                sqlLog.getCompleteSql());
+    }
+
+    /**
+     * 
+     */
+    public void testPrepareMultiRowInsertSize() {
+        manager.setDialect(new H2Dialect());
+        List<Eee> entities = Arrays.asList(new Eee(1, "foo"),
+                new Eee(2, "bar"), new Eee(3, "baz"));
+        AutoBatchInsertImpl<Eee> query = new AutoBatchInsertImpl<Eee>(manager,
+                entities);
+        query.batchSize(2).multiRowInsert();
+        query.prepare("executeBatch");
+        assertEquals(2, query.multiRowInsertSize);
+        assertEquals(
+                "insert into EEE (ID, NAME, LONG_TEXT, FFF_ID, VERSION) values (?, ?, ?, ?, ?), (?, ?, ?, ?, ?)",
+                query.getMultiRowSql(2));
+    }
+
+    /**
+     * 
+     */
+    public void testPrepareMultiRowInsertSize_maxBindVariableSize() {
+        manager.setDialect(new SqliteDialect());
+        List<Eee> entities = Arrays.asList(new Eee(1, "foo"),
+                new Eee(2, "bar"), new Eee(3, "baz"));
+        AutoBatchInsertImpl<Eee> query = new AutoBatchInsertImpl<Eee>(manager,
+                entities);
+        query.multiRowInsert();
+        query.prepare("executeBatch");
+        assertEquals(999 / 5, query.multiRowInsertSize);
+    }
+
+    /**
+     * 
+     */
+    public void testPrepareMultiRowInsertSize_notSupported() {
+        List<Eee> entities = Arrays.asList(new Eee(1, "foo"),
+                new Eee(2, "bar"), new Eee(3, "baz"));
+        AutoBatchInsertImpl<Eee> query = new AutoBatchInsertImpl<Eee>(manager,
+                entities);
+        query.multiRowInsert();
+        query.prepare("executeBatch");
+        assertEquals(0, query.multiRowInsertSize);
+    }
+
+    /**
+     * 
+     */
+    public void testPrepareMultiRowInsertSize_identity() {
+        manager.setDialect(new H2Dialect());
+        List<Fff> entities = Arrays.asList(new Fff("foo"), new Fff("bar"),
+                new Fff("baz"));
+        AutoBatchInsertImpl<Fff> query = new AutoBatchInsertImpl<Fff>(manager,
+                entities);
+        query.multiRowInsert();
+        query.prepare("executeBatch");
+        assertFalse(query.supportBatch);
+        assertEquals(0, query.multiRowInsertSize);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testExecute_multiRowInsert() throws Exception {
+        manager.setDialect(new H2Dialect());
+        List<Eee> entities = Arrays.asList(new Eee(1, "foo"),
+                new Eee(2, "bar"), new Eee(3, "baz"), new Eee(4, "qux"),
+                new Eee(5, "quux"));
+        final List<String> sqls = new ArrayList<String>();
+        AutoBatchInsertImpl<Eee> query = new AutoBatchInsertImpl<Eee>(manager,
+                entities) {
+
+            @Override
+            protected PreparedStatement createPreparedStatement(
+                    JdbcContext jdbcContext) {
+                sqls.add(executedSql);
+                final int rows = sqls.size() < 3 ? 2 : 1;
+                MockPreparedStatement ps = new MockPreparedStatement(null, null) {
+
+                    @Override
+                    public int executeUpdate() throws SQLException {
+                        return rows;
+                    }
+
+                    @Override
+                    public void addBatch() throws SQLException {
+                        ++addBatchCalled;
+                    }
+                };
+                return ps;
+            }
+
+        };
+        int[] result = query.batchSize(2).multiRowInsert().execute();
+        assertEquals(0, addBatchCalled);
+        assertTrue(Arrays.equals(new int[] { 1, 1, 1, 1, 1 }, result));
+        assertEquals(3, sqls.size());
+        assertEquals(
+                "insert into EEE (ID, NAME, LONG_TEXT, FFF_ID, VERSION) values (?, ?, ?, ?, ?), (?, ?, ?, ?, ?)",
+                sqls.get(0));
+        assertEquals(
+                "insert into EEE (ID, NAME, LONG_TEXT, FFF_ID, VERSION) values (?, ?, ?, ?, ?)",
+                sqls.get(2));
+        SqlLog sqlLog = SqlLogRegistryLocator.getInstance().get(1);
+        assertEquals(
+                "insert into EEE (ID, NAME, LONG_TEXT, FFF_ID, VERSION) values (3, 'baz', null, null, 1), (4, 'qux', null, null, 1)",
+                sqlLog.getCompleteSql());
+        for (Eee e : entities) {
+            assertEquals(new Long(1), e.version);
+        }
+    }
+
     /**
      * @throws Exception
      */
@@ -17,6 +17,7 @@ package org.seasar.extension.jdbc.query;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -24,6 +25,7 @@ import javax.persistence.OptimisticLockException;
 
 import junit.framework.TestCase;
 
+import org.seasar.extension.jdbc.BatchUpdateListener;
 import org.seasar.extension.jdbc.JdbcContext;
 import org.seasar.extension.jdbc.SqlLog;
 import org.seasar.extension.jdbc.SqlLogRegistry;
@@ -39,6 +41,8 @@ import org.seasar.extension.jdbc.meta.TableMetaFactoryImpl;
 import org.seasar.extension.jdbc.types.StringClobType;
 import org.seasar.extension.jta.TransactionManagerImpl;
 import org.seasar.extension.jta.TransactionSynchronizationRegistryImpl;
+import org.seasar.extension.tx.TransactionCallback;
+import org.seasar.extension.tx.TransactionManagerAdapter;
 import org.seasar.framework.convention.impl.PersistenceConventionImpl;
 import org.seasar.framework.mock.sql.MockDataSource;
 import org.seasar.framework.mock.sql.MockPreparedStatement;
@@ -52,6 +56,10 @@ public class AutoBatchUpdateTest extends TestCase {
 
     private int addBatchCalled;
 
+    private int requiresNewCalled;
+
+    private List<String> notifications = new ArrayList<String>();
+
     @Override
     protected void setUp() throws Exception {
         manager = new JdbcManagerImpl();
@@ -527,6 +535,76 @@ public class AutoBatchUpdateTest extends TestCase {
                 sqlLog.getCompleteSql());
     }
 
+    /**
+     * @throws Exception
+     */
+    public void testExecute_iterator() throws Exception {
+        List<Eee> entities = Arrays.asList(new Eee(1, "foo"),
+                new Eee(2, "bar"), new Eee(3, "baz"), new Eee(4, "qux"),
+                new Eee(5, "quux"));
+        AutoBatchUpdateImpl<Eee> query = new IteratorQuery(entities);
+        query.batchSize(2).listener(new MyListener());
+        int[] result = query.execute();
+        assertEquals(0, result.length);
+        assertEquals(5, addBatchCalled);
+        assertEquals(Arrays.asList("executed:1:2:2", "executed:2:4:2",
+                "executed:3:5:1"), notifications);
+        assertTrue(query.getEntities().isEmpty());
+        for (Eee e : entities) {
+            assertEquals(new Long(1), e.version);
+        }
+        SqlLog sqlLog = SqlLogRegistryLocator.getInstance().getLast();
+        assertEquals(
+                "update EEE set NAME = 'quux', LONG_TEXT = null, FFF_ID = null, VERSION = VERSION + 1 where ID = 5 and VERSION = 0",
+                sqlLog.getCompleteSql());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testExecute_iteratorWithCommitInterval() throws Exception {
+        List<Eee> entities = Arrays.asList(new Eee(1, "foo"),
+                new Eee(2, "bar"), new Eee(3, "baz"), new Eee(4, "qux"),
+                new Eee(5, "quux"));
+        AutoBatchUpdateImpl<Eee> query = new IteratorQuery(entities);
+        query.batchSize(2).commitInterval(2).listener(new MyListener());
+        query.execute();
+        assertEquals(5, addBatchCalled);
+        assertEquals(2, requiresNewCalled);
+        assertEquals(Arrays.asList("executed:1:2:2", "executed:2:4:2",
+                "committed:2:4", "executed:3:5:1", "committed:3:5"),
+                notifications);
+    }
+
+    /**
+     * 
+     */
+    public void testExecute_iteratorOptimisticLock() {
+        List<Eee> entities = Arrays.asList(new Eee(1, "foo"),
+                new Eee(2, "bar"), new Eee(3, "baz"));
+        AutoBatchUpdateImpl<Eee> query = new IteratorQuery(entities) {
+
+            @Override
+            protected int[] createRows(int size) {
+                int[] rows = super.createRows(size);
+                if (addBatchCalled == 3) {
+                    rows[0] = 0;
+                }
+                return rows;
+            }
+        };
+        query.batchSize(2);
+        try {
+            query.execute();
+            fail();
+        } catch (OptimisticLockException expected) {
+            assertSame(entities.get(2), expected.getEntity());
+        }
+        assertEquals(new Long(1), entities.get(0).version);
+        assertEquals(new Long(1), entities.get(1).version);
+        assertEquals(new Long(0), entities.get(2).version);
+    }
+
     /**
      * @throws Exception
      */
@@ -640,4 +718,84 @@ public class AutoBatchUpdateTest extends TestCase {
         assertEquals(0, result[2]);
     }
 
+    private class IteratorQuery extends AutoBatchUpdateImpl<Eee> {
+
+        private int batchedSize;
+
+        private IteratorQuery(List<Eee> entities) {
+            super(manager, entities.iterator());
+        }
+
+        @Override
+        protected PreparedStatement getPreparedStatement(JdbcContext jdbcContext) {
+            return new MockPreparedStatement(null, null) {
+
+                @Override
+                public int[] executeBatch() throws SQLException {
+                    int[] rows = createRows(batchedSize);
+                    batchedSize = 0;
+                    return rows;
+                }
+
+                @Override
+                public void addBatch() throws SQLException {
+                    ++addBatchCalled;
+                    ++batchedSize;
+                }
+            };
+        }
+
+        @Override
+        protected TransactionManagerAdapter getTransactionManagerAdapter() {
+            return new MyTransactionManagerAdapter();
+        }
+
+        protected int[] createRows(int size) {
+            int[] rows = new int[size];
+            Arrays.fill(rows, 1);
+            return rows;
+        }
+    }
+
+    private class MyListener implements BatchUpdateListener {
+
+        public void batchExecuted(int batchCount, long entityCount, int[] rows) {
+            notifications.add("executed:" + batchCount + ":" + entityCount
+                    + ":" + rows.length);
+        }
+
+        public void committed(int batchCount, long entityCount) {
+            notifications.add("committed:" + batchCount + ":" + entityCount);
+        }
+    }
+
+    private class MyTransactionManagerAdapter implements
+            TransactionManagerAdapter {
+
+        public Object mandatory(TransactionCallback callback) throws Throwable {
+            throw new UnsupportedOperationException();
+        }
+
+        public Object never(TransactionCallback callback) throws Throwable {
+            throw new UnsupportedOperationException();
+        }
+
+        public Object notSupported(TransactionCallback callback)
+                throws Throwable {
+            throw new UnsupportedOperationException();
+        }
+
+        public Object required(TransactionCallback callback) throws Throwable {
+            throw new UnsupportedOperationException();
+        }
+
+        public Object requiresNew(TransactionCallback callback)
+                throws Throwable {
+            ++requiresNewCalled;
+            return callback.execute(this);
+        }
+
+        public void setRollbackOnly() {
+        }
+    }
 }
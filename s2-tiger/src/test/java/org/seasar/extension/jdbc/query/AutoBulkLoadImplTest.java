@@ -0,0 +1,227 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.query;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.seasar.extension.jdbc.BatchUpdateListener;
+import org.seasar.extension.jdbc.JdbcContext;
+import org.seasar.extension.jdbc.PropertyMeta;
+import org.seasar.extension.jdbc.SqlLogRegistry;
+import org.seasar.extension.jdbc.SqlLogRegistryLocator;
+import org.seasar.extension.jdbc.dialect.PostgreDialect;
+import org.seasar.extension.jdbc.entity.Eee;
+import org.seasar.extension.jdbc.manager.JdbcManagerImpl;
+import org.seasar.extension.jdbc.meta.ColumnMetaFactoryImpl;
+import org.seasar.extension.jdbc.meta.EntityMetaFactoryImpl;
+import org.seasar.extension.jdbc.meta.PropertyMetaFactoryImpl;
+import org.seasar.extension.jdbc.meta.TableMetaFactoryImpl;
+import org.seasar.extension.jta.TransactionManagerImpl;
+import org.seasar.extension.jta.TransactionSynchronizationRegistryImpl;
+import org.seasar.framework.convention.impl.PersistenceConventionImpl;
+import org.seasar.framework.mock.sql.MockDataSource;
+import org.seasar.framework.mock.sql.MockPreparedStatement;
+
+/**
+ * 
+ */
+public class AutoBulkLoadImplTest extends TestCase {
+
+    private JdbcManagerImpl manager;
+
+    private List<String> sqls = new ArrayList<String>();
+
+    private List<Long> entityCounts = new ArrayList<Long>();
+
+    @Override
+    protected void setUp() throws Exception {
+        manager = new JdbcManagerImpl();
+        manager.setSyncRegistry(new TransactionSynchronizationRegistryImpl(
+                new TransactionManagerImpl()));
+        manager.setDataSource(new MockDataSource());
+        manager.setDialect(new PostgreDialect());
+
+        PersistenceConventionImpl convention = new PersistenceConventionImpl();
+        EntityMetaFactoryImpl emFactory = new EntityMetaFactoryImpl();
+        emFactory.setPersistenceConvention(convention);
+        TableMetaFactoryImpl tableMetaFactory = new TableMetaFactoryImpl();
+        tableMetaFactory.setPersistenceConvention(convention);
+        emFactory.setTableMetaFactory(tableMetaFactory);
+
+        PropertyMetaFactoryImpl pFactory = new PropertyMetaFactoryImpl();
+        pFactory.setPersistenceConvention(convention);
+        ColumnMetaFactoryImpl cmFactory = new ColumnMetaFactoryImpl();
+        cmFactory.setPersistenceConvention(convention);
+        pFactory.setColumnMetaFactory(cmFactory);
+        emFactory.setPropertyMetaFactory(pFactory);
+        emFactory.initialize();
+        manager.setEntityMetaFactory(emFactory);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        SqlLogRegistry regisry = SqlLogRegistryLocator.getInstance();
+        regisry.clear();
+        manager = null;
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testExecute_bulkLoad() throws Exception {
+        MyDialect dialect = new MyDialect(3);
+        manager.setDialect(dialect);
+        List<Eee> entities = Arrays.asList(new Eee(1, "foo"),
+                new Eee(2, "bar"), new Eee(3, "baz"));
+        AutoBulkLoadImpl<Eee> query = new MyQuery(entities.iterator());
+        query.batchSize(2).listener(new MyListener());
+        int[] result = query.execute();
+        assertEquals(0, result.length);
+        assertEquals(0, sqls.size());
+        assertEquals("EEE", dialect.tableName);
+        assertEquals(2, dialect.batchSize);
+        assertEquals(Arrays.asList("id", "name", "longText", "fffId",
+                "version"), dialect.propertyNames);
+        assertEquals(3, dialect.rows.size());
+        assertTrue(Arrays.equals(new Object[] { 1, "foo", null, null, 1L },
+                dialect.rows.get(0)));
+        assertTrue(Arrays.equals(new Object[] { 3, "baz", null, null, 1L },
+                dialect.rows.get(2)));
+        assertEquals(Arrays.asList(3L), entityCounts);
+        for (Eee e : entities) {
+            assertEquals(new Long(1), e.version);
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testExecute_driverNotSupported() throws Exception {
+        MyDialect dialect = new MyDialect(-1);
+        manager.setDialect(dialect);
+        List<Eee> entities = Arrays.asList(new Eee(1, "foo"),
+                new Eee(2, "bar"), new Eee(3, "baz"));
+        AutoBulkLoadImpl<Eee> query = new MyQuery(entities.iterator());
+        query.batchSize(2).listener(new MyListener());
+        int[] result = query.execute();
+        assertEquals(0, result.length);
+        assertEquals(0, dialect.rows.size());
+        assertEquals(2, sqls.size());
+        assertEquals(
+                "insert into EEE (ID, NAME, LONG_TEXT, FFF_ID, VERSION) values (?, ?, ?, ?, ?), (?, ?, ?, ?, ?)",
+                sqls.get(0));
+        assertEquals(
+                "insert into EEE (ID, NAME, LONG_TEXT, FFF_ID, VERSION) values (?, ?, ?, ?, ?)",
+                sqls.get(1));
+        assertEquals(Arrays.asList(2L, 3L), entityCounts);
+    }
+
+    /**
+     * 
+     */
+    public void testExecute_lob() {
+        List<Eee> entities = Arrays.asList(new Eee(1, "foo"),
+                new Eee(2, "bar"), new Eee(3, "baz"));
+        AutoBulkLoadImpl<Eee> query = new MyQuery(entities.iterator());
+        query.batchSize(2).listener(new MyListener());
+        query.execute();
+        assertEquals(2, sqls.size());
+        assertEquals(Arrays.asList(2L, 3L), entityCounts);
+    }
+
+    private class MyQuery extends AutoBulkLoadImpl<Eee> {
+
+        private MyQuery(Iterator<Eee> entities) {
+            super(manager, entities);
+        }
+
+        @Override
+        protected PreparedStatement createPreparedStatement(
+                JdbcContext jdbcContext) {
+            sqls.add(executedSql);
+            return new MockPreparedStatement(null, null) {
+
+                @Override
+                public int executeUpdate() throws SQLException {
+                    return 0;
+                }
+            };
+        }
+
+    }
+
+    private class MyListener implements BatchUpdateListener {
+
+        public void batchExecuted(int batchCount, long entityCount, int[] rows) {
+            entityCounts.add(entityCount);
+        }
+
+        public void committed(int batchCount, long entityCount) {
+            fail();
+        }
+
+    }
+
+    private static class MyDialect extends PostgreDialect {
+
+        private long result;
+
+        private String tableName;
+
+        private List<String> propertyNames = new ArrayList<String>();
+
+        private List<Object[]> rows = new ArrayList<Object[]>();
+
+        private int batchSize;
+
+        private MyDialect(long result) {
+            this.result = result;
+        }
+
+        @Override
+        public boolean supportsBulkLoad(List<PropertyMeta> propertyMetaList) {
+            return true;
+        }
+
+        @Override
+        public long bulkLoad(Connection connection, String tableName,
+                List<PropertyMeta> propertyMetaList, Iterator<Object[]> rows,
+                int batchSize) {
+            if (result < 0) {
+                return result;
+            }
+            this.tableName = tableName;
+            for (PropertyMeta propertyMeta : propertyMetaList) {
+                propertyNames.add(propertyMeta.getName());
+            }
+            while (rows.hasNext()) {
+                this.rows.add(rows.next());
+            }
+            this.batchSize = batchSize;
+            return result;
+        }
+
+    }
+
+}
@@ -1988,6 +1988,51 @@ public class AutoSelectImplTest extends TestCase {
         assertEquals(Integer.class, variableClasses[1]);
     }
 
+    /**
+     * 
+     */
+    public void testPrepareCondition_IN_padding() {
+        StandardDialect dialect = new StandardDialect();
+        dialect.setInClausePadding(true);
+        manager.setDialect(dialect);
+        AutoSelectImpl<Aaa> query = new AutoSelectImpl<Aaa>(manager, Aaa.class);
+        Map<String, Object> w = new HashMap<String, Object>();
+        w.put("id_NOT_IN", Arrays.asList(1, 2, 3));
+        query.where(w);
+        query.prepare("getResultList");
+        assertEquals(" where (T1_.ID not in (?, ?, ?, ?))", query.whereClause
+                .toSql());
+        Object[] variables = query.getParamValues();
+        assertEquals(4, variables.length);
+        assertEquals(3, variables[2]);
+        assertEquals(3, variables[3]);
+    }
+
+    /**
+     * 
+     */
+    public void testPrepareCondition_IN_array() {
+        PostgreDialect dialect = new PostgreDialect() {
+
+            @Override
+            protected boolean isCreateArrayOfImplemented() {
+                return true;
+            }
+        };
+        dialect.setArrayInConditionThreshold(3);
+        manager.setDialect(dialect);
+        AutoSelectImpl<Aaa> query = new AutoSelectImpl<Aaa>(manager, Aaa.class);
+        Map<String, Object> w = new HashMap<String, Object>();
+        w.put("id_IN", Arrays.asList(1, 2, 3));
+        w.put("name_IN", new Object[] { "a", "b" });
+        query.where(w);
+        query.prepare("getResultList");
+        String sql = query.whereClause.toSql();
+        assertTrue(sql, sql.indexOf("T1_.ID = any (?)") > 0);
+        assertTrue(sql, sql.indexOf("T1_.NAME in (?, ?)") > 0);
+        assertEquals(3, query.getParamSize());
+    }
+
     /**
      * 
      */
@@ -2907,6 +2952,101 @@ public class AutoSelectImplTest extends TestCase {
         assertEquals("T3_", query.convertEntityNameToTableAlias("bbb.ddds"));
     }
 
+    /**
+     * 
+     */
+    public void testPrepare_planCache() {
+        AutoSelectImpl<Aaa> query = new AutoSelectImpl<Aaa>(manager, Aaa.class);
+        query.leftOuterJoin("bbb", new SimpleWhere().eq("bbb.id", 100)).where(
+                new SimpleWhere().eq("id", 1)).orderBy("id");
+        query.prepare("getResultList");
+        AutoSelectPlanCache cache = manager.getAutoSelectPlanCache();
+        assertEquals(1, cache.size());
+
+        AutoSelectImpl<Aaa> query2 = new AutoSelectImpl<Aaa>(manager, Aaa.class);
+        query2.leftOuterJoin("bbb", new SimpleWhere().eq("bbb.id", 200)).where(
+                new SimpleWhere().eq("id", 2)).orderBy("id");
+        query2.prepare("getResultList");
+        assertEquals(1, cache.size());
+        assertEquals(query.executedSql, query2.executedSql);
+        assertSame(query.getEntityMapper(), query2.getEntityMapper());
+        assertEquals(Arrays.asList(query.getValueTypes()), Arrays
+                .asList(query2.getValueTypes()));
+        assertEquals("", query2.fromClause.toSql());
+        Object[] variables = query2.getParamValues();
+        assertEquals(2, variables.length);
+        assertEquals(200, variables[0]);
+        assertEquals(2, variables[1]);
+        assertEquals(Arrays.asList(query.getParamValueTypes()), Arrays
+                .asList(query2.getParamValueTypes()));
+    }
+
+    /**
+     * 
+     */
+    public void testPrepare_planCache_differentShape() {
+        AutoSelectImpl<Aaa> query = new AutoSelectImpl<Aaa>(manager, Aaa.class);
+        query.where(new SimpleWhere().eq("id", 1));
+        query.prepare("getResultList");
+        query = new AutoSelectImpl<Aaa>(manager, Aaa.class);
+        query.where(new SimpleWhere().eq("name", "a"));
+        query.prepare("getResultList");
+        query = new AutoSelectImpl<Aaa>(manager, Aaa.class);
+        query.where(new SimpleWhere().eq("id", 1)).limit(10);
+        query.prepare("getResultList");
+        query = new AutoSelectImpl<Aaa>(manager, Aaa.class);
+        query.where(new SimpleWhere().eq("id", 1)).forUpdate();
+        query.prepare("getResultList");
+        query = new AutoSelectImpl<Aaa>(manager, Aaa.class);
+        query.where(new SimpleWhere().eq("id", 1));
+        query.count = true;
+        query.prepare("getCount");
+        assertEquals(5, manager.getAutoSelectPlanCache().size());
+    }
+
+    /**
+     * 
+     */
+    public void testPrepare_planCache_conditions() {
+        AutoSelectImpl<Aaa> query = new AutoSelectImpl<Aaa>(manager, Aaa.class);
+        Map<String, Object> w = new HashMap<String, Object>();
+        w.put("id", 1);
+        query.where(w);
+        query.prepare("getResultList");
+        assertEquals(0, manager.getAutoSelectPlanCache().size());
+    }
+
+    /**
+     * 
+     */
+    public void testPrepare_planCache_dispose() {
+        AutoSelectImpl<Aaa> query = new AutoSelectImpl<Aaa>(manager, Aaa.class);
+        query.where(new SimpleWhere().eq("id", 1));
+        query.prepare("getResultList");
+        assertEquals(1, manager.getAutoSelectPlanCache().size());
+        DisposableUtil.dispose();
+        assertEquals(0, manager.getAutoSelectPlanCache().size());
+
+        query = new AutoSelectImpl<Aaa>(manager, Aaa.class);
+        query.where(new SimpleWhere().eq("id", 1));
+        query.prepare("getResultList");
+        assertEquals(1, manager.getAutoSelectPlanCache().size());
+        DisposableUtil.dispose();
+        assertEquals(0, manager.getAutoSelectPlanCache().size());
+    }
+
+    /**
+     * 
+     */
+    public void testPrepare_planCache_disabled() {
+        manager.setAutoSelectPlanCacheSize(0);
+        assertNull(manager.getAutoSelectPlanCache());
+        AutoSelectImpl<Aaa> query = new AutoSelectImpl<Aaa>(manager, Aaa.class);
+        query.where(new SimpleWhere().eq("id", 1));
+        query.prepare("getResultList");
+        assertEquals(1, query.getParamValues().length);
+    }
+
     /**
      * 
      */
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.util;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.persistence.GenerationType;
+
+import junit.framework.TestCase;
+
+import org.seasar.extension.jdbc.PropertyMeta;
+import org.seasar.extension.jdbc.types.ValueTypes;
+
+/**
+ * 
+ */
+public class BulkLoadTextReaderTest extends TestCase {
+
+    /**
+     * 
+     */
+    public Integer id;
+
+    /**
+     * 
+     */
+    public String name;
+
+    /**
+     * 
+     */
+    public Boolean flag;
+
+    /**
+     * 
+     */
+    public BigDecimal amount;
+
+    /**
+     * 
+     */
+    public Date birthday;
+
+    /**
+     * 
+     */
+    public GenerationType type;
+
+    /**
+     * 
+     */
+    public byte[] data;
+
+    /**
+     * @throws Exception
+     */
+    public void testIsTarget() throws Exception {
+        List<PropertyMeta> list = createPropertyMetaList("id", "name",
+                "flag", "amount", "birthday", "type");
+        assertTrue(BulkLoadTextReader.isTarget(list));
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testIsTarget_lob() throws Exception {
+        List<PropertyMeta> list = createPropertyMetaList("id", "name");
+        list.get(1).setLob(true);
+        assertFalse(BulkLoadTextReader.isTarget(list));
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testIsTarget_bytes() throws Exception {
+        List<PropertyMeta> list = createPropertyMetaList("id", "data");
+        assertFalse(BulkLoadTextReader.isTarget(list));
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testIsTarget_valueType() throws Exception {
+        List<PropertyMeta> list = createPropertyMetaList("id", "name");
+        list.get(1).setValueType(ValueTypes.WAVE_DASH_STRING);
+        assertFalse(BulkLoadTextReader.isTarget(list));
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testIsTarget_booleanInteger() throws Exception {
+        List<PropertyMeta> list = createPropertyMetaList("id", "flag");
+        list.get(1).setValueType(ValueTypes.BOOLEAN_INTEGER);
+        assertFalse(BulkLoadTextReader.isTarget(list));
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testRead() throws Exception {
+        List<PropertyMeta> list = createPropertyMetaList("id", "name",
+                "flag", "amount", "birthday", "type");
+        list.get(5).setValueType(
+                ValueTypes.getEnumStringValueType(GenerationType.class));
+        Iterator<Object[]> rows = Arrays.<Object[]> asList(
+                new Object[] { 1, "foo", true, new BigDecimal("1E+3"),
+                        Date.valueOf("2008-01-02"), GenerationType.TABLE },
+                new Object[] { 2, "a\tb\\c\nd", false, null, null, null })
+                .iterator();
+        BulkLoadTextReader reader = new BulkLoadTextReader(list, rows, "t",
+                "f");
+        assertEquals("1\tfoo\tt\t1000\t2008-01-02\tTABLE\n"
+                + "2\ta\\tb\\\\c\\nd\tf\t\\N\t\\N\t\\N\n", readAll(reader));
+        assertEquals(2, reader.getRowCount());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testRead_ordinal() throws Exception {
+        List<PropertyMeta> list = createPropertyMetaList("type");
+        Iterator<Object[]> rows = Arrays.<Object[]> asList(
+                new Object[] { GenerationType.TABLE }).iterator();
+        BulkLoadTextReader reader = new BulkLoadTextReader(list, rows, "t",
+                "f");
+        assertEquals(GenerationType.TABLE.ordinal() + "\n", readAll(reader));
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testToInputStream() throws Exception {
+        List<PropertyMeta> list = createPropertyMetaList("id", "name", "flag");
+        Iterator<Object[]> rows = Arrays.<Object[]> asList(
+                new Object[] { 1, "あ", true },
+                new Object[] { 2, "bar", false }).iterator();
+        BulkLoadTextReader reader = new BulkLoadTextReader(list, rows, "1",
+                "0");
+        InputStream is = reader.toInputStream("UTF-8");
+        byte[] buf = new byte[256];
+        int size = 0;
+        for (int n; (n = is.read(buf, size, 3)) != -1;) {
+            size += n;
+        }
+        assertEquals("1\tあ\t1\n2\tbar\t0\n", new String(buf, 0, size,
+                "UTF-8"));
+        assertEquals(2, reader.getRowCount());
+    }
+
+    private List<PropertyMeta> createPropertyMetaList(String... names)
+            throws Exception {
+        List<PropertyMeta> list = new ArrayList<PropertyMeta>();
+        for (String name : names) {
+            PropertyMeta pm = new PropertyMeta();
+            pm.setName(name);
+            pm.setField(getClass().getField(name));
+            pm.setValueType(ValueTypes.getValueType(pm.getPropertyClass()));
+            list.add(pm);
+        }
+        return list;
+    }
+
+    private String readAll(BulkLoadTextReader reader) throws Exception {
+        StringBuilder buf = new StringBuilder();
+        char[] chars = new char[5];
+        for (int n; (n = reader.read(chars, 0, chars.length)) != -1;) {
+            buf.append(chars, 0, n);
+        }
+        return buf.toString();
+    }
+
+}
@@ -15,10 +15,19 @@
  */
 package org.seasar.extension.sql.cache;
 
+import java.io.File;
+import java.io.InvalidClassException;
+import java.util.Arrays;
+import java.util.HashMap;
+
 import junit.framework.TestCase;
 
 import org.seasar.extension.sql.Node;
 import org.seasar.extension.sql.context.SqlContextImpl;
+import org.seasar.extension.sql.node.StaticSqlNode;
+import org.seasar.framework.exception.IORuntimeException;
+import org.seasar.framework.util.FileUtil;
+import org.seasar.framework.util.SerializeUtil;
 
 /**
  * @author higa
@@ -26,9 +35,18 @@ import org.seasar.extension.sql.context.SqlContextImpl;
  */
 public class NodeCacheTest extends TestCase {
 
+    private File cacheDirectory;
+
     @Override
     protected void tearDown() throws Exception {
         NodeCache.clear();
+        NodeCache.setCacheDirectory(null);
+        if (cacheDirectory != null) {
+            for (File file : cacheDirectory.listFiles()) {
+                file.delete();
+            }
+            cacheDirectory.delete();
+        }
     }
 
     String getPath() {
@@ -47,6 +65,15 @@ public class NodeCacheTest extends TestCase {
         assertSame(node, NodeCache.getNode(getPath(), null));
     }
 
+    /**
+     * 
+     */
+    public void testGetNode_static() {
+        Node node = NodeCache.getNode(getPath(), null);
+        assertTrue(node instanceof StaticSqlNode);
+        assertEquals("standard", ((StaticSqlNode) node).getSql());
+    }
+
     /**
      * 
      */
@@ -98,6 +125,110 @@ public class NodeCacheTest extends TestCase {
         assertNull(NodeCache.getNode("notFound", null));
     }
 
+    /**
+     * 
+     */
+    public void testWarmUp() {
+        String rootDir = getClass().getPackage().getName().replace('.', '/');
+        assertTrue(NodeCache.warmUp(rootDir, 2) >= 4);
+        Node node = NodeCache.getNode(getPath(), "oracle");
+        SqlContextImpl ctx = new SqlContextImpl();
+        node.accept(ctx);
+        assertEquals("oracle", ctx.getSql());
+        assertSame(node, NodeCache.getNode(getPath(), "oracle"));
+        assertEquals(0, NodeCache.warmUp(rootDir, 2));
+    }
+
+    /**
+     * 
+     */
+    public void testWarmUp_sqlFileAbsent() {
+        String path = getClass().getName().replace('.', '/');
+        assertFalse(NodeCache.isSqlFileAbsent(path + "_xxx"));
+        String rootDir = getClass().getPackage().getName().replace('.', '/');
+        NodeCache.warmUp(rootDir, 2);
+        assertFalse(NodeCache.isSqlFileAbsent(path));
+        assertFalse(NodeCache.isSqlFileAbsent(path + "_oracle"));
+        assertTrue(NodeCache.isSqlFileAbsent(path + "_xxx"));
+        assertFalse(NodeCache.isSqlFileAbsent("notFound"));
+
+        Node node = NodeCache.getNode(getPath(), "xxx");
+        SqlContextImpl ctx = new SqlContextImpl();
+        node.accept(ctx);
+        assertEquals("standard", ctx.getSql());
+        assertNotNull(NodeCache.getNode(getPath(), "oracle", false));
+
+        NodeCache.clear();
+        assertFalse(NodeCache.isSqlFileAbsent(path + "_xxx"));
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testCacheDirectory() throws Exception {
+        cacheDirectory = File.createTempFile("NodeCacheTest", "");
+        cacheDirectory.delete();
+        NodeCache.setCacheDirectory(cacheDirectory);
+        assertTrue(cacheDirectory.isDirectory());
+        String path = getPath().replace(".sql", "_dynamic.sql");
+        Node node = NodeCache.getNode(path, null);
+        assertEquals(1, cacheDirectory.listFiles().length);
+        NodeCache.clear();
+
+        Node cachedNode = NodeCache.getNode(path, null);
+        assertNotSame(node, cachedNode);
+        assertEquals(1, cacheDirectory.listFiles().length);
+        assertNotNull(NodeCache.readNode(cacheDirectory.listFiles()[0]));
+        SqlContextImpl ctx = new SqlContextImpl();
+        ctx.addArg("job", "CLERK", String.class);
+        ctx.addArg("deptnos", Arrays.asList(10, 20), Object.class);
+        cachedNode.accept(ctx);
+        assertEquals(
+                "SELECT * FROM emp WHERE job = ? AND deptno IN (?, ?)",
+                ctx.getSql());
+        assertEquals(3, ctx.getBindVariables().length);
+    }
+
+    /**
+     * 
+     */
+    public void testGetCacheFileName() {
+        String version = NodeCache.getNodeVersion();
+        assertNotNull(version);
+        String name = NodeCache.getCacheFileName("select 1", true);
+        assertTrue(name, name.endsWith("_" + version + ".node"));
+        name = NodeCache.getCacheFileName("select 1", false);
+        assertTrue(name, name.endsWith("_" + version
+                + "_disallowVariableSql.node"));
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testCacheDirectory_notAllowedClass() throws Exception {
+        cacheDirectory = File.createTempFile("NodeCacheTest", "");
+        cacheDirectory.delete();
+        NodeCache.setCacheDirectory(cacheDirectory);
+        String sql = "SELECT * FROM emp WHERE job = /*job*/'CLERK'";
+        File file = new File(cacheDirectory, NodeCache.getCacheFileName(sql,
+                true));
+        FileUtil.write(file.getPath(), SerializeUtil
+                .fromObjectToBinary(new HashMap<String, String>()));
+        try {
+            NodeCache.readNode(file);
+            fail();
+        } catch (IORuntimeException expected) {
+            assertTrue(expected.getCause() instanceof InvalidClassException);
+        }
+
+        Node node = NodeCache.parse(sql, true);
+        SqlContextImpl ctx = new SqlContextImpl();
+        ctx.addArg("job", "CLERK", String.class);
+        node.accept(ctx);
+        assertEquals("SELECT * FROM emp WHERE job = ?", ctx.getSql());
+        assertNotNull(NodeCache.readNode(file));
+    }
+
     /**
      * 
      */
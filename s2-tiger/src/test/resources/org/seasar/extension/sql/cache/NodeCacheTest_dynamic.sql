@@ -0,0 +1 @@
+SELECT * FROM emp /*BEGIN*/WHERE /*IF job != null*/job = /*job*/'CLERK'/*END*/ /*IF deptnos != null*/AND deptno IN /*deptnos*/(10)/*END*//*END*/
\ No newline at end of file
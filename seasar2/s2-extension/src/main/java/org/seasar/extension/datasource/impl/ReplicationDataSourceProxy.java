@@ -0,0 +1,358 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.datasource.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+import javax.transaction.TransactionManager;
+
+import org.seasar.framework.exception.EmptyRuntimeException;
+import org.seasar.framework.log.Logger;
+import org.seasar.framework.util.TransactionManagerUtil;
+
+/**
+ * 読み取りをレプリカに、書き込みをプライマリに振り分けるデータソースのプロキシです。
+ * <p>
+ * トランザクションが開始されていない場合、または{@link #setReadOnly(boolean) 読み取り専用}
+ * が指定されている場合、 コネクションは{@link #addReplica(String, int) レプリカ}から取得されます。
+ * それ以外の場合はプライマリから取得されます。 レプリカとなるデータソースのコネクションプールには
+ * <code>ConnectionPoolImpl#setReadOnly(boolean)</code>で読み取り専用を指定しておくことを想定しています。
+ * </p>
+ * <p>
+ * レプリカは重みに応じて平滑化した重み付きラウンドロビンで選択されます。
+ * コネクションの取得に失敗したレプリカは{@link #getEjectionTime() 一定時間}切り離され、 他のレプリカが使用されます。
+ * 利用できるレプリカがない場合はプライマリが使用されます。
+ * </p>
+ * <p>
+ * データソースは名前を指定して{@link org.seasar.extension.datasource.DataSourceFactory}から取得します。
+ * </p>
+ * 
+ * <pre>
+ * &lt;component name=&quot;dataSource&quot;
+ *     class=&quot;org.seasar.extension.datasource.impl.ReplicationDataSourceProxy&quot;&gt;
+ *     &lt;property name=&quot;primaryDataSourceName&quot;&gt;&quot;primary&quot;&lt;/property&gt;
+ *     &lt;initMethod name=&quot;addReplica&quot;&gt;&lt;arg&gt;&quot;replica1&quot;&lt;/arg&gt;&lt;arg&gt;2&lt;/arg&gt;&lt;/initMethod&gt;
+ *     &lt;initMethod name=&quot;addReplica&quot;&gt;&lt;arg&gt;&quot;replica2&quot;&lt;/arg&gt;&lt;arg&gt;1&lt;/arg&gt;&lt;/initMethod&gt;
+ * &lt;/component&gt;
+ * </pre>
+ */
+public class ReplicationDataSourceProxy extends SelectableDataSourceProxy {
+
+    private static final Logger logger = Logger
+            .getLogger(ReplicationDataSourceProxy.class);
+
+    /**
+     * トランザクションマネージャです。
+     */
+    protected TransactionManager transactionManager;
+
+    /**
+     * プライマリのデータソース名です。
+     */
+    protected String primaryDataSourceName;
+
+    /**
+     * 切り離したレプリカを再び使用するまでの時間（ミリ秒）です。
+     */
+    protected long ejectionTime = 30000;
+
+    /**
+     * 読み取り専用かどうかを管理します。
+     */
+    protected ThreadLocal readOnly = new ThreadLocal();
+
+    private final List replicas = new ArrayList();
+
+    /**
+     * トランザクションマネージャを設定します。
+     * 
+     * @param transactionManager
+     *            トランザクションマネージャ
+     */
+    public void setTransactionManager(
+            final TransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * プライマリのデータソース名を返します。
+     * 
+     * @return プライマリのデータソース名
+     */
+    public String getPrimaryDataSourceName() {
+        return primaryDataSourceName;
+    }
+
+    /**
+     * プライマリのデータソース名を設定します。
+     * 
+     * @param primaryDataSourceName
+     *            プライマリのデータソース名
+     */
+    public void setPrimaryDataSourceName(final String primaryDataSourceName) {
+        this.primaryDataSourceName = primaryDataSourceName;
+    }
+
+    /**
+     * 切り離したレプリカを再び使用するまでの時間（ミリ秒）を返します。
+     * 
+     * @return 切り離す時間（ミリ秒）
+     */
+    public long getEjectionTime() {
+        return ejectionTime;
+    }
+
+    /**
+     * 切り離したレプリカを再び使用するまでの時間（ミリ秒）を設定します。
+     * 
+     * @param ejectionTime
+     *            切り離す時間（ミリ秒）
+     * @throws IllegalArgumentException
+     *             切り離す時間が<code>0</code>以下の場合にスローされます
+     */
+    public void setEjectionTime(final long ejectionTime) {
+        if (ejectionTime <= 0) {
+            throw new IllegalArgumentException("ejectionTime("
+                    + ejectionTime + ")");
+        }
+        this.ejectionTime = ejectionTime;
+    }
+
+    /**
+     * レプリカを追加します。
+     * 
+     * @param dataSourceName
+     *            レプリカのデータソース名
+     * @param weight
+     *            重み
+     */
+    public synchronized void addReplica(final String dataSourceName,
+            final int weight) {
+        replicas.add(new Replica(dataSourceName, Math.max(weight, 1)));
+    }
+
+    /**
+     * 現在のスレッドで読み取り専用かどうかを返します。
+     * 
+     * @return 読み取り専用かどうか
+     */
+    public boolean isReadOnly() {
+        return readOnly.get() != null;
+    }
+
+    /**
+     * 現在のスレッドで読み取り専用かどうかを設定します。
+     * <p>
+     * <code>true</code>を指定すると、トランザクション中であってもレプリカが使用されます。
+     * </p>
+     * 
+     * @param readOnly
+     *            読み取り専用かどうか
+     */
+    public void setReadOnly(final boolean readOnly) {
+        this.readOnly.set(readOnly ? Boolean.TRUE : null);
+    }
+
+    /**
+     * プライマリのデータソースを返します。
+     * 
+     * @return プライマリのデータソース
+     * @throws EmptyRuntimeException
+     *             プライマリのデータソース名が設定されていない場合にスローされます
+     */
+    public DataSource getPrimaryDataSource() {
+        if (primaryDataSourceName == null) {
+            throw new EmptyRuntimeException("primaryDataSourceName");
+        }
+        return dataSourceFactory.getDataSource(primaryDataSourceName);
+    }
+
+    /**
+     * 現在の状況で使用するデータソースを返します。
+     * <p>
+     * レプリカを使用する場合は、利用できるレプリカがあればそれを返します。
+     * </p>
+     * 
+     * @return データソース
+     */
+    public DataSource getDataSource() {
+        if (isReadRequest()) {
+            final Replica replica = selectReplica();
+            if (replica != null) {
+                return dataSourceFactory.getDataSource(replica.name);
+            }
+        }
+        return getPrimaryDataSource();
+    }
+
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null, false);
+    }
+
+    public Connection getConnection(final String username,
+            final String password) throws SQLException {
+        return getConnection(username, password, true);
+    }
+
+    /**
+     * レプリカを使用するかどうかを返します。
+     * 
+     * @return レプリカを使用するかどうか
+     */
+    protected boolean isReadRequest() {
+        if (isReadOnly()) {
+            return true;
+        }
+        return transactionManager == null
+                || !TransactionManagerUtil.isActive(transactionManager);
+    }
+
+    /**
+     * コネクションを取得します。
+     * <p>
+     * レプリカからの取得に失敗した場合は、そのレプリカを切り離して次のレプリカを試します。
+     * 1回の呼び出しで同じレプリカを試すのは1度だけです。
+     * </p>
+     * 
+     * @param username
+     *            ユーザ名
+     * @param password
+     *            パスワード
+     * @param useAccount
+     *            ユーザ名とパスワードを使用するかどうか
+     * @return コネクション
+     * @throws SQLException
+     *             SQL例外が発生した場合
+     */
+    protected Connection getConnection(final String username,
+            final String password, final boolean useAccount)
+            throws SQLException {
+        if (isReadRequest()) {
+            final Set tried = new HashSet();
+            for (Replica replica = selectReplica(tried); replica != null; replica = selectReplica(tried)) {
+                tried.add(replica);
+                final DataSource ds = dataSourceFactory
+                        .getDataSource(replica.name);
+                try {
+                    return useAccount ? ds.getConnection(username, password)
+                            : ds.getConnection();
+                } catch (final SQLException e) {
+                    eject(replica);
+                    logger.log("WSSR0020", new Object[] { replica.name,
+                            new Long(ejectionTime) }, e);
+                }
+            }
+        }
+        final DataSource ds = getPrimaryDataSource();
+        return useAccount ? ds.getConnection(username, password) : ds
+                .getConnection();
+    }
+
+    /**
+     * 利用できるレプリカを重みに応じて選択します。
+     * 
+     * @return レプリカ、利用できるレプリカがない場合は<code>null</code>
+     */
+    protected Replica selectReplica() {
+        return selectReplica(null);
+    }
+
+    /**
+     * 除外するレプリカ以外の利用できるレプリカを重みに応じて選択します。
+     * 
+     * @param excluded
+     *            除外するレプリカの{@link Set}、除外しない場合は<code>null</code>
+     * @return レプリカ、利用できるレプリカがない場合は<code>null</code>
+     */
+    protected synchronized Replica selectReplica(final Set excluded) {
+        final long now = System.currentTimeMillis();
+        Replica selected = null;
+        int totalWeight = 0;
+        for (int i = 0; i < replicas.size(); ++i) {
+            final Replica replica = (Replica) replicas.get(i);
+            if (replica.ejectedUntil > now
+                    || (excluded != null && excluded.contains(replica))) {
+                continue;
+            }
+            replica.currentWeight += replica.weight;
+            totalWeight += replica.weight;
+            if (selected == null
+                    || replica.currentWeight > selected.currentWeight) {
+                selected = replica;
+            }
+        }
+        if (selected != null) {
+            selected.currentWeight -= totalWeight;
+        }
+        return selected;
+    }
+
+    /**
+     * レプリカを切り離します。
+     * 
+     * @param replica
+     *            レプリカ
+     */
+    protected synchronized void eject(final Replica replica) {
+        replica.ejectedUntil = System.currentTimeMillis() + ejectionTime;
+        replica.currentWeight = 0;
+    }
+
+    /**
+     * レプリカです。
+     */
+    protected static class Replica {
+
+        /**
+         * データソース名です。
+         */
+        protected final String name;
+
+        /**
+         * 重みです。
+         */
+        protected final int weight;
+
+        /**
+         * 選択に使用する現在の重みです。
+         */
+        protected int currentWeight;
+
+        /**
+         * 切り離している期限です。
+         */
+        protected long ejectedUntil;
+
+        /**
+         * {@link Replica}を作成します。
+         * 
+         * @param name
+         *            データソース名
+         * @param weight
+         *            重み
+         */
+        protected Replica(final String name, final int weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+    }
+}
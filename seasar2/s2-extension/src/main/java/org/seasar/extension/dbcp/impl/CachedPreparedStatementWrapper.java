@@ -0,0 +1,162 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.dbcp.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.seasar.extension.jdbc.impl.PreparedStatementWrapper;
+
+/**
+ * {@link PreparedStatementCache}にキャッシュされる{@link PreparedStatement}のラッパです。
+ * <p>
+ * {@link #close()}を呼び出すと、パラメータや変更された属性を元に戻してから
+ * {@link PreparedStatementCache}に戻すだけで、実際にはクローズしません。
+ * </p>
+ */
+public class CachedPreparedStatementWrapper extends PreparedStatementWrapper {
+
+    private final PreparedStatement original;
+
+    private final String sql;
+
+    private final int resultSetType;
+
+    private final int resultSetConcurrency;
+
+    private final PreparedStatementCache cache;
+
+    private boolean closed = false;
+
+    private boolean batchAdded = false;
+
+    private Integer defaultFetchSize;
+
+    private Integer defaultMaxRows;
+
+    private Integer defaultQueryTimeout;
+
+    private Integer defaultMaxFieldSize;
+
+    private Integer defaultFetchDirection;
+
+    /**
+     * {@link CachedPreparedStatementWrapper}を作成します。
+     * 
+     * @param original
+     *            オリジナル
+     * @param sql
+     *            SQL
+     * @param resultSetType
+     *            結果セットのタイプ
+     * @param resultSetConcurrency
+     *            結果セットの並行処理モード
+     * @param cache
+     *            {@link PreparedStatement}のキャッシュ
+     */
+    public CachedPreparedStatementWrapper(final PreparedStatement original,
+            final String sql, final int resultSetType,
+            final int resultSetConcurrency, final PreparedStatementCache cache) {
+        super(original, sql);
+        this.original = original;
+        this.sql = sql;
+        this.resultSetType = resultSetType;
+        this.resultSetConcurrency = resultSetConcurrency;
+        this.cache = cache;
+    }
+
+    public void addBatch() throws SQLException {
+        super.addBatch();
+        batchAdded = true;
+    }
+
+    public void setFetchSize(final int rows) throws SQLException {
+        if (defaultFetchSize == null) {
+            defaultFetchSize = new Integer(original.getFetchSize());
+        }
+        super.setFetchSize(rows);
+    }
+
+    public void setMaxRows(final int max) throws SQLException {
+        if (defaultMaxRows == null) {
+            defaultMaxRows = new Integer(original.getMaxRows());
+        }
+        super.setMaxRows(max);
+    }
+
+    public void setQueryTimeout(final int seconds) throws SQLException {
+        if (defaultQueryTimeout == null) {
+            defaultQueryTimeout = new Integer(original.getQueryTimeout());
+        }
+        super.setQueryTimeout(seconds);
+    }
+
+    public void setMaxFieldSize(final int max) throws SQLException {
+        if (defaultMaxFieldSize == null) {
+            defaultMaxFieldSize = new Integer(original.getMaxFieldSize());
+        }
+        super.setMaxFieldSize(max);
+    }
+
+    public void setFetchDirection(final int direction) throws SQLException {
+        if (defaultFetchDirection == null) {
+            defaultFetchDirection = new Integer(original.getFetchDirection());
+        }
+        super.setFetchDirection(direction);
+    }
+
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            reset();
+        } catch (final SQLException e) {
+            super.close();
+            throw e;
+        }
+        cache.put(sql, resultSetType, resultSetConcurrency, original);
+    }
+
+    /**
+     * パラメータや変更された属性を元に戻します。
+     * 
+     * @throws SQLException
+     *             SQL例外が発生した場合
+     */
+    protected void reset() throws SQLException {
+        original.clearParameters();
+        if (batchAdded) {
+            original.clearBatch();
+        }
+        if (defaultFetchSize != null) {
+            original.setFetchSize(defaultFetchSize.intValue());
+        }
+        if (defaultMaxRows != null) {
+            original.setMaxRows(defaultMaxRows.intValue());
+        }
+        if (defaultQueryTimeout != null) {
+            original.setQueryTimeout(defaultQueryTimeout.intValue());
+        }
+        if (defaultMaxFieldSize != null) {
+            original.setMaxFieldSize(defaultMaxFieldSize.intValue());
+        }
+        if (defaultFetchDirection != null) {
+            original.setFetchDirection(defaultFetchDirection.intValue());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.dbcp.impl;
+
+/**
+ * コネクションを取り出す際に待機できる期限をスレッドに関連付けるクラスです。
+ * <p>
+ * リクエストの処理に残された時間を設定しておくと、 {@link ConnectionPoolImpl}は空きコネクションを待機する時間を
+ * {@link ConnectionPoolImpl#getMaxWait() 待機する上限}とこの期限の短い方に制限します。
+ * 期限を過ぎている場合、空きコネクションがなければすぐにタイムアウトします。
+ * </p>
+ * 
+ * <pre>
+ * CheckOutDeadline.set(remainingMillis);
+ * try {
+ *     ...
+ * } finally {
+ *     CheckOutDeadline.clear();
+ * }
+ * </pre>
+ */
+public final class CheckOutDeadline {
+
+    private static final ThreadLocal deadline = new ThreadLocal();
+
+    private CheckOutDeadline() {
+    }
+
+    /**
+     * 現在のスレッドに期限を設定します。
+     * 
+     * @param remainingMillis
+     *            現在からの残り時間（ミリ秒）
+     */
+    public static void set(final long remainingMillis) {
+        deadline.set(new Long(ConnectionPoolMetrics.currentTimeMicros()
+                + Math.max(remainingMillis, 0L) * 1000L));
+    }
+
+    /**
+     * 現在のスレッドの期限を解除します。
+     */
+    public static void clear() {
+        deadline.set(null);
+    }
+
+    /**
+     * 現在のスレッドに期限が設定されているかどうかを返します。
+     * 
+     * @return 期限が設定されているかどうか
+     */
+    public static boolean isSet() {
+        return deadline.get() != null;
+    }
+
+    /**
+     * 現在のスレッドの期限までの残り時間を返します。
+     * 
+     * @return 期限までの残り時間（ミリ秒）、期限を過ぎている場合は<code>0</code>、
+     *         期限が設定されていない場合は<code>-1</code>
+     */
+    public static long getRemainingMillis() {
+        final Long micros = (Long) deadline.get();
+        if (micros == null) {
+            return -1L;
+        }
+        final long remaining = micros.longValue()
+                - ConnectionPoolMetrics.currentTimeMicros();
+        return remaining <= 0L ? 0L : (remaining + 999L) / 1000L;
+    }
+}
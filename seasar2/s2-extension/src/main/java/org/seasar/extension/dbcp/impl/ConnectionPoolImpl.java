@@ -15,12 +15,15 @@
  */
 package org.seasar.extension.dbcp.impl;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -40,6 +43,7 @@ import org.seasar.framework.exception.SIllegalStateException;
 import org.seasar.framework.exception.SQLRuntimeException;
 import org.seasar.framework.exception.SSQLException;
 import org.seasar.framework.log.Logger;
+import org.seasar.framework.util.MapUtil;
 import org.seasar.framework.util.SLinkedList;
 import org.seasar.framework.util.StringUtil;
 import org.seasar.framework.util.TransactionManagerUtil;
@@ -53,6 +57,11 @@ import org.seasar.framework.util.TransactionUtil;
  */
 public class ConnectionPoolImpl implements ConnectionPool {
 
+    /**
+     * 初期化メソッドのアノテーションです。
+     */
+    public static final String INIT_METHOD = "init";
+
     /**
      * readonly用のBindingアノテーションです。
      */
@@ -70,6 +79,8 @@ public class ConnectionPoolImpl implements ConnectionPool {
 
     private static Logger logger = Logger.getLogger(ConnectionPoolImpl.class);
 
+    private static final Method IS_VALID_METHOD = getIsValidMethod();
+
     private XADataSource xaDataSource;
 
     private TransactionManager transactionManager;
@@ -92,14 +103,60 @@ public class ConnectionPoolImpl implements ConnectionPool {
 
     private long validationInterval;
 
+    private boolean concurrent = false;
+
+    private boolean fair = false;
+
+    private int preparedStatementCacheSize = 0;
+
+    private int warmPoolSize = 0;
+
+    private long fillInterval = 0;
+
+    private long maxFillInterval = 60000;
+
+    private long backgroundValidationInterval = 0;
+
+    private int validationBatchSize = 0;
+
+    private int validationTimeout = 5;
+
+    private boolean isValidSupported = IS_VALID_METHOD != null;
+
+    private long validatedCount;
+
+    private long evictedCount;
+
+    private long validationFailedCount;
+
+    private long leakDetectionThreshold = 0;
+
+    private int leakDetectionSamplingInterval = 1;
+
+    private int checkOutSequence;
+
+    private TimeoutTask leakDetectionTask;
+
     private Set activePool = new HashSet();
 
-    private Map txActivePool = new HashMap();
+    private Map txActivePool = MapUtil.createHashMap();
 
     private SLinkedList freePool = new SLinkedList();
 
+    private int pendingCount;
+
+    private final SLinkedList waiters = new SLinkedList();
+
     private TimeoutTask timeoutTask;
 
+    private Filler filler;
+
+    private Validator validator;
+
+    private boolean closed;
+
+    private final ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+
     /**
      * {@link ConnectionPoolImpl}を作成します。
      */
@@ -319,6 +376,349 @@ public class ConnectionPoolImpl implements ConnectionPool {
         this.validationInterval = validationInterval;
     }
 
+    /**
+     * 並行モードかどうかを返します。
+     * 
+     * @return 並行モードかどうか
+     */
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    /**
+     * 並行モードかどうかを設定します。
+     * <p>
+     * <code>true</code>を指定すると、コネクションの取り出しや返却の際にプールのモニタを獲得するのは
+     * プールの状態を更新する間だけになり、物理コネクションの作成や検証はモニタの外で行われます。
+     * 多数のスレッドが同時にコネクションを取り出す場合、
+     * あるスレッドがデータベースへ接続している間に他のスレッドが待たされることがなくなります。
+     * <code>false</code> (デフォルト) の場合は従来どおりプール全体を排他して処理します。
+     * </p>
+     * 
+     * @param concurrent
+     *            並行モードかどうか
+     */
+    public void setConcurrent(boolean concurrent) {
+        this.concurrent = concurrent;
+    }
+
+    /**
+     * 公平モードかどうかを返します。
+     * 
+     * @return 公平モードかどうか
+     */
+    public boolean isFair() {
+        return fair;
+    }
+
+    /**
+     * 公平モードかどうかを設定します。
+     * <p>
+     * <code>true</code>を指定すると、空きコネクションを待機するスレッドは到着順に並び、
+     * 返却されたコネクションは最も長く待機しているスレッドに直接引き渡されます。
+     * 待機しているスレッドはそれぞれ自身のモニタで待機するため、 コネクションが返却されるたびにすべての待機スレッドが起こされることはありません。
+     * 公平モードでは、並行モードと同様にコネクションを取り出す間プールのモニタを獲得し続けることはありません。
+     * <code>false</code> (デフォルト) の場合は従来どおりプールのモニタで待機します。
+     * </p>
+     * 
+     * @param fair
+     *            公平モードかどうか
+     * @see CheckOutDeadline
+     */
+    public void setFair(boolean fair) {
+        this.fair = fair;
+    }
+
+    /**
+     * 物理コネクションごとにキャッシュする{@link PreparedStatement}の上限を返します。
+     * 
+     * @return キャッシュする{@link PreparedStatement}の上限
+     */
+    public int getPreparedStatementCacheSize() {
+        return preparedStatementCacheSize;
+    }
+
+    /**
+     * 物理コネクションごとにキャッシュする{@link PreparedStatement}の上限を設定します。
+     * <p>
+     * キャッシュはコネクションがプールに戻されても破棄されず、物理コネクションがクローズされる時に破棄されます。
+     * キーはSQLと結果セットのタイプと並行処理モードです。 上限を超えると最も長い間使用されていないものからクローズされます。
+     * <code>0</code>以下の値 (デフォルト) を指定した場合、キャッシュは行われません。
+     * </p>
+     * 
+     * @param preparedStatementCacheSize
+     *            キャッシュする{@link PreparedStatement}の上限
+     */
+    public void setPreparedStatementCacheSize(int preparedStatementCacheSize) {
+        this.preparedStatementCacheSize = preparedStatementCacheSize;
+    }
+
+    /**
+     * 初期化時に作成しておくコネクションの数を返します。
+     * 
+     * @return 初期化時に作成しておくコネクションの数
+     */
+    public int getWarmPoolSize() {
+        return warmPoolSize;
+    }
+
+    /**
+     * 初期化時に作成しておくコネクションの数を設定します。
+     * <p>
+     * コネクションの補充が有効な場合、初期化時にこの数 (ただし{@link #getMinPoolSize() 下限}以上)
+     * の空きコネクションをバックグラウンドで作成します。 その後はプールの空きコネクションが下限を下回らないように補充します。
+     * </p>
+     * 
+     * @param warmPoolSize
+     *            初期化時に作成しておくコネクションの数
+     * @see #setFillInterval(long)
+     */
+    public void setWarmPoolSize(int warmPoolSize) {
+        this.warmPoolSize = warmPoolSize;
+    }
+
+    /**
+     * 空きコネクションの数を確認して補充する間隔（ミリ秒）を返します。
+     * 
+     * @return 補充する間隔（ミリ秒）
+     */
+    public long getFillInterval() {
+        return fillInterval;
+    }
+
+    /**
+     * 空きコネクションの数を確認して補充する間隔（ミリ秒）を設定します。
+     * <p>
+     * <code>0</code>以下の値 (デフォルト) を指定した場合、コネクションの補充は行われません。
+     * </p>
+     * 
+     * @param fillInterval
+     *            補充する間隔（ミリ秒）
+     */
+    public void setFillInterval(long fillInterval) {
+        this.fillInterval = fillInterval;
+    }
+
+    /**
+     * コネクションの作成に失敗した場合に補充を再試行する間隔の上限（ミリ秒）を返します。
+     * 
+     * @return 再試行する間隔の上限（ミリ秒）
+     */
+    public long getMaxFillInterval() {
+        return maxFillInterval;
+    }
+
+    /**
+     * コネクションの作成に失敗した場合に補充を再試行する間隔の上限（ミリ秒）を設定します。
+     * <p>
+     * コネクションの作成に失敗すると、再試行する間隔は{@link #getFillInterval() 補充する間隔}
+     * から失敗するたびに倍になり、この値で頭打ちになります。
+     * </p>
+     * 
+     * @param maxFillInterval
+     *            再試行する間隔の上限（ミリ秒）
+     */
+    public void setMaxFillInterval(long maxFillInterval) {
+        this.maxFillInterval = maxFillInterval;
+    }
+
+    /**
+     * 空きコネクションをバックグラウンドで検証する間隔（ミリ秒）を返します。
+     * 
+     * @return バックグラウンドで検証する間隔（ミリ秒）
+     */
+    public long getBackgroundValidationInterval() {
+        return backgroundValidationInterval;
+    }
+
+    /**
+     * 空きコネクションをバックグラウンドで検証する間隔（ミリ秒）を設定します。
+     * <p>
+     * <code>0</code>より大きい値を指定すると、この間隔で空きコネクションを検証するバックグラウンドのスレッドが動作し、
+     * 最後の検証からこの間隔以上が経過した空きコネクションを検証します。 検証には
+     * <code>Connection#isValid(int)</code>を使用し、JDBCドライバがサポートしていない場合は
+     * {@link #getValidationQuery() 検証用クエリ}を使用します。 検証に失敗したコネクションはプールから破棄されます。
+     * この場合、コネクションを取り出す際は、最後の検証からこの間隔を超えて経過したコネクションだけを同じ方法で検証します。
+     * </p>
+     * <p>
+     * <code>0</code>以下の値 (デフォルト) を指定した場合、検証はコネクションを取り出す際に
+     * {@link #getValidationQuery() 検証用クエリ}を使用して行われます。
+     * </p>
+     * 
+     * @param backgroundValidationInterval
+     *            バックグラウンドで検証する間隔（ミリ秒）
+     */
+    public void setBackgroundValidationInterval(
+            long backgroundValidationInterval) {
+        this.backgroundValidationInterval = backgroundValidationInterval;
+    }
+
+    /**
+     * バックグラウンドで一度にプールから取り出して検証する空きコネクションの上限を返します。
+     * 
+     * @return 一度に検証する空きコネクションの上限
+     */
+    public int getValidationBatchSize() {
+        return validationBatchSize;
+    }
+
+    /**
+     * バックグラウンドで一度にプールから取り出して検証する空きコネクションの上限を設定します。
+     * <p>
+     * 検証中の空きコネクションは取り出すことができません。
+     * <code>0</code>以下の値 (デフォルト) を指定した場合、検証が必要な空きコネクションをまとめて検証します。
+     * </p>
+     * 
+     * @param validationBatchSize
+     *            一度に検証する空きコネクションの上限
+     */
+    public void setValidationBatchSize(int validationBatchSize) {
+        this.validationBatchSize = validationBatchSize;
+    }
+
+    /**
+     * <code>Connection#isValid(int)</code>に渡すタイムアウト（秒）を返します。
+     * 
+     * @return 検証のタイムアウト（秒）
+     */
+    public int getValidationTimeout() {
+        return validationTimeout;
+    }
+
+    /**
+     * <code>Connection#isValid(int)</code>に渡すタイムアウト（秒）を設定します。
+     * 
+     * @param validationTimeout
+     *            検証のタイムアウト（秒）
+     */
+    public void setValidationTimeout(int validationTimeout) {
+        this.validationTimeout = validationTimeout;
+    }
+
+    /**
+     * 検証に成功したコネクションの数を返します。
+     * 
+     * @return 検証に成功したコネクションの数
+     */
+    public synchronized long getValidatedCount() {
+        return validatedCount;
+    }
+
+    /**
+     * 検証の結果プールから破棄されたコネクションの数を返します。
+     * <p>
+     * コネクションを取り出す際の検証に失敗した場合は、その時点の空きコネクションもすべて破棄されます。
+     * </p>
+     * 
+     * @return 検証の結果破棄されたコネクションの数
+     */
+    public synchronized long getEvictedCount() {
+        return evictedCount;
+    }
+
+    /**
+     * 検証に失敗したコネクションの数を返します。
+     * 
+     * @return 検証に失敗したコネクションの数
+     */
+    public synchronized long getValidationFailedCount() {
+        return validationFailedCount;
+    }
+
+    /**
+     * 返却されていないコネクションを報告するまでの時間（ミリ秒）を返します。
+     * 
+     * @return 報告するまでの時間（ミリ秒）
+     */
+    public long getLeakDetectionThreshold() {
+        return leakDetectionThreshold;
+    }
+
+    /**
+     * 返却されていないコネクションを報告するまでの時間（ミリ秒）を設定します。
+     * <p>
+     * <code>0</code>より大きい値を指定すると、初期化時にリークの検出が開始されます。
+     * コネクションを取り出してからこの時間以上返却されていないコネクションは、取り出した場所とともに警告としてログに出力されます。
+     * また、トランザクションが完了しているにもかかわらずトランザクションに関連付けられたままのコネクションは、 プールに回収されます。
+     * <code>0</code>以下の値 (デフォルト) を指定した場合、リークの検出は行われません。
+     * </p>
+     * 
+     * @param leakDetectionThreshold
+     *            報告するまでの時間（ミリ秒）
+     */
+    public void setLeakDetectionThreshold(long leakDetectionThreshold) {
+        this.leakDetectionThreshold = leakDetectionThreshold;
+    }
+
+    /**
+     * コネクションを取り出した場所を記録する間隔を返します。
+     * 
+     * @return 取り出した場所を記録する間隔
+     */
+    public int getLeakDetectionSamplingInterval() {
+        return leakDetectionSamplingInterval;
+    }
+
+    /**
+     * コネクションを取り出した場所を記録する間隔を設定します。
+     * <p>
+     * リークの検出が有効な場合、 コネクションを取り出した場所は概ねこの回数に一回の割合で記録されます。
+     * 取り出した場所の記録にはスタックトレースの取得が伴うため、 オーバーヘッドを抑えたい場合は大きな値を指定してください。
+     * 取り出した時刻は常に記録されます。 <code>1</code> (デフォルト) を指定すると毎回記録し、
+     * <code>0</code>以下の値を指定すると記録しません。
+     * </p>
+     * 
+     * @param leakDetectionSamplingInterval
+     *            取り出した場所を記録する間隔
+     */
+    public void setLeakDetectionSamplingInterval(
+            int leakDetectionSamplingInterval) {
+        this.leakDetectionSamplingInterval = leakDetectionSamplingInterval;
+    }
+
+    /**
+     * 統計情報を返します。
+     * 
+     * @return 統計情報
+     */
+    public ConnectionPoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 初期化します。
+     * <p>
+     * コネクションの補充が有効な場合、 空きコネクションを補充するバックグラウンドのスレッドを開始します。
+     * バックグラウンドでの検証が有効な場合、 空きコネクションを検証するバックグラウンドのスレッドを開始します。
+     * </p>
+     */
+    public synchronized void init() {
+        closed = false;
+        if (fillInterval > 0L && filler == null) {
+            filler = new Filler();
+            final Thread thread = new Thread(filler,
+                    "Seasar2-ConnectionPoolFiller");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        if (backgroundValidationInterval > 0L && validator == null) {
+            validator = new Validator();
+            final Thread thread = new Thread(validator,
+                    "Seasar2-ConnectionPoolValidator");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        if (leakDetectionThreshold > 0L && leakDetectionTask == null) {
+            leakDetectionTask = TimeoutManager.getInstance()
+                    .addTimeoutTargetMillis(new TimeoutTarget() {
+                        public void expired() {
+                            detectLeaks();
+                        }
+                    }, Math.max(leakDetectionThreshold / 2,
+                            TimeoutManager.TICK_MILLIS), true);
+        }
+    }
+
     public int getActivePoolSize() {
         return activePool.size();
     }
@@ -331,7 +731,28 @@ public class ConnectionPoolImpl implements ConnectionPool {
         return freePool.size();
     }
 
-    public synchronized ConnectionWrapper checkOut() throws SQLException {
+    public ConnectionWrapper checkOut() throws SQLException {
+        if (concurrent || fair) {
+            return checkOutInternal();
+        }
+        synchronized (this) {
+            return checkOutInternal();
+        }
+    }
+
+    /**
+     * コネクションを取り出します。
+     * <p>
+     * 並行モードの場合、プールの状態を更新する間だけプールのモニタを獲得します。
+     * 物理コネクションの作成や検証、XAリソースの登録はモニタの外で行われます。
+     * </p>
+     * 
+     * @return コネクション
+     * @throws SQLException
+     *             SQL例外が発生した場合
+     */
+    private ConnectionWrapper checkOutInternal() throws SQLException {
+        final long startTime = ConnectionPoolMetrics.currentTimeMicros();
         Transaction tx = getTransaction();
         if (tx == null && !isAllowLocalTx()) {
             throw new SIllegalStateException("ESSR0311", null);
@@ -344,127 +765,612 @@ public class ConnectionPoolImpl implements ConnectionPool {
             }
             return con;
         }
-        long wait = maxWait;
-        while (getMaxPoolSize() > 0
-                && getActivePoolSize() + getTxActivePoolSize() >= getMaxPoolSize()) {
-            if (wait == 0L) {
-                throw new SSQLException("ESSR0104", null);
-            }
-            final long startTime = System.currentTimeMillis();
-            try {
-                wait((maxWait == -1L) ? 0L : wait);
-            } catch (InterruptedException e) {
-                throw new SSQLException("ESSR0104", null, e);
+        FreeItem item = reserve();
+        try {
+            if (item != null) {
+                con = checkOutFreePool(item, tx);
             }
-            final long elapseTime = System.currentTimeMillis() - startTime;
-            if (wait > 0L) {
-                wait -= Math.min(wait, elapseTime);
+            if (con == null) {
+                con = createConnection(tx);
             }
-        }
-        con = checkOutFreePool(tx);
-        if (con == null) {
-            con = createConnection(tx);
+        } catch (SQLException e) {
+            cancelReservation();
+            throw e;
+        } catch (RuntimeException e) {
+            cancelReservation();
+            throw e;
         }
         if (tx == null) {
             setConnectionActivePool(con);
         } else {
-            TransactionUtil.enlistResource(tx, con.getXAResource());
-            TransactionUtil.registerSynchronization(tx,
-                    new SynchronizationImpl(tx));
-            setConnectionTxActivePool(tx, con);
+            final ConnectionWrapper current = setConnectionTxActivePool(tx,
+                    con);
+            if (current != con) {
+                checkInFreePool(con);
+                recordCheckOut(current, startTime);
+                return current;
+            }
+            try {
+                TransactionUtil.enlistResource(tx, con.getXAResource());
+                TransactionUtil.registerSynchronization(tx,
+                        new SynchronizationImpl(tx));
+            } catch (RuntimeException e) {
+                txActivePool.remove(tx);
+                releaseInternal(con);
+                throw e;
+            }
         }
         con.setReadOnly(readOnly);
         if (transactionIsolationLevel != DEFAULT_TRANSACTION_ISOLATION_LEVEL) {
             con.setTransactionIsolation(transactionIsolationLevel);
         }
+        recordCheckOut(con, startTime);
         if (logger.isDebugEnabled()) {
             logger.log("DSSR0007", new Object[] { tx });
         }
         return con;
     }
 
+    private void recordCheckOut(final ConnectionWrapper con,
+            final long startTime) {
+        final long now = ConnectionPoolMetrics.currentTimeMicros();
+        metrics.getCheckOutWaitHistogram().record(now - startTime);
+        if (con instanceof ConnectionWrapperImpl) {
+            final ConnectionWrapperImpl cw = (ConnectionWrapperImpl) con;
+            cw.setCheckOutTime(now);
+            if (leakDetectionThreshold > 0L
+                    && leakDetectionSamplingInterval > 0
+                    && ++checkOutSequence % leakDetectionSamplingInterval == 0) {
+                cw.setCheckOutSite(new Throwable("Checked out by "
+                        + Thread.currentThread().getName()));
+            }
+        }
+    }
+
+    private void recordHoldTime(final ConnectionWrapper con) {
+        if (con instanceof ConnectionWrapperImpl) {
+            metrics.getHoldTimeHistogram().record(
+                    ConnectionPoolMetrics.currentTimeMicros()
+                            - ((ConnectionWrapperImpl) con).getCheckOutTime());
+        }
+    }
+
     private Transaction getTransaction() {
         return TransactionManagerUtil.getTransaction(transactionManager);
     }
 
     private ConnectionWrapper getConnectionTxActivePool(Transaction tx) {
-        return (ConnectionWrapper) txActivePool.get(tx);
-    }
-
-    private ConnectionWrapper checkOutFreePool(final Transaction tx) {
-        if (freePool.isEmpty()) {
+        if (tx == null) {
             return null;
         }
-        FreeItem item = (FreeItem) freePool.removeLast();
-        ConnectionWrapper con = item.getConnection();
-        con.init(tx);
-        item.destroy();
-        if (StringUtil.isEmpty(validationQuery)) {
-            return con;
-        }
-        if (validateConnection(con, item.getPooledTime())) {
-            return con;
-        }
-        return null;
+        return (ConnectionWrapper) txActivePool.get(tx);
     }
 
-    private boolean validateConnection(final ConnectionWrapper con,
-            final long pooledTime) {
-        final long currentTime = System.currentTimeMillis();
-        if (currentTime - pooledTime < validationInterval) {
-            return true;
+    /**
+     * コネクションを取り出す権利を予約します。
+     * <p>
+     * アクティブなコネクションの数が上限に達している場合は空きができるまで待機します。
+     * 空きコネクションがある場合はプールから取り除いて返します。 待機する時間は{@link #getMaxWait() 待機する上限}と
+     * {@link CheckOutDeadline 期限}の短い方です。
+     * </p>
+     * 
+     * @return 空きコネクションの要素、空きコネクションがない場合は<code>null</code>
+     * @throws SQLException
+     *             待機がタイムアウトまたは中断された場合
+     */
+    private FreeItem reserve() throws SQLException {
+        final long wait = getEffectiveMaxWait();
+        final long deadline = wait > 0L ? ConnectionPoolMetrics
+                .currentTimeMicros()
+                + wait * 1000L : 0L;
+        if (fair) {
+            return reserveFair(wait, deadline);
         }
-        try {
-            final PreparedStatement ps = con.prepareStatement(validationQuery);
-            try {
-                ps.executeQuery();
-            } finally {
-                ps.close();
-            }
-        } catch (final Exception e) {
-            try {
-                con.close();
-            } catch (final Exception ignore) {
-            }
-            for (SLinkedList.Entry entry = freePool.getFirstEntry(); entry != null; entry = entry
-                    .getNext()) {
-                final FreeItem item = (FreeItem) entry.getElement();
+        synchronized (this) {
+            while (!hasCapacity()) {
+                final long remaining = getRemainingMillis(wait, deadline);
+                if (remaining == 0L) {
+                    metrics.recordCheckOutTimeout();
+                    throw new SSQLException("ESSR0104", null);
+                }
                 try {
-                    item.getConnection().closeReally();
-                } catch (final Exception ignore) {
+                    wait(remaining == -1L ? 0L : remaining);
+                } catch (InterruptedException e) {
+                    metrics.recordCheckOutTimeout();
+                    throw new SSQLException("ESSR0104", null, e);
                 }
             }
-            freePool.clear();
-            logger.log("ESSR0096", null, e);
+            return takeReservation();
+        }
+    }
+
+    /**
+     * 公平モードでコネクションを取り出す権利を予約します。
+     * <p>
+     * 待機しているスレッドがいる場合は、 空きがあっても列の最後に並びます。
+     * </p>
+     * 
+     * @param wait
+     *            待機する上限（ミリ秒）、<code>-1</code>の場合は無制限
+     * @param deadline
+     *            待機する期限（マイクロ秒単位）
+     * @return 空きコネクションの要素、空きコネクションがない場合は<code>null</code>
+     * @throws SQLException
+     *             待機がタイムアウトまたは中断された場合
+     */
+    private FreeItem reserveFair(final long wait, final long deadline)
+            throws SQLException {
+        final Waiter waiter;
+        synchronized (this) {
+            if (waiters.isEmpty() && hasCapacity()) {
+                return takeReservation();
+            }
+            if (wait == 0L) {
+                metrics.recordCheckOutTimeout();
+                throw new SSQLException("ESSR0104", null);
+            }
+            waiter = new Waiter();
+            waiters.addLast(waiter);
+        }
+        InterruptedException interrupted = null;
+        synchronized (waiter) {
+            while (!waiter.granted) {
+                final long remaining = getRemainingMillis(wait, deadline);
+                if (remaining == 0L) {
+                    break;
+                }
+                try {
+                    waiter.wait(remaining == -1L ? 0L : remaining);
+                } catch (InterruptedException e) {
+                    interrupted = e;
+                    break;
+                }
+            }
+        }
+        synchronized (this) {
+            synchronized (waiter) {
+                if (waiter.granted) {
+                    if (interrupted == null) {
+                        return waiter.item;
+                    }
+                    if (waiter.item != null) {
+                        freePool.addLast(waiter.item);
+                    }
+                    --pendingCount;
+                    notifyWaiters(false);
+                } else {
+                    waiters.remove(waiter);
+                }
+            }
+        }
+        metrics.recordCheckOutTimeout();
+        throw new SSQLException("ESSR0104", null, interrupted);
+    }
+
+    private long getEffectiveMaxWait() {
+        final long remaining = CheckOutDeadline.getRemainingMillis();
+        if (remaining == -1L) {
+            return maxWait;
+        }
+        return maxWait < 0L ? remaining : Math.min(maxWait, remaining);
+    }
+
+    private static long getRemainingMillis(final long wait,
+            final long deadline) {
+        if (wait <= 0L) {
+            return wait;
+        }
+        final long remaining = deadline
+                - ConnectionPoolMetrics.currentTimeMicros();
+        return remaining <= 0L ? 0L : (remaining + 999L) / 1000L;
+    }
+
+    private boolean hasCapacity() {
+        return getMaxPoolSize() <= 0
+                || getActivePoolSize() + getTxActivePoolSize() + pendingCount < getMaxPoolSize();
+    }
+
+    private FreeItem takeReservation() {
+        ++pendingCount;
+        if (freePool.isEmpty()) {
+            return null;
+        }
+        return (FreeItem) freePool.removeLast();
+    }
+
+    /**
+     * 空きができたことを待機しているスレッドに通知します。
+     * <p>
+     * 公平モードの場合は、空きがある限り待機している順にスレッドへ予約を引き渡します。
+     * 呼び出し元はプールのモニタを獲得していなければなりません。
+     * </p>
+     * 
+     * @param all
+     *            公平モードでない場合にすべてのスレッドに通知するかどうか
+     */
+    private void notifyWaiters(final boolean all) {
+        if (!fair) {
+            if (all) {
+                notifyAll();
+            } else {
+                notify();
+            }
+            return;
+        }
+        while (!waiters.isEmpty() && hasCapacity()) {
+            final Waiter waiter = (Waiter) waiters.removeFirst();
+            synchronized (waiter) {
+                waiter.item = takeReservation();
+                waiter.granted = true;
+                waiter.notify();
+            }
+        }
+    }
+
+    /**
+     * 予約を取り消します。
+     */
+    private synchronized void cancelReservation() {
+        --pendingCount;
+        notifyWaiters(false);
+    }
+
+    private ConnectionWrapper checkOutFreePool(final FreeItem item,
+            final Transaction tx) {
+        ConnectionWrapper con = item.getConnection();
+        final long validatedTime = item.getValidatedTime();
+        item.destroy();
+        if (con == null) {
+            return null;
+        }
+        con.init(tx);
+        if (validator != null) {
+            if (validateStaleConnection(con, validatedTime)) {
+                return con;
+            }
+            return null;
+        }
+        if (StringUtil.isEmpty(validationQuery)) {
+            return con;
+        }
+        if (validateConnection(con, item.getPooledTime())) {
+            return con;
+        }
+        return null;
+    }
+
+    private boolean validateConnection(final ConnectionWrapper con,
+            final long pooledTime) {
+        final long currentTime = System.currentTimeMillis();
+        if (currentTime - pooledTime < validationInterval) {
+            return true;
+        }
+        final long startTime = ConnectionPoolMetrics.currentTimeMicros();
+        try {
+            final PreparedStatement ps = con.prepareStatement(validationQuery);
+            try {
+                ps.executeQuery();
+            } finally {
+                ps.close();
+            }
+        } catch (final Exception e) {
+            recordValidationTime(startTime);
+            try {
+                con.close();
+            } catch (final Exception ignore) {
+            }
+            final FreeItem[] items = removeFreeItems();
+            addValidationCounts(0, 1, items.length + 1);
+            for (int i = 0; i < items.length; ++i) {
+                final ConnectionWrapper cw = items[i].getConnection();
+                items[i].destroy();
+                if (cw != null) {
+                    try {
+                        cw.closeReally();
+                    } catch (final Exception ignore) {
+                    }
+                }
+            }
+            logger.log("ESSR0096", null, e);
+            wakeUpFiller();
             return false;
         }
+        recordValidationTime(startTime);
+        addValidationCounts(1, 0, 0);
         return true;
     }
 
+    /**
+     * バックグラウンドで検証している場合に、取り出す空きコネクションを検証します。
+     * <p>
+     * 最後の検証から{@link #getBackgroundValidationInterval() バックグラウンドで検証する間隔}を超えて経過している場合だけ検証します。
+     * 検証に失敗したコネクションは破棄します。
+     * </p>
+     * 
+     * @param con
+     *            コネクション
+     * @param validatedTime
+     *            最後に検証された時刻（ミリ秒）
+     * @return 検証に成功した場合、または検証が不要な場合は<code>true</code>
+     */
+    private boolean validateStaleConnection(final ConnectionWrapper con,
+            final long validatedTime) {
+        final long elapsedTime = System.currentTimeMillis() - validatedTime;
+        if (elapsedTime <= backgroundValidationInterval) {
+            return true;
+        }
+        if (isValidConnection(con)) {
+            addValidationCounts(1, 0, 0);
+            return true;
+        }
+        addValidationCounts(0, 1, 1);
+        con.closeReally();
+        wakeUpFiller();
+        return false;
+    }
+
+    private void recordValidationTime(final long startTime) {
+        metrics.getValidationTimeHistogram().record(
+                ConnectionPoolMetrics.currentTimeMicros() - startTime);
+    }
+
+    private synchronized void addValidationCounts(final int validated,
+            final int failed, final int evicted) {
+        validatedCount += validated;
+        validationFailedCount += failed;
+        evictedCount += evicted;
+    }
+
+    /**
+     * 物理コネクションを検証します。
+     * <p>
+     * <code>Connection#isValid(int)</code>を使用し、JDBCドライバがサポートしていない場合は
+     * {@link #getValidationQuery() 検証用クエリ}を使用します。 どちらも使用できない場合は検証に成功したとみなします。
+     * </p>
+     * 
+     * @param con
+     *            コネクション
+     * @return 検証に成功した場合は<code>true</code>
+     */
+    private boolean isValidConnection(final ConnectionWrapper con) {
+        final long startTime = ConnectionPoolMetrics.currentTimeMicros();
+        try {
+            final Boolean valid = isValid(con.getPhysicalConnection());
+            if (valid != null) {
+                return valid.booleanValue();
+            }
+            if (StringUtil.isEmpty(validationQuery)) {
+                return true;
+            }
+            final PreparedStatement ps = con.prepareStatement(validationQuery);
+            try {
+                ps.executeQuery();
+            } finally {
+                ps.close();
+            }
+            return true;
+        } catch (final Exception e) {
+            logger.log("ESSR0096", null, e);
+            return false;
+        } finally {
+            recordValidationTime(startTime);
+        }
+    }
+
+    /**
+     * <code>Connection#isValid(int)</code>を呼び出します。
+     * 
+     * @param pc
+     *            物理コネクション
+     * @return コネクションが有効かどうか、JDBCドライバがサポートしていない場合は<code>null</code>
+     * @throws SQLException
+     *             SQL例外が発生した場合
+     */
+    private Boolean isValid(final Connection pc) throws SQLException {
+        if (!isValidSupported) {
+            return null;
+        }
+        try {
+            return (Boolean) IS_VALID_METHOD.invoke(pc,
+                    new Object[] { new Integer(validationTimeout) });
+        } catch (final IllegalAccessException e) {
+            isValidSupported = false;
+            return null;
+        } catch (final AbstractMethodError e) {
+            isValidSupported = false;
+            return null;
+        } catch (final InvocationTargetException e) {
+            final Throwable t = e.getTargetException();
+            if (t instanceof AbstractMethodError
+                    || t.getClass().getName().equals(
+                            "java.sql.SQLFeatureNotSupportedException")) {
+                isValidSupported = false;
+                return null;
+            }
+            if (t instanceof SQLException) {
+                throw (SQLException) t;
+            }
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            throw new SSQLException("ESSR0096", null, t);
+        }
+    }
+
+    private static Method getIsValidMethod() {
+        try {
+            return Connection.class.getMethod("isValid",
+                    new Class[] { int.class });
+        } catch (final NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 最後に検証した時刻が指定の時刻以前の空きコネクションの要素をプールから取り除いて返します。
+     * <p>
+     * 取り除いた空きコネクションの要素ごとに予約を確保します。
+     * </p>
+     * 
+     * @param threshold
+     *            検証が必要になる最後に検証した時刻
+     * @return 空きコネクションの要素の配列
+     */
+    private synchronized FreeItem[] takeFreeItemsToValidate(
+            final long threshold) {
+        final SLinkedList items = new SLinkedList();
+        SLinkedList.Entry e = freePool.getFirstEntry();
+        while (e != null
+                && (validationBatchSize <= 0 || items.size() < validationBatchSize)) {
+            final SLinkedList.Entry next = e.getNext();
+            final FreeItem item = (FreeItem) e.getElement();
+            if (item.getValidatedTime() <= threshold) {
+                e.remove();
+                item.validating = true;
+                items.addLast(item);
+                ++pendingCount;
+            }
+            e = next;
+        }
+        final FreeItem[] result = new FreeItem[items.size()];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = (FreeItem) items.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * 検証した空きコネクションの要素をプールに戻します。
+     * <p>
+     * 検証に成功した要素は元の順序でプールの先頭に戻し、予約を解放します。
+     * 検証に失敗した要素と、検証中にタイムアウトした要素のうち下限を超えるものは返します。
+     * 検証中にプールがクローズされた場合は、すべての要素を返します。
+     * </p>
+     * 
+     * @param items
+     *            空きコネクションの要素の配列
+     * @param valid
+     *            要素ごとの検証の結果
+     * @param validatedTime
+     *            検証した時刻
+     * @return 破棄する空きコネクションの要素のリスト
+     */
+    private synchronized SLinkedList returnValidatedFreeItems(
+            final FreeItem[] items, final boolean[] valid,
+            final long validatedTime) {
+        final SLinkedList discarded = new SLinkedList();
+        for (int i = items.length - 1; i >= 0; --i) {
+            final FreeItem item = items[i];
+            item.validating = false;
+            --pendingCount;
+            if (!closed && valid[i]
+                    && (!item.timedOut || freePool.size() < minPoolSize)) {
+                item.validatedTime = validatedTime;
+                item.timedOut = false;
+                freePool.addFirst(item);
+            } else {
+                discarded.addLast(item);
+            }
+        }
+        notifyWaiters(true);
+        return discarded;
+    }
+
+    /**
+     * 空きコネクションの要素をすべてプールから取り除いて返します。
+     * 
+     * @return 空きコネクションの要素の配列
+     */
+    private synchronized FreeItem[] removeFreeItems() {
+        final FreeItem[] items = new FreeItem[freePool.size()];
+        int i = 0;
+        for (SLinkedList.Entry e = freePool.getFirstEntry(); e != null; e = e
+                .getNext()) {
+            items[i++] = (FreeItem) e.getElement();
+        }
+        freePool.clear();
+        return items;
+    }
+
     private ConnectionWrapper createConnection(Transaction tx)
             throws SQLException {
+        final long startTime = ConnectionPoolMetrics.currentTimeMicros();
         XAConnection xaConnection = xaDataSource.getXAConnection();
         Connection connection = xaConnection.getConnection();
+        metrics.getConnectTimeHistogram().record(
+                ConnectionPoolMetrics.currentTimeMicros() - startTime);
         ConnectionWrapper con = new ConnectionWrapperImpl(xaConnection,
-                connection, this, tx);
+                connection, this, tx, createPreparedStatementCache());
         if (logger.isDebugEnabled()) {
             logger.log("DSSR0006", null);
         }
         return con;
     }
 
-    private void setConnectionTxActivePool(Transaction tx,
-            ConnectionWrapper connection) {
+    private PreparedStatementCache createPreparedStatementCache() {
+        if (preparedStatementCacheSize <= 0) {
+            return null;
+        }
+        return new PreparedStatementCache(preparedStatementCacheSize);
+    }
+
+    private PreparedStatementCache getPreparedStatementCache(
+            ConnectionWrapper con) {
+        if (con instanceof ConnectionWrapperImpl) {
+            return ((ConnectionWrapperImpl) con).getPreparedStatementCache();
+        }
+        return null;
+    }
 
+    /**
+     * トランザクションに関連付けたコネクションをプールします。
+     * <p>
+     * 別のスレッドが既に同じトランザクションにコネクションを関連付けていた場合は、 そのコネクションを返します。
+     * この場合、予約は解放されません。
+     * </p>
+     * 
+     * @param tx
+     *            トランザクション
+     * @param connection
+     *            コネクション
+     * @return トランザクションに関連付けられたコネクション
+     */
+    private synchronized ConnectionWrapper setConnectionTxActivePool(
+            Transaction tx, ConnectionWrapper connection) {
+        final ConnectionWrapper current = (ConnectionWrapper) txActivePool
+                .get(tx);
+        if (current != null) {
+            return current;
+        }
+        --pendingCount;
         txActivePool.put(tx, connection);
+        return connection;
     }
 
-    private void setConnectionActivePool(ConnectionWrapper connection) {
+    private synchronized void setConnectionActivePool(
+            ConnectionWrapper connection) {
+        --pendingCount;
         activePool.add(connection);
     }
 
-    public synchronized void release(ConnectionWrapper connection) {
-        activePool.remove(connection);
+    public void release(ConnectionWrapper connection) {
+        if (concurrent) {
+            releaseConnection(connection);
+            return;
+        }
+        synchronized (this) {
+            releaseConnection(connection);
+        }
+    }
+
+    private void releaseConnection(ConnectionWrapper connection) {
+        recordHoldTime(connection);
+        synchronized (this) {
+            activePool.remove(connection);
+        }
         Transaction tx = getTransaction();
         if (tx != null) {
             txActivePool.remove(tx);
@@ -474,59 +1380,229 @@ public class ConnectionPoolImpl implements ConnectionPool {
 
     private void releaseInternal(ConnectionWrapper connection) {
         connection.closeReally();
-        notify();
+        synchronized (this) {
+            notifyWaiters(false);
+        }
+        wakeUpFiller();
+    }
+
+    /**
+     * コネクションが破棄されたことを補充用のスレッドに通知します。
+     */
+    private void wakeUpFiller() {
+        final Filler f = filler;
+        if (f != null) {
+            f.wakeUp();
+        }
+    }
+
+    public void checkIn(ConnectionWrapper connection) {
+        if (concurrent) {
+            checkInConnection(connection);
+            return;
+        }
+        synchronized (this) {
+            checkInConnection(connection);
+        }
     }
 
-    public synchronized void checkIn(ConnectionWrapper connection) {
-        activePool.remove(connection);
+    private void checkInConnection(ConnectionWrapper connection) {
+        recordHoldTime(connection);
+        synchronized (this) {
+            activePool.remove(connection);
+            ++pendingCount;
+        }
         checkInFreePool(connection);
     }
 
+    /**
+     * コネクションを空きコネクションとしてプールに戻します。
+     * <p>
+     * 呼び出し元はこのコネクションのために予約を保持していなければなりません。 予約はこのメソッドの中で解放されます。
+     * </p>
+     * 
+     * @param con
+     *            コネクション
+     */
     private void checkInFreePool(ConnectionWrapper con) {
-        if (getMaxPoolSize() > 0) {
-            try {
-                final Connection pc = con.getPhysicalConnection();
-                try {
-                    pc.setAutoCommit(true);
-                } catch (SQLException e) {
-                    releaseInternal(con);
-                    throw e;
-                }
-                final ConnectionWrapper newCon = new ConnectionWrapperImpl(
-                        con.getXAConnection(), pc, this, null);
-                con.cleanup();
+        if (getMaxPoolSize() <= 0) {
+            con.closeReally();
+            cancelReservation();
+            return;
+        }
+        boolean success = false;
+        try {
+            final Connection pc = con.getPhysicalConnection();
+            pc.setAutoCommit(true);
+            final ConnectionWrapper newCon = new ConnectionWrapperImpl(con
+                    .getXAConnection(), pc, this, null,
+                    getPreparedStatementCache(con));
+            con.cleanup();
+            synchronized (this) {
+                --pendingCount;
                 freePool.addLast(new FreeItem(newCon));
-                notify();
-            } catch (SQLException e) {
-                throw new SQLRuntimeException(e);
+                notifyWaiters(false);
             }
-        } else {
-            con.closeReally();
+            success = true;
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        } finally {
+            if (!success) {
+                con.closeReally();
+                cancelReservation();
+            }
+        }
+    }
+
+    public void checkInTx(Transaction tx) {
+        if (concurrent) {
+            checkInTxConnection(tx);
+            return;
+        }
+        synchronized (this) {
+            checkInTxConnection(tx);
         }
     }
 
-    public synchronized void checkInTx(Transaction tx) {
+    private void checkInTxConnection(Transaction tx) {
         if (tx == null) {
             return;
         }
         if (getTransaction() != null) {
             return;
         }
-        ConnectionWrapper con = (ConnectionWrapper) txActivePool.remove(tx);
-        if (con == null) {
-            return;
+        ConnectionWrapper con;
+        synchronized (this) {
+            con = (ConnectionWrapper) txActivePool.remove(tx);
+            if (con == null) {
+                return;
+            }
+            ++pendingCount;
         }
+        recordHoldTime(con);
         checkInFreePool(con);
     }
 
+    /**
+     * 取り出されているコネクションの一覧を文字列で返します。
+     * <p>
+     * コネクションごとに、取り出してからの時間（ミリ秒）とトランザクション、
+     * 記録されていれば取り出した場所のスタックトレースを含みます。
+     * </p>
+     * 
+     * @return 取り出されているコネクションの一覧
+     */
+    public String dumpCheckedOutConnections() {
+        final ConnectionWrapper[] connections = getCheckedOutConnections();
+        final long now = ConnectionPoolMetrics.currentTimeMicros();
+        final StringBuffer buf = new StringBuffer(1000);
+        for (int i = 0; i < connections.length; ++i) {
+            if (!(connections[i] instanceof ConnectionWrapperImpl)) {
+                continue;
+            }
+            final ConnectionWrapperImpl con = (ConnectionWrapperImpl) connections[i];
+            buf.append("held=").append(
+                    (now - con.getCheckOutTime()) / 1000L).append("ms, tx=")
+                    .append(con.getTransaction()).append(
+                            System.getProperty("line.separator"));
+            final Throwable site = con.getCheckOutSite();
+            if (site != null) {
+                final StackTraceElement[] elements = site.getStackTrace();
+                for (int j = 0; j < elements.length; ++j) {
+                    buf.append("\tat ").append(elements[j]).append(
+                            System.getProperty("line.separator"));
+                }
+            }
+        }
+        return new String(buf);
+    }
+
+    private synchronized ConnectionWrapper[] getCheckedOutConnections() {
+        final List connections = new ArrayList(activePool);
+        connections.addAll(txActivePool.values());
+        return (ConnectionWrapper[]) connections
+                .toArray(new ConnectionWrapper[connections.size()]);
+    }
+
+    /**
+     * 返却されていないコネクションを報告し、 トランザクションが完了したコネクションを回収します。
+     */
+    private void detectLeaks() {
+        final List reclaimed = new ArrayList();
+        synchronized (this) {
+            for (final Iterator i = txActivePool.entrySet().iterator(); i
+                    .hasNext();) {
+                final Map.Entry entry = (Map.Entry) i.next();
+                if (isCompleted((Transaction) entry.getKey())) {
+                    i.remove();
+                    ++pendingCount;
+                    reclaimed.add(entry.getValue());
+                }
+            }
+        }
+        for (int i = 0; i < reclaimed.size(); ++i) {
+            final ConnectionWrapper con = (ConnectionWrapper) reclaimed.get(i);
+            if (con instanceof ConnectionWrapperImpl) {
+                logger.log("WSSR0019", new Object[] { ((ConnectionWrapperImpl) con)
+                        .getTransaction() });
+            }
+            recordHoldTime(con);
+            checkInFreePool(con);
+        }
+        final ConnectionWrapper[] connections = getCheckedOutConnections();
+        final long now = ConnectionPoolMetrics.currentTimeMicros();
+        for (int i = 0; i < connections.length; ++i) {
+            if (!(connections[i] instanceof ConnectionWrapperImpl)) {
+                continue;
+            }
+            final ConnectionWrapperImpl con = (ConnectionWrapperImpl) connections[i];
+            final long held = (now - con.getCheckOutTime()) / 1000L;
+            if (held < leakDetectionThreshold || con.isLeakReported()) {
+                continue;
+            }
+            con.setLeakReported(true);
+            logger.log("WSSR0018", new Object[] { new Long(held),
+                    con.getTransaction() }, con.getCheckOutSite());
+        }
+    }
+
+    private static boolean isCompleted(final Transaction tx) {
+        try {
+            switch (tx.getStatus()) {
+            case Status.STATUS_COMMITTED:
+            case Status.STATUS_ROLLEDBACK:
+            case Status.STATUS_NO_TRANSACTION:
+                return true;
+            default:
+                return false;
+            }
+        } catch (final Exception e) {
+            return false;
+        }
+    }
+
     public final synchronized void close() {
-        for (SLinkedList.Entry e = freePool.getFirstEntry(); e != null; e = e
-                .getNext()) {
-            FreeItem item = (FreeItem) e.getElement();
-            item.getConnection().closeReally();
-            item.destroy();
+        if (leakDetectionTask != null) {
+            leakDetectionTask.cancel();
+            leakDetectionTask = null;
+        }
+        if (filler != null) {
+            filler.stop();
+            filler = null;
+        }
+        if (validator != null) {
+            validator.stop();
+            validator = null;
+        }
+        closed = true;
+        final FreeItem[] items = removeFreeItems();
+        for (int i = 0; i < items.length; ++i) {
+            final ConnectionWrapper con = items[i].getConnection();
+            if (con != null) {
+                con.closeReally();
+            }
+            items[i].destroy();
         }
-        freePool.clear();
         for (Iterator i = txActivePool.values().iterator(); i.hasNext();) {
             ConnectionWrapper con = (ConnectionWrapper) i.next();
             con.closeReally();
@@ -548,11 +1624,18 @@ public class ConnectionPoolImpl implements ConnectionPool {
 
         private long pooledTime;
 
+        private long validatedTime;
+
+        private boolean validating;
+
+        private boolean timedOut;
+
         FreeItem(ConnectionWrapper connectionWrapper) {
             connectionWrapper_ = connectionWrapper;
             timeoutTask_ = TimeoutManager.getInstance().addTimeoutTarget(this,
                     timeout, false);
             pooledTime = System.currentTimeMillis();
+            validatedTime = pooledTime;
         }
 
         /**
@@ -573,12 +1656,30 @@ public class ConnectionPoolImpl implements ConnectionPool {
             return pooledTime;
         }
 
+        /**
+         * 最後に検証された時刻（ミリ秒）を返します。
+         * <p>
+         * 検証されていない場合はプールされた時刻を返します。
+         * </p>
+         * 
+         * @return 最後に検証された時刻（ミリ秒）
+         */
+        public long getValidatedTime() {
+            return validatedTime;
+        }
+
         public void expired() {
             synchronized (ConnectionPoolImpl.this) {
+                if (validating) {
+                    timedOut = true;
+                    return;
+                }
                 if (freePool.size() <= minPoolSize) {
                     return;
                 }
-                freePool.remove(this);
+                if (!freePool.remove(this)) {
+                    return;
+                }
             }
             synchronized (this) {
                 if (connectionWrapper_ != null) {
@@ -586,6 +1687,7 @@ public class ConnectionPoolImpl implements ConnectionPool {
                     connectionWrapper_ = null;
                 }
             }
+            wakeUpFiller();
         }
 
         /**
@@ -600,6 +1702,211 @@ public class ConnectionPoolImpl implements ConnectionPool {
         }
     }
 
+    /**
+     * 空きコネクションをバックグラウンドで補充します。
+     * <p>
+     * 最初は{@link ConnectionPoolImpl#getWarmPoolSize() 初期化時に作成しておくコネクションの数}まで、
+     * その後は{@link ConnectionPoolImpl#getMinPoolSize() 下限}まで空きコネクションを作成します。
+     * コネクションの作成に失敗した場合は、再試行する間隔を倍にしていきます。
+     * </p>
+     */
+    private class Filler implements Runnable {
+
+        private boolean warmedUp = false;
+
+        private long backoff = 0L;
+
+        private boolean stopped = false;
+
+        public void run() {
+            for (;;) {
+                long interval;
+                try {
+                    fill();
+                    warmedUp = true;
+                    backoff = 0L;
+                    interval = fillInterval;
+                } catch (final Exception e) {
+                    backoff = (backoff == 0L) ? fillInterval : Math.min(
+                            backoff * 2, Math.max(maxFillInterval,
+                                    fillInterval));
+                    interval = backoff;
+                    logger.log("WSSR0017", new Object[] { new Long(interval) },
+                            e);
+                }
+                synchronized (this) {
+                    if (stopped) {
+                        return;
+                    }
+                    try {
+                        wait(interval);
+                    } catch (final InterruptedException e) {
+                        return;
+                    }
+                    if (stopped) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void fill() throws SQLException {
+            for (;;) {
+                synchronized (ConnectionPoolImpl.this) {
+                    if (stopped || !isFillRequired()) {
+                        return;
+                    }
+                    ++pendingCount;
+                }
+                ConnectionWrapper con = null;
+                try {
+                    con = createConnection(null);
+                } finally {
+                    synchronized (ConnectionPoolImpl.this) {
+                        --pendingCount;
+                        if (con != null && !stopped) {
+                            freePool.addLast(new FreeItem(con));
+                            con = null;
+                        }
+                        notifyWaiters(false);
+                    }
+                    if (con != null) {
+                        con.closeReally();
+                    }
+                }
+            }
+        }
+
+        private boolean isFillRequired() {
+            final int target = warmedUp ? minPoolSize : Math.max(minPoolSize,
+                    warmPoolSize);
+            if (getMaxPoolSize() <= 0 || getFreePoolSize() >= target) {
+                return false;
+            }
+            return getActivePoolSize() + getTxActivePoolSize() + pendingCount
+                    + getFreePoolSize() < getMaxPoolSize();
+        }
+
+        /**
+         * 補充が必要かどうかをすぐに確認させます。
+         * <p>
+         * コネクションの作成に失敗して再試行を待っている間は何もしません。
+         * </p>
+         */
+        public synchronized void wakeUp() {
+            if (backoff == 0L) {
+                notify();
+            }
+        }
+
+        /**
+         * 補充を停止します。
+         */
+        public void stop() {
+            synchronized (this) {
+                stopped = true;
+                notify();
+            }
+        }
+    }
+
+    /**
+     * 公平モードで空きコネクションを待機しているスレッドです。
+     */
+    private static final class Waiter {
+
+        private boolean granted;
+
+        private FreeItem item;
+    }
+
+    /**
+     * 空きコネクションをバックグラウンドで検証します。
+     * <p>
+     * {@link ConnectionPoolImpl#getBackgroundValidationInterval() 検証する間隔}
+     * ごとに、最後の検証からその間隔以上が経過した空きコネクションを
+     * {@link ConnectionPoolImpl#getValidationBatchSize() 上限}ずつプールから取り出して検証します。
+     * </p>
+     */
+    private class Validator implements Runnable {
+
+        private boolean stopped = false;
+
+        public void run() {
+            for (;;) {
+                synchronized (this) {
+                    if (stopped) {
+                        return;
+                    }
+                    try {
+                        wait(backgroundValidationInterval);
+                    } catch (final InterruptedException e) {
+                        return;
+                    }
+                    if (stopped) {
+                        return;
+                    }
+                }
+                try {
+                    validate();
+                } catch (final RuntimeException e) {
+                    logger.log(e);
+                }
+            }
+        }
+
+        private void validate() {
+            final long threshold = System.currentTimeMillis()
+                    - backgroundValidationInterval;
+            for (;;) {
+                synchronized (this) {
+                    if (stopped) {
+                        return;
+                    }
+                }
+                final FreeItem[] items = takeFreeItemsToValidate(threshold);
+                if (items.length == 0) {
+                    return;
+                }
+                final boolean[] valid = new boolean[items.length];
+                int validated = 0;
+                for (int i = 0; i < items.length; ++i) {
+                    final ConnectionWrapper con = items[i].getConnection();
+                    valid[i] = con != null && isValidConnection(con);
+                    if (valid[i]) {
+                        ++validated;
+                    }
+                }
+                final SLinkedList discarded = returnValidatedFreeItems(items,
+                        valid, System.currentTimeMillis());
+                for (SLinkedList.Entry e = discarded.getFirstEntry(); e != null; e = e
+                        .getNext()) {
+                    final FreeItem item = (FreeItem) e.getElement();
+                    final ConnectionWrapper con = item.getConnection();
+                    item.destroy();
+                    if (con != null) {
+                        con.closeReally();
+                    }
+                }
+                final int failed = items.length - validated;
+                addValidationCounts(validated, failed, failed);
+                if (!discarded.isEmpty()) {
+                    wakeUpFiller();
+                }
+            }
+        }
+
+        /**
+         * 検証を停止します。
+         */
+        public void stop() {
+            synchronized (this) {
+                stopped = true;
+                notify();
+            }
+        }
+    }
+
     /**
      * {@link Synchronization}の実装です。
      * 
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.dbcp.impl;
+
+/**
+ * {@link ConnectionPoolImpl}の統計情報です。
+ * <p>
+ * 経過時間はマイクロ秒単位で{@link LatencyHistogram}に記録されます。 実行環境がJava5以降でS2-Tigerが利用可能な場合は
+ * <code>System#nanoTime()</code>を、それ以外の場合は{@link System#currentTimeMillis()}
+ * を使用して計測します。 どちらを使用するかはクラスのロード時に一度だけ決まります。
+ * </p>
+ */
+public class ConnectionPoolMetrics {
+
+    /**
+     * 経過時間を計測するための{@link Clock}です。
+     */
+    protected static final Clock clock = getClock();
+
+    private final LatencyHistogram checkOutWaitHistogram = new LatencyHistogram();
+
+    private final LatencyHistogram holdTimeHistogram = new LatencyHistogram();
+
+    private final LatencyHistogram connectTimeHistogram = new LatencyHistogram();
+
+    private final LatencyHistogram validationTimeHistogram = new LatencyHistogram();
+
+    private long checkOutTimeoutCount;
+
+    /**
+     * コネクションを取り出した回数を返します。
+     * 
+     * @return コネクションを取り出した回数
+     */
+    public long getCheckOutCount() {
+        return checkOutWaitHistogram.getCount();
+    }
+
+    /**
+     * 空きコネクションを待機してタイムアウトした回数を返します。
+     * 
+     * @return タイムアウトした回数
+     */
+    public synchronized long getCheckOutTimeoutCount() {
+        return checkOutTimeoutCount;
+    }
+
+    /**
+     * 物理コネクションを作成した数を返します。
+     * 
+     * @return 物理コネクションを作成した数
+     */
+    public long getCreatedCount() {
+        return connectTimeHistogram.getCount();
+    }
+
+    /**
+     * コネクションを取り出すのにかかった時間 (マイクロ秒単位) のヒストグラムを返します。
+     * <p>
+     * 空きコネクションを待機する時間の他に、物理コネクションの作成や検証にかかった時間を含みます。
+     * </p>
+     * 
+     * @return コネクションを取り出すのにかかった時間のヒストグラム
+     */
+    public LatencyHistogram getCheckOutWaitHistogram() {
+        return checkOutWaitHistogram;
+    }
+
+    /**
+     * コネクションを取り出してから返却するまでの時間 (マイクロ秒単位) のヒストグラムを返します。
+     * 
+     * @return コネクションを保持していた時間のヒストグラム
+     */
+    public LatencyHistogram getHoldTimeHistogram() {
+        return holdTimeHistogram;
+    }
+
+    /**
+     * 物理コネクションの作成にかかった時間 (マイクロ秒単位) のヒストグラムを返します。
+     * 
+     * @return 物理コネクションの作成にかかった時間のヒストグラム
+     */
+    public LatencyHistogram getConnectTimeHistogram() {
+        return connectTimeHistogram;
+    }
+
+    /**
+     * コネクションの検証にかかった時間 (マイクロ秒単位) のヒストグラムを返します。
+     * 
+     * @return コネクションの検証にかかった時間のヒストグラム
+     */
+    public LatencyHistogram getValidationTimeHistogram() {
+        return validationTimeHistogram;
+    }
+
+    /**
+     * 統計情報をリセットします。
+     */
+    public void reset() {
+        synchronized (this) {
+            checkOutTimeoutCount = 0L;
+        }
+        checkOutWaitHistogram.reset();
+        holdTimeHistogram.reset();
+        connectTimeHistogram.reset();
+        validationTimeHistogram.reset();
+    }
+
+    public String toString() {
+        return "checkOutWait=[" + checkOutWaitHistogram + "], holdTime=["
+                + holdTimeHistogram + "], connectTime=["
+                + connectTimeHistogram + "], validationTime=["
+                + validationTimeHistogram + "], checkOutTimeout="
+                + getCheckOutTimeoutCount();
+    }
+
+    /**
+     * 空きコネクションを待機してタイムアウトしたことを記録します。
+     */
+    synchronized void recordCheckOutTimeout() {
+        ++checkOutTimeoutCount;
+    }
+
+    /**
+     * 経過時間を計測するための現在時刻をマイクロ秒単位で返します。
+     * <p>
+     * 返される値は経過時間の計算にのみ使用できます。
+     * </p>
+     * 
+     * @return 現在時刻 (マイクロ秒単位)
+     */
+    public static long currentTimeMicros() {
+        return clock.currentTimeMicros();
+    }
+
+    /**
+     * {@link Clock}を作成して返します。
+     * 
+     * @return {@link Clock}
+     */
+    protected static Clock getClock() {
+        try {
+            final Class clazz = Class
+                    .forName("org.seasar.extension.dbcp.impl.NanoTimeClock");
+            return (Clock) clazz.newInstance();
+        } catch (final Throwable ignore) {
+        }
+        return new MillisClock();
+    }
+
+    /**
+     * 経過時間を計測するための時計です。
+     */
+    interface Clock {
+
+        /**
+         * 経過時間を計測するための現在時刻をマイクロ秒単位で返します。
+         * 
+         * @return 現在時刻 (マイクロ秒単位)
+         */
+        long currentTimeMicros();
+    }
+
+    /**
+     * {@link System#currentTimeMillis()}を使用する{@link Clock}の実装です。
+     */
+    public static class MillisClock implements Clock {
+
+        public long currentTimeMicros() {
+            return System.currentTimeMillis() * 1000L;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.dbcp.impl;
+
+import java.lang.reflect.Method;
+
+import org.seasar.framework.util.ClassUtil;
+import org.seasar.framework.util.ConstructorUtil;
+import org.seasar.framework.util.MethodUtil;
+
+/**
+ * {@link ConnectionPoolImpl}の状態と統計情報をJMXで公開するMBeanです。
+ * <p>
+ * diconファイルにコンポーネントとして定義すると、 初期化時にプラットフォームのMBeanサーバに
+ * {@link #getObjectName() オブジェクト名}で登録され、 コンテナの破棄時に登録が解除されます。
+ * プラットフォームのMBeanサーバはJava5以降で利用できます。
+ * </p>
+ * 
+ * <pre>
+ * &lt;component class=&quot;org.seasar.extension.dbcp.impl.ConnectionPoolMonitor&quot;&gt;
+ *     &lt;property name=&quot;objectName&quot;&gt;
+ *         &quot;org.seasar.extension.dbcp:type=ConnectionPool,name=connectionPool&quot;
+ *     &lt;/property&gt;
+ * &lt;/component&gt;
+ * </pre>
+ */
+public class ConnectionPoolMonitor implements ConnectionPoolMonitorMBean {
+
+    /**
+     * 初期化メソッドのアノテーションです。
+     */
+    public static final String INIT_METHOD = "register";
+
+    /**
+     * 破棄メソッドのアノテーションです。
+     */
+    public static final String DESTROY_METHOD = "unregister";
+
+    /**
+     * デフォルトのオブジェクト名です。
+     */
+    public static final String DEFAULT_OBJECT_NAME = "org.seasar.extension.dbcp:type=ConnectionPool";
+
+    private ConnectionPoolImpl connectionPool;
+
+    private String objectName = DEFAULT_OBJECT_NAME;
+
+    private Object mbeanServer;
+
+    private Object registeredName;
+
+    /**
+     * {@link ConnectionPoolMonitor}を作成します。
+     */
+    public ConnectionPoolMonitor() {
+    }
+
+    /**
+     * {@link ConnectionPoolMonitor}を作成します。
+     * 
+     * @param connectionPool
+     *            コネクションプール
+     */
+    public ConnectionPoolMonitor(final ConnectionPoolImpl connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    /**
+     * コネクションプールを返します。
+     * 
+     * @return コネクションプール
+     */
+    public ConnectionPoolImpl getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * コネクションプールを設定します。
+     * 
+     * @param connectionPool
+     *            コネクションプール
+     */
+    public void setConnectionPool(final ConnectionPoolImpl connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    /**
+     * MBeanサーバに登録するオブジェクト名を返します。
+     * 
+     * @return オブジェクト名
+     */
+    public String getObjectName() {
+        return objectName;
+    }
+
+    /**
+     * MBeanサーバに登録するオブジェクト名を設定します。
+     * 
+     * @param objectName
+     *            オブジェクト名
+     */
+    public void setObjectName(final String objectName) {
+        this.objectName = objectName;
+    }
+
+    /**
+     * プラットフォームのMBeanサーバに登録します。
+     */
+    public synchronized void register() {
+        if (registeredName != null) {
+            return;
+        }
+        final Class factoryClass = ClassUtil
+                .forName("java.lang.management.ManagementFactory");
+        final Object server = MethodUtil.invoke(ClassUtil.getMethod(
+                factoryClass, "getPlatformMBeanServer", null), null, null);
+        final Class nameClass = ClassUtil.forName("javax.management.ObjectName");
+        final Object name = ConstructorUtil.newInstance(ClassUtil
+                .getConstructor(nameClass, new Class[] { String.class }),
+                new Object[] { objectName });
+        final Method registerMethod = ClassUtil.getMethod(ClassUtil
+                .forName("javax.management.MBeanServer"), "registerMBean",
+                new Class[] { Object.class, nameClass });
+        MethodUtil.invoke(registerMethod, server, new Object[] { this, name });
+        mbeanServer = server;
+        registeredName = name;
+    }
+
+    /**
+     * MBeanサーバへの登録を解除します。
+     */
+    public synchronized void unregister() {
+        if (registeredName == null) {
+            return;
+        }
+        final Method unregisterMethod = ClassUtil.getMethod(ClassUtil
+                .forName("javax.management.MBeanServer"), "unregisterMBean",
+                new Class[] { registeredName.getClass() });
+        try {
+            MethodUtil.invoke(unregisterMethod, mbeanServer,
+                    new Object[] { registeredName });
+        } finally {
+            mbeanServer = null;
+            registeredName = null;
+        }
+    }
+
+    public int getActivePoolSize() {
+        return connectionPool.getActivePoolSize();
+    }
+
+    public int getTxActivePoolSize() {
+        return connectionPool.getTxActivePoolSize();
+    }
+
+    public int getFreePoolSize() {
+        return connectionPool.getFreePoolSize();
+    }
+
+    public int getMaxPoolSize() {
+        return connectionPool.getMaxPoolSize();
+    }
+
+    public long getCheckOutCount() {
+        return getMetrics().getCheckOutCount();
+    }
+
+    public long getCheckOutTimeoutCount() {
+        return getMetrics().getCheckOutTimeoutCount();
+    }
+
+    public long getCreatedCount() {
+        return getMetrics().getCreatedCount();
+    }
+
+    public long getValidatedCount() {
+        return connectionPool.getValidatedCount();
+    }
+
+    public long getValidationFailedCount() {
+        return connectionPool.getValidationFailedCount();
+    }
+
+    public long getEvictedCount() {
+        return connectionPool.getEvictedCount();
+    }
+
+    public double getCheckOutWaitMean() {
+        return getMetrics().getCheckOutWaitHistogram().getMean();
+    }
+
+    public long getCheckOutWait50thPercentile() {
+        return getMetrics().getCheckOutWaitHistogram().getValueAtPercentile(
+                50.0);
+    }
+
+    public long getCheckOutWait99thPercentile() {
+        return getMetrics().getCheckOutWaitHistogram().getValueAtPercentile(
+                99.0);
+    }
+
+    public long getCheckOutWaitMax() {
+        return getMetrics().getCheckOutWaitHistogram().getMax();
+    }
+
+    public double getHoldTimeMean() {
+        return getMetrics().getHoldTimeHistogram().getMean();
+    }
+
+    public long getHoldTime50thPercentile() {
+        return getMetrics().getHoldTimeHistogram().getValueAtPercentile(50.0);
+    }
+
+    public long getHoldTime99thPercentile() {
+        return getMetrics().getHoldTimeHistogram().getValueAtPercentile(99.0);
+    }
+
+    public long getHoldTimeMax() {
+        return getMetrics().getHoldTimeHistogram().getMax();
+    }
+
+    public double getConnectTimeMean() {
+        return getMetrics().getConnectTimeHistogram().getMean();
+    }
+
+    public long getConnectTime50thPercentile() {
+        return getMetrics().getConnectTimeHistogram().getValueAtPercentile(
+                50.0);
+    }
+
+    public long getConnectTime99thPercentile() {
+        return getMetrics().getConnectTimeHistogram().getValueAtPercentile(
+                99.0);
+    }
+
+    public long getConnectTimeMax() {
+        return getMetrics().getConnectTimeHistogram().getMax();
+    }
+
+    public double getValidationTimeMean() {
+        return getMetrics().getValidationTimeHistogram().getMean();
+    }
+
+    public long getValidationTime50thPercentile() {
+        return getMetrics().getValidationTimeHistogram().getValueAtPercentile(
+                50.0);
+    }
+
+    public long getValidationTime99thPercentile() {
+        return getMetrics().getValidationTimeHistogram().getValueAtPercentile(
+                99.0);
+    }
+
+    public long getValidationTimeMax() {
+        return getMetrics().getValidationTimeHistogram().getMax();
+    }
+
+    public void resetMetrics() {
+        getMetrics().reset();
+    }
+
+    public String dumpCheckedOutConnections() {
+        return connectionPool.dumpCheckedOutConnections();
+    }
+
+    private ConnectionPoolMetrics getMetrics() {
+        return connectionPool.getMetrics();
+    }
+}
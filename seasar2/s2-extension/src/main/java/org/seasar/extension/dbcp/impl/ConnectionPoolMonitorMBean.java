@@ -0,0 +1,222 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.dbcp.impl;
+
+/**
+ * {@link ConnectionPoolImpl}の状態と統計情報を公開するMBeanのインターフェースです。
+ * <p>
+ * 経過時間はすべてマイクロ秒単位です。
+ * </p>
+ * 
+ * @see ConnectionPoolMonitor
+ */
+public interface ConnectionPoolMonitorMBean {
+
+    /**
+     * アクティブなコネクションの数を返します。
+     * 
+     * @return アクティブなコネクションの数
+     */
+    int getActivePoolSize();
+
+    /**
+     * トランザクションに関連付けられたコネクションの数を返します。
+     * 
+     * @return トランザクションに関連付けられたコネクションの数
+     */
+    int getTxActivePoolSize();
+
+    /**
+     * 空きコネクションの数を返します。
+     * 
+     * @return 空きコネクションの数
+     */
+    int getFreePoolSize();
+
+    /**
+     * コネクションをプールする上限を返します。
+     * 
+     * @return コネクションをプールする上限
+     */
+    int getMaxPoolSize();
+
+    /**
+     * コネクションを取り出した回数を返します。
+     * 
+     * @return コネクションを取り出した回数
+     */
+    long getCheckOutCount();
+
+    /**
+     * 空きコネクションを待機してタイムアウトした回数を返します。
+     * 
+     * @return タイムアウトした回数
+     */
+    long getCheckOutTimeoutCount();
+
+    /**
+     * 物理コネクションを作成した数を返します。
+     * 
+     * @return 物理コネクションを作成した数
+     */
+    long getCreatedCount();
+
+    /**
+     * 検証に成功したコネクションの数を返します。
+     * 
+     * @return 検証に成功したコネクションの数
+     */
+    long getValidatedCount();
+
+    /**
+     * 検証に失敗したコネクションの数を返します。
+     * 
+     * @return 検証に失敗したコネクションの数
+     */
+    long getValidationFailedCount();
+
+    /**
+     * 検証の結果破棄されたコネクションの数を返します。
+     * 
+     * @return 検証の結果破棄されたコネクションの数
+     */
+    long getEvictedCount();
+
+    /**
+     * コネクションを取り出すのにかかった時間の平均を返します。
+     * 
+     * @return コネクションを取り出すのにかかった時間の平均
+     */
+    double getCheckOutWaitMean();
+
+    /**
+     * コネクションを取り出すのにかかった時間の50パーセンタイルを返します。
+     * 
+     * @return コネクションを取り出すのにかかった時間の50パーセンタイル
+     */
+    long getCheckOutWait50thPercentile();
+
+    /**
+     * コネクションを取り出すのにかかった時間の99パーセンタイルを返します。
+     * 
+     * @return コネクションを取り出すのにかかった時間の99パーセンタイル
+     */
+    long getCheckOutWait99thPercentile();
+
+    /**
+     * コネクションを取り出すのにかかった時間の最大値を返します。
+     * 
+     * @return コネクションを取り出すのにかかった時間の最大値
+     */
+    long getCheckOutWaitMax();
+
+    /**
+     * コネクションを保持していた時間の平均を返します。
+     * 
+     * @return コネクションを保持していた時間の平均
+     */
+    double getHoldTimeMean();
+
+    /**
+     * コネクションを保持していた時間の50パーセンタイルを返します。
+     * 
+     * @return コネクションを保持していた時間の50パーセンタイル
+     */
+    long getHoldTime50thPercentile();
+
+    /**
+     * コネクションを保持していた時間の99パーセンタイルを返します。
+     * 
+     * @return コネクションを保持していた時間の99パーセンタイル
+     */
+    long getHoldTime99thPercentile();
+
+    /**
+     * コネクションを保持していた時間の最大値を返します。
+     * 
+     * @return コネクションを保持していた時間の最大値
+     */
+    long getHoldTimeMax();
+
+    /**
+     * 物理コネクションの作成にかかった時間の平均を返します。
+     * 
+     * @return 物理コネクションの作成にかかった時間の平均
+     */
+    double getConnectTimeMean();
+
+    /**
+     * 物理コネクションの作成にかかった時間の50パーセンタイルを返します。
+     * 
+     * @return 物理コネクションの作成にかかった時間の50パーセンタイル
+     */
+    long getConnectTime50thPercentile();
+
+    /**
+     * 物理コネクションの作成にかかった時間の99パーセンタイルを返します。
+     * 
+     * @return 物理コネクションの作成にかかった時間の99パーセンタイル
+     */
+    long getConnectTime99thPercentile();
+
+    /**
+     * 物理コネクションの作成にかかった時間の最大値を返します。
+     * 
+     * @return 物理コネクションの作成にかかった時間の最大値
+     */
+    long getConnectTimeMax();
+
+    /**
+     * コネクションの検証にかかった時間の平均を返します。
+     * 
+     * @return コネクションの検証にかかった時間の平均
+     */
+    double getValidationTimeMean();
+
+    /**
+     * コネクションの検証にかかった時間の50パーセンタイルを返します。
+     * 
+     * @return コネクションの検証にかかった時間の50パーセンタイル
+     */
+    long getValidationTime50thPercentile();
+
+    /**
+     * コネクションの検証にかかった時間の99パーセンタイルを返します。
+     * 
+     * @return コネクションの検証にかかった時間の99パーセンタイル
+     */
+    long getValidationTime99thPercentile();
+
+    /**
+     * コネクションの検証にかかった時間の最大値を返します。
+     * 
+     * @return コネクションの検証にかかった時間の最大値
+     */
+    long getValidationTimeMax();
+
+    /**
+     * 統計情報をリセットします。
+     */
+    void resetMetrics();
+
+    /**
+     * 取り出されているコネクションの一覧を返します。
+     * 
+     * @return 取り出されているコネクションの一覧
+     * @see ConnectionPoolImpl#dumpCheckedOutConnections()
+     */
+    String dumpCheckedOutConnections();
+}
@@ -19,6 +19,7 @@ import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Savepoint;
@@ -61,6 +62,14 @@ public class ConnectionWrapperImpl implements ConnectionWrapper,
 
     private Transaction tx_;
 
+    private PreparedStatementCache statementCache_;
+
+    private long checkOutTime_;
+
+    private Throwable checkOutSite_;
+
+    private boolean leakReported_;
+
     /**
      * {@link ConnectionWrapperImpl}を作成します。
      * 
@@ -79,12 +88,37 @@ public class ConnectionWrapperImpl implements ConnectionWrapper,
             final Connection physicalConnection,
             final ConnectionPool connectionPool, final Transaction tx)
             throws SQLException {
+        this(xaConnection, physicalConnection, connectionPool, tx, null);
+    }
+
+    /**
+     * {@link ConnectionWrapperImpl}を作成します。
+     * 
+     * @param xaConnection
+     *            XAコネクション
+     * @param physicalConnection
+     *            物理コネクション
+     * @param connectionPool
+     *            コネクションプール
+     * @param tx
+     *            トランザクション
+     * @param statementCache
+     *            物理コネクションに対する{@link PreparedStatement}のキャッシュ、
+     *            キャッシュしない場合は<code>null</code>
+     * @throws SQLException
+     *             SQL例外が発生した場合
+     */
+    public ConnectionWrapperImpl(final XAConnection xaConnection,
+            final Connection physicalConnection,
+            final ConnectionPool connectionPool, final Transaction tx,
+            final PreparedStatementCache statementCache) throws SQLException {
         xaConnection_ = xaConnection;
         physicalConnection_ = physicalConnection;
         xaResource_ = new XAResourceWrapperImpl(xaConnection.getXAResource(),
                 this);
         connectionPool_ = connectionPool;
         tx_ = tx;
+        statementCache_ = statementCache;
         xaConnection_.addConnectionEventListener(this);
     }
 
@@ -100,9 +134,88 @@ public class ConnectionWrapperImpl implements ConnectionWrapper,
         return xaConnection_;
     }
 
+    /**
+     * 物理コネクションに対する{@link PreparedStatement}のキャッシュを返します。
+     * 
+     * @return {@link PreparedStatement}のキャッシュ、キャッシュしない場合は<code>null</code>
+     */
+    public PreparedStatementCache getPreparedStatementCache() {
+        return statementCache_;
+    }
+
+    /**
+     * コネクションプールから取り出された時刻を返します。
+     * 
+     * @return 取り出された時刻 (マイクロ秒単位)
+     * @see ConnectionPoolMetrics#currentTimeMicros()
+     */
+    public long getCheckOutTime() {
+        return checkOutTime_;
+    }
+
+    /**
+     * コネクションプールから取り出された時刻を設定します。
+     * 
+     * @param checkOutTime
+     *            取り出された時刻 (マイクロ秒単位)
+     * @see ConnectionPoolMetrics#currentTimeMicros()
+     */
+    public void setCheckOutTime(final long checkOutTime) {
+        checkOutTime_ = checkOutTime;
+    }
+
+    /**
+     * コネクションプールから取り出した場所を返します。
+     * 
+     * @return 取り出した場所のスタックトレースを持つ{@link Throwable}、記録されていない場合は<code>null</code>
+     */
+    public Throwable getCheckOutSite() {
+        return checkOutSite_;
+    }
+
+    /**
+     * コネクションプールから取り出した場所を設定します。
+     * 
+     * @param checkOutSite
+     *            取り出した場所のスタックトレースを持つ{@link Throwable}
+     */
+    public void setCheckOutSite(final Throwable checkOutSite) {
+        checkOutSite_ = checkOutSite;
+    }
+
+    /**
+     * 返却されていないことを報告済みかどうかを返します。
+     * 
+     * @return 報告済みかどうか
+     */
+    boolean isLeakReported() {
+        return leakReported_;
+    }
+
+    /**
+     * 返却されていないことを報告済みかどうかを設定します。
+     * 
+     * @param leakReported
+     *            報告済みかどうか
+     */
+    void setLeakReported(final boolean leakReported) {
+        leakReported_ = leakReported;
+    }
+
+    /**
+     * トランザクションを返します。
+     * 
+     * @return トランザクション
+     */
+    public Transaction getTransaction() {
+        return tx_;
+    }
+
     public void init(final Transaction tx) {
         closed_ = false;
         tx_ = tx;
+        checkOutSite_ = null;
+        leakReported_ = false;
     }
 
     public void cleanup() {
@@ -111,6 +224,7 @@ public class ConnectionWrapperImpl implements ConnectionWrapper,
         xaConnection_ = null;
         physicalConnection_ = null;
         tx_ = null;
+        statementCache_ = null;
     }
 
     public void closeReally() {
@@ -118,6 +232,10 @@ public class ConnectionWrapperImpl implements ConnectionWrapper,
             return;
         }
         closed_ = true;
+        if (statementCache_ != null) {
+            statementCache_.destroy();
+            statementCache_ = null;
+        }
         try {
             if (!physicalConnection_.isClosed()) {
                 if (!physicalConnection_.getAutoCommit()) {
@@ -187,6 +305,10 @@ public class ConnectionWrapperImpl implements ConnectionWrapper,
     public PreparedStatement prepareStatement(final String sql)
             throws SQLException {
         assertOpened();
+        if (statementCache_ != null) {
+            return prepareCachedStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+        }
         try {
             return new PreparedStatementWrapper(physicalConnection_
                     .prepareStatement(sql), sql);
@@ -407,6 +529,10 @@ public class ConnectionWrapperImpl implements ConnectionWrapper,
             throws SQLException {
 
         assertOpened();
+        if (statementCache_ != null) {
+            return prepareCachedStatement(sql, resultSetType,
+                    resultSetConcurrency);
+        }
         try {
             return new PreparedStatementWrapper(
                     physicalConnection_.prepareStatement(sql, resultSetType,
@@ -577,6 +703,37 @@ public class ConnectionWrapperImpl implements ConnectionWrapper,
         }
     }
 
+    /**
+     * キャッシュを使って{@link PreparedStatement}を作成します。
+     * 
+     * @param sql
+     *            SQL
+     * @param resultSetType
+     *            結果セットのタイプ
+     * @param resultSetConcurrency
+     *            結果セットの並行処理モード
+     * @return {@link PreparedStatement}
+     * @throws SQLException
+     *             SQL例外が発生した場合
+     */
+    protected PreparedStatement prepareCachedStatement(final String sql,
+            final int resultSetType, final int resultSetConcurrency)
+            throws SQLException {
+        PreparedStatement ps = statementCache_.get(sql, resultSetType,
+                resultSetConcurrency);
+        if (ps == null) {
+            try {
+                ps = physicalConnection_.prepareStatement(sql, resultSetType,
+                        resultSetConcurrency);
+            } catch (final SQLException ex) {
+                release();
+                throw wrapException(ex, sql);
+            }
+        }
+        return new CachedPreparedStatementWrapper(ps, sql, resultSetType,
+                resultSetConcurrency, statementCache_);
+    }
+
     private SQLException wrapException(final SQLException e, final String sql) {
         return new SSQLException("ESSR0072",
                 new Object[] { sql, e.getMessage(),
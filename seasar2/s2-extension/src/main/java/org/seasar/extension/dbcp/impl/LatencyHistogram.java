@@ -0,0 +1,357 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.dbcp.impl;
+
+/**
+ * 経過時間の分布を記録するヒストグラムです。
+ * <p>
+ * 値は対数的に分割されたバケットに記録されます。 <code>0</code>から<code>31</code>までは値ごとに、
+ * それ以上の値は2のべき乗ごとの区間をさらに16等分したバケットに記録されるため、
+ * パーセンタイルの相対誤差は約6%以内に収まります。 メモリ使用量は記録した値の数に関わらず一定です。
+ * </p>
+ * <p>
+ * 単位は問いませんが、{@link ConnectionPoolMetrics}はマイクロ秒単位で記録します。
+ * </p>
+ * <p>
+ * 値はスレッドごとに選ばれるストライプに記録されるため、 複数のスレッドから同時に記録してもヒストグラム全体をロックすることはありません。
+ * 値を取得するメソッドはすべてのストライプを順に集計するので、 記録と並行して呼び出した場合は集計中に記録された値を含まないことがあります。
+ * </p>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+
+    private static final int MAX_BIT = 40;
+
+    private static final long MAX_VALUE = (1L << MAX_BIT) - 1L;
+
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT
+            + (MAX_BIT - SUB_BUCKET_BITS) * HALF_SUB_BUCKET_COUNT;
+
+    private static final int MAX_STRIPE_COUNT = 16;
+
+    private static final int STRIPE_COUNT = getStripeCount();
+
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+
+    /**
+     * インスタンスを構築します。
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < STRIPE_COUNT; ++i) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * 値を記録します。
+     * <p>
+     * 負の値は<code>0</code>として、 <code>2<sup>40</sup></code>以上の値はその直前の値として記録されます。
+     * </p>
+     * 
+     * @param value
+     *            値
+     */
+    public void record(long value) {
+        if (value < 0L) {
+            value = 0L;
+        } else if (value > MAX_VALUE) {
+            value = MAX_VALUE;
+        }
+        final Stripe stripe = stripes[getStripeIndex()];
+        synchronized (stripe) {
+            stripe.record(value);
+        }
+    }
+
+    /**
+     * 記録した値の数を返します。
+     * 
+     * @return 記録した値の数
+     */
+    public long getCount() {
+        return snapshot().totalCount;
+    }
+
+    /**
+     * 記録した値の合計を返します。
+     * 
+     * @return 記録した値の合計
+     */
+    public long getTotal() {
+        return snapshot().totalValue;
+    }
+
+    /**
+     * 記録した値の最小値を返します。
+     * 
+     * @return 記録した値の最小値、値が記録されていない場合は<code>0</code>
+     */
+    public long getMin() {
+        return snapshot().getMin();
+    }
+
+    /**
+     * 記録した値の最大値を返します。
+     * 
+     * @return 記録した値の最大値、値が記録されていない場合は<code>0</code>
+     */
+    public long getMax() {
+        return snapshot().maxValue;
+    }
+
+    /**
+     * 記録した値の平均値を返します。
+     * 
+     * @return 記録した値の平均値、値が記録されていない場合は<code>0</code>
+     */
+    public double getMean() {
+        return snapshot().getMean();
+    }
+
+    /**
+     * 指定したパーセンタイルの値を返します。
+     * <p>
+     * 返される値は該当するバケットの上限ですが、記録した値の最大値を超えることはありません。
+     * </p>
+     * 
+     * @param percentile
+     *            パーセンタイル (<code>0</code>から<code>100</code>)
+     * @return パーセンタイルの値、値が記録されていない場合は<code>0</code>
+     */
+    public long getValueAtPercentile(final double percentile) {
+        return snapshot().getValueAtPercentile(percentile);
+    }
+
+    /**
+     * 記録した値をすべて破棄します。
+     */
+    public void reset() {
+        for (int i = 0; i < STRIPE_COUNT; ++i) {
+            final Stripe stripe = stripes[i];
+            synchronized (stripe) {
+                stripe.reset();
+            }
+        }
+    }
+
+    public String toString() {
+        final Stripe snapshot = snapshot();
+        return "count=" + snapshot.totalCount + ", mean="
+                + (long) snapshot.getMean() + ", p50="
+                + snapshot.getValueAtPercentile(50.0) + ", p90="
+                + snapshot.getValueAtPercentile(90.0) + ", p99="
+                + snapshot.getValueAtPercentile(99.0) + ", max="
+                + snapshot.maxValue;
+    }
+
+    /**
+     * すべてのストライプを集計した結果を返します。
+     * 
+     * @return すべてのストライプを集計した結果
+     */
+    private Stripe snapshot() {
+        final Stripe snapshot = new Stripe();
+        for (int i = 0; i < STRIPE_COUNT; ++i) {
+            final Stripe stripe = stripes[i];
+            synchronized (stripe) {
+                snapshot.add(stripe);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 値を記録するバケットのインデックスを返します。
+     * 
+     * @param value
+     *            値
+     * @return バケットのインデックス
+     */
+    static int getBucketIndex(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int highestBit = getHighestBit(value);
+        final int shift = highestBit - (SUB_BUCKET_BITS - 1);
+        final int subBucket = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (highestBit - SUB_BUCKET_BITS)
+                * HALF_SUB_BUCKET_COUNT + subBucket - HALF_SUB_BUCKET_COUNT;
+    }
+
+    /**
+     * バケットに記録される値の上限を返します。
+     * 
+     * @param index
+     *            バケットのインデックス
+     * @return バケットに記録される値の上限
+     */
+    static long getBucketUpperBound(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int offset = index - SUB_BUCKET_COUNT;
+        final int highestBit = offset / HALF_SUB_BUCKET_COUNT
+                + SUB_BUCKET_BITS;
+        final long subBucket = offset % HALF_SUB_BUCKET_COUNT
+                + HALF_SUB_BUCKET_COUNT;
+        final int shift = highestBit - (SUB_BUCKET_BITS - 1);
+        return ((subBucket + 1L) << shift) - 1L;
+    }
+
+    /**
+     * 現在のスレッドが値を記録するストライプのインデックスを返します。
+     * 
+     * @return ストライプのインデックス
+     */
+    static int getStripeIndex() {
+        int hash = System.identityHashCode(Thread.currentThread());
+        hash ^= hash >>> 16;
+        return hash & (STRIPE_COUNT - 1);
+    }
+
+    /**
+     * ストライプの数を返します。
+     * <p>
+     * 利用可能なプロセッサの数以上の2のべき乗で、 {@link #MAX_STRIPE_COUNT}を超えない数です。
+     * </p>
+     * 
+     * @return ストライプの数
+     */
+    private static int getStripeCount() {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        int count = 1;
+        while (count < processors && count < MAX_STRIPE_COUNT) {
+            count <<= 1;
+        }
+        return count;
+    }
+
+    private static int getHighestBit(long value) {
+        int bit = 0;
+        if ((value >>> 32) != 0L) {
+            value >>>= 32;
+            bit += 32;
+        }
+        if ((value >>> 16) != 0L) {
+            value >>>= 16;
+            bit += 16;
+        }
+        if ((value >>> 8) != 0L) {
+            value >>>= 8;
+            bit += 8;
+        }
+        if ((value >>> 4) != 0L) {
+            value >>>= 4;
+            bit += 4;
+        }
+        if ((value >>> 2) != 0L) {
+            value >>>= 2;
+            bit += 2;
+        }
+        if ((value >>> 1) != 0L) {
+            bit += 1;
+        }
+        return bit;
+    }
+
+    /**
+     * ヒストグラムのストライプです。
+     * <p>
+     * {@link #record(long)}、{@link #add(Stripe)}、{@link #reset()}は、 ストライプのロックを取得して呼び出してください。
+     * </p>
+     */
+    private static final class Stripe {
+
+        private final long[] counts = new long[BUCKET_COUNT];
+
+        private long totalCount;
+
+        private long totalValue;
+
+        private long minValue = Long.MAX_VALUE;
+
+        private long maxValue;
+
+        void record(final long value) {
+            ++counts[getBucketIndex(value)];
+            ++totalCount;
+            totalValue += value;
+            if (value < minValue) {
+                minValue = value;
+            }
+            if (value > maxValue) {
+                maxValue = value;
+            }
+        }
+
+        void add(final Stripe other) {
+            for (int i = 0; i < BUCKET_COUNT; ++i) {
+                counts[i] += other.counts[i];
+            }
+            totalCount += other.totalCount;
+            totalValue += other.totalValue;
+            if (other.minValue < minValue) {
+                minValue = other.minValue;
+            }
+            if (other.maxValue > maxValue) {
+                maxValue = other.maxValue;
+            }
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKET_COUNT; ++i) {
+                counts[i] = 0L;
+            }
+            totalCount = 0L;
+            totalValue = 0L;
+            minValue = Long.MAX_VALUE;
+            maxValue = 0L;
+        }
+
+        long getMin() {
+            return totalCount == 0L ? 0L : minValue;
+        }
+
+        double getMean() {
+            return totalCount == 0L ? 0.0 : (double) totalValue / totalCount;
+        }
+
+        long getValueAtPercentile(final double percentile) {
+            if (totalCount == 0L) {
+                return 0L;
+            }
+            final double p = Math.min(Math.max(percentile, 0.0), 100.0);
+            long threshold = (long) Math.ceil(p / 100.0 * totalCount);
+            if (threshold < 1L) {
+                threshold = 1L;
+            }
+            long count = 0L;
+            for (int i = 0; i < BUCKET_COUNT; ++i) {
+                count += counts[i];
+                if (count >= threshold) {
+                    return Math.min(Math.max(getBucketUpperBound(i),
+                            minValue), maxValue);
+                }
+            }
+            return maxValue;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.dbcp.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.seasar.framework.log.Logger;
+import org.seasar.framework.util.LruHashMap;
+
+/**
+ * 物理コネクションごとに{@link PreparedStatement}をキャッシュするクラスです。
+ * <p>
+ * キャッシュされるのは使用されていない{@link PreparedStatement}だけです。
+ * {@link #get(String, int, int)}で取り出された{@link PreparedStatement}は、
+ * {@link #put(String, int, int, PreparedStatement)}で戻されるまでキャッシュから取り除かれます。
+ * そのため、同じSQLの{@link PreparedStatement}を同時に複数使用することができます。
+ * 上限を超えた場合は最も長い間使用されていない{@link PreparedStatement}がクローズされます。
+ * </p>
+ */
+public class PreparedStatementCache {
+
+    private static final Logger logger = Logger
+            .getLogger(PreparedStatementCache.class);
+
+    private final LruHashMap statements;
+
+    private boolean destroyed = false;
+
+    /**
+     * {@link PreparedStatementCache}を作成します。
+     * 
+     * @param limitSize
+     *            キャッシュする{@link PreparedStatement}の上限
+     */
+    public PreparedStatementCache(final int limitSize) {
+        statements = new LruHashMap(limitSize) {
+
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(final Map.Entry entry) {
+                if (super.removeEldestEntry(entry)) {
+                    close((PreparedStatement) entry.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * キャッシュされている{@link PreparedStatement}を取り出します。
+     * 
+     * @param sql
+     *            SQL
+     * @param resultSetType
+     *            結果セットのタイプ
+     * @param resultSetConcurrency
+     *            結果セットの並行処理モード
+     * @return キャッシュされている{@link PreparedStatement}、キャッシュされていない場合は
+     *         <code>null</code>
+     */
+    public synchronized PreparedStatement get(final String sql,
+            final int resultSetType, final int resultSetConcurrency) {
+        return (PreparedStatement) statements.remove(new Key(sql,
+                resultSetType, resultSetConcurrency));
+    }
+
+    /**
+     * 使い終わった{@link PreparedStatement}をキャッシュに戻します。
+     * <p>
+     * キャッシュが破棄されている場合や、同じキーの{@link PreparedStatement}
+     * が既にキャッシュされている場合はクローズします。
+     * </p>
+     * 
+     * @param sql
+     *            SQL
+     * @param resultSetType
+     *            結果セットのタイプ
+     * @param resultSetConcurrency
+     *            結果セットの並行処理モード
+     * @param statement
+     *            {@link PreparedStatement}
+     */
+    public void put(final String sql, final int resultSetType,
+            final int resultSetConcurrency, final PreparedStatement statement) {
+        PreparedStatement old = statement;
+        synchronized (this) {
+            if (!destroyed) {
+                old = (PreparedStatement) statements.put(new Key(sql,
+                        resultSetType, resultSetConcurrency), statement);
+            }
+        }
+        if (old != null) {
+            close(old);
+        }
+    }
+
+    /**
+     * キャッシュされている{@link PreparedStatement}の数を返します。
+     * 
+     * @return キャッシュされている{@link PreparedStatement}の数
+     */
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    /**
+     * キャッシュされている{@link PreparedStatement}をすべてクローズして、キャッシュを破棄します。
+     * <p>
+     * 破棄された後に戻された{@link PreparedStatement}はすぐにクローズされます。
+     * </p>
+     */
+    public void destroy() {
+        final List list;
+        synchronized (this) {
+            destroyed = true;
+            list = new ArrayList(statements.values());
+            statements.clear();
+        }
+        for (final Iterator it = list.iterator(); it.hasNext();) {
+            close((PreparedStatement) it.next());
+        }
+    }
+
+    private static void close(final PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (final SQLException e) {
+            logger.log(e);
+        }
+    }
+
+    /**
+     * キャッシュのキーです。
+     */
+    private static class Key {
+
+        private final String sql;
+
+        private final int resultSetType;
+
+        private final int resultSetConcurrency;
+
+        private final int hashCode;
+
+        Key(final String sql, final int resultSetType,
+                final int resultSetConcurrency) {
+            this.sql = sql;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+            hashCode = (sql.hashCode() * 31 + resultSetType) * 31
+                    + resultSetConcurrency;
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return resultSetType == other.resultSetType
+                    && resultSetConcurrency == other.resultSetConcurrency
+                    && sql.equals(other.sql);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 結果セットを全件メモリに展開せずに1行ずつ処理する{@link ResultSetHandler}です。
+ * <p>
+ * {@link #handle(ResultSet)}は各行を{@link RowCallback}に渡し、処理した行数を返します。
+ * {@link #createRowMapper(ResultSet)}が返す{@link RowMapper}を使うと、
+ * 呼び出し側で結果セットを1行ずつ読み進めることができます。
+ * </p>
+ * 
+ */
+public interface CursorResultSetHandler extends ResultSetHandler {
+
+    /**
+     * 結果セットの各行を変換する{@link RowMapper}を作成します。
+     * 
+     * @param resultSet
+     *            結果セット
+     * @return {@link RowMapper}
+     * @throws SQLException
+     *             SQL例外が発生した場合
+     */
+    RowMapper createRowMapper(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * 検索結果を1行ずつ受け取るコールバックのインターフェースです。
+ * 
+ */
+public interface RowCallback {
+
+    /**
+     * 1行分の検索結果を処理します。
+     * 
+     * @param row
+     *            行
+     * @return 次の行も処理する場合は<code>true</code>、処理を中断する場合は<code>false</code>
+     * @throws SQLException
+     *             SQL例外が発生した場合
+     */
+    boolean handleRow(Object row) throws SQLException;
+}
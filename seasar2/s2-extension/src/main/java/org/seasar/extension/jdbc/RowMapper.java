@@ -0,0 +1,37 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 結果セットの現在の行をBeanに変換するインターフェースです。
+ * 
+ */
+public interface RowMapper {
+
+    /**
+     * 結果セットの現在の行をBeanに変換します。
+     * 
+     * @param resultSet
+     *            結果セット
+     * @return 行に対応するBean
+     * @throws SQLException
+     *             SQL例外が発生した場合
+     */
+    Object mapRow(ResultSet resultSet) throws SQLException;
+}
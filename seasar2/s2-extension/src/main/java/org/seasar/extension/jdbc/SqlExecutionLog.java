@@ -0,0 +1,41 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc;
+
+/**
+ * SQLの実行結果を持つ{@link SqlLog}を表すインターフェースです。
+ * <p>
+ * {@link SqlExecutionLogRegistry#notifyExecuted(int)}が呼び出されると、実行にかかった時間と処理した行数が設定されます。
+ * </p>
+ * 
+ */
+public interface SqlExecutionLog extends SqlLog {
+
+    /**
+     * SQLの実行にかかった時間をミリ秒で返します。
+     * 
+     * @return SQLの実行にかかった時間、実行が完了していない場合<code>-1</code>
+     */
+    long getElapsedTime();
+
+    /**
+     * SQLが処理した行数を返します。
+     * 
+     * @return SQLが処理した行数、わからない場合<code>-1</code>
+     */
+    int getRowCount();
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc;
+
+/**
+ * SQLの実行の完了を受け取る{@link SqlLogRegistry}を表すインターフェースです。
+ * <p>
+ * {@link SqlLogRegistryLocator#getInstance()}が返すレジストリがこのインターフェースを実装している場合だけ、
+ * SQLの実行の完了が通知されます。
+ * </p>
+ * 
+ */
+public interface SqlExecutionLogRegistry extends SqlLogRegistry {
+
+    /**
+     * 現在のスレッドで最後に追加された{@link SqlLog}のSQLの実行が完了したことを通知します。
+     * 
+     * @param rowCount
+     *            SQLが処理した行数、わからない場合<code>-1</code>
+     */
+    void notifyExecuted(int rowCount);
+
+}
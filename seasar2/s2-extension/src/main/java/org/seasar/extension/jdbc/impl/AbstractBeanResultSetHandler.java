@@ -18,29 +18,55 @@ package org.seasar.extension.jdbc.impl;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
 
 import org.seasar.extension.jdbc.PropertyType;
 import org.seasar.extension.jdbc.ResultSetHandler;
+import org.seasar.extension.jdbc.RowMapper;
 import org.seasar.extension.jdbc.ValueType;
 import org.seasar.extension.jdbc.types.ValueTypes;
 import org.seasar.framework.beans.BeanDesc;
 import org.seasar.framework.beans.PropertyDesc;
 import org.seasar.framework.beans.factory.BeanDescFactory;
-import org.seasar.framework.util.ClassUtil;
+import org.seasar.framework.util.Disposable;
+import org.seasar.framework.util.DisposableUtil;
+import org.seasar.framework.util.LruHashMap;
 import org.seasar.framework.util.StringUtil;
 
 /**
  * JavaBeans用の {@link ResultSetHandler}の抽象クラスです。
+ * <p>
+ * 結果セットの列とプロパティの対応付け({@link PropertyType}の配列)は、
+ * ハンドラのクラス、Beanクラスと列名の並びをキーにしてキャッシュされます。
+ * キャッシュの上限を超えた場合は最も長い間使用されていないものから破棄され、
+ * HOT deployの破棄時にはすべて破棄されます。
+ * </p>
+ * <p>
+ * 行は{@link RowMapperFactory}が返す{@link RowMapper}で作成されます。
+ * </p>
  * 
  * @author higa
  * 
  */
 public abstract class AbstractBeanResultSetHandler implements ResultSetHandler {
 
+    /**
+     * 対応付けのキャッシュの上限のデフォルト値です。
+     */
+    public static final int DEFAULT_PROPERTY_TYPES_CACHE_SIZE = 1024;
+
+    private static volatile boolean initialized;
+
+    private static Map propertyTypesCache = createPropertyTypesCache(DEFAULT_PROPERTY_TYPES_CACHE_SIZE);
+
     private Class beanClass;
 
     private BeanDesc beanDesc;
 
+    private volatile LastRowMapper lastRowMapper;
+
     /**
      * {@link AbstractBeanResultSetHandler}を作成します。
      * 
@@ -70,10 +96,59 @@ public abstract class AbstractBeanResultSetHandler implements ResultSetHandler {
     public void setBeanClass(Class beanClass) {
         this.beanClass = beanClass;
         beanDesc = BeanDescFactory.getBeanDesc(beanClass);
+        lastRowMapper = null;
     }
 
     /**
-     * プロパティの型の配列を作成します。
+     * 対応付けのキャッシュの上限を設定します。
+     * <p>
+     * キャッシュされている対応付けは破棄されます。
+     * <code>0</code>を指定するとキャッシュは行われません。
+     * </p>
+     * 
+     * @param limitSize
+     *            対応付けのキャッシュの上限
+     */
+    public static void setPropertyTypesCacheSize(int limitSize) {
+        propertyTypesCache = createPropertyTypesCache(limitSize);
+    }
+
+    /**
+     * キャッシュされている対応付けの数を返します。
+     * 
+     * @return キャッシュされている対応付けの数
+     */
+    public static int getPropertyTypesCacheCount() {
+        return propertyTypesCache.size();
+    }
+
+    /**
+     * キャッシュされている対応付けを破棄します。
+     */
+    public static void clearPropertyTypesCache() {
+        propertyTypesCache.clear();
+        initialized = false;
+    }
+
+    private static Map createPropertyTypesCache(int limitSize) {
+        return Collections.synchronizedMap(new LruHashMap(limitSize));
+    }
+
+    private static void initialize() {
+        DisposableUtil.add(new Disposable() {
+            public void dispose() {
+                clearPropertyTypesCache();
+            }
+        });
+        initialized = true;
+    }
+
+    /**
+     * プロパティの型の配列を返します。
+     * <p>
+     * 同じハンドラのクラス、Beanクラスと列名の並びに対する配列はキャッシュされたものを返します。
+     * 返された配列を変更してはいけません。
+     * </p>
      * 
      * @param rsmd
      *            結果セットメタデータ
@@ -85,9 +160,40 @@ public abstract class AbstractBeanResultSetHandler implements ResultSetHandler {
             throws SQLException {
 
         int count = rsmd.getColumnCount();
+        String[] columnNames = new String[count];
+        for (int i = 0; i < count; ++i) {
+            columnNames[i] = rsmd.getColumnLabel(i + 1);
+        }
+        if (!initialized) {
+            initialize();
+        }
+        Map cache = propertyTypesCache;
+        PropertyTypesKey key = new PropertyTypesKey(getClass(), beanClass,
+                columnNames);
+        PropertyType[] propertyTypes = (PropertyType[]) cache.get(key);
+        if (propertyTypes == null) {
+            propertyTypes = createPropertyTypes(columnNames);
+            cache.put(key, propertyTypes);
+        }
+        return propertyTypes;
+    }
+
+    /**
+     * 列名の並びからプロパティの型の配列を作成します。
+     * <p>
+     * 作成した配列はハンドラのクラスごとにキャッシュされるので、サブクラスでオーバーライドする場合は
+     * Beanクラスと列名の並びだけから配列を決めてください。
+     * </p>
+     * 
+     * @param columnNames
+     *            列名の配列
+     * @return プロパティの型の配列
+     */
+    protected PropertyType[] createPropertyTypes(String[] columnNames) {
+        int count = columnNames.length;
         PropertyType[] propertyTypes = new PropertyType[count];
         for (int i = 0; i < count; ++i) {
-            String columnName = rsmd.getColumnLabel(i + 1);
+            String columnName = columnNames[i];
             String propertyName = StringUtil.replace(columnName, "_", "");
             PropertyDesc propertyDesc = beanDesc.getPropertyDesc(propertyName);
             ValueType valueType = ValueTypes.getValueType(propertyDesc
@@ -112,14 +218,104 @@ public abstract class AbstractBeanResultSetHandler implements ResultSetHandler {
     protected Object createRow(ResultSet rs, PropertyType[] propertyTypes)
             throws SQLException {
 
-        Object row = ClassUtil.newInstance(beanClass);
-        for (int i = 0; i < propertyTypes.length; ++i) {
-            PropertyType pt = propertyTypes[i];
-            ValueType valueType = pt.getValueType();
-            Object value = valueType.getValue(rs, i + 1);
-            PropertyDesc pd = pt.getPropertyDesc();
-            pd.setValue(row, value);
+        return getRowMapper(propertyTypes).mapRow(rs);
+    }
+
+    /**
+     * プロパティの型の配列に対応する{@link RowMapper}を返します。
+     * <p>
+     * 直前に使った配列と同じ場合は{@link RowMapperFactory}を検索しません。
+     * </p>
+     * 
+     * @param propertyTypes
+     *            プロパティの型の配列
+     * @return {@link RowMapper}
+     */
+    protected RowMapper getRowMapper(PropertyType[] propertyTypes) {
+        LastRowMapper last = lastRowMapper;
+        if (last != null && last.propertyTypes == propertyTypes) {
+            return last.rowMapper;
+        }
+        RowMapper rowMapper = RowMapperFactory.getRowMapper(beanClass,
+                propertyTypes);
+        lastRowMapper = new LastRowMapper(propertyTypes, rowMapper);
+        return rowMapper;
+    }
+
+    /**
+     * 対応付けのキャッシュのキーです。
+     * 
+     */
+    protected static class PropertyTypesKey {
+
+        private final Class handlerClass;
+
+        private final Class beanClass;
+
+        private final String[] columnNames;
+
+        private final int hashCode;
+
+        /**
+         * {@link PropertyTypesKey}を作成します。
+         * 
+         * @param handlerClass
+         *            ハンドラのクラス
+         * @param beanClass
+         *            Beanクラス
+         * @param columnNames
+         *            列名の配列
+         */
+        public PropertyTypesKey(Class handlerClass, Class beanClass,
+                String[] columnNames) {
+            this.handlerClass = handlerClass;
+            this.beanClass = beanClass;
+            this.columnNames = columnNames;
+            int hash = handlerClass.hashCode() * 31 + beanClass.hashCode();
+            for (int i = 0; i < columnNames.length; ++i) {
+                hash = hash * 31
+                        + (columnNames[i] == null ? 0 : columnNames[i]
+                                .hashCode());
+            }
+            hashCode = hash;
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof PropertyTypesKey)) {
+                return false;
+            }
+            PropertyTypesKey other = (PropertyTypesKey) obj;
+            return hashCode == other.hashCode
+                    && handlerClass == other.handlerClass
+                    && beanClass == other.beanClass
+                    && Arrays.equals(columnNames, other.columnNames);
+        }
+    }
+
+    /**
+     * 直前に使った{@link PropertyType}の配列と{@link RowMapper}の組です。
+     * <p>
+     * ハンドラは複数のスレッドから使われるので、 変更できないオブジェクトとして<code>volatile</code>なフィールドに保持します。
+     * </p>
+     * 
+     */
+    private static final class LastRowMapper {
+
+        private final PropertyType[] propertyTypes;
+
+        private final RowMapper rowMapper;
+
+        private LastRowMapper(PropertyType[] propertyTypes,
+                RowMapper rowMapper) {
+            this.propertyTypes = propertyTypes;
+            this.rowMapper = rowMapper;
         }
-        return row;
     }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.impl;
+
+import org.seasar.extension.jdbc.PropertyType;
+import org.seasar.extension.jdbc.RowMapper;
+import org.seasar.extension.jdbc.ValueType;
+import org.seasar.framework.beans.PropertyDesc;
+
+/**
+ * {@link RowMapperGenerator}が生成する{@link RowMapper}の基底クラスです。
+ * <p>
+ * 生成されたクラスは型ごとの<code>ResultSet</code>のメソッドで直接値を取得しますが、
+ * それができない列ではここで保持している{@link ValueType}と{@link PropertyDesc}を使います。
+ * </p>
+ * 
+ */
+public abstract class AbstractGeneratedRowMapper implements RowMapper {
+
+    /**
+     * 列ごとの値の型です。
+     */
+    protected ValueType[] valueTypes;
+
+    /**
+     * 列ごとのプロパティ記述子です。
+     */
+    protected PropertyDesc[] propertyDescs;
+
+    /**
+     * 初期化します。
+     * 
+     * @param propertyTypes
+     *            プロパティの型の配列
+     */
+    public void initialize(PropertyType[] propertyTypes) {
+        valueTypes = new ValueType[propertyTypes.length];
+        propertyDescs = new PropertyDesc[propertyTypes.length];
+        for (int i = 0; i < propertyTypes.length; ++i) {
+            if (propertyTypes[i] != null) {
+                valueTypes[i] = propertyTypes[i].getValueType();
+                propertyDescs[i] = propertyTypes[i].getPropertyDesc();
+            }
+        }
+    }
+}
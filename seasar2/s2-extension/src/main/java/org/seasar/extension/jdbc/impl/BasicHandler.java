@@ -21,6 +21,7 @@ import java.sql.SQLException;
 
 import javax.sql.DataSource;
 
+import org.seasar.extension.jdbc.SqlExecutionLogRegistry;
 import org.seasar.extension.jdbc.SqlLog;
 import org.seasar.extension.jdbc.SqlLogRegistry;
 import org.seasar.extension.jdbc.SqlLogRegistryLocator;
@@ -261,17 +262,38 @@ public class BasicHandler {
      */
     protected void logSql(Object[] args, Class[] argTypes) {
         Logger logger = Logger.getLogger(loggerClass);
+        String completeSql = null;
+        if (logger.isDebugEnabled()) {
+            completeSql = getCompleteSql(args);
+            logger.debug(completeSql);
+        }
         SqlLogRegistry sqlLogRegistry = SqlLogRegistryLocator.getInstance();
-        if (logger.isDebugEnabled() || sqlLogRegistry != null) {
-            String completeSql = getCompleteSql(args);
-            if (logger.isDebugEnabled()) {
-                logger.debug(completeSql);
-            }
-            if (sqlLogRegistry != null) {
-                SqlLog sqlLog = new SqlLogImpl(getSql(), completeSql, args,
-                        argTypes);
-                sqlLogRegistry.add(sqlLog);
+        if (sqlLogRegistry != null) {
+            SqlLog sqlLog;
+            if (completeSql != null) {
+                sqlLog = new SqlLogImpl(getSql(), completeSql, args, argTypes);
+            } else {
+                sqlLog = new SqlLogImpl(getSql(), args, argTypes, null) {
+                    protected String createCompleteSql() {
+                        return BasicHandler.this.getCompleteSql(getBindArgs());
+                    }
+                };
             }
+            sqlLogRegistry.add(sqlLog);
+        }
+    }
+
+    /**
+     * {@link #logSql(Object[], Class[])}でログ出力したSQLの実行が完了したことを通知します。
+     * 
+     * @param rowCount
+     *            SQLが処理した行数、わからない場合<code>-1</code>
+     */
+    protected void notifySqlExecuted(int rowCount) {
+        SqlLogRegistry sqlLogRegistry = SqlLogRegistryLocator.getInstance();
+        if (sqlLogRegistry instanceof SqlExecutionLogRegistry) {
+            ((SqlExecutionLogRegistry) sqlLogRegistry)
+                    .notifyExecuted(rowCount);
         }
     }
 
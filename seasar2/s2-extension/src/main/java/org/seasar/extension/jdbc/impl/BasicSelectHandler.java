@@ -20,9 +20,11 @@ import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
 
 import javax.sql.DataSource;
 
+import org.seasar.extension.jdbc.CursorResultSetHandler;
 import org.seasar.extension.jdbc.ResultSetFactory;
 import org.seasar.extension.jdbc.ResultSetHandler;
 import org.seasar.extension.jdbc.SelectHandler;
@@ -207,7 +209,9 @@ public class BasicSelectHandler extends BasicHandler implements SelectHandler {
         try {
             ps = prepareStatement(connection);
             bindArgs(ps, args, argTypes);
-            return execute(ps);
+            Object ret = execute(ps);
+            notifySqlExecuted(ret instanceof List ? ((List) ret).size() : -1);
+            return ret;
         } catch (SQLException ex) {
             throw new SQLRuntimeException(ex);
         } finally {
@@ -215,6 +219,78 @@ public class BasicSelectHandler extends BasicHandler implements SelectHandler {
         }
     }
 
+    /**
+     * 検索結果を1行ずつ返す{@link ResultSetIterator}を返します。
+     * <p>
+     * 結果セットは{@link #getFetchSize() フェッチサイズ}ずつ読み込まれるので、
+     * 件数の多い検索結果もメモリに展開せずに処理できます。 コネクションは{@link ResultSetIterator}がクローズされるまで使用されます。
+     * </p>
+     * 
+     * @param args
+     *            引数
+     * @param cursorResultSetHandler
+     *            行を変換する{@link CursorResultSetHandler}
+     * @return {@link ResultSetIterator}
+     * @throws SQLRuntimeException
+     *             SQL例外が発生した場合
+     */
+    public ResultSetIterator iterate(Object[] args,
+            CursorResultSetHandler cursorResultSetHandler)
+            throws SQLRuntimeException {
+        return iterate(args, getArgTypes(args), cursorResultSetHandler);
+    }
+
+    /**
+     * 検索結果を1行ずつ返す{@link ResultSetIterator}を返します。
+     * 
+     * @param args
+     *            引数
+     * @param argTypes
+     *            引数の型
+     * @param cursorResultSetHandler
+     *            行を変換する{@link CursorResultSetHandler}
+     * @return {@link ResultSetIterator}
+     * @throws SQLRuntimeException
+     *             SQL例外が発生した場合
+     * @see #iterate(Object[], CursorResultSetHandler)
+     */
+    public ResultSetIterator iterate(Object[] args, Class[] argTypes,
+            CursorResultSetHandler cursorResultSetHandler)
+            throws SQLRuntimeException {
+        if (cursorResultSetHandler == null) {
+            throw new EmptyRuntimeException("cursorResultSetHandler");
+        }
+        Connection con = getConnection();
+        PreparedStatement ps = null;
+        ResultSet resultSet = null;
+        boolean success = false;
+        try {
+            logSql(args, argTypes);
+            ps = prepareStatement(con);
+            bindArgs(ps, args, argTypes);
+            resultSet = createResultSet(ps);
+            ResultSetIterator iterator = new ResultSetIterator(con, ps,
+                    resultSet, cursorResultSetHandler
+                            .createRowMapper(resultSet));
+            success = true;
+            return iterator;
+        } catch (SQLException ex) {
+            throw new SQLRuntimeException(ex);
+        } finally {
+            if (!success) {
+                try {
+                    ResultSetUtil.close(resultSet);
+                } finally {
+                    try {
+                        StatementUtil.close(ps);
+                    } finally {
+                        ConnectionUtil.close(con);
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * 引数のセットアップを行ないます。
      * 
@@ -280,4 +356,4 @@ public class BasicSelectHandler extends BasicHandler implements SelectHandler {
     protected ResultSet createResultSet(PreparedStatement ps) {
         return resultSetFactory.createResultSet(ps);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
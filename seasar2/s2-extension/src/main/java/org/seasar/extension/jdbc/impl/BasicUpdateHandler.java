@@ -99,7 +99,9 @@ public class BasicUpdateHandler extends BasicHandler implements UpdateHandler {
         PreparedStatement ps = prepareStatement(connection);
         try {
             bindArgs(ps, args, argTypes);
-            return PreparedStatementUtil.executeUpdate(ps);
+            int rows = PreparedStatementUtil.executeUpdate(ps);
+            notifySqlExecuted(rows);
+            return rows;
         } finally {
             StatementUtil.close(ps);
         }
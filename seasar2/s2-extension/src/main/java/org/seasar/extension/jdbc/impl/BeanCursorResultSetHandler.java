@@ -0,0 +1,99 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.seasar.extension.jdbc.CursorResultSetHandler;
+import org.seasar.extension.jdbc.RowCallback;
+import org.seasar.extension.jdbc.RowMapper;
+import org.seasar.framework.exception.EmptyRuntimeException;
+
+/**
+ * 検索結果のBeanを1行ずつ{@link RowCallback}に渡す{@link CursorResultSetHandler}です。
+ * 
+ */
+public class BeanCursorResultSetHandler extends AbstractBeanResultSetHandler
+        implements CursorResultSetHandler {
+
+    private RowCallback rowCallback;
+
+    /**
+     * {@link BeanCursorResultSetHandler}を作成します。
+     * <p>
+     * {@link BasicSelectHandler#iterate(Object[], CursorResultSetHandler)}で使う場合は
+     * {@link RowCallback}は不要です。
+     * </p>
+     * 
+     * @param beanClass
+     *            Beanクラス
+     */
+    public BeanCursorResultSetHandler(Class beanClass) {
+        this(beanClass, null);
+    }
+
+    /**
+     * {@link BeanCursorResultSetHandler}を作成します。
+     * 
+     * @param beanClass
+     *            Beanクラス
+     * @param rowCallback
+     *            行を受け取るコールバック
+     */
+    public BeanCursorResultSetHandler(Class beanClass, RowCallback rowCallback) {
+        super(beanClass);
+        this.rowCallback = rowCallback;
+    }
+
+    /**
+     * 行を受け取るコールバックを返します。
+     * 
+     * @return 行を受け取るコールバック
+     */
+    public RowCallback getRowCallback() {
+        return rowCallback;
+    }
+
+    /**
+     * 行を受け取るコールバックを設定します。
+     * 
+     * @param rowCallback
+     *            行を受け取るコールバック
+     */
+    public void setRowCallback(RowCallback rowCallback) {
+        this.rowCallback = rowCallback;
+    }
+
+    public RowMapper createRowMapper(ResultSet resultSet) throws SQLException {
+        return getRowMapper(createPropertyTypes(resultSet.getMetaData()));
+    }
+
+    public Object handle(ResultSet resultSet) throws SQLException {
+        if (rowCallback == null) {
+            throw new EmptyRuntimeException("rowCallback");
+        }
+        RowMapper rowMapper = createRowMapper(resultSet);
+        int count = 0;
+        while (resultSet.next()) {
+            ++count;
+            if (!rowCallback.handleRow(rowMapper.mapRow(resultSet))) {
+                break;
+            }
+        }
+        return new Integer(count);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.seasar.extension.jdbc.PropertyType;
+import org.seasar.extension.jdbc.RowMapper;
+import org.seasar.extension.jdbc.ValueType;
+import org.seasar.framework.beans.PropertyDesc;
+import org.seasar.framework.util.ClassUtil;
+
+/**
+ * リフレクションを使う{@link RowMapper}の実装クラスです。
+ * <p>
+ * {@link PropertyType}の配列の要素が<code>null</code>の列は無視します。
+ * </p>
+ * 
+ */
+public class ReflectionRowMapper implements RowMapper {
+
+    /**
+     * Beanクラスです。
+     */
+    protected final Class beanClass;
+
+    /**
+     * プロパティの型の配列です。
+     */
+    protected final PropertyType[] propertyTypes;
+
+    /**
+     * {@link ReflectionRowMapper}を作成します。
+     * 
+     * @param beanClass
+     *            Beanクラス
+     * @param propertyTypes
+     *            プロパティの型の配列
+     */
+    public ReflectionRowMapper(Class beanClass, PropertyType[] propertyTypes) {
+        this.beanClass = beanClass;
+        this.propertyTypes = propertyTypes;
+    }
+
+    public Object mapRow(ResultSet resultSet) throws SQLException {
+        Object row = ClassUtil.newInstance(beanClass);
+        for (int i = 0; i < propertyTypes.length; ++i) {
+            PropertyType pt = propertyTypes[i];
+            if (pt == null) {
+                continue;
+            }
+            ValueType valueType = pt.getValueType();
+            Object value = valueType.getValue(resultSet, i + 1);
+            PropertyDesc pd = pt.getPropertyDesc();
+            pd.setValue(row, value);
+        }
+        return row;
+    }
+}
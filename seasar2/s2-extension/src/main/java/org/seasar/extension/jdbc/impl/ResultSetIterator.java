@@ -0,0 +1,151 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.impl;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.seasar.extension.jdbc.RowMapper;
+import org.seasar.extension.jdbc.util.ConnectionUtil;
+import org.seasar.framework.exception.SQLRuntimeException;
+import org.seasar.framework.util.ResultSetUtil;
+import org.seasar.framework.util.StatementUtil;
+
+/**
+ * 結果セットを1行ずつ読み進める{@link Iterator}です。
+ * <p>
+ * 最後の行まで読み終えた場合と例外が発生した場合は、結果セット、ステートメント、コネクションを自動的にクローズします。
+ * 途中で読むのをやめる場合は必ず{@link #close()}を呼び出してください。
+ * {@link #remove()}はサポートしていません。
+ * </p>
+ * 
+ */
+public class ResultSetIterator implements Iterator {
+
+    private Connection connection;
+
+    private Statement statement;
+
+    private ResultSet resultSet;
+
+    private final RowMapper rowMapper;
+
+    private boolean fetched;
+
+    private boolean hasNext;
+
+    private boolean closed;
+
+    /**
+     * {@link ResultSetIterator}を作成します。
+     * 
+     * @param connection
+     *            クローズ時に一緒にクローズするコネクション、クローズしない場合は<code>null</code>
+     * @param statement
+     *            クローズ時に一緒にクローズするステートメント
+     * @param resultSet
+     *            結果セット
+     * @param rowMapper
+     *            行を変換する{@link RowMapper}
+     */
+    public ResultSetIterator(Connection connection, Statement statement,
+            ResultSet resultSet, RowMapper rowMapper) {
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+    }
+
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (!fetched) {
+            try {
+                hasNext = resultSet.next();
+            } catch (SQLException e) {
+                close();
+                throw new SQLRuntimeException(e);
+            }
+            fetched = true;
+            if (!hasNext) {
+                close();
+            }
+        }
+        return hasNext;
+    }
+
+    public Object next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        fetched = false;
+        try {
+            return rowMapper.mapRow(resultSet);
+        } catch (SQLException e) {
+            close();
+            throw new SQLRuntimeException(e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * 結果セット、ステートメント、コネクションをクローズします。
+     * <p>
+     * 複数回呼び出しても問題ありません。
+     * </p>
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        hasNext = false;
+        try {
+            ResultSetUtil.close(resultSet);
+        } finally {
+            try {
+                StatementUtil.close(statement);
+            } finally {
+                if (connection != null) {
+                    ConnectionUtil.close(connection);
+                }
+            }
+        }
+        resultSet = null;
+        statement = null;
+        connection = null;
+    }
+
+    /**
+     * クローズされている場合は<code>true</code>を返します。
+     * 
+     * @return クローズされている場合は<code>true</code>
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+}
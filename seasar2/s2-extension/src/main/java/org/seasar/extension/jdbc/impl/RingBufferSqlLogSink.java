@@ -0,0 +1,299 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.impl;
+
+import org.seasar.extension.jdbc.SqlLog;
+import org.seasar.extension.jdbc.SqlLogSink;
+import org.seasar.framework.util.Disposable;
+import org.seasar.framework.util.DisposableUtil;
+
+/**
+ * 実行が完了した{@link SqlLog}をリングバッファに蓄積する{@link SqlLogSink}の実装クラスです。
+ * <p>
+ * {@link #put(SqlLog)}は{@link SqlLog}をキューに入れるだけで、すぐに戻ります。
+ * キューが一杯の場合、その{@link SqlLog}は捨てられます。 キューに入った{@link SqlLog}はバックグラウンドのスレッドがリングバッファに追加します。
+ * リングバッファが一杯の場合は古いものから上書きします。 蓄積した{@link SqlLog}は{@link #getSqlLogs()}で取り出せます。
+ * </p>
+ * <p>
+ * バックグラウンドのスレッドは{@link #stop()}で停止します。 {@link #stop()}はコンポーネントの破棄時と
+ * {@link DisposableUtil#dispose()}の呼び出し時にも呼び出されます。
+ * </p>
+ * 
+ */
+public class RingBufferSqlLogSink implements SqlLogSink, Runnable {
+
+    /**
+     * 破棄メソッドのアノテーションです。
+     */
+    public static final String DESTROY_METHOD = "stop";
+
+    private static final int DEFAULT_CAPACITY = 1000;
+
+    private final Object queueLock = new Object();
+
+    private SqlLog[] queue;
+
+    private int queueHead;
+
+    private int queueSize;
+
+    private boolean processing;
+
+    private long droppedCount;
+
+    private SqlLog[] buffer;
+
+    private int bufferHead;
+
+    private int bufferSize;
+
+    private volatile Thread thread;
+
+    private volatile boolean stopped;
+
+    private boolean registered;
+
+    private final Disposable disposable = new Disposable() {
+        public void dispose() {
+            stop();
+            synchronized (RingBufferSqlLogSink.this) {
+                registered = false;
+            }
+        }
+    };
+
+    /**
+     * デフォルトの容量を使用してインスタンスを構築します。
+     */
+    public RingBufferSqlLogSink() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 容量を指定してインスタンスを構築します。
+     * 
+     * @param capacity
+     *            リングバッファに蓄積する{@link SqlLog}の数
+     */
+    public RingBufferSqlLogSink(int capacity) {
+        this(capacity, capacity);
+    }
+
+    /**
+     * 容量とキューのサイズを指定してインスタンスを構築します。
+     * 
+     * @param capacity
+     *            リングバッファに蓄積する{@link SqlLog}の数
+     * @param queueSize
+     *            リングバッファへの追加を待つ{@link SqlLog}の数の上限
+     */
+    public RingBufferSqlLogSink(int capacity, int queueSize) {
+        buffer = new SqlLog[Math.max(1, capacity)];
+        queue = new SqlLog[Math.max(1, queueSize)];
+    }
+
+    /**
+     * リングバッファに蓄積する{@link SqlLog}の数を返します。
+     * 
+     * @return リングバッファに蓄積する{@link SqlLog}の数
+     */
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * キューが一杯だったために捨てた{@link SqlLog}の数を返します。
+     * 
+     * @return 捨てた{@link SqlLog}の数
+     */
+    public long getDroppedCount() {
+        synchronized (queueLock) {
+            return droppedCount;
+        }
+    }
+
+    public void put(SqlLog sqlLog) {
+        if (stopped) {
+            return;
+        }
+        synchronized (queueLock) {
+            if (queueSize == queue.length) {
+                ++droppedCount;
+                return;
+            }
+            queue[(queueHead + queueSize) % queue.length] = sqlLog;
+            ++queueSize;
+            queueLock.notifyAll();
+        }
+        if (thread == null) {
+            startThread();
+        }
+    }
+
+    /**
+     * リングバッファに蓄積した{@link SqlLog}を古い順に返します。
+     * 
+     * @return リングバッファに蓄積した{@link SqlLog}の配列
+     */
+    public synchronized SqlLog[] getSqlLogs() {
+        SqlLog[] sqlLogs = new SqlLog[bufferSize];
+        for (int i = 0; i < bufferSize; ++i) {
+            sqlLogs[i] = buffer[(bufferHead + i) % buffer.length];
+        }
+        return sqlLogs;
+    }
+
+    /**
+     * リングバッファに蓄積した{@link SqlLog}を古い順に返し、リングバッファを空にします。
+     * 
+     * @return リングバッファに蓄積していた{@link SqlLog}の配列
+     */
+    public synchronized SqlLog[] drain() {
+        SqlLog[] sqlLogs = getSqlLogs();
+        clear();
+        return sqlLogs;
+    }
+
+    /**
+     * リングバッファを空にします。
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < buffer.length; ++i) {
+            buffer[i] = null;
+        }
+        bufferHead = 0;
+        bufferSize = 0;
+    }
+
+    /**
+     * キューに入っているすべての{@link SqlLog}がリングバッファに追加されるまで待機します。
+     * 
+     * @param timeoutMillis
+     *            待機する時間(ミリ秒単位)
+     * @return キューが空になった場合は<code>true</code>
+     * @throws InterruptedException
+     *             待機中に割り込まれた場合
+     */
+    public boolean flush(long timeoutMillis) throws InterruptedException {
+        final long limit = System.currentTimeMillis() + timeoutMillis;
+        synchronized (queueLock) {
+            while (queueSize > 0 || processing) {
+                final long rest = limit - System.currentTimeMillis();
+                if (rest <= 0) {
+                    return false;
+                }
+                queueLock.wait(rest);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 処理を開始します。
+     * <p>
+     * {@link #stop()}で停止した後は、このメソッドを呼び出すまで{@link #put(SqlLog)}された{@link SqlLog}は捨てられます。
+     * </p>
+     */
+    public void start() {
+        synchronized (this) {
+            stopped = false;
+        }
+        startThread();
+    }
+
+    /**
+     * 処理を停止します。
+     * <p>
+     * キューに残っている{@link SqlLog}は次に処理を開始したときにリングバッファに追加されます。
+     * </p>
+     */
+    public synchronized void stop() {
+        stopped = true;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    /**
+     * 処理が停止されているかどうかを返します。
+     * 
+     * @return 処理が停止されている場合は<code>true</code>
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    private void startThread() {
+        synchronized (this) {
+            if (stopped || thread != null) {
+                return;
+            }
+            thread = new Thread(this, "Seasar2-RingBufferSqlLogSink");
+            thread.setDaemon(true);
+            thread.start();
+            if (registered) {
+                return;
+            }
+            registered = true;
+        }
+        DisposableUtil.add(disposable);
+    }
+
+    public void run() {
+        final Thread currentThread = Thread.currentThread();
+        try {
+            while (isRunning(currentThread)) {
+                final SqlLog sqlLog;
+                synchronized (queueLock) {
+                    while (queueSize == 0) {
+                        queueLock.wait();
+                    }
+                    sqlLog = queue[queueHead];
+                    queue[queueHead] = null;
+                    queueHead = (queueHead + 1) % queue.length;
+                    --queueSize;
+                    processing = true;
+                }
+                try {
+                    sqlLog.getCompleteSql();
+                } catch (final RuntimeException ignore) {
+                } finally {
+                    append(sqlLog);
+                    synchronized (queueLock) {
+                        processing = false;
+                        queueLock.notifyAll();
+                    }
+                }
+            }
+        } catch (final InterruptedException ignore) {
+        }
+    }
+
+    private synchronized boolean isRunning(final Thread currentThread) {
+        return thread == currentThread;
+    }
+
+    private synchronized void append(final SqlLog sqlLog) {
+        if (bufferSize < buffer.length) {
+            buffer[(bufferHead + bufferSize) % buffer.length] = sqlLog;
+            ++bufferSize;
+        } else {
+            buffer[bufferHead] = sqlLog;
+            bufferHead = (bufferHead + 1) % buffer.length;
+        }
+    }
+}
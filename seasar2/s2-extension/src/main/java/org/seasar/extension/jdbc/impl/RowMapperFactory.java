@@ -0,0 +1,293 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.impl;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.seasar.extension.jdbc.PropertyType;
+import org.seasar.extension.jdbc.RowMapper;
+import org.seasar.framework.log.Logger;
+import org.seasar.framework.util.Disposable;
+import org.seasar.framework.util.DisposableUtil;
+import org.seasar.framework.util.LruHashMap;
+
+/**
+ * {@link RowMapper}を作成するファクトリです。
+ * <p>
+ * Beanクラスと{@link PropertyType}の配列の組み合わせごとに {@link RowMapperGenerator}で{@link RowMapper}を生成してキャッシュします。
+ * 生成できない場合は{@link ReflectionRowMapper}を使います。 キャッシュはHOT deployの破棄時に破棄されます。
+ * </p>
+ * <p>
+ * 生成したクラスはキャッシュから破棄されてもクラスローダが破棄されるまでアンロードされないので、
+ * 生成するクラスの数は{@link #setGenerationLimit(int) 上限}までに制限します。
+ * 上限に達した後は{@link ReflectionRowMapper}を使います。 生成した数はHOT deployの破棄時に<code>0</code>に戻ります。
+ * </p>
+ * 
+ */
+public class RowMapperFactory {
+
+    /**
+     * キャッシュの上限のデフォルト値です。
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    /**
+     * 生成するクラスの数の上限のデフォルト値です。
+     */
+    public static final int DEFAULT_GENERATION_LIMIT = 4096;
+
+    private static final Logger logger = Logger
+            .getLogger(RowMapperFactory.class);
+
+    private static volatile boolean initialized;
+
+    private static volatile boolean generationEnabled = true;
+
+    private static int generationLimit = DEFAULT_GENERATION_LIMIT;
+
+    private static int generatedCount;
+
+    private static Map rowMapperCache = Collections
+            .synchronizedMap(new LruHashMap(DEFAULT_CACHE_SIZE));
+
+    /**
+     * インスタンスを構築します。
+     */
+    protected RowMapperFactory() {
+    }
+
+    /**
+     * {@link RowMapper}を生成するかどうかを返します。
+     * 
+     * @return {@link RowMapper}を生成する場合は<code>true</code>
+     */
+    public static boolean isGenerationEnabled() {
+        return generationEnabled;
+    }
+
+    /**
+     * {@link RowMapper}を生成するかどうかを設定します。
+     * <p>
+     * <code>false</code>を設定すると常に{@link ReflectionRowMapper}を使います。
+     * </p>
+     * 
+     * @param generationEnabled
+     *            {@link RowMapper}を生成する場合は<code>true</code>
+     */
+    public static void setGenerationEnabled(boolean generationEnabled) {
+        RowMapperFactory.generationEnabled = generationEnabled;
+        clear();
+    }
+
+    /**
+     * 生成するクラスの数の上限を返します。
+     * 
+     * @return 生成するクラスの数の上限
+     */
+    public static synchronized int getGenerationLimit() {
+        return generationLimit;
+    }
+
+    /**
+     * 生成するクラスの数の上限を設定します。
+     * <p>
+     * 負の値を設定すると上限なしになります。 デフォルトは{@link #DEFAULT_GENERATION_LIMIT}です。
+     * </p>
+     * 
+     * @param generationLimit
+     *            生成するクラスの数の上限
+     */
+    public static synchronized void setGenerationLimit(int generationLimit) {
+        RowMapperFactory.generationLimit = generationLimit;
+    }
+
+    /**
+     * 生成したクラスの数を返します。
+     * 
+     * @return 生成したクラスの数
+     */
+    public static synchronized int getGeneratedCount() {
+        return generatedCount;
+    }
+
+    /**
+     * {@link RowMapper}を返します。
+     * 
+     * @param beanClass
+     *            Beanクラス
+     * @param propertyTypes
+     *            プロパティの型の配列
+     * @return {@link RowMapper}
+     */
+    public static RowMapper getRowMapper(Class beanClass,
+            PropertyType[] propertyTypes) {
+        if (!generationEnabled) {
+            return new ReflectionRowMapper(beanClass, propertyTypes);
+        }
+        if (!initialized) {
+            initialize();
+        }
+        RowMapperKey key = new RowMapperKey(beanClass, propertyTypes);
+        RowMapper rowMapper = (RowMapper) rowMapperCache.get(key);
+        if (rowMapper != null) {
+            return rowMapper;
+        }
+        synchronized (RowMapperFactory.class) {
+            rowMapper = (RowMapper) rowMapperCache.get(key);
+            if (rowMapper == null) {
+                rowMapper = createRowMapper(beanClass, propertyTypes);
+                rowMapperCache.put(key, rowMapper);
+            }
+        }
+        return rowMapper;
+    }
+
+    /**
+     * {@link RowMapper}を作成します。
+     * 
+     * @param beanClass
+     *            Beanクラス
+     * @param propertyTypes
+     *            プロパティの型の配列
+     * @return {@link RowMapper}
+     */
+    protected static RowMapper createRowMapper(Class beanClass,
+            PropertyType[] propertyTypes) {
+        if (RowMapperGenerator.isGeneratable(beanClass)
+                && reserveGeneration()) {
+            try {
+                return new RowMapperGenerator(beanClass, propertyTypes)
+                        .generate();
+            } catch (Throwable t) {
+                logger.log("WSSR0021", new Object[] { beanClass.getName() }, t);
+            }
+        }
+        return new ReflectionRowMapper(beanClass, propertyTypes);
+    }
+
+    /**
+     * 生成するクラスの数が上限に達していなければ、生成した数を増やして<code>true</code>を返します。
+     * 
+     * @return 生成できる場合は<code>true</code>
+     */
+    protected static synchronized boolean reserveGeneration() {
+        if (generationLimit >= 0 && generatedCount >= generationLimit) {
+            return false;
+        }
+        if (++generatedCount == generationLimit) {
+            logger.log("WSSR0024", new Object[] { new Integer(
+                    generationLimit) });
+        }
+        return true;
+    }
+
+    /**
+     * キャッシュされている{@link RowMapper}の数を返します。
+     * 
+     * @return キャッシュされている{@link RowMapper}の数
+     */
+    public static int getCacheCount() {
+        return rowMapperCache.size();
+    }
+
+    /**
+     * 初期化を行ないます。
+     */
+    public static void initialize() {
+        DisposableUtil.add(new Disposable() {
+            public void dispose() {
+                clear();
+                synchronized (RowMapperFactory.class) {
+                    generatedCount = 0;
+                }
+            }
+        });
+        initialized = true;
+    }
+
+    /**
+     * キャッシュをクリアします。
+     */
+    public static void clear() {
+        rowMapperCache.clear();
+        initialized = false;
+    }
+
+    /**
+     * {@link RowMapper}のキャッシュのキーです。
+     * <p>
+     * 各列の{@link PropertyType}が持つプロパティ記述子と値の型の同一性で比較します。
+     * </p>
+     * 
+     */
+    protected static class RowMapperKey {
+
+        private final Class beanClass;
+
+        private final Object[] elements;
+
+        private final int hashCode;
+
+        /**
+         * {@link RowMapperKey}を作成します。
+         * 
+         * @param beanClass
+         *            Beanクラス
+         * @param propertyTypes
+         *            プロパティの型の配列
+         */
+        public RowMapperKey(Class beanClass, PropertyType[] propertyTypes) {
+            this.beanClass = beanClass;
+            elements = new Object[propertyTypes.length * 2];
+            int hash = beanClass.hashCode();
+            for (int i = 0; i < propertyTypes.length; ++i) {
+                PropertyType pt = propertyTypes[i];
+                if (pt != null) {
+                    elements[i * 2] = pt.getPropertyDesc();
+                    elements[i * 2 + 1] = pt.getValueType();
+                }
+                hash = hash * 31 + System.identityHashCode(elements[i * 2]);
+                hash = hash * 31 + System.identityHashCode(elements[i * 2 + 1]);
+            }
+            hashCode = hash;
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof RowMapperKey)) {
+                return false;
+            }
+            RowMapperKey other = (RowMapperKey) obj;
+            if (hashCode != other.hashCode || beanClass != other.beanClass
+                    || elements.length != other.elements.length) {
+                return false;
+            }
+            for (int i = 0; i < elements.length; ++i) {
+                if (elements[i] != other.elements[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
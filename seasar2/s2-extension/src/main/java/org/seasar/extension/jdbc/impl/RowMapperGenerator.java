@@ -0,0 +1,274 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.impl;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+import javassist.CtClass;
+
+import org.seasar.extension.jdbc.PropertyType;
+import org.seasar.extension.jdbc.RowMapper;
+import org.seasar.extension.jdbc.ValueType;
+import org.seasar.extension.jdbc.types.ValueTypes;
+import org.seasar.framework.aop.javassist.AbstractGenerator;
+import org.seasar.framework.beans.PropertyDesc;
+import org.seasar.framework.util.ClassPoolUtil;
+import org.seasar.framework.util.ClassUtil;
+
+/**
+ * Beanクラスと{@link PropertyType}の配列に特化した{@link RowMapper}をJavassistで生成するクラスです。
+ * <p>
+ * 生成されたクラスはBeanを<code>new</code>で作成し、 プロパティにはsetterかpublicフィールドで直接値を設定します。
+ * 値の型が{@link ValueTypes}の標準のものである場合は、<code>ResultSet#getInt(int)</code>などの
+ * 型ごとのメソッドで値を取得します。 それ以外の列は{@link ValueType}と{@link PropertyDesc}を使って処理します。
+ * </p>
+ * 
+ */
+public class RowMapperGenerator extends AbstractGenerator {
+
+    /**
+     * 生成するクラスの名前に付加する文字列です。
+     */
+    public static final String SUFFIX_ROW_MAPPER = "$$RowMapper$$";
+
+    private static int counter = 0;
+
+    /**
+     * Beanクラスです。
+     */
+    protected final Class beanClass;
+
+    /**
+     * プロパティの型の配列です。
+     */
+    protected final PropertyType[] propertyTypes;
+
+    /**
+     * {@link RowMapperGenerator}を作成します。
+     * 
+     * @param beanClass
+     *            Beanクラス
+     * @param propertyTypes
+     *            プロパティの型の配列
+     */
+    public RowMapperGenerator(Class beanClass, PropertyType[] propertyTypes) {
+        super(ClassPoolUtil.getClassPool(beanClass));
+        this.beanClass = beanClass;
+        this.propertyTypes = propertyTypes;
+    }
+
+    /**
+     * {@link RowMapper}を生成できるBeanクラスなら<code>true</code>を返します。
+     * 
+     * @param beanClass
+     *            Beanクラス
+     * @return {@link RowMapper}を生成できるBeanクラスなら<code>true</code>
+     */
+    public static boolean isGeneratable(Class beanClass) {
+        int modifiers = beanClass.getModifiers();
+        if (!Modifier.isPublic(modifiers) || Modifier.isAbstract(modifiers)
+                || beanClass.isInterface() || beanClass.isArray()
+                || beanClass.isPrimitive()
+                || beanClass.getClassLoader() == null) {
+            return false;
+        }
+        if (beanClass.getDeclaringClass() != null
+                && !Modifier.isStatic(modifiers)) {
+            return false;
+        }
+        try {
+            Constructor constructor = beanClass.getConstructor(null);
+            return Modifier.isPublic(constructor.getModifiers());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * {@link RowMapper}を生成します。
+     * 
+     * @return 生成した{@link RowMapper}
+     */
+    public RowMapper generate() {
+        CtClass ctClass = createCtClass(beanClass.getName()
+                + SUFFIX_ROW_MAPPER + getNextId(),
+                AbstractGeneratedRowMapper.class);
+        createDefaultConstructor(ctClass);
+        createMethod(ctClass, createMapRowSource());
+        Class clazz = toClass(beanClass.getClassLoader(), ctClass);
+        ctClass.detach();
+        AbstractGeneratedRowMapper rowMapper = (AbstractGeneratedRowMapper) ClassUtil
+                .newInstance(clazz);
+        rowMapper.initialize(propertyTypes);
+        return rowMapper;
+    }
+
+    /**
+     * <code>mapRow</code>メソッドのソースを作成します。
+     * 
+     * @return <code>mapRow</code>メソッドのソース
+     */
+    protected String createMapRowSource() {
+        String beanClassName = ClassUtil.getSimpleClassName(beanClass);
+        StringBuffer buf = new StringBuffer(1000);
+        buf.append("public Object mapRow(java.sql.ResultSet rs)");
+        buf.append(" throws java.sql.SQLException {");
+        buf.append(beanClassName).append(" row = new ").append(beanClassName)
+                .append("();");
+        for (int i = 0; i < propertyTypes.length; ++i) {
+            if (propertyTypes[i] != null) {
+                appendColumn(buf, i);
+            }
+        }
+        buf.append("return row;}");
+        return buf.toString();
+    }
+
+    /**
+     * 1列分の処理のソースを追加します。
+     * 
+     * @param buf
+     *            ソースを追加するバッファ
+     * @param i
+     *            列のインデックス(0から始まります)
+     */
+    protected void appendColumn(StringBuffer buf, int i) {
+        PropertyDesc pd = propertyTypes[i].getPropertyDesc();
+        ValueType valueType = propertyTypes[i].getValueType();
+        Class type = pd.getPropertyType();
+        int index = i + 1;
+        if (!isSettable(pd)) {
+            buf.append("propertyDescs[").append(i).append(
+                    "].setValue(row, valueTypes[").append(i).append(
+                    "].getValue(rs, ").append(index).append("));");
+            return;
+        }
+        String getterName = getGetterName(valueType, type);
+        if (getterName == null) {
+            appendAssignment(buf, pd, fromObject(type, "propertyDescs[" + i
+                    + "].convertIfNeed(valueTypes[" + i + "].getValue(rs, "
+                    + index + "))"));
+        } else if (type.isPrimitive()
+                || ClassUtil.getPrimitiveClass(type) == null) {
+            appendAssignment(buf, pd, "rs." + getterName + "(" + index + ")");
+        } else {
+            Class primitive = ClassUtil.getPrimitiveClass(type);
+            buf.append(primitive.getName()).append(" v").append(i).append(
+                    " = rs.").append(getterName).append("(").append(index)
+                    .append(");");
+            buf.append(type.getName()).append(" w").append(i).append(
+                    " = null;");
+            buf.append("if (!rs.wasNull()) {w").append(i).append(" = ")
+                    .append(toObject(primitive, "v" + i)).append(";}");
+            appendAssignment(buf, pd, "w" + i);
+        }
+    }
+
+    /**
+     * プロパティに値を設定するソースを追加します。
+     * 
+     * @param buf
+     *            ソースを追加するバッファ
+     * @param pd
+     *            プロパティ記述子
+     * @param expr
+     *            設定する値の式
+     */
+    protected void appendAssignment(StringBuffer buf, PropertyDesc pd,
+            String expr) {
+        if (pd.hasWriteMethod()) {
+            buf.append("row.").append(pd.getWriteMethod().getName())
+                    .append("(").append(expr).append(");");
+        } else {
+            buf.append("row.").append(pd.getField().getName()).append(" = ")
+                    .append(expr).append(";");
+        }
+    }
+
+    /**
+     * 生成したクラスから直接値を設定できるプロパティなら<code>true</code>を返します。
+     * 
+     * @param pd
+     *            プロパティ記述子
+     * @return 直接値を設定できるプロパティなら<code>true</code>
+     */
+    protected boolean isSettable(PropertyDesc pd) {
+        if (pd.hasWriteMethod()) {
+            Method method = pd.getWriteMethod();
+            return Modifier.isPublic(method.getModifiers())
+                    && Modifier.isPublic(method.getDeclaringClass()
+                            .getModifiers())
+                    && method.getParameterTypes()[0] == pd.getPropertyType();
+        }
+        Field field = pd.getField();
+        if (field == null) {
+            return false;
+        }
+        int modifiers = field.getModifiers();
+        return Modifier.isPublic(modifiers) && !Modifier.isFinal(modifiers)
+                && !Modifier.isStatic(modifiers)
+                && Modifier.isPublic(field.getDeclaringClass().getModifiers())
+                && field.getType() == pd.getPropertyType();
+    }
+
+    /**
+     * 値の型とプロパティの型に対応する<code>ResultSet</code>のメソッド名を返します。
+     * <p>
+     * 型ごとのメソッドを使っても{@link ValueType}を使った場合と結果が変わらない組み合わせの場合だけメソッド名を返します。
+     * </p>
+     * 
+     * @param valueType
+     *            値の型
+     * @param type
+     *            プロパティの型
+     * @return <code>ResultSet</code>のメソッド名、対応するメソッドがない場合は<code>null</code>
+     */
+    protected static String getGetterName(ValueType valueType, Class type) {
+        if (valueType == ValueTypes.STRING) {
+            return type == String.class ? "getString" : null;
+        } else if (valueType == ValueTypes.INTEGER) {
+            return type == int.class || type == Integer.class ? "getInt"
+                    : null;
+        } else if (valueType == ValueTypes.LONG) {
+            return type == long.class || type == Long.class ? "getLong" : null;
+        } else if (valueType == ValueTypes.SHORT) {
+            return type == short.class || type == Short.class ? "getShort"
+                    : null;
+        } else if (valueType == ValueTypes.DOUBLE) {
+            return type == double.class || type == Double.class ? "getDouble"
+                    : null;
+        } else if (valueType == ValueTypes.FLOAT) {
+            return type == float.class || type == Float.class ? "getFloat"
+                    : null;
+        } else if (valueType == ValueTypes.BIGDECIMAL) {
+            return type == BigDecimal.class ? "getBigDecimal" : null;
+        } else if (valueType == ValueTypes.TIMESTAMP) {
+            return type == Timestamp.class ? "getTimestamp" : null;
+        } else if (valueType == ValueTypes.SQLDATE) {
+            return type == java.sql.Date.class ? "getDate" : null;
+        }
+        return null;
+    }
+
+    private static synchronized int getNextId() {
+        return counter++;
+    }
+}
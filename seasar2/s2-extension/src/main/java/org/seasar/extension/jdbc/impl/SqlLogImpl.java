@@ -15,14 +15,21 @@
  */
 package org.seasar.extension.jdbc.impl;
 
+import org.seasar.extension.jdbc.SqlExecutionLog;
 import org.seasar.extension.jdbc.SqlLog;
+import org.seasar.extension.jdbc.ValueType;
+import org.seasar.extension.jdbc.util.BindVariableUtil;
 
 /**
  * {@link SqlLog}の実装クラスです。
+ * <p>
+ * 完全なSQLを指定せずに構築した場合、完全なSQLは{@link #getCompleteSql()}が最初に呼び出されたときに
+ * {@link #createCompleteSql()}で作成します。
+ * </p>
  * 
  * @author taedium
  */
-public class SqlLogImpl implements SqlLog {
+public class SqlLogImpl implements SqlExecutionLog {
 
     private String rawSql;
 
@@ -32,6 +39,12 @@ public class SqlLogImpl implements SqlLog {
 
     private Class[] bindArgTypes;
 
+    private ValueType[] valueTypes;
+
+    private long elapsedTime = -1;
+
+    private int rowCount = -1;
+
     /**
      * インスタンスを構築します。
      * 
@@ -52,6 +65,26 @@ public class SqlLogImpl implements SqlLog {
         this.bindArgTypes = bindArgTypes;
     }
 
+    /**
+     * 完全なSQLを必要になったときに作成するインスタンスを構築します。
+     * 
+     * @param rawSql
+     *            未加工のSQL
+     * @param bindArgs
+     *            SQLにバインドされる値の配列
+     * @param bindArgTypes
+     *            SQLにバインドされる値の型の配列
+     * @param valueTypes
+     *            SQLにバインドされる値の値タイプの配列、値の型から決める場合は<code>null</code>
+     */
+    public SqlLogImpl(String rawSql, Object[] bindArgs, Class[] bindArgTypes,
+            ValueType[] valueTypes) {
+        this.rawSql = rawSql;
+        this.bindArgs = bindArgs;
+        this.bindArgTypes = bindArgTypes;
+        this.valueTypes = valueTypes;
+    }
+
     public Object[] getBindArgs() {
         return bindArgs;
     }
@@ -61,13 +94,56 @@ public class SqlLogImpl implements SqlLog {
     }
 
     public String getCompleteSql() {
+        if (completeSql == null) {
+            completeSql = createCompleteSql();
+        }
         return completeSql;
     }
 
+    /**
+     * 完全なSQLを作成します。
+     * 
+     * @return 完全なSQL
+     */
+    protected String createCompleteSql() {
+        if (valueTypes == null) {
+            return BindVariableUtil.getCompleteSql(rawSql, bindArgs);
+        }
+        return BindVariableUtil.getCompleteSql(rawSql, bindArgs, valueTypes);
+    }
+
     public String getRawSql() {
         return rawSql;
     }
 
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * SQLの実行にかかった時間をミリ秒で設定します。
+     * 
+     * @param elapsedTime
+     *            SQLの実行にかかった時間
+     */
+    public void setElapsedTime(long elapsedTime) {
+        this.elapsedTime = elapsedTime;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * SQLが処理した行数を設定します。
+     * 
+     * @param rowCount
+     *            SQLが処理した行数
+     */
+    public void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
     public String toString() {
         return rawSql;
     }
@@ -17,21 +17,39 @@ package org.seasar.extension.jdbc.impl;
 
 import java.util.LinkedList;
 
+import org.seasar.extension.jdbc.SqlExecutionLogRegistry;
 import org.seasar.extension.jdbc.SqlLog;
 import org.seasar.extension.jdbc.SqlLogRegistry;
+import org.seasar.extension.jdbc.SqlLogSink;
+import org.seasar.framework.log.Logger;
 
 /**
  * {@link SqlLogRegistry}の実装クラスです。
+ * <p>
+ * SQLの実行が完了すると、{@link #setSamplingInterval(int) サンプリング間隔}ごとに1つの{@link SqlLog}を
+ * {@link #setSqlLogSink(SqlLogSink) シンク}に渡します。
+ * {@link #setSlowQueryThreshold(long) しきい値}以上の時間がかかったSQLは、サンプリング間隔に関係なくシンクに渡し、
+ * 警告ログを出力します。 シンクに渡す{@link SqlLog}の完全なSQLは、SQLを実行したスレッドで作成してから渡します。
+ * </p>
  * 
  * @author taedium
  */
-public class SqlLogRegistryImpl implements SqlLogRegistry {
+public class SqlLogRegistryImpl implements SqlExecutionLogRegistry {
+
+    private static final Logger logger = Logger
+            .getLogger(SqlLogRegistryImpl.class);
 
     private static final int DEFAULT_LIMIT_SIZE = 3;
 
     private int limitSize;
 
-    private ThreadLocal threadList = new ThreadLocal();
+    private int samplingInterval = 1;
+
+    private long slowQueryThreshold = -1;
+
+    private SqlLogSink sqlLogSink;
+
+    private ThreadLocal threadContext = new ThreadLocal();
 
     /**
      * デフォルトの上限サイズを使用してインスタンスを構築します。
@@ -55,6 +73,70 @@ public class SqlLogRegistryImpl implements SqlLogRegistry {
         return limitSize;
     }
 
+    /**
+     * シンクに渡す{@link SqlLog}のサンプリング間隔を返します。
+     * 
+     * @return サンプリング間隔
+     */
+    public int getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    /**
+     * シンクに渡す{@link SqlLog}のサンプリング間隔を設定します。
+     * <p>
+     * <code>n</code>を指定すると、実行が完了した<code>n</code>個のSQLのうち1つをシンクに渡します。
+     * 実行が完了したSQLはスレッドごとに数えます。 <code>0</code>以下の場合は遅いSQLだけを渡します。デフォルトは<code>1</code>です。
+     * </p>
+     * 
+     * @param samplingInterval
+     *            サンプリング間隔
+     */
+    public void setSamplingInterval(int samplingInterval) {
+        this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * 遅いSQLとみなす実行時間のしきい値をミリ秒で返します。
+     * 
+     * @return 遅いSQLとみなす実行時間のしきい値
+     */
+    public long getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    /**
+     * 遅いSQLとみなす実行時間のしきい値をミリ秒で設定します。
+     * <p>
+     * 負の値の場合は遅いSQLを判定しません。デフォルトは<code>-1</code>です。
+     * </p>
+     * 
+     * @param slowQueryThreshold
+     *            遅いSQLとみなす実行時間のしきい値
+     */
+    public void setSlowQueryThreshold(long slowQueryThreshold) {
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    /**
+     * 実行が完了した{@link SqlLog}を渡すシンクを返します。
+     * 
+     * @return シンク
+     */
+    public SqlLogSink getSqlLogSink() {
+        return sqlLogSink;
+    }
+
+    /**
+     * 実行が完了した{@link SqlLog}を渡すシンクを設定します。
+     * 
+     * @param sqlLogSink
+     *            シンク
+     */
+    public void setSqlLogSink(SqlLogSink sqlLogSink) {
+        this.sqlLogSink = sqlLogSink;
+    }
+
     public int getSize() {
         return getSqlLogList().size();
     }
@@ -72,26 +154,95 @@ public class SqlLogRegistryImpl implements SqlLogRegistry {
     }
 
     public void add(SqlLog sqlLog) {
+        ThreadContext context = getThreadContext();
+        context.executingSqlLog = sqlLog;
+        context.startTime = System.currentTimeMillis();
         if (limitSize <= 0) {
             return;
         }
-        LinkedList list = getSqlLogList();
+        LinkedList list = context.sqlLogList;
         list.add(sqlLog);
         if (list.size() > limitSize) {
             list.removeFirst();
         }
     }
 
+    public void notifyExecuted(int rowCount) {
+        ThreadContext context = getThreadContext();
+        SqlLog sqlLog = context.executingSqlLog;
+        if (sqlLog == null) {
+            return;
+        }
+        context.executingSqlLog = null;
+        long elapsedTime = System.currentTimeMillis() - context.startTime;
+        if (sqlLog instanceof SqlLogImpl) {
+            SqlLogImpl sqlLogImpl = (SqlLogImpl) sqlLog;
+            sqlLogImpl.setElapsedTime(elapsedTime);
+            sqlLogImpl.setRowCount(rowCount);
+        }
+        boolean slow = slowQueryThreshold >= 0
+                && elapsedTime >= slowQueryThreshold;
+        if (slow) {
+            logger.log("WSSR0023", new Object[] { new Long(elapsedTime),
+                    sqlLog.getCompleteSql() });
+        }
+        if (sqlLogSink != null && (slow || isSampled())) {
+            sqlLog.getCompleteSql();
+            sqlLogSink.put(sqlLog);
+        }
+    }
+
     public void clear() {
-        getSqlLogList().clear();
+        ThreadContext context = getThreadContext();
+        context.sqlLogList.clear();
+        context.executingSqlLog = null;
+    }
+
+    /**
+     * 実行が完了した{@link SqlLog}をシンクに渡すかどうかを返します。
+     * 
+     * @return シンクに渡す場合<code>true</code>
+     */
+    protected boolean isSampled() {
+        if (samplingInterval <= 0) {
+            return false;
+        }
+        if (samplingInterval == 1) {
+            return true;
+        }
+        ThreadContext context = getThreadContext();
+        if (++context.samplingCount < samplingInterval) {
+            return false;
+        }
+        context.samplingCount = 0;
+        return true;
     }
 
     private LinkedList getSqlLogList() {
-        LinkedList list = (LinkedList) threadList.get();
-        if (list == null) {
-            list = new LinkedList();
-            threadList.set(list);
+        return getThreadContext().sqlLogList;
+    }
+
+    private ThreadContext getThreadContext() {
+        ThreadContext context = (ThreadContext) threadContext.get();
+        if (context == null) {
+            context = new ThreadContext();
+            threadContext.set(context);
         }
-        return list;
+        return context;
+    }
+
+    /**
+     * スレッドごとの{@link SqlLog}を保持するクラスです。
+     * 
+     */
+    private static class ThreadContext {
+
+        private LinkedList sqlLogList = new LinkedList();
+
+        private SqlLog executingSqlLog;
+
+        private long startTime;
+
+        private int samplingCount;
     }
 }
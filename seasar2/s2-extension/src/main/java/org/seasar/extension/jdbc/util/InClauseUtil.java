@@ -0,0 +1,52 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.util;
+
+/**
+ * IN句のバインド変数用のユーティリティです。
+ * 
+ */
+public class InClauseUtil {
+
+    /**
+     * インスタンスを構築します。
+     */
+    protected InClauseUtil() {
+    }
+
+    /**
+     * 要素数を2のべき乗に切り上げたバインド変数の数を返します。
+     * <p>
+     * 切り上げた数が上限を超える場合は切り上げずに要素数をそのまま返します。
+     * </p>
+     * 
+     * @param size
+     *            要素数
+     * @param limit
+     *            バインド変数の数の上限。<code>0</code>以下の場合は上限なし
+     * @return バインド変数の数
+     */
+    public static int getPaddedSize(int size, int limit) {
+        int paddedSize = 1;
+        while (paddedSize < size && paddedSize > 0) {
+            paddedSize <<= 1;
+        }
+        if (paddedSize <= 0 || limit > 0 && paddedSize > limit) {
+            return size;
+        }
+        return paddedSize;
+    }
+}
@@ -54,17 +54,23 @@ public class TransactionImpl implements ExtendedTransaction,
 
     private static Logger logger = Logger.getLogger(TransactionImpl.class);
 
+    private static final XAResourceWrapper[] EMPTY_XA_RESOURCE_WRAPPERS = new XAResourceWrapper[0];
+
     private Xid xid;
 
     private int status = Status.STATUS_NO_TRANSACTION;
 
-    private List xaResourceWrappers = new ArrayList();
+    // ほとんどのトランザクションはリソースを1つしか持たないため、
+    // リストではなく配列で保持し、必要な時だけ拡張します
+    private XAResourceWrapper[] xaResourceWrappers = EMPTY_XA_RESOURCE_WRAPPERS;
+
+    private int xaResourceWrapperSize = 0;
 
-    private List synchronizations = new ArrayList();
+    private List synchronizations;
 
-    private List interposedSynchronizations = new ArrayList();
+    private List interposedSynchronizations;
 
-    private Map resourceMap = new HashMap();
+    private Map resourceMap;
 
     private boolean suspended = false;
 
@@ -151,11 +157,22 @@ public class TransactionImpl implements ExtendedTransaction,
     }
 
     private int getXAResourceWrapperSize() {
-        return xaResourceWrappers.size();
+        return xaResourceWrapperSize;
     }
 
     private XAResourceWrapper getXAResourceWrapper(int index) {
-        return (XAResourceWrapper) xaResourceWrappers.get(index);
+        return xaResourceWrappers[index];
+    }
+
+    private void addXAResourceWrapper(XAResourceWrapper xarw) {
+        if (xaResourceWrapperSize == xaResourceWrappers.length) {
+            XAResourceWrapper[] newArray = new XAResourceWrapper[Math.max(
+                    xaResourceWrapperSize * 2, 1)];
+            System.arraycopy(xaResourceWrappers, 0, newArray, 0,
+                    xaResourceWrapperSize);
+            xaResourceWrappers = newArray;
+        }
+        xaResourceWrappers[xaResourceWrapperSize++] = xarw;
     }
 
     /**
@@ -365,7 +382,7 @@ public class TransactionImpl implements ExtendedTransaction,
     }
 
     private int getSynchronizationSize() {
-        return synchronizations.size();
+        return synchronizations == null ? 0 : synchronizations.size();
     }
 
     private Synchronization getSynchronization(int index) {
@@ -373,7 +390,8 @@ public class TransactionImpl implements ExtendedTransaction,
     }
 
     private int getInterposedSynchronizationSize() {
-        return interposedSynchronizations.size();
+        return interposedSynchronizations == null ? 0
+                : interposedSynchronizations.size();
     }
 
     private Synchronization getInterposedSynchronization(int index) {
@@ -447,10 +465,11 @@ public class TransactionImpl implements ExtendedTransaction,
     public boolean enlistResource(XAResource xaResource)
             throws RollbackException, IllegalStateException, SystemException {
 
-        boolean oracled = xaResource.getClass().getName().startsWith("oracle");
         assertNotSuspended();
         assertActive();
         Xid xid = null;
+        final boolean oracled = getXAResourceWrapperSize() > 0
+                && xaResource.getClass().getName().startsWith("oracle");
         for (int i = 0; i < getXAResourceWrapperSize(); ++i) {
             XAResourceWrapper xarw = getXAResourceWrapper(i);
             if (xaResource.equals(xarw.getXAResource())) {
@@ -475,7 +494,7 @@ public class TransactionImpl implements ExtendedTransaction,
         }
         try {
             xaResource.start(xid, flag);
-            xaResourceWrappers.add(new XAResourceWrapper(xaResource, xid,
+            addXAResourceWrapper(new XAResourceWrapper(xaResource, xid,
                     commitTarget));
             return true;
         } catch (XAException ex) {
@@ -486,7 +505,7 @@ public class TransactionImpl implements ExtendedTransaction,
     }
 
     private Xid createXidBranch() {
-        return new XidImpl(xid, ++branchId);
+        return new XidImpl(getXid(), ++branchId);
     }
 
     public boolean delistResource(XAResource xaResource, int flag)
@@ -519,7 +538,7 @@ public class TransactionImpl implements ExtendedTransaction,
 
         assertNotSuspended();
         assertActive();
-        synchronizations.add(sync);
+        getSynchronizations().add(sync);
     }
 
     public void registerInterposedSynchronization(Synchronization sync)
@@ -527,18 +546,21 @@ public class TransactionImpl implements ExtendedTransaction,
 
         assertNotSuspended();
         assertActive();
-        interposedSynchronizations.add(sync);
+        getInterposedSynchronizations().add(sync);
     }
 
     public void putResource(Object key, Object value)
             throws IllegalStateException {
         assertNotSuspended();
+        if (resourceMap == null) {
+            resourceMap = new HashMap();
+        }
         resourceMap.put(key, value);
     }
 
     public Object getResource(Object key) throws IllegalStateException {
         assertNotSuspended();
-        return resourceMap.get(key);
+        return resourceMap == null ? null : resourceMap.get(key);
     }
 
     /**
@@ -547,6 +569,9 @@ public class TransactionImpl implements ExtendedTransaction,
      * @return トランザクションID
      */
     public Xid getXid() {
+        if (xid == null) {
+            xid = new XidImpl();
+        }
         return xid;
     }
 
@@ -560,20 +585,30 @@ public class TransactionImpl implements ExtendedTransaction,
     }
 
     private void init() {
-        xid = new XidImpl();
+        xid = null;
+        branchId = 0;
     }
 
     private void destroy() {
         status = Status.STATUS_NO_TRANSACTION;
-        xaResourceWrappers.clear();
-        synchronizations.clear();
-        interposedSynchronizations.clear();
-        resourceMap.clear();
+        for (int i = 0; i < xaResourceWrapperSize; ++i) {
+            xaResourceWrappers[i] = null;
+        }
+        xaResourceWrapperSize = 0;
+        if (synchronizations != null) {
+            synchronizations.clear();
+        }
+        if (interposedSynchronizations != null) {
+            interposedSynchronizations.clear();
+        }
+        if (resourceMap != null) {
+            resourceMap.clear();
+        }
         suspended = false;
     }
 
     public String toString() {
-        return xid.toString();
+        return getXid().toString();
     }
 
     /**
@@ -582,6 +617,9 @@ public class TransactionImpl implements ExtendedTransaction,
      * @return
      */
     public List getSynchronizations() {
+        if (synchronizations == null) {
+            synchronizations = new ArrayList();
+        }
         return synchronizations;
     }
 
@@ -591,6 +629,9 @@ public class TransactionImpl implements ExtendedTransaction,
      * @return
      */
     public List getInterposedSynchronizations() {
+        if (interposedSynchronizations == null) {
+            interposedSynchronizations = new ArrayList();
+        }
         return interposedSynchronizations;
     }
 }
@@ -33,9 +33,20 @@ public class XidImpl implements Xid, Serializable {
 
     private static final byte[] INITIAL_BRANCH_ID = convert64bytes(new byte[0]);
 
+    private static final byte[][] BRANCH_IDS = new byte[16][];
+
+    static {
+        for (int i = 0; i < BRANCH_IDS.length; ++i) {
+            BRANCH_IDS[i] = convert64bytes(Integer.toString(i).getBytes());
+        }
+    }
+
     private static final String GLOBAL_ID_BASE = System.currentTimeMillis()
             + "/";
 
+    private static final byte[] GLOBAL_ID_BASE_BYTES = GLOBAL_ID_BASE
+            .getBytes();
+
     private static int nextId = 0;
 
     private int hashCode;
@@ -63,13 +74,35 @@ public class XidImpl implements Xid, Serializable {
      */
     public XidImpl(Xid xid, int bid) {
         hashCode = xid.hashCode();
-        globalId = xid.getGlobalTransactionId();
-        branchId = convert64bytes(Integer.toString(bid).getBytes());
+        if (xid instanceof XidImpl) {
+            globalId = ((XidImpl) xid).globalId;
+        } else {
+            globalId = xid.getGlobalTransactionId();
+        }
+        if (bid >= 0 && bid < BRANCH_IDS.length) {
+            branchId = BRANCH_IDS[bid];
+        } else {
+            branchId = convert64bytes(Integer.toString(bid).getBytes());
+        }
     }
 
     private byte[] createGlobalId() {
-        return convert64bytes((GLOBAL_ID_BASE + Integer.toString(hashCode))
-                .getBytes());
+        final byte[] new64bytes = new byte[64];
+        System.arraycopy(GLOBAL_ID_BASE_BYTES, 0, new64bytes, 0,
+                GLOBAL_ID_BASE_BYTES.length);
+        int pos = GLOBAL_ID_BASE_BYTES.length;
+        if (hashCode < 0) {
+            new64bytes[pos++] = '-';
+        }
+        long value = Math.abs((long) hashCode);
+        long divisor = 1;
+        while (divisor * 10 <= value) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            new64bytes[pos++] = (byte) ('0' + value / divisor % 10);
+        }
+        return new64bytes;
     }
 
     public byte[] getGlobalTransactionId() {
@@ -132,4 +165,4 @@ public class XidImpl implements Xid, Serializable {
     private static synchronized int getNextId() {
         return nextId++;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -46,6 +46,10 @@ public class SqlContextImpl implements SqlContext {
 
     private boolean enabled = true;
 
+    private boolean inClausePadding;
+
+    private int inClausePaddingLimit;
+
     private SqlContext parent;
 
     static {
@@ -67,6 +71,11 @@ public class SqlContextImpl implements SqlContext {
     public SqlContextImpl(SqlContext parent) {
         this.parent = parent;
         enabled = false;
+        if (parent instanceof SqlContextImpl) {
+            inClausePadding = ((SqlContextImpl) parent).isInClausePadding();
+            inClausePaddingLimit = ((SqlContextImpl) parent)
+                    .getInClausePaddingLimit();
+        }
     }
 
     public Object getArg(String name) {
@@ -156,4 +165,49 @@ public class SqlContextImpl implements SqlContext {
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
     }
-}
\ No newline at end of file
+
+    /**
+     * IN句のバインド変数の数を2のべき乗に切り上げるかどうかを返します。
+     * 
+     * @return IN句のバインド変数の数を2のべき乗に切り上げる場合は<code>true</code>
+     */
+    public boolean isInClausePadding() {
+        return inClausePadding;
+    }
+
+    /**
+     * IN句のバインド変数の数を2のべき乗に切り上げるかどうかを設定します。
+     * <p>
+     * 切り上げた分のバインド変数には最後の値を繰り返しバインドします。
+     * 要素数の違うリストでも同じSQLになるので、文のキャッシュが効きやすくなります。
+     * </p>
+     * 
+     * @param inClausePadding
+     *            IN句のバインド変数の数を2のべき乗に切り上げる場合は<code>true</code>
+     */
+    public void setInClausePadding(boolean inClausePadding) {
+        this.inClausePadding = inClausePadding;
+    }
+
+    /**
+     * IN句のバインド変数の数を切り上げる上限を返します。
+     * 
+     * @return IN句のバインド変数の数を切り上げる上限。<code>0</code>以下の場合は上限なし
+     */
+    public int getInClausePaddingLimit() {
+        return inClausePaddingLimit;
+    }
+
+    /**
+     * IN句のバインド変数の数を切り上げる上限を設定します。
+     * <p>
+     * 切り上げた数が上限を超える場合は切り上げません。
+     * </p>
+     * 
+     * @param inClausePaddingLimit
+     *            IN句のバインド変数の数を切り上げる上限。<code>0</code>以下の場合は上限なし
+     */
+    public void setInClausePaddingLimit(int inClausePaddingLimit) {
+        this.inClausePaddingLimit = inClausePaddingLimit;
+    }
+}
\ No newline at end of file
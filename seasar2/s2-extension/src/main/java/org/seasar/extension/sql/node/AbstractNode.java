@@ -15,6 +15,7 @@
  */
 package org.seasar.extension.sql.node;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,7 +27,9 @@ import org.seasar.extension.sql.Node;
  * @author higa
  * 
  */
-public abstract class AbstractNode implements Node {
+public abstract class AbstractNode implements Node, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private List children = new ArrayList();
 
@@ -47,4 +50,14 @@ public abstract class AbstractNode implements Node {
     public void addChild(Node node) {
         children.add(node);
     }
-}
\ No newline at end of file
+
+    /**
+     * 子供の{@link Node}を置き換えます。
+     * 
+     * @param children
+     *            子供の{@link Node}のリスト
+     */
+    void setChildren(List children) {
+        this.children = children;
+    }
+}
\ No newline at end of file
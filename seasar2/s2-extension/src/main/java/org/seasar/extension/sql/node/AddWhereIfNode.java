@@ -29,6 +29,8 @@ import org.seasar.extension.sql.context.SqlContextImpl;
  */
 public class AddWhereIfNode extends ContainerNode {
 
+    private static final long serialVersionUID = 1L;
+
     Pattern pat = Pattern.compile("\\s*(order\\sby)|$)");
 
     /**
@@ -51,4 +53,4 @@ public class AddWhereIfNode extends ContainerNode {
         }
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -27,6 +27,8 @@ import org.seasar.extension.sql.context.SqlContextImpl;
  */
 public class BeginNode extends ContainerNode {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * <code>BeginNode</code>を作成します。
      */
@@ -41,4 +43,4 @@ public class BeginNode extends ContainerNode {
                     .getBindVariableTypes());
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -17,9 +17,6 @@ package org.seasar.extension.sql.node;
 
 import org.seasar.extension.sql.Node;
 import org.seasar.extension.sql.SqlContext;
-import org.seasar.framework.beans.BeanDesc;
-import org.seasar.framework.beans.PropertyDesc;
-import org.seasar.framework.beans.factory.BeanDescFactory;
 import org.seasar.framework.util.StringUtil;
 
 /**
@@ -30,9 +27,11 @@ import org.seasar.framework.util.StringUtil;
  */
 public class BindVariableNode extends AbstractNode {
 
+    private static final long serialVersionUID = 1L;
+
     private String expression;
 
-    private String[] names;
+    private PropertyPathAccessor accessor;
 
     /**
      * <code>BindVariableNode</code>を作成します。
@@ -41,7 +40,7 @@ public class BindVariableNode extends AbstractNode {
      */
     public BindVariableNode(String expression) {
         this.expression = expression;
-        names = StringUtil.split(expression, ".");
+        accessor = new PropertyPathAccessor(StringUtil.split(expression, "."));
     }
 
     /**
@@ -54,17 +53,25 @@ public class BindVariableNode extends AbstractNode {
     }
 
     public void accept(SqlContext ctx) {
-        Object value = ctx.getArg(names[0]);
-        Class clazz = ctx.getArgType(names[0]);
-        for (int pos = 1; pos < names.length; pos++) {
-            BeanDesc beanDesc = BeanDescFactory.getBeanDesc(clazz);
-            PropertyDesc pd = beanDesc.getPropertyDesc(names[pos]);
-            if (value == null) {
-                break;
-            }
-            value = pd.getValue(value);
-            clazz = pd.getPropertyType();
-        }
-        ctx.addSql("?", value, clazz);
+        Object[] values = new Object[1];
+        Class[] types = new Class[1];
+        bind(ctx, values, types, 0);
+        ctx.addSql("?", values[0], types[0]);
+    }
+
+    /**
+     * バインド変数の値とクラスを求めて配列に格納します。
+     * 
+     * @param ctx
+     *            SQLのコンテキスト
+     * @param values
+     *            値を格納する配列
+     * @param types
+     *            クラスを格納する配列
+     * @param index
+     *            格納する位置
+     */
+    void bind(SqlContext ctx, Object[] values, Class[] types, int index) {
+        accessor.bindDeclared(ctx, values, types, index);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,439 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.sql.node;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.seasar.extension.sql.SqlArgWrapper;
+import org.seasar.extension.sql.SqlContext;
+import org.seasar.framework.beans.BeanDesc;
+import org.seasar.framework.beans.PropertyDesc;
+import org.seasar.framework.beans.factory.BeanDescFactory;
+
+/**
+ * {@link ExpressionCompiler}がコンパイルした式です。
+ * <p>
+ * OGNLと同じ結果になることが保証できない値に出会った場合は、{@link FallbackException}をスローします。
+ * 呼び出し側はその場合OGNLで式を評価し直します。
+ * </p>
+ * 
+ */
+public abstract class CompiledExpression {
+
+    private static final String HAS_PREFIX = "has_";
+
+    /**
+     * 式を評価します。
+     * 
+     * @param ctx
+     *            SQLのコンテキスト
+     * @return 評価結果
+     * @throws FallbackException
+     *             OGNLで評価し直す必要がある場合
+     */
+    public abstract Object evaluate(SqlContext ctx) throws FallbackException;
+
+    /**
+     * OGNLの真偽値の規則で値を判定します。
+     * 
+     * @param value
+     *            値
+     * @return 真の場合は<code>true</code>
+     */
+    protected static boolean booleanValue(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean) {
+            return ((Boolean) value).booleanValue();
+        }
+        if (value instanceof Character) {
+            return ((Character) value).charValue() != 0;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue() != 0;
+        }
+        return true;
+    }
+
+    /**
+     * 2つの値を比較します。
+     * 
+     * @param left
+     *            左辺
+     * @param right
+     *            右辺
+     * @return 比較結果
+     * @throws FallbackException
+     *             OGNLと同じ方法で比較できない場合
+     */
+    protected static int compare(Object left, Object right)
+            throws FallbackException {
+        if (isIntegral(left) && isIntegral(right)) {
+            long l = ((Number) left).longValue();
+            long r = ((Number) right).longValue();
+            return l < r ? -1 : (l == r ? 0 : 1);
+        }
+        if (isNumber(left) && isNumber(right)) {
+            double l = ((Number) left).doubleValue();
+            double r = ((Number) right).doubleValue();
+            return l < r ? -1 : (l == r ? 0 : 1);
+        }
+        if (left instanceof String && right instanceof String) {
+            return ((String) left).compareTo((String) right);
+        }
+        throw FallbackException.INSTANCE;
+    }
+
+    /**
+     * OGNLの<code>==</code>と同じ規則で2つの値が等しいか判定します。
+     * 
+     * @param left
+     *            左辺
+     * @param right
+     *            右辺
+     * @return 等しい場合は<code>true</code>
+     * @throws FallbackException
+     *             OGNLと同じ方法で比較できない場合
+     */
+    protected static boolean isEqual(Object left, Object right)
+            throws FallbackException {
+        if (left == right) {
+            return true;
+        }
+        if (left == null || right == null) {
+            return false;
+        }
+        if (left instanceof Boolean && right instanceof Boolean) {
+            return left.equals(right);
+        }
+        return compare(left, right) == 0;
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte;
+    }
+
+    private static boolean isNumber(Object value) {
+        return isIntegral(value) || value instanceof Double
+                || value instanceof Float;
+    }
+
+    /**
+     * OGNLで評価し直す必要があることを示す例外です。
+     * 
+     */
+    public static class FallbackException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 唯一のインスタンスです。
+         */
+        public static final FallbackException INSTANCE = new FallbackException();
+
+        private FallbackException() {
+        }
+
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * 定数です。
+     * 
+     */
+    public static class Literal extends CompiledExpression {
+
+        private final Object value;
+
+        /**
+         * {@link Literal}を作成します。
+         * 
+         * @param value
+         *            値
+         */
+        public Literal(Object value) {
+            this.value = value;
+        }
+
+        public Object evaluate(SqlContext ctx) {
+            return value;
+        }
+    }
+
+    /**
+     * SQLのコンテキストの引数です。
+     * 
+     */
+    public static class Arg extends CompiledExpression {
+
+        private final String name;
+
+        /**
+         * {@link Arg}を作成します。
+         * 
+         * @param name
+         *            引数名
+         */
+        public Arg(String name) {
+            this.name = name;
+        }
+
+        public Object evaluate(SqlContext ctx) {
+            if (name.startsWith(HAS_PREFIX)) {
+                return Boolean.valueOf(ctx.hasArg(name.substring(HAS_PREFIX
+                        .length())));
+            }
+            Object arg = ctx.getArg(name);
+            if (arg instanceof SqlArgWrapper) {
+                return ((SqlArgWrapper) arg).getValue();
+            }
+            return arg;
+        }
+    }
+
+    /**
+     * プロパティの参照です。
+     * 
+     */
+    public static class Property extends CompiledExpression {
+
+        private final CompiledExpression target;
+
+        private final String name;
+
+        /**
+         * {@link Property}を作成します。
+         * 
+         * @param target
+         *            プロパティを持つオブジェクトの式
+         * @param name
+         *            プロパティ名
+         */
+        public Property(CompiledExpression target, String name) {
+            this.target = target;
+            this.name = name;
+        }
+
+        public Object evaluate(SqlContext ctx) throws FallbackException {
+            Object obj = target.evaluate(ctx);
+            if (obj == null || obj instanceof Collection
+                    || obj instanceof Iterator || obj instanceof SqlContext
+                    || obj.getClass().isArray()) {
+                throw FallbackException.INSTANCE;
+            }
+            if (obj instanceof Map) {
+                if ("size".equals(name) || "isEmpty".equals(name)
+                        || "keys".equals(name) || "keySet".equals(name)
+                        || "values".equals(name)) {
+                    throw FallbackException.INSTANCE;
+                }
+                return ((Map) obj).get(name);
+            }
+            BeanDesc beanDesc = BeanDescFactory.getBeanDesc(obj.getClass());
+            if (!beanDesc.hasPropertyDesc(name)) {
+                throw FallbackException.INSTANCE;
+            }
+            PropertyDesc pd = beanDesc.getPropertyDesc(name);
+            if (!name.equals(pd.getPropertyName()) || !pd.hasReadMethod()) {
+                throw FallbackException.INSTANCE;
+            }
+            return pd.getValue(obj);
+        }
+    }
+
+    /**
+     * <code>!</code>です。
+     * 
+     */
+    public static class Not extends CompiledExpression {
+
+        private final CompiledExpression operand;
+
+        /**
+         * {@link Not}を作成します。
+         * 
+         * @param operand
+         *            オペランド
+         */
+        public Not(CompiledExpression operand) {
+            this.operand = operand;
+        }
+
+        public Object evaluate(SqlContext ctx) throws FallbackException {
+            return Boolean.valueOf(!booleanValue(operand.evaluate(ctx)));
+        }
+    }
+
+    /**
+     * <code>&amp;&amp;</code>です。
+     * <p>
+     * OGNLと同様に、左辺が偽なら左辺の値を、それ以外は右辺の値を返します。
+     * </p>
+     */
+    public static class And extends CompiledExpression {
+
+        private final CompiledExpression left;
+
+        private final CompiledExpression right;
+
+        /**
+         * {@link And}を作成します。
+         * 
+         * @param left
+         *            左辺
+         * @param right
+         *            右辺
+         */
+        public And(CompiledExpression left, CompiledExpression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        public Object evaluate(SqlContext ctx) throws FallbackException {
+            Object value = left.evaluate(ctx);
+            if (!booleanValue(value)) {
+                return value;
+            }
+            return right.evaluate(ctx);
+        }
+    }
+
+    /**
+     * <code>||</code>です。
+     * <p>
+     * OGNLと同様に、左辺が真なら左辺の値を、それ以外は右辺の値を返します。
+     * </p>
+     */
+    public static class Or extends CompiledExpression {
+
+        private final CompiledExpression left;
+
+        private final CompiledExpression right;
+
+        /**
+         * {@link Or}を作成します。
+         * 
+         * @param left
+         *            左辺
+         * @param right
+         *            右辺
+         */
+        public Or(CompiledExpression left, CompiledExpression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        public Object evaluate(SqlContext ctx) throws FallbackException {
+            Object value = left.evaluate(ctx);
+            if (booleanValue(value)) {
+                return value;
+            }
+            return right.evaluate(ctx);
+        }
+    }
+
+    /**
+     * 比較演算子です。
+     * 
+     */
+    public static class Comparison extends CompiledExpression {
+
+        /**
+         * <code>==</code>です。
+         */
+        public static final int EQ = 0;
+
+        /**
+         * <code>!=</code>です。
+         */
+        public static final int NE = 1;
+
+        /**
+         * <code>&lt;</code>です。
+         */
+        public static final int LT = 2;
+
+        /**
+         * <code>&lt;=</code>です。
+         */
+        public static final int LE = 3;
+
+        /**
+         * <code>&gt;</code>です。
+         */
+        public static final int GT = 4;
+
+        /**
+         * <code>&gt;=</code>です。
+         */
+        public static final int GE = 5;
+
+        private final int operator;
+
+        private final CompiledExpression left;
+
+        private final CompiledExpression right;
+
+        /**
+         * {@link Comparison}を作成します。
+         * 
+         * @param operator
+         *            演算子
+         * @param left
+         *            左辺
+         * @param right
+         *            右辺
+         */
+        public Comparison(int operator, CompiledExpression left,
+                CompiledExpression right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        public Object evaluate(SqlContext ctx) throws FallbackException {
+            Object l = left.evaluate(ctx);
+            Object r = right.evaluate(ctx);
+            switch (operator) {
+            case EQ:
+                return Boolean.valueOf(isEqual(l, r));
+            case NE:
+                return Boolean.valueOf(!isEqual(l, r));
+            default:
+                if (l == null || r == null) {
+                    throw FallbackException.INSTANCE;
+                }
+                int result = compare(l, r);
+                switch (operator) {
+                case LT:
+                    return Boolean.valueOf(result < 0);
+                case LE:
+                    return Boolean.valueOf(result <= 0);
+                case GT:
+                    return Boolean.valueOf(result > 0);
+                default:
+                    return Boolean.valueOf(result >= 0);
+                }
+            }
+        }
+    }
+}
@@ -26,6 +26,8 @@ import org.seasar.extension.sql.SqlContext;
  */
 public class ContainerNode extends AbstractNode {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * <code>ContainerNode</code>を作成します。
      */
@@ -37,4 +39,4 @@ public class ContainerNode extends AbstractNode {
             getChild(i).accept(ctx);
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -26,6 +26,8 @@ import org.seasar.extension.sql.SqlContext;
  */
 public class ElseNode extends ContainerNode {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * <code>ElseNode</code>を作成します。
      */
@@ -36,4 +38,4 @@ public class ElseNode extends ContainerNode {
         super.accept(ctx);
         ctx.setEnabled(true);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -18,9 +18,7 @@ package org.seasar.extension.sql.node;
 import org.seasar.extension.sql.Node;
 import org.seasar.extension.sql.SemicolonNotAllowedRuntimeException;
 import org.seasar.extension.sql.SqlContext;
-import org.seasar.framework.beans.BeanDesc;
 import org.seasar.framework.beans.PropertyDesc;
-import org.seasar.framework.beans.factory.BeanDescFactory;
 import org.seasar.framework.util.StringUtil;
 
 /**
@@ -31,12 +29,16 @@ import org.seasar.framework.util.StringUtil;
  */
 public class EmbeddedValueNode extends AbstractNode {
 
+    private static final long serialVersionUID = 1L;
+
     private String expression;
 
     private String baseName;
 
     private String propertyName;
 
+    private PropertyPathAccessor accessor;
+
     /**
      * <code>EmbeddedValueNode</code>を作成します。
      * 
@@ -48,6 +50,8 @@ public class EmbeddedValueNode extends AbstractNode {
         this.baseName = array[0];
         if (array.length > 1) {
             this.propertyName = array[1];
+            accessor = new PropertyPathAccessor(new String[] { baseName,
+                    propertyName });
         }
     }
 
@@ -64,8 +68,7 @@ public class EmbeddedValueNode extends AbstractNode {
         Object value = ctx.getArg(baseName);
         Class clazz = ctx.getArgType(baseName);
         if (propertyName != null) {
-            BeanDesc beanDesc = BeanDescFactory.getBeanDesc(clazz);
-            PropertyDesc pd = beanDesc.getPropertyDesc(propertyName);
+            PropertyDesc pd = accessor.getPropertyDesc(clazz, 1);
             value = pd.getValue(value);
             clazz = pd.getPropertyType();
         }
@@ -77,4 +80,4 @@ public class EmbeddedValueNode extends AbstractNode {
             ctx.addSql(sql);
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.sql.node;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.seasar.extension.sql.node.CompiledExpression.And;
+import org.seasar.extension.sql.node.CompiledExpression.Arg;
+import org.seasar.extension.sql.node.CompiledExpression.Comparison;
+import org.seasar.extension.sql.node.CompiledExpression.Literal;
+import org.seasar.extension.sql.node.CompiledExpression.Not;
+import org.seasar.extension.sql.node.CompiledExpression.Or;
+import org.seasar.extension.sql.node.CompiledExpression.Property;
+
+/**
+ * IFコメントの条件式を{@link CompiledExpression}にコンパイルするクラスです。
+ * <p>
+ * 次の構文だけをサポートします。それ以外の式の場合、{@link #compile(String)}は<code>null</code>を返します。
+ * </p>
+ * <ul>
+ * <li><code>null</code>、<code>true</code>、<code>false</code>、整数、文字列の定数</li>
+ * <li>引数名と、<code>.</code>で区切ったBeanや{@link java.util.Map}のプロパティ</li>
+ * <li><code>==</code>、<code>!=</code>、<code>&lt;</code>、<code>&lt;=</code>、<code>&gt;</code>、<code>&gt;=</code>と、
+ * それぞれに対応する<code>eq</code>などのキーワード</li>
+ * <li><code>&amp;&amp;</code>、<code>||</code>、<code>!</code>と、<code>and</code>、<code>or</code>、<code>not</code></li>
+ * <li>括弧</li>
+ * </ul>
+ * 
+ */
+public class ExpressionCompiler {
+
+    private static final Set OGNL_KEYWORDS = new HashSet(Arrays
+            .asList(new String[] { "and", "band", "bor", "eq", "false", "gt",
+                    "gte", "in", "instanceof", "lt", "lte", "mod", "neq",
+                    "new", "not", "null", "or", "shl", "shr", "true", "ushr",
+                    "xor" }));
+
+    private static final Object EOF = new Object();
+
+    private final String expression;
+
+    private int position;
+
+    private Object token;
+
+    private boolean identifier;
+
+    /**
+     * {@link ExpressionCompiler}を作成します。
+     * 
+     * @param expression
+     *            式
+     */
+    protected ExpressionCompiler(String expression) {
+        this.expression = expression;
+    }
+
+    /**
+     * 式をコンパイルします。
+     * 
+     * @param expression
+     *            式
+     * @return コンパイルした式、サポートしていない構文を含む場合は<code>null</code>
+     */
+    public static CompiledExpression compile(String expression) {
+        if (expression == null) {
+            return null;
+        }
+        try {
+            return new ExpressionCompiler(expression).compile();
+        } catch (UnsupportedSyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 式をコンパイルします。
+     * 
+     * @return コンパイルした式
+     */
+    protected CompiledExpression compile() {
+        nextToken();
+        CompiledExpression result = parseOr();
+        if (token != EOF) {
+            throw UnsupportedSyntaxException.INSTANCE;
+        }
+        return result;
+    }
+
+    private CompiledExpression parseOr() {
+        CompiledExpression left = parseAnd();
+        while (isOperator("||") || isKeyword("or")) {
+            nextToken();
+            left = new Or(left, parseAnd());
+        }
+        return left;
+    }
+
+    private CompiledExpression parseAnd() {
+        CompiledExpression left = parseEquality();
+        while (isOperator("&&") || isKeyword("and")) {
+            nextToken();
+            left = new And(left, parseEquality());
+        }
+        return left;
+    }
+
+    private CompiledExpression parseEquality() {
+        CompiledExpression left = parseRelational();
+        while (true) {
+            int operator;
+            if (isOperator("==") || isKeyword("eq")) {
+                operator = Comparison.EQ;
+            } else if (isOperator("!=") || isKeyword("neq")) {
+                operator = Comparison.NE;
+            } else {
+                return left;
+            }
+            nextToken();
+            left = new Comparison(operator, left, parseRelational());
+        }
+    }
+
+    private CompiledExpression parseRelational() {
+        CompiledExpression left = parseUnary();
+        while (true) {
+            int operator;
+            if (isOperator("<") || isKeyword("lt")) {
+                operator = Comparison.LT;
+            } else if (isOperator("<=") || isKeyword("lte")) {
+                operator = Comparison.LE;
+            } else if (isOperator(">") || isKeyword("gt")) {
+                operator = Comparison.GT;
+            } else if (isOperator(">=") || isKeyword("gte")) {
+                operator = Comparison.GE;
+            } else {
+                return left;
+            }
+            nextToken();
+            left = new Comparison(operator, left, parseUnary());
+        }
+    }
+
+    private CompiledExpression parseUnary() {
+        if (isOperator("!") || isKeyword("not")) {
+            nextToken();
+            return new Not(parseUnary());
+        }
+        return parsePrimary();
+    }
+
+    private CompiledExpression parsePrimary() {
+        if (isOperator("(")) {
+            nextToken();
+            CompiledExpression result = parseOr();
+            if (!isOperator(")")) {
+                throw UnsupportedSyntaxException.INSTANCE;
+            }
+            nextToken();
+            return result;
+        }
+        if (isKeyword("null")) {
+            nextToken();
+            return new Literal(null);
+        }
+        if (isKeyword("true")) {
+            nextToken();
+            return new Literal(Boolean.TRUE);
+        }
+        if (isKeyword("false")) {
+            nextToken();
+            return new Literal(Boolean.FALSE);
+        }
+        if (token instanceof Literal) {
+            CompiledExpression result = (Literal) token;
+            nextToken();
+            return result;
+        }
+        if (!identifier || OGNL_KEYWORDS.contains(token)) {
+            throw UnsupportedSyntaxException.INSTANCE;
+        }
+        CompiledExpression result = new Arg((String) token);
+        nextToken();
+        while (isOperator(".")) {
+            nextToken();
+            if (!identifier || OGNL_KEYWORDS.contains(token)) {
+                throw UnsupportedSyntaxException.INSTANCE;
+            }
+            result = new Property(result, (String) token);
+            nextToken();
+        }
+        return result;
+    }
+
+    private boolean isOperator(String operator) {
+        return !identifier && operator.equals(token);
+    }
+
+    private boolean isKeyword(String keyword) {
+        return identifier && keyword.equals(token);
+    }
+
+    private void nextToken() {
+        int length = expression.length();
+        while (position < length
+                && Character.isWhitespace(expression.charAt(position))) {
+            ++position;
+        }
+        identifier = false;
+        if (position >= length) {
+            token = EOF;
+            return;
+        }
+        char c = expression.charAt(position);
+        if (Character.isJavaIdentifierStart(c)) {
+            int start = position++;
+            while (position < length
+                    && Character.isJavaIdentifierPart(expression
+                            .charAt(position))) {
+                ++position;
+            }
+            token = expression.substring(start, position);
+            identifier = true;
+        } else if (c >= '0' && c <= '9') {
+            token = readNumber();
+        } else if (c == '"' || c == '\'') {
+            token = readString(c);
+        } else {
+            token = readOperator();
+        }
+    }
+
+    private Literal readNumber() {
+        int length = expression.length();
+        int start = position;
+        while (position < length && expression.charAt(position) >= '0'
+                && expression.charAt(position) <= '9') {
+            ++position;
+        }
+        String digits = expression.substring(start, position);
+        if (digits.length() > 1 && digits.charAt(0) == '0') {
+            throw UnsupportedSyntaxException.INSTANCE;
+        }
+        boolean longValue = false;
+        if (position < length
+                && (expression.charAt(position) == 'L' || expression
+                        .charAt(position) == 'l')) {
+            ++position;
+            longValue = true;
+        }
+        if (position < length
+                && (Character.isJavaIdentifierPart(expression.charAt(position)) || expression
+                        .charAt(position) == '.')) {
+            throw UnsupportedSyntaxException.INSTANCE;
+        }
+        try {
+            return new Literal(longValue ? (Object) Long.valueOf(digits)
+                    : (Object) Integer.valueOf(digits));
+        } catch (NumberFormatException e) {
+            throw UnsupportedSyntaxException.INSTANCE;
+        }
+    }
+
+    private Literal readString(char quote) {
+        int end = expression.indexOf(quote, position + 1);
+        if (end < 0) {
+            throw UnsupportedSyntaxException.INSTANCE;
+        }
+        String value = expression.substring(position + 1, end);
+        // OGNLでは'a'のような1文字の定数はCharacterになるため対象外にします
+        if (value.indexOf('\\') >= 0 || quote == '\'' && value.length() <= 1) {
+            throw UnsupportedSyntaxException.INSTANCE;
+        }
+        position = end + 1;
+        return new Literal(value);
+    }
+
+    private String readOperator() {
+        String[] operators = { "==", "!=", "<=", ">=", "&&", "||", "<", ">",
+                "!", "(", ")", "." };
+        for (int i = 0; i < operators.length; ++i) {
+            if (expression.startsWith(operators[i], position)) {
+                position += operators[i].length();
+                return operators[i];
+            }
+        }
+        throw UnsupportedSyntaxException.INSTANCE;
+    }
+
+    private static class UnsupportedSyntaxException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        static final UnsupportedSyntaxException INSTANCE = new UnsupportedSyntaxException();
+
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
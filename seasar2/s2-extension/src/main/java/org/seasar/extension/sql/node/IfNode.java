@@ -15,6 +15,9 @@
  */
 package org.seasar.extension.sql.node;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
 import org.seasar.extension.sql.IllegalBoolExpressionRuntimeException;
 import org.seasar.extension.sql.Node;
 import org.seasar.extension.sql.SqlContext;
@@ -22,16 +25,33 @@ import org.seasar.framework.util.OgnlUtil;
 
 /**
  * If用の{@link Node}です。
+ * <p>
+ * 条件式は可能であれば{@link ExpressionCompiler}でコンパイルして評価します。
+ * コンパイルした式は解析済みの{@link Node}と一緒にキャッシュされます。
+ * コンパイルできない式や、コンパイルした式で評価できない値を扱った場合はOGNLで評価します。
+ * コンパイルした式で評価できない値が{@value #MAX_FALLBACK_COUNT}回続いた場合は、以降はOGNLだけで評価します。
+ * </p>
  * 
  * @author higa
  * 
  */
 public class IfNode extends ContainerNode {
 
+    private static final long serialVersionUID = 1L;
+
+    /** OGNLだけで評価するように切り替える、コンパイルした式で評価できなかった連続した回数 */
+    protected static final int MAX_FALLBACK_COUNT = 10;
+
+    private static volatile boolean compileEnabled = true;
+
     private String expression;
 
     private Object parsedExpression;
 
+    private transient volatile CompiledExpression compiledExpression;
+
+    private transient volatile int fallbackCount;
+
     private ElseNode elseNode;
 
     /**
@@ -42,6 +62,50 @@ public class IfNode extends ContainerNode {
     public IfNode(String expression) {
         this.expression = expression;
         this.parsedExpression = OgnlUtil.parseExpression(expression);
+        compile();
+    }
+
+    private void compile() {
+        if (compileEnabled) {
+            compiledExpression = ExpressionCompiler.compile(expression);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException,
+            ClassNotFoundException {
+        in.defaultReadObject();
+        compile();
+    }
+
+    /**
+     * 条件式をコンパイルするかどうかを返します。
+     * 
+     * @return 条件式をコンパイルする場合は<code>true</code>
+     */
+    public static boolean isCompileEnabled() {
+        return compileEnabled;
+    }
+
+    /**
+     * 条件式をコンパイルするかどうかを設定します。
+     * <p>
+     * 設定はこれ以降に作成される{@link IfNode}に適用されます。
+     * </p>
+     * 
+     * @param compileEnabled
+     *            条件式をコンパイルする場合は<code>true</code>
+     */
+    public static void setCompileEnabled(boolean compileEnabled) {
+        IfNode.compileEnabled = compileEnabled;
+    }
+
+    /**
+     * 条件式がコンパイルされている場合は<code>true</code>を返します。
+     * 
+     * @return 条件式がコンパイルされている場合は<code>true</code>
+     */
+    public boolean isCompiled() {
+        return compiledExpression != null;
     }
 
     /**
@@ -72,7 +136,7 @@ public class IfNode extends ContainerNode {
     }
 
     public void accept(SqlContext ctx) {
-        Object result = OgnlUtil.getValue(parsedExpression, ctx);
+        Object result = evaluate(ctx);
         if (result instanceof Boolean) {
             if (((Boolean) result).booleanValue()) {
                 super.accept(ctx);
@@ -85,4 +149,33 @@ public class IfNode extends ContainerNode {
             throw new IllegalBoolExpressionRuntimeException(expression);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 条件式を評価します。
+     * <p>
+     * コンパイルした式で評価できなかった場合は、その評価だけをOGNLで行います。
+     * 評価できない値が{@value #MAX_FALLBACK_COUNT}回続いた場合は、以降はOGNLだけで評価します。
+     * </p>
+     * 
+     * @param ctx
+     *            SQLのコンテキスト
+     * @return 評価結果
+     */
+    protected Object evaluate(SqlContext ctx) {
+        CompiledExpression compiled = compiledExpression;
+        if (compiled != null) {
+            try {
+                Object result = compiled.evaluate(ctx);
+                if (fallbackCount != 0) {
+                    fallbackCount = 0;
+                }
+                return result;
+            } catch (CompiledExpression.FallbackException e) {
+                if (++fallbackCount >= MAX_FALLBACK_COUNT) {
+                    compiledExpression = null;
+                }
+            }
+        }
+        return OgnlUtil.getValue(parsedExpression, ctx);
+    }
+}
\ No newline at end of file
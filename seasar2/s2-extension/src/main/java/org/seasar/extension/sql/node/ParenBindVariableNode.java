@@ -18,8 +18,10 @@ package org.seasar.extension.sql.node;
 import java.lang.reflect.Array;
 import java.util.List;
 
+import org.seasar.extension.jdbc.util.InClauseUtil;
 import org.seasar.extension.sql.Node;
 import org.seasar.extension.sql.SqlContext;
+import org.seasar.extension.sql.context.SqlContextImpl;
 import org.seasar.framework.util.OgnlUtil;
 
 /**
@@ -30,10 +32,14 @@ import org.seasar.framework.util.OgnlUtil;
  */
 public class ParenBindVariableNode extends AbstractNode {
 
+    private static final long serialVersionUID = 1L;
+
     private String expression;
 
     private Object parsedExpression;
 
+    private PropertyPathAccessor accessor;
+
     /**
      * <code>ParenBindVariableNode</code>を作成します。
      * 
@@ -42,6 +48,7 @@ public class ParenBindVariableNode extends AbstractNode {
     public ParenBindVariableNode(String expression) {
         this.expression = expression;
         this.parsedExpression = OgnlUtil.parseExpression(expression);
+        this.accessor = PropertyPathAccessor.createIfSimple(expression);
     }
 
     /**
@@ -54,7 +61,7 @@ public class ParenBindVariableNode extends AbstractNode {
     }
 
     public void accept(SqlContext ctx) {
-        Object var = OgnlUtil.getValue(parsedExpression, ctx);
+        Object var = getValue(ctx);
         if (var instanceof List) {
             bindArray(ctx, ((List) var).toArray());
         } else if (var == null) {
@@ -67,6 +74,27 @@ public class ParenBindVariableNode extends AbstractNode {
 
     }
 
+    /**
+     * 式の値を返します。
+     * <p>
+     * 単純なプロパティパスはキャッシュした{@link org.seasar.framework.beans.PropertyDesc}でたどり、
+     * それ以外はOGNLで評価します。
+     * </p>
+     * 
+     * @param ctx
+     *            SQLのコンテキスト
+     * @return 式の値
+     */
+    protected Object getValue(SqlContext ctx) {
+        if (accessor != null) {
+            Object value = accessor.getValue(ctx);
+            if (value != PropertyPathAccessor.UNRESOLVED) {
+                return value;
+            }
+        }
+        return OgnlUtil.getValue(parsedExpression, ctx);
+    }
+
     /**
      * @param ctx
      * @param array
@@ -83,14 +111,22 @@ public class ParenBindVariableNode extends AbstractNode {
                 clazz = o.getClass();
             }
         }
+        int bindSize = length;
+        if (ctx instanceof SqlContextImpl
+                && ((SqlContextImpl) ctx).isInClausePadding()) {
+            bindSize = InClauseUtil.getPaddedSize(length,
+                    ((SqlContextImpl) ctx).getInClausePaddingLimit());
+        }
         ctx.addSql("(");
         Object value = Array.get(array, 0);
         ctx.addSql("?", value, clazz);
-        for (int i = 1; i < length; ++i) {
+        for (int i = 1; i < bindSize; ++i) {
             ctx.addSql(", ");
-            value = Array.get(array, i);
+            if (i < length) {
+                value = Array.get(array, i);
+            }
             ctx.addSql("?", value, clazz);
         }
         ctx.addSql(")");
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
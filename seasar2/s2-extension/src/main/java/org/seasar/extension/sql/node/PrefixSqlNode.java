@@ -26,6 +26,8 @@ import org.seasar.extension.sql.SqlContext;
  */
 public class PrefixSqlNode extends AbstractNode {
 
+    private static final long serialVersionUID = 1L;
+
     private String prefix;
 
     private String sql;
@@ -65,4 +67,4 @@ public class PrefixSqlNode extends AbstractNode {
         }
         ctx.addSql(sql);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.sql.node;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.seasar.extension.sql.SqlArgWrapper;
+import org.seasar.extension.sql.SqlContext;
+import org.seasar.framework.beans.BeanDesc;
+import org.seasar.framework.beans.PropertyDesc;
+import org.seasar.framework.beans.factory.BeanDescFactory;
+import org.seasar.framework.util.StringUtil;
+
+/**
+ * <code>aaa.bbb.ccc</code>のような引数のプロパティパスをたどるクラスです。
+ * <p>
+ * たどる途中で見つけた{@link PropertyDesc}は、位置ごとに型と組にしてキャッシュします。
+ * キャッシュには型のガードがあるので、引数の型が変わった場合は探しなおします。
+ * </p>
+ * 
+ */
+final class PropertyPathAccessor implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 値を求められなかったことをあらわすオブジェクトです。
+     */
+    static final Object UNRESOLVED = new Object();
+
+    private static final String HAS_PREFIX = "has_";
+
+    private static final Set KEYWORDS = new HashSet();
+
+    static {
+        String[] keywords = new String[] { "null", "true", "false", "this",
+                "and", "or", "not", "in", "instanceof", "new", "eq", "neq",
+                "lt", "lte", "gt", "gte", "bor", "xor", "band", "shl", "shr",
+                "ushr" };
+        for (int i = 0; i < keywords.length; ++i) {
+            KEYWORDS.add(keywords[i]);
+        }
+    }
+
+    private final String[] names;
+
+    private transient Segment[] segments;
+
+    /**
+     * <code>PropertyPathAccessor</code>を作成します。
+     * 
+     * @param names
+     *            プロパティパスを<code>.</code>で分割した名前の配列
+     */
+    PropertyPathAccessor(String[] names) {
+        this.names = names;
+        segments = new Segment[names.length];
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException,
+            ClassNotFoundException {
+        in.defaultReadObject();
+        segments = new Segment[names.length];
+    }
+
+    /**
+     * 単純なプロパティパスであれば<code>PropertyPathAccessor</code>を作成します。
+     * 
+     * @param expression
+     *            式
+     * @return 単純なプロパティパスでない場合は<code>null</code>
+     */
+    static PropertyPathAccessor createIfSimple(String expression) {
+        String[] names = StringUtil.split(expression, ".");
+        if (names.length == 0 || names[0].startsWith(HAS_PREFIX)) {
+            return null;
+        }
+        for (int i = 0; i < names.length; ++i) {
+            if (!isIdentifier(names[i])) {
+                return null;
+            }
+        }
+        if (expression.length() != length(names)) {
+            return null;
+        }
+        return new PropertyPathAccessor(names);
+    }
+
+    /**
+     * 引数の宣言された型をもとにプロパティパスをたどり、値とクラスを配列に格納します。
+     * <p>
+     * 途中で値が<code>null</code>になった場合は、そこで打ち切ります。
+     * </p>
+     * 
+     * @param ctx
+     *            SQLのコンテキスト
+     * @param values
+     *            値を格納する配列
+     * @param types
+     *            クラスを格納する配列
+     * @param index
+     *            格納する位置
+     */
+    void bindDeclared(SqlContext ctx, Object[] values, Class[] types, int index) {
+        Object value = ctx.getArg(names[0]);
+        Class clazz = ctx.getArgType(names[0]);
+        for (int pos = 1; pos < names.length; pos++) {
+            PropertyDesc pd = getPropertyDesc(clazz, pos);
+            if (value == null) {
+                break;
+            }
+            value = pd.getValue(value);
+            clazz = pd.getPropertyType();
+        }
+        values[index] = value;
+        types[index] = clazz;
+    }
+
+    /**
+     * 指定した位置のプロパティの{@link PropertyDesc}を返します。
+     * 
+     * @param clazz
+     *            ひとつ前の位置の型
+     * @param pos
+     *            位置
+     * @return {@link PropertyDesc}
+     * @throws org.seasar.framework.beans.PropertyNotFoundRuntimeException
+     *             プロパティが見つからない場合
+     */
+    PropertyDesc getPropertyDesc(Class clazz, int pos) {
+        Segment segment = segments[pos];
+        if (segment == null || segment.type != clazz) {
+            BeanDesc beanDesc = BeanDescFactory.getBeanDesc(clazz);
+            segment = new Segment(clazz, beanDesc.getPropertyDesc(names[pos]));
+            segments[pos] = segment;
+        }
+        return segment.propertyDesc;
+    }
+
+    /**
+     * 実際の値の型をもとにプロパティパスをたどり、値を返します。
+     * <p>
+     * 途中の値が<code>null</code>や{@link Map}の場合、
+     * または公開されたプロパティが見つからない場合は{@link #UNRESOLVED}を返します。
+     * </p>
+     * 
+     * @param ctx
+     *            SQLのコンテキスト
+     * @return 値
+     */
+    Object getValue(SqlContext ctx) {
+        Object value = ctx.getArg(names[0]);
+        if (value instanceof SqlArgWrapper) {
+            value = ((SqlArgWrapper) value).getValue();
+        }
+        for (int pos = 1; pos < names.length; pos++) {
+            if (value == null || value instanceof Map) {
+                return UNRESOLVED;
+            }
+            Class clazz = value.getClass();
+            Segment segment = segments[pos];
+            if (segment == null || segment.type != clazz) {
+                BeanDesc beanDesc = BeanDescFactory.getBeanDesc(clazz);
+                PropertyDesc pd = null;
+                if (beanDesc.hasPropertyDesc(names[pos])) {
+                    pd = beanDesc.getPropertyDesc(names[pos]);
+                    if (!pd.getPropertyName().equals(names[pos])
+                            || !pd.isReadable()) {
+                        pd = null;
+                    }
+                }
+                segment = new Segment(clazz, pd);
+                segments[pos] = segment;
+            }
+            if (segment.propertyDesc == null) {
+                return UNRESOLVED;
+            }
+            value = segment.propertyDesc.getValue(value);
+        }
+        return value;
+    }
+
+    private static boolean isIdentifier(String name) {
+        if (name.length() == 0
+                || !Character.isJavaIdentifierStart(name.charAt(0))
+                || KEYWORDS.contains(name)) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); ++i) {
+            if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int length(String[] names) {
+        int length = names.length - 1;
+        for (int i = 0; i < names.length; ++i) {
+            length += names[i].length();
+        }
+        return length;
+    }
+
+    /**
+     * 型と{@link PropertyDesc}の組です。
+     */
+    private static final class Segment {
+
+        final Class type;
+
+        final PropertyDesc propertyDesc;
+
+        Segment(Class type, PropertyDesc propertyDesc) {
+            this.type = type;
+            this.propertyDesc = propertyDesc;
+        }
+    }
+}
@@ -26,6 +26,8 @@ import org.seasar.extension.sql.SqlContext;
  */
 public class SqlNode extends AbstractNode {
 
+    private static final long serialVersionUID = 1L;
+
     private String sql;
 
     /**
@@ -49,4 +51,4 @@ public class SqlNode extends AbstractNode {
     public void accept(SqlContext ctx) {
         ctx.addSql(sql);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
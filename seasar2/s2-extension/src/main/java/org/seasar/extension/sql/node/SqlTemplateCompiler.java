@@ -0,0 +1,131 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.sql.node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.seasar.extension.sql.Node;
+
+/**
+ * 解析済みの{@link Node}の木を実行しやすい形に変換するクラスです。
+ * <p>
+ * 連続する{@link SqlNode}と{@link BindVariableNode}を{@link StaticSqlNode}にまとめます。
+ * <code>IF</code>や<code>BEGIN</code>、埋め込み変数を含まないSQLは、ひとつの{@link StaticSqlNode}になります。
+ * <code>IF</code>などを含むSQLは、その内側と外側の静的な部分だけがまとめられます。
+ * </p>
+ * 
+ */
+public final class SqlTemplateCompiler {
+
+    private SqlTemplateCompiler() {
+    }
+
+    /**
+     * {@link Node}の木を変換します。
+     * <p>
+     * 子供を持つ{@link Node}は子供が置き換えられます。
+     * ルートの{@link Node}がまるごと静的な場合は、新しい{@link StaticSqlNode}を返します。
+     * </p>
+     * 
+     * @param node
+     *            解析済みの{@link Node}
+     * @return 変換後の{@link Node}
+     */
+    public static Node compile(Node node) {
+        if (!(node instanceof AbstractNode)) {
+            return node;
+        }
+        AbstractNode parent = (AbstractNode) node;
+        if (node instanceof IfNode) {
+            ElseNode elseNode = ((IfNode) node).getElseNode();
+            if (elseNode != null) {
+                compile(elseNode);
+            }
+        }
+        int size = parent.getChildSize();
+        if (size == 0) {
+            return node;
+        }
+        List children = new ArrayList(size);
+        StringBuffer sql = new StringBuffer(100);
+        List bindVariableNodes = new ArrayList();
+        int start = 0;
+        for (int i = 0; i < size; ++i) {
+            Node child = parent.getChild(i);
+            if (isStatic(child)) {
+                continue;
+            }
+            addStaticNode(children, parent, start, i, sql, bindVariableNodes);
+            children.add(compile(child));
+            start = i + 1;
+        }
+        if (start == 0 && node.getClass() == ContainerNode.class) {
+            return createStaticNode(parent, 0, size, sql, bindVariableNodes);
+        }
+        addStaticNode(children, parent, start, size, sql, bindVariableNodes);
+        parent.setChildren(children);
+        return node;
+    }
+
+    /**
+     * 静的な{@link Node}かどうかを返します。
+     * 
+     * @param node
+     *            {@link Node}
+     * @return 静的な{@link Node}かどうか
+     */
+    public static boolean isStatic(Node node) {
+        Class clazz = node.getClass();
+        return clazz == SqlNode.class || clazz == BindVariableNode.class
+                || clazz == StaticSqlNode.class;
+    }
+
+    private static void addStaticNode(List children, AbstractNode parent,
+            int start, int end, StringBuffer sql, List bindVariableNodes) {
+        if (end - start == 1) {
+            children.add(parent.getChild(start));
+        } else if (end - start > 1) {
+            children.add(createStaticNode(parent, start, end, sql,
+                    bindVariableNodes));
+        }
+    }
+
+    private static StaticSqlNode createStaticNode(AbstractNode parent,
+            int start, int end, StringBuffer sql, List bindVariableNodes) {
+        sql.setLength(0);
+        bindVariableNodes.clear();
+        for (int i = start; i < end; ++i) {
+            Node child = parent.getChild(i);
+            if (child instanceof SqlNode) {
+                sql.append(((SqlNode) child).getSql());
+            } else if (child instanceof BindVariableNode) {
+                sql.append('?');
+                bindVariableNodes.add(child);
+            } else {
+                StaticSqlNode staticNode = (StaticSqlNode) child;
+                sql.append(staticNode.getSql());
+                BindVariableNode[] nodes = staticNode.getBindVariableNodes();
+                for (int j = 0; j < nodes.length; ++j) {
+                    bindVariableNodes.add(nodes[j]);
+                }
+            }
+        }
+        return new StaticSqlNode(sql.toString(),
+                (BindVariableNode[]) bindVariableNodes
+                        .toArray(new BindVariableNode[bindVariableNodes.size()]));
+    }
+}
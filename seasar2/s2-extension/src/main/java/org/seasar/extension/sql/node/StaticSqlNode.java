@@ -0,0 +1,84 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.sql.node;
+
+import org.seasar.extension.sql.Node;
+import org.seasar.extension.sql.SqlContext;
+
+/**
+ * 連続する{@link SqlNode}と{@link BindVariableNode}をまとめた{@link Node}です。
+ * <p>
+ * SQLの文字列は作成時に連結しておき、実行時にはバインド変数の値だけを求めます。
+ * </p>
+ * 
+ */
+public class StaticSqlNode extends AbstractNode {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Object[] EMPTY_VALUES = new Object[0];
+
+    private static final Class[] EMPTY_TYPES = new Class[0];
+
+    private String sql;
+
+    private BindVariableNode[] bindVariableNodes;
+
+    /**
+     * <code>StaticSqlNode</code>を作成します。
+     * 
+     * @param sql
+     *            連結済みのSQL
+     * @param bindVariableNodes
+     *            SQLに含まれるバインド変数の{@link Node}
+     */
+    public StaticSqlNode(String sql, BindVariableNode[] bindVariableNodes) {
+        this.sql = sql;
+        this.bindVariableNodes = bindVariableNodes;
+    }
+
+    /**
+     * SQLを返します。
+     * 
+     * @return SQL
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * バインド変数の{@link Node}を返します。
+     * 
+     * @return バインド変数の{@link Node}
+     */
+    public BindVariableNode[] getBindVariableNodes() {
+        return bindVariableNodes;
+    }
+
+    public void accept(SqlContext ctx) {
+        int size = bindVariableNodes.length;
+        if (size == 0) {
+            ctx.addSql(sql, EMPTY_VALUES, EMPTY_TYPES);
+            return;
+        }
+        Object[] values = new Object[size];
+        Class[] types = new Class[size];
+        for (int i = 0; i < size; ++i) {
+            bindVariableNodes[i].bind(ctx, values, types, i);
+        }
+        ctx.addSql(sql, values, types);
+    }
+}
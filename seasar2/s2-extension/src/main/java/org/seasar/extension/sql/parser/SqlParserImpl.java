@@ -42,10 +42,12 @@ import org.seasar.framework.util.StringUtil;
  */
 public class SqlParserImpl implements SqlParser {
 
-    private SqlTokenizer tokenizer;
+    private SqlTokenizerImpl tokenizer;
 
     private Stack nodeStack = new Stack();
 
+    private int elseNodeCount = 0;
+
     private boolean allowVariableSql = true;
 
     /**
@@ -139,6 +141,10 @@ public class SqlParserImpl implements SqlParser {
      * コメントを解析します。
      */
     protected void parseComment() {
+        if (tokenizer.getTokenLength() <= 0
+                || !Character.isJavaIdentifierStart(tokenizer.getTokenChar(0))) {
+            return;
+        }
         String comment = tokenizer.getToken();
         if (isTargetComment(comment)) {
             if (isIfComment(comment)) {
@@ -187,7 +193,7 @@ public class SqlParserImpl implements SqlParser {
     protected void parseEnd() {
         while (SqlTokenizer.EOF != tokenizer.next()) {
             if (tokenizer.getTokenType() == SqlTokenizer.COMMENT
-                    && isEndComment(tokenizer.getToken())) {
+                    && tokenizer.isTokenEqualTo("END")) {
 
                 pop();
                 return;
@@ -247,7 +253,11 @@ public class SqlParserImpl implements SqlParser {
      * @return 一番上のノード
      */
     protected Node pop() {
-        return (Node) nodeStack.pop();
+        Node node = (Node) nodeStack.pop();
+        if (node instanceof ElseNode) {
+            --elseNodeCount;
+        }
+        return node;
     }
 
     /**
@@ -266,6 +276,9 @@ public class SqlParserImpl implements SqlParser {
      *            ノード
      */
     protected void push(Node node) {
+        if (node instanceof ElseNode) {
+            ++elseNodeCount;
+        }
         nodeStack.push(node);
     }
 
@@ -285,12 +298,7 @@ public class SqlParserImpl implements SqlParser {
      * @return ELSEモードかどうか
      */
     protected boolean isElseMode() {
-        for (int i = 0; i < nodeStack.size(); ++i) {
-            if (nodeStack.get(i) instanceof ElseNode) {
-                return true;
-            }
-        }
-        return false;
+        return elseNodeCount > 0;
     }
 
     /**
@@ -337,4 +345,4 @@ public class SqlParserImpl implements SqlParser {
     protected static boolean isEndComment(String content) {
         return content != null && "END".equals(content);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
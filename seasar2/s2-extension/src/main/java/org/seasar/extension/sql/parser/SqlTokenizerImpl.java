@@ -20,6 +20,9 @@ import org.seasar.extension.sql.TokenNotClosedRuntimeException;
 
 /**
  * {@link SqlTokenizer}の実装クラスです。
+ * <p>
+ * SQLは文字の配列として先頭から一度だけ走査し、トークンの文字列は必要になったときに作成します。
+ * </p>
  * 
  * @author higa
  * 
@@ -28,10 +31,20 @@ public class SqlTokenizerImpl implements SqlTokenizer {
 
     private String sql;
 
+    private char[] chars;
+
+    private int length;
+
+    private int lastCommentStartPos;
+
     private int position = 0;
 
     private String token;
 
+    private int tokenStart = -1;
+
+    private int tokenEnd = -1;
+
     private int tokenType = SQL;
 
     private int nextTokenType = SQL;
@@ -45,6 +58,9 @@ public class SqlTokenizerImpl implements SqlTokenizer {
      */
     public SqlTokenizerImpl(String sql) {
         this.sql = sql;
+        chars = sql.toCharArray();
+        length = chars.length;
+        lastCommentStartPos = sql.lastIndexOf("/*");
     }
 
     public String getSql() {
@@ -56,9 +72,58 @@ public class SqlTokenizerImpl implements SqlTokenizer {
     }
 
     public String getToken() {
+        if (token == null && tokenStart >= 0) {
+            token = new String(chars, tokenStart, tokenEnd - tokenStart);
+        }
         return token;
     }
 
+    /**
+     * トークンの長さを返します。
+     * 
+     * @return トークンの長さ。トークンがない場合は<code>-1</code>
+     */
+    public int getTokenLength() {
+        if (tokenStart >= 0) {
+            return tokenEnd - tokenStart;
+        }
+        return token != null ? token.length() : -1;
+    }
+
+    /**
+     * トークンの指定した位置の文字を返します。
+     * 
+     * @param index
+     *            トークン内の位置
+     * @return トークンの指定した位置の文字
+     */
+    public char getTokenChar(int index) {
+        if (tokenStart >= 0) {
+            return chars[tokenStart + index];
+        }
+        return token.charAt(index);
+    }
+
+    /**
+     * トークンが指定した文字列と等しいかどうかを返します。
+     * 
+     * @param s
+     *            文字列
+     * @return トークンが指定した文字列と等しい場合は<code>true</code>
+     */
+    public boolean isTokenEqualTo(String s) {
+        int len = getTokenLength();
+        if (len != s.length()) {
+            return false;
+        }
+        for (int i = 0; i < len; ++i) {
+            if (getTokenChar(i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public String getBefore() {
         return sql.substring(0, position);
     }
@@ -76,8 +141,8 @@ public class SqlTokenizerImpl implements SqlTokenizer {
     }
 
     public int next() {
-        if (position >= sql.length()) {
-            token = null;
+        if (position >= length) {
+            setToken(null);
             tokenType = EOF;
             nextTokenType = EOF;
             return tokenType;
@@ -104,45 +169,63 @@ public class SqlTokenizerImpl implements SqlTokenizer {
 
     /**
      * SQLを解析します。
+     * <p>
+     * 次のコメント、ELSEコメント、バインド変数のうち最初に現れるものまでを走査します。
+     * </p>
      */
     protected void parseSql() {
-        int commentStartPos = sql.indexOf("/*", position);
-        int commentStartPos2 = sql.indexOf("#*", position);
-        if (0 < commentStartPos2 && commentStartPos2 < commentStartPos) {
-            commentStartPos = commentStartPos2;
-        }
-        int lineCommentStartPos = sql.indexOf("--", position);
-        int bindVariableStartPos = sql.indexOf("?", position);
-        int elseCommentStartPos = -1;
-        int elseCommentLength = -1;
-        if (lineCommentStartPos >= 0) {
-            int skipPos = skipWhitespace(lineCommentStartPos + 2);
-            if (skipPos + 4 < sql.length()
-                    && "ELSE".equals(sql.substring(skipPos, skipPos + 4))) {
-                elseCommentStartPos = lineCommentStartPos;
-                elseCommentLength = skipPos + 4 - lineCommentStartPos;
+        int nextStartPos = -1;
+        boolean hashCommentFound = false;
+        boolean lineCommentFound = false;
+        for (int i = position; i < length; ++i) {
+            char c = chars[i];
+            if (c == '?') {
+                nextStartPos = i;
+                nextTokenType = BIND_VARIABLE;
+                break;
+            }
+            if (i + 1 >= length) {
+                break;
+            }
+            char c2 = chars[i + 1];
+            if (c == '/' && c2 == '*') {
+                nextStartPos = i;
+                nextTokenType = COMMENT;
+                break;
+            } else if (c == '#' && c2 == '*' && !hashCommentFound) {
+                hashCommentFound = true;
+                if (0 < i && i < lastCommentStartPos) {
+                    nextStartPos = i;
+                    nextTokenType = COMMENT;
+                    break;
+                }
+            } else if (c == '-' && c2 == '-' && !lineCommentFound) {
+                lineCommentFound = true;
+                int skipPos = skipWhitespace(i + 2);
+                if (skipPos + 4 < length && chars[skipPos] == 'E'
+                        && chars[skipPos + 1] == 'L'
+                        && chars[skipPos + 2] == 'S'
+                        && chars[skipPos + 3] == 'E') {
+                    nextStartPos = i;
+                    nextTokenType = ELSE;
+                    break;
+                }
             }
         }
-        int nextStartPos = getNextStartPos(commentStartPos,
-                elseCommentStartPos, bindVariableStartPos);
+        tokenType = SQL;
         if (nextStartPos < 0) {
-            token = sql.substring(position);
+            setToken(position, length);
             nextTokenType = EOF;
-            position = sql.length();
-            tokenType = SQL;
+            position = length;
         } else {
-            token = sql.substring(position, nextStartPos);
-            tokenType = SQL;
+            setToken(position, nextStartPos);
             boolean needNext = nextStartPos == position;
-            if (nextStartPos == commentStartPos) {
-                nextTokenType = COMMENT;
-                position = commentStartPos + 2;
-            } else if (nextStartPos == elseCommentStartPos) {
-                nextTokenType = ELSE;
-                position = elseCommentStartPos + elseCommentLength;
-            } else if (nextStartPos == bindVariableStartPos) {
-                nextTokenType = BIND_VARIABLE;
-                position = bindVariableStartPos;
+            if (nextTokenType == COMMENT) {
+                position = nextStartPos + 2;
+            } else if (nextTokenType == ELSE) {
+                position = skipWhitespace(nextStartPos + 2) + 4;
+            } else {
+                position = nextStartPos;
             }
             if (needNext) {
                 next();
@@ -183,16 +266,28 @@ public class SqlTokenizerImpl implements SqlTokenizer {
      * コメントを解析します。
      */
     protected void parseComment() {
-        int commentEndPos = sql.indexOf("*/", position);
-        int commentEndPos2 = sql.indexOf("*#", position);
-        if (0 < commentEndPos2 && commentEndPos2 < commentEndPos) {
-            commentEndPos = commentEndPos2;
+        int commentEndPos = -1;
+        boolean closed = false;
+        for (int i = position; i + 1 < length; ++i) {
+            if (chars[i] != '*') {
+                continue;
+            }
+            char c2 = chars[i + 1];
+            if (c2 == '/') {
+                if (commentEndPos < 0) {
+                    commentEndPos = i;
+                }
+                closed = true;
+                break;
+            } else if (c2 == '#' && commentEndPos < 0) {
+                commentEndPos = i;
+            }
         }
-        if (commentEndPos < 0) {
+        if (!closed) {
             throw new TokenNotClosedRuntimeException("*/", sql
                     .substring(position));
         }
-        token = sql.substring(position, commentEndPos);
+        setToken(position, commentEndPos);
         nextTokenType = SQL;
         position = commentEndPos + 2;
         tokenType = COMMENT;
@@ -202,7 +297,7 @@ public class SqlTokenizerImpl implements SqlTokenizer {
      * バインド変数を解析します。
      */
     protected void parseBindVariable() {
-        token = nextBindVariableName();
+        setToken(nextBindVariableName());
         nextTokenType = SQL;
         position += 1;
         tokenType = BIND_VARIABLE;
@@ -212,7 +307,7 @@ public class SqlTokenizerImpl implements SqlTokenizer {
      * ELSEを解析します。
      */
     protected void parseElse() {
-        token = null;
+        setToken(null);
         nextTokenType = SQL;
         tokenType = ELSE;
     }
@@ -221,7 +316,7 @@ public class SqlTokenizerImpl implements SqlTokenizer {
      * SQLの終わりを解析します。
      */
     protected void parseEof() {
-        token = null;
+        setToken(null);
         tokenType = EOF;
         nextTokenType = EOF;
     }
@@ -236,28 +331,26 @@ public class SqlTokenizerImpl implements SqlTokenizer {
     }
 
     public String skipToken() {
-        int index = sql.length();
-        char quote = position < sql.length() ? sql.charAt(position) : '\0';
+        int index = length;
+        char quote = position < length ? chars[position] : '\0';
         boolean quoting = quote == '\'' || quote == '(';
         if (quote == '(') {
             quote = ')';
         }
-        for (int i = quoting ? position + 1 : position; i < sql.length(); ++i) {
-            char c = sql.charAt(i);
+        for (int i = quoting ? position + 1 : position; i < length; ++i) {
+            char c = chars[i];
             if ((Character.isWhitespace(c) || c == ',' || c == ')' || c == '(')
                     && !quoting) {
                 index = i;
                 break;
-            } else if (c == '/' && i + 1 < sql.length()
-                    && sql.charAt(i + 1) == '*') {
+            } else if (c == '/' && i + 1 < length && chars[i + 1] == '*') {
                 index = i;
                 break;
-            } else if (c == '-' && i + 1 < sql.length()
-                    && sql.charAt(i + 1) == '-') {
+            } else if (c == '-' && i + 1 < length && chars[i + 1] == '-') {
                 index = i;
                 break;
             } else if (quoting && quote == '\'' && c == '\''
-                    && (i + 1 >= sql.length() || sql.charAt(i + 1) != '\'')) {
+                    && (i + 1 >= length || chars[i + 1] != '\'')) {
                 index = i + 1;
                 break;
             } else if (quoting && c == quote) {
@@ -265,29 +358,40 @@ public class SqlTokenizerImpl implements SqlTokenizer {
                 break;
             }
         }
-        token = sql.substring(position, index);
+        setToken(position, index);
         tokenType = SQL;
         nextTokenType = SQL;
         position = index;
-        return token;
+        return getToken();
     }
 
     public String skipWhitespace() {
         int index = skipWhitespace(position);
-        token = sql.substring(position, index);
+        setToken(position, index);
         position = index;
-        return token;
+        return getToken();
     }
 
     private int skipWhitespace(int position) {
-        int index = sql.length();
-        for (int i = position; i < sql.length(); ++i) {
-            char c = sql.charAt(i);
-            if (!Character.isWhitespace(c)) {
+        int index = length;
+        for (int i = position; i < length; ++i) {
+            if (!Character.isWhitespace(chars[i])) {
                 index = i;
                 break;
             }
         }
         return index;
     }
-}
\ No newline at end of file
+
+    private void setToken(int start, int end) {
+        token = null;
+        tokenStart = start;
+        tokenEnd = end;
+    }
+
+    private void setToken(String token) {
+        this.token = token;
+        tokenStart = -1;
+        tokenEnd = -1;
+    }
+}
\ No newline at end of file
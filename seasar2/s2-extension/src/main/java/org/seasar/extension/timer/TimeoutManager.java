@@ -16,19 +16,47 @@
 package org.seasar.extension.timer;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 
-import org.seasar.framework.util.SLinkedList;
+import org.seasar.framework.log.Logger;
 
 /**
  * Timerを扱うクラスです。
+ * <p>
+ * {@link TimeoutTask}はハッシュ化されたタイミングホイールで管理されます。
+ * {@link TimeoutTask}の追加やキャンセルは定数時間で行われ、 ティックごとに処理されるのは一つのスロットに含まれる
+ * {@link TimeoutTask}だけです。 期限切れの通知は少数の専用スレッドで行われるため、 時間のかかる
+ * {@link TimeoutTarget#expired()}が他の{@link TimeoutTask}の期限切れを遅らせることはありません。
+ * </p>
  * 
  * @author higa
  * 
  */
 public class TimeoutManager implements Runnable {
 
+    /**
+     * ティックの間隔(ミリ秒単位)です。
+     */
+    public static final long TICK_MILLIS = 100L;
+
+    /**
+     * タイミングホイールのスロットの数です。
+     */
+    public static final int WHEEL_SIZE = 512;
+
+    /**
+     * 期限切れを通知するスレッドのデフォルトの数です。
+     * <p>
+     * 時間のかかる{@link TimeoutTarget#expired()}があっても他の{@link TimeoutTask}の通知が止まらないように、
+     * 複数のスレッドで通知します。
+     * </p>
+     */
+    public static final int DEFAULT_EXECUTOR_THREAD_COUNT = 2;
+
+    private static final Logger logger = Logger
+            .getLogger(TimeoutManager.class);
+
     /**
      * シングルトンのためのインスタンスです。
      */
@@ -40,11 +68,34 @@ public class TimeoutManager implements Runnable {
     protected Thread thread;
 
     /**
-     * {@link TimeoutTask}管理用のリストです。
+     * タイミングホイールです。
+     */
+    protected final Slot[] wheel = new Slot[WHEEL_SIZE];
+
+    /**
+     * ティック<code>0</code>の時刻です。
      */
-    protected final SLinkedList timeoutTaskList = new SLinkedList();
+    protected long startTime;
+
+    /**
+     * 次に処理するティックです。
+     */
+    protected long tick;
+
+    private final Object registrationLock = new Object();
+
+    private List pendingTasks = new ArrayList();
+
+    private int taskCount;
+
+    private int executorThreadCount = DEFAULT_EXECUTOR_THREAD_COUNT;
+
+    private Executor executor;
 
     private TimeoutManager() {
+        for (int i = 0; i < WHEEL_SIZE; ++i) {
+            wheel[i] = new Slot();
+        }
     }
 
     /**
@@ -56,11 +107,36 @@ public class TimeoutManager implements Runnable {
         return instance;
     }
 
+    /**
+     * 期限切れを通知するスレッドの数を返します。
+     * 
+     * @return 期限切れを通知するスレッドの数
+     */
+    public int getExecutorThreadCount() {
+        return executorThreadCount;
+    }
+
+    /**
+     * 期限切れを通知するスレッドの数を設定します。
+     * <p>
+     * 次に処理を開始した時から有効になります。 <code>1</code>を指定した場合だけ、
+     * 同じティックで期限の切れた{@link TimeoutTask}が追加された順に通知されます。
+     * </p>
+     * 
+     * @param executorThreadCount
+     *            期限切れを通知するスレッドの数
+     */
+    public void setExecutorThreadCount(final int executorThreadCount) {
+        this.executorThreadCount = Math.max(1, executorThreadCount);
+    }
+
     /**
      * 処理を開始します。
      */
     public synchronized void start() {
         if (thread == null) {
+            rescheduleAll();
+            executor = new Executor(executorThreadCount);
             thread = new Thread(this, "Seasar2-TimeoutManager");
             thread.setDaemon(true);
             thread.start();
@@ -74,6 +150,7 @@ public class TimeoutManager implements Runnable {
         if (thread != null) {
             thread.interrupt();
             thread = null;
+            executor.shutdown();
         }
     }
 
@@ -87,23 +164,42 @@ public class TimeoutManager implements Runnable {
      *             待機中に割り込まれた場合
      */
     public boolean stop(long timeoutMillis) throws InterruptedException {
-        Thread thread = this.thread;
+        Thread thread;
+        Executor executor;
         synchronized (this) {
+            thread = this.thread;
+            executor = this.executor;
             if (thread == null) {
                 return true;
             }
             this.thread = null;
+            executor.shutdown();
         }
+        final long limit = System.currentTimeMillis() + timeoutMillis;
         thread.interrupt();
         thread.join(timeoutMillis);
-        return !thread.isAlive();
+        return !thread.isAlive()
+                && executor.join(Math.max(1L, limit
+                        - System.currentTimeMillis()));
     }
 
     /**
      * 管理している {@link TimeoutTask}をクリアします。
      */
     public synchronized void clear() {
-        timeoutTaskList.clear();
+        synchronized (registrationLock) {
+            for (int i = 0; i < WHEEL_SIZE; ++i) {
+                for (TimeoutTask task = wheel[i].first; task != null; task = wheel[i].first) {
+                    wheel[i].remove(task);
+                    task.registered = false;
+                }
+            }
+            for (int i = 0; i < pendingTasks.size(); ++i) {
+                ((TimeoutTask) pendingTasks.get(i)).registered = false;
+            }
+            pendingTasks.clear();
+            taskCount = 0;
+        }
     }
 
     /**
@@ -111,16 +207,40 @@ public class TimeoutManager implements Runnable {
      * 
      * @param timeoutTarget
      * @param timeout
+     *            タイムアウト(秒単位)
      * @param permanent
      * @return {@link TimeoutTask}
      */
-    public synchronized TimeoutTask addTimeoutTarget(
-            final TimeoutTarget timeoutTarget, final int timeout,
-            final boolean permanent) {
-        final TimeoutTask task = new TimeoutTask(timeoutTarget, timeout,
+    public TimeoutTask addTimeoutTarget(final TimeoutTarget timeoutTarget,
+            final int timeout, final boolean permanent) {
+        return addTimeoutTargetMillis(timeoutTarget, timeout * 1000L,
                 permanent);
-        timeoutTaskList.addLast(task);
-        if (timeoutTaskList.size() == 1) {
+    }
+
+    /**
+     * タイムアウトをミリ秒単位で指定して{@link TimeoutTarget}を追加します。
+     * <p>
+     * 期限切れが検出される精度は{@link #TICK_MILLIS}です。
+     * </p>
+     * 
+     * @param timeoutTarget
+     * @param timeoutMillis
+     *            タイムアウト(ミリ秒単位)
+     * @param permanent
+     * @return {@link TimeoutTask}
+     */
+    public TimeoutTask addTimeoutTargetMillis(
+            final TimeoutTarget timeoutTarget, final long timeoutMillis,
+            final boolean permanent) {
+        final TimeoutTask task = new TimeoutTask(this, timeoutTarget,
+                timeoutMillis, permanent);
+        final boolean first;
+        synchronized (registrationLock) {
+            task.registered = true;
+            pendingTasks.add(task);
+            first = ++taskCount == 1;
+        }
+        if (first) {
             start();
         }
         return task;
@@ -131,64 +251,163 @@ public class TimeoutManager implements Runnable {
      * 
      * @return 管理している {@link TimeoutTask}の数
      */
-    public synchronized int getTimeoutTaskCount() {
-        return timeoutTaskList.size();
+    public int getTimeoutTaskCount() {
+        synchronized (registrationLock) {
+            return taskCount;
+        }
+    }
+
+    /**
+     * 状態が変わった{@link TimeoutTask}をタイミングホイールに反映するよう依頼します。
+     * 
+     * @param task
+     *            {@link TimeoutTask}
+     */
+    void reschedule(final TimeoutTask task) {
+        synchronized (registrationLock) {
+            if (task.registered) {
+                pendingTasks.add(task);
+            }
+        }
     }
 
     public void run() {
-        boolean interrupted = false;
+        final Thread current = Thread.currentThread();
+        Executor executor;
+        long nextTime;
+        synchronized (this) {
+            executor = this.executor;
+            nextTime = startTime + tick * TICK_MILLIS;
+        }
         for (;;) {
-            final List expiredTask = getExpiredTask();
-            for (final Iterator it = expiredTask.iterator(); it.hasNext();) {
-                final TimeoutTask task = (TimeoutTask) it.next();
-                task.expired();
-                if (task.isPermanent()) {
-                    task.restart();
+            final long delay = nextTime - System.currentTimeMillis();
+            if (delay > 0L) {
+                try {
+                    Thread.sleep(delay);
+                } catch (final InterruptedException e) {
+                    return;
                 }
             }
-            if (interrupted || thread.isInterrupted() || stopIfLeisure()) {
-                return;
+            synchronized (this) {
+                if (thread != current) {
+                    return;
+                }
+                final long now = System.currentTimeMillis();
+                while (startTime + tick * TICK_MILLIS <= now) {
+                    processPendingTasks();
+                    expireTasks(now, executor);
+                    ++tick;
+                }
+                nextTime = startTime + tick * TICK_MILLIS;
             }
-            try {
-                Thread.sleep(1000);
-            } catch (final InterruptedException e) {
-                interrupted = true;
+            if (stopIfLeisure()) {
+                return;
             }
         }
     }
 
     /**
-     * 期限の切れた {@link TimeoutTask}のリストを返します。
-     * 
-     * @return 期限の切れた {@link TimeoutTask}のリスト
+     * 追加や状態の変更を依頼された{@link TimeoutTask}をタイミングホイールに反映します。
      */
-    protected synchronized List getExpiredTask() {
-        final List expiredTask = new ArrayList();
-        try {
-            if (timeoutTaskList == null || timeoutTaskList.isEmpty()) {
-                return expiredTask;
+    protected void processPendingTasks() {
+        final List tasks;
+        synchronized (registrationLock) {
+            if (pendingTasks.isEmpty()) {
+                return;
             }
-        } catch (NullPointerException e) {
-            return expiredTask;
+            tasks = pendingTasks;
+            pendingTasks = new ArrayList();
         }
-        for (SLinkedList.Entry e = timeoutTaskList.getFirstEntry(); e != null; e = e
-                .getNext()) {
-            final TimeoutTask task = (TimeoutTask) e.getElement();
-            if (task.isCanceled()) {
-                e.remove();
-                continue;
+        for (int i = 0; i < tasks.size(); ++i) {
+            final TimeoutTask task = (TimeoutTask) tasks.get(i);
+            if (task.slot != null) {
+                task.slot.remove(task);
             }
-            if (task.isStopped()) {
-                continue;
+            if (task.isCanceled()) {
+                deregister(task);
+            } else if (task.registered) {
+                schedule(task);
             }
-            if (task.isExpired()) {
-                expiredTask.add(task);
-                if (!task.isPermanent()) {
-                    e.remove();
+        }
+    }
+
+    /**
+     * 現在のティックのスロットで期限の切れた{@link TimeoutTask}を通知します。
+     * 
+     * @param now
+     *            現在時刻
+     * @param executor
+     *            期限切れを通知する{@link Executor}
+     */
+    protected void expireTasks(final long now, final Executor executor) {
+        final Slot slot = wheel[(int) (tick & (WHEEL_SIZE - 1))];
+        TimeoutTask task = slot.first;
+        while (task != null) {
+            final TimeoutTask next = task.next;
+            if (task.isCanceled()) {
+                slot.remove(task);
+                deregister(task);
+            } else if (task.remainingRounds > 0L) {
+                --task.remainingRounds;
+            } else {
+                slot.remove(task);
+                if (task.isStopped()) {
+                    // restart()されるまでタイミングホイールから外しておく
+                } else if (task.getDeadline() > now) {
+                    schedule(task);
+                } else {
+                    if (!task.isPermanent()) {
+                        deregister(task);
+                    }
+                    executor.execute(task);
                 }
             }
+            task = next;
+        }
+    }
+
+    /**
+     * {@link TimeoutTask}を期限に応じたスロットに追加します。
+     * 
+     * @param task
+     *            {@link TimeoutTask}
+     */
+    protected void schedule(final TimeoutTask task) {
+        final long deadline = task.getDeadline() - startTime;
+        long ticks = deadline <= 0L ? 0L : (deadline + TICK_MILLIS - 1L)
+                / TICK_MILLIS;
+        if (ticks < tick) {
+            ticks = tick;
+        }
+        task.remainingRounds = (ticks - tick) / WHEEL_SIZE;
+        wheel[(int) (ticks & (WHEEL_SIZE - 1))].add(task);
+    }
+
+    /**
+     * タイミングホイールに登録されているすべての{@link TimeoutTask}を、 次に処理するティックを基準に登録し直します。
+     */
+    protected void rescheduleAll() {
+        final List tasks = new ArrayList();
+        for (int i = 0; i < WHEEL_SIZE; ++i) {
+            for (TimeoutTask task = wheel[i].first; task != null; task = wheel[i].first) {
+                wheel[i].remove(task);
+                tasks.add(task);
+            }
+        }
+        startTime = System.currentTimeMillis();
+        tick = 0L;
+        for (int i = 0; i < tasks.size(); ++i) {
+            schedule((TimeoutTask) tasks.get(i));
+        }
+    }
+
+    private void deregister(final TimeoutTask task) {
+        synchronized (registrationLock) {
+            if (task.registered) {
+                task.registered = false;
+                --taskCount;
+            }
         }
-        return expiredTask;
     }
 
     /**
@@ -197,15 +416,129 @@ public class TimeoutManager implements Runnable {
      * @return 停止したかどうか
      */
     protected synchronized boolean stopIfLeisure() {
-        try {
-            if (timeoutTaskList == null || timeoutTaskList.isEmpty()) {
-                thread = null;
-                return true;
+        synchronized (registrationLock) {
+            if (taskCount > 0 || !pendingTasks.isEmpty()) {
+                return false;
             }
-        } catch (NullPointerException e) {
-            return true;
         }
-        return false;
+        if (thread == Thread.currentThread()) {
+            thread = null;
+            executor.shutdown();
+        }
+        return true;
     }
 
+    /**
+     * タイミングホイールのスロットです。
+     */
+    protected static final class Slot {
+
+        TimeoutTask first;
+
+        TimeoutTask last;
+
+        void add(final TimeoutTask task) {
+            task.slot = this;
+            task.prev = last;
+            task.next = null;
+            if (last != null) {
+                last.next = task;
+            } else {
+                first = task;
+            }
+            last = task;
+        }
+
+        void remove(final TimeoutTask task) {
+            if (task.prev != null) {
+                task.prev.next = task.next;
+            } else {
+                first = task.next;
+            }
+            if (task.next != null) {
+                task.next.prev = task.prev;
+            } else {
+                last = task.prev;
+            }
+            task.slot = null;
+            task.prev = null;
+            task.next = null;
+        }
+    }
+
+    /**
+     * 期限切れを通知するスレッドのプールです。
+     */
+    protected static final class Executor implements Runnable {
+
+        private final LinkedList queue = new LinkedList();
+
+        private final Thread[] threads;
+
+        private boolean shutdown = false;
+
+        Executor(final int threadCount) {
+            threads = new Thread[threadCount];
+            for (int i = 0; i < threadCount; ++i) {
+                threads[i] = new Thread(this,
+                        "Seasar2-TimeoutManager-Executor-" + i);
+                threads[i].setDaemon(true);
+                threads[i].start();
+            }
+        }
+
+        synchronized void execute(final TimeoutTask task) {
+            queue.addLast(task);
+            notify();
+        }
+
+        synchronized void shutdown() {
+            shutdown = true;
+            notifyAll();
+        }
+
+        boolean join(final long timeoutMillis) throws InterruptedException {
+            final long limit = System.currentTimeMillis() + timeoutMillis;
+            for (int i = 0; i < threads.length; ++i) {
+                final long wait = limit - System.currentTimeMillis();
+                if (wait <= 0L) {
+                    break;
+                }
+                threads[i].join(wait);
+            }
+            for (int i = 0; i < threads.length; ++i) {
+                if (threads[i].isAlive()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public void run() {
+            for (;;) {
+                final TimeoutTask task;
+                synchronized (this) {
+                    while (queue.isEmpty()) {
+                        if (shutdown) {
+                            return;
+                        }
+                        try {
+                            wait();
+                        } catch (final InterruptedException e) {
+                            return;
+                        }
+                    }
+                    task = (TimeoutTask) queue.removeFirst();
+                }
+                try {
+                    task.expired();
+                } catch (final Throwable t) {
+                    logger.log(t);
+                }
+                if (task.isPermanent()) {
+                    task.restartIfActive();
+                }
+            }
+        }
+    }
 }
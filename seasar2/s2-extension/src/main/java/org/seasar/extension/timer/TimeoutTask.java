@@ -31,19 +31,33 @@ public class TimeoutTask {
 
     private final static int CANCELED = 2;
 
+    private final TimeoutManager timeoutManager_;
+
     private final TimeoutTarget timeoutTarget_;
 
     private final long timeoutMillis_;
 
     private final boolean permanent_;
 
-    private long startTime_;
+    private volatile long startTime_;
+
+    private volatile int status_ = ACTIVE;
+
+    TimeoutManager.Slot slot;
+
+    TimeoutTask prev;
+
+    TimeoutTask next;
 
-    private int status_ = ACTIVE;
+    long remainingRounds;
 
-    TimeoutTask(TimeoutTarget timeoutTarget, int timeout, boolean permanent) {
+    boolean registered;
+
+    TimeoutTask(TimeoutManager timeoutManager, TimeoutTarget timeoutTarget,
+            long timeoutMillis, boolean permanent) {
+        timeoutManager_ = timeoutManager;
         timeoutTarget_ = timeoutTarget;
-        timeoutMillis_ = timeout * 1000L;
+        timeoutMillis_ = timeoutMillis;
         permanent_ = permanent;
         startTime_ = System.currentTimeMillis();
     }
@@ -54,7 +68,16 @@ public class TimeoutTask {
      * @return 期限切れかどうか
      */
     public boolean isExpired() {
-        return System.currentTimeMillis() >= startTime_ + timeoutMillis_;
+        return System.currentTimeMillis() >= getDeadline();
+    }
+
+    /**
+     * 期限の時刻を返します。
+     * 
+     * @return 期限の時刻
+     */
+    long getDeadline() {
+        return startTime_ + timeoutMillis_;
     }
 
     /**
@@ -80,6 +103,7 @@ public class TimeoutTask {
      */
     public void cancel() {
         status_ = CANCELED;
+        notifyManager();
     }
 
     /**
@@ -108,9 +132,26 @@ public class TimeoutTask {
     public void restart() {
         status_ = ACTIVE;
         startTime_ = System.currentTimeMillis();
+        notifyManager();
+    }
+
+    /**
+     * 止められていなければタイマーを再開始します。
+     */
+    void restartIfActive() {
+        if (status_ == ACTIVE) {
+            startTime_ = System.currentTimeMillis();
+            notifyManager();
+        }
     }
 
     void expired() {
         timeoutTarget_.expired();
     }
+
+    private void notifyManager() {
+        if (timeoutManager_ != null) {
+            timeoutManager_.reschedule(this);
+        }
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.datasource.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.transaction.TransactionManager;
+
+import org.seasar.extension.datasource.impl.SelectableDataSourceProxyTest.TestDataSource;
+import org.seasar.extension.jta.TransactionManagerImpl;
+import org.seasar.framework.unit.S2FrameworkTestCase;
+
+/**
+ * 
+ */
+public class ReplicationDataSourceProxyTest extends S2FrameworkTestCase {
+
+    private ReplicationDataSourceProxy proxy;
+
+    private TransactionManager tm;
+
+    private TestDataSource primaryDataSource;
+
+    private TestDataSource replica1DataSource;
+
+    private TestDataSource replica2DataSource;
+
+    protected void setUp() throws Exception {
+        register(DataSourceFactoryImpl.class, "dataSourceFactory");
+        register(TransactionManagerImpl.class, "tm");
+        register(ReplicationDataSourceProxy.class, "dataSource");
+        register(TestDataSource.class, "primaryDataSource");
+        register(TestDataSource.class, "replica1DataSource");
+        register(TestDataSource.class, "replica2DataSource");
+        register(BrokenDataSource.class, "brokenDataSource");
+    }
+
+    protected void setUpAfterBindFields() throws Throwable {
+        super.setUpAfterBindFields();
+        proxy.setPrimaryDataSourceName("primary");
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testRouting() throws Exception {
+        proxy.addReplica("replica1", 1);
+        assertSame(replica1DataSource.con, proxy.getConnection());
+        assertSame(replica1DataSource.con, proxy.getConnection("scott",
+                "tiger"));
+        assertEquals("getConnection:scott:tiger", replica1DataSource.text);
+        tm.begin();
+        try {
+            assertSame(primaryDataSource.con, proxy.getConnection());
+            proxy.setReadOnly(true);
+            try {
+                assertSame(replica1DataSource.con, proxy.getConnection());
+            } finally {
+                proxy.setReadOnly(false);
+            }
+            assertSame(primaryDataSource.con, proxy.getConnection());
+        } finally {
+            tm.rollback();
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testWeight() throws Exception {
+        proxy.addReplica("replica1", 2);
+        proxy.addReplica("replica2", 1);
+        int count1 = 0;
+        int count2 = 0;
+        for (int i = 0; i < 30; ++i) {
+            Connection con = proxy.getConnection();
+            if (con == replica1DataSource.con) {
+                ++count1;
+            } else if (con == replica2DataSource.con) {
+                ++count2;
+            }
+        }
+        assertEquals(20, count1);
+        assertEquals(10, count2);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testEjection() throws Exception {
+        proxy.setEjectionTime(200);
+        proxy.addReplica("broken", 10);
+        proxy.addReplica("replica1", 1);
+        for (int i = 0; i < 5; ++i) {
+            assertSame(replica1DataSource.con, proxy.getConnection());
+        }
+        BrokenDataSource broken = (BrokenDataSource) getComponent("brokenDataSource");
+        assertEquals(1, broken.count);
+
+        Thread.sleep(300);
+        assertSame(replica1DataSource.con, proxy.getConnection());
+        assertEquals(2, broken.count);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testFallbackToPrimary() throws Exception {
+        proxy.addReplica("broken", 1);
+        assertSame(primaryDataSource.con, proxy.getConnection());
+        assertSame(primaryDataSource.con, proxy.getConnection());
+        assertSame(primaryDataSource, proxy.getDataSource());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testFallbackToPrimary_notEjected() throws Exception {
+        proxy.ejectionTime = 0;
+        proxy.addReplica("broken", 1);
+        assertSame(primaryDataSource.con, proxy.getConnection());
+        BrokenDataSource broken = (BrokenDataSource) getComponent("brokenDataSource");
+        assertEquals(1, broken.count);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testSetEjectionTime() throws Exception {
+        try {
+            proxy.setEjectionTime(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(30000, proxy.getEjectionTime());
+    }
+
+    /**
+     * 
+     */
+    public static class BrokenDataSource extends TestDataSource {
+
+        /**
+         * 
+         */
+        public int count;
+
+        public Connection getConnection() throws SQLException {
+            ++count;
+            throw new SQLException("broken");
+        }
+    }
+}
@@ -17,9 +17,13 @@ package org.seasar.extension.dbcp.impl;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import javax.sql.XAConnection;
 import javax.transaction.Synchronization;
+import javax.transaction.Transaction;
 import javax.transaction.TransactionManager;
 
 import org.seasar.extension.dbcp.ConnectionPool;
@@ -43,6 +47,8 @@ public class ConnectionPoolImplTest extends S2TestCase {
 
     private boolean checkOuted_ = false;
 
+    private static volatile boolean validating;
+
     /**
      * @throws Exception
      */
@@ -495,7 +501,449 @@ public class ConnectionPoolImplTest extends S2TestCase {
         assertTrue(t2 - t1 >= 2000);
     }
 
+    /**
+     * @throws Exception
+     */
+    public void testCheckOut_concurrent() throws Exception {
+        ((ConnectionPoolImpl) pool_).setConcurrent(true);
+        testCheckOut();
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testTransaction_concurrent() throws Exception {
+        ((ConnectionPoolImpl) pool_).setConcurrent(true);
+        testTransaction();
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testCheckInTxNotify_concurrent() throws Exception {
+        ((ConnectionPoolImpl) pool_).setConcurrent(true);
+        testCheckInTxNotify();
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testMultiThread_concurrent() throws Exception {
+        ((ConnectionPoolImpl) pool_).setConcurrent(true);
+        ((ConnectionPoolImpl) pool_).setMaxPoolSize(3);
+        final int size = 10;
+        final Throwable[] errors = new Throwable[size];
+        Thread[] threads = new Thread[size];
+        for (int i = 0; i < size; ++i) {
+            final int index = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < 20; ++j) {
+                            ConnectionWrapper con = pool_.checkOut();
+                            assertTrue(pool_.getActivePoolSize() <= 3);
+                            con.close();
+                        }
+                    } catch (Throwable t) {
+                        errors[index] = t;
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (int i = 0; i < size; ++i) {
+            threads[i].join();
+            assertNull(errors[i]);
+        }
+        assertEquals(0, pool_.getActivePoolSize());
+        assertTrue(pool_.getFreePoolSize() <= 3);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testFill_warmUp() throws Exception {
+        ConnectionPoolImpl pool = (ConnectionPoolImpl) pool_;
+        pool.setMaxPoolSize(5);
+        pool.setMinPoolSize(1);
+        pool.setWarmPoolSize(3);
+        pool.setFillInterval(100);
+        pool.init();
+        for (int i = 0; i < 50 && pool.getFreePoolSize() < 3; ++i) {
+            Thread.sleep(100);
+        }
+        assertEquals(3, pool.getFreePoolSize());
+        ConnectionWrapper con = pool.checkOut();
+        assertEquals(2, pool.getFreePoolSize());
+        con.close();
+        assertEquals(3, pool.getFreePoolSize());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testFill_refill() throws Exception {
+        ConnectionPoolImpl pool = (ConnectionPoolImpl) pool_;
+        pool.setMaxPoolSize(5);
+        pool.setMinPoolSize(2);
+        pool.setFillInterval(100);
+        pool.init();
+        for (int i = 0; i < 50 && pool.getFreePoolSize() < 2; ++i) {
+            Thread.sleep(100);
+        }
+        assertEquals(2, pool.getFreePoolSize());
+        ConnectionWrapper con1 = pool.checkOut();
+        ConnectionWrapper con2 = pool.checkOut();
+        for (int i = 0; i < 50 && pool.getFreePoolSize() < 2; ++i) {
+            Thread.sleep(100);
+        }
+        assertEquals(2, pool.getFreePoolSize());
+        con1.close();
+        con2.close();
+        assertEquals(4, pool.getFreePoolSize());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testFill_maxPoolSize() throws Exception {
+        ConnectionPoolImpl pool = (ConnectionPoolImpl) pool_;
+        pool.setMaxPoolSize(2);
+        pool.setWarmPoolSize(5);
+        pool.setFillInterval(100);
+        pool.init();
+        Thread.sleep(500);
+        assertEquals(2, pool.getFreePoolSize());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testBackgroundValidation() throws Exception {
+        ConnectionPoolImpl pool = (ConnectionPoolImpl) pool_;
+        pool.setMaxPoolSize(2);
+        pool.setValidationQuery("select * from dual");
+        pool.setBackgroundValidationInterval(100);
+        pool.init();
+        ConnectionWrapper con1 = pool.checkOut();
+        XAConnection xaCon1 = con1.getXAConnection();
+        Connection pc1 = con1.getPhysicalConnection();
+        pool.checkIn(con1);
+        for (int i = 0; i < 50 && pool.getValidatedCount() == 0; ++i) {
+            Thread.sleep(100);
+        }
+        assertTrue(pool.getValidatedCount() > 0);
+        assertEquals(0, pool.getValidationFailedCount());
+        assertEquals(0, pool.getEvictedCount());
+        assertEquals(1, pool.getFreePoolSize());
+        ConnectionWrapper con2 = pool.checkOut();
+        assertSame(xaCon1, con2.getXAConnection());
+
+        pool.setValidationQuery("select * from hogehoge");
+        pool.checkIn(con2);
+        for (int i = 0; i < 50 && pool.getEvictedCount() == 0; ++i) {
+            Thread.sleep(100);
+        }
+        assertEquals(1, pool.getValidationFailedCount());
+        assertEquals(1, pool.getEvictedCount());
+        assertEquals(0, pool.getFreePoolSize());
+        assertTrue(pc1.isClosed());
+        ConnectionWrapper con3 = pool.checkOut();
+        assertNotSame(xaCon1, con3.getXAConnection());
+        pool.checkIn(con3);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testBackgroundValidation_staleCheckOut() throws Exception {
+        ConnectionPoolImpl pool = (ConnectionPoolImpl) pool_;
+        pool.setMaxPoolSize(2);
+        pool.setValidationQuery("select * from dual");
+        pool.setBackgroundValidationInterval(1000);
+        pool.init();
+        ConnectionWrapper con1 = pool.checkOut();
+        XAConnection xaCon1 = con1.getXAConnection();
+        Connection pc1 = con1.getPhysicalConnection();
+        Thread.sleep(1500);
+        pool.checkIn(con1);
+        Thread.sleep(1200);
+        pool.setValidationQuery("select * from hogehoge");
+        ConnectionWrapper con2 = pool.checkOut();
+        assertNotSame(xaCon1, con2.getXAConnection());
+        assertTrue(pc1.isClosed());
+        assertEquals(1, pool.getValidationFailedCount());
+        assertEquals(1, pool.getEvictedCount());
+        pool.checkIn(con2);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testBackgroundValidation_close() throws Exception {
+        ConnectionPoolImpl pool = (ConnectionPoolImpl) pool_;
+        pool.setMaxPoolSize(2);
+        pool.setValidationQuery("select \"" + getClass().getName()
+                + ".slowValidation\"() from dual");
+        pool.setBackgroundValidationInterval(100);
+        validating = false;
+        pool.init();
+        ConnectionWrapper con1 = pool.checkOut();
+        Connection pc1 = con1.getPhysicalConnection();
+        pool.checkIn(con1);
+        for (int i = 0; i < 50 && !validating; ++i) {
+            Thread.sleep(100);
+        }
+        assertTrue(validating);
+        pool.close();
+        for (int i = 0; i < 50 && !pc1.isClosed(); ++i) {
+            Thread.sleep(100);
+        }
+        assertTrue(pc1.isClosed());
+        assertEquals(0, pool.getFreePoolSize());
+    }
+
+    /**
+     * 検証用クエリから呼び出され、 検証に時間がかかるようにします。
+     * 
+     * @return <code>1</code>
+     * @throws Exception
+     */
+    public static int slowValidation() throws Exception {
+        validating = true;
+        Thread.sleep(500);
+        return 1;
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testBackgroundValidation_batch() throws Exception {
+        ConnectionPoolImpl pool = (ConnectionPoolImpl) pool_;
+        pool.setMaxPoolSize(3);
+        pool.setValidationQuery("select * from dual");
+        pool.setValidationBatchSize(1);
+        pool.setBackgroundValidationInterval(100);
+        pool.init();
+        ConnectionWrapper con1 = pool.checkOut();
+        ConnectionWrapper con2 = pool.checkOut();
+        ConnectionWrapper con3 = pool.checkOut();
+        pool.checkIn(con1);
+        pool.checkIn(con2);
+        pool.checkIn(con3);
+        for (int i = 0; i < 50 && pool.getValidatedCount() < 3; ++i) {
+            Thread.sleep(100);
+        }
+        assertTrue(pool.getValidatedCount() >= 3);
+        assertEquals(3, pool.getFreePoolSize());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testMetrics() throws Exception {
+        ConnectionPoolImpl pool = (ConnectionPoolImpl) pool_;
+        pool.setMaxWait(0);
+        ConnectionWrapper con = pool.checkOut();
+        try {
+            pool.checkOut();
+            fail();
+        } catch (SQLException expected) {
+        }
+        pool.checkIn(con);
+        con = pool.checkOut();
+        pool.checkIn(con);
+        ConnectionPoolMetrics metrics = pool.getMetrics();
+        assertEquals(2, metrics.getCheckOutCount());
+        assertEquals(1, metrics.getCheckOutTimeoutCount());
+        assertEquals(1, metrics.getCreatedCount());
+        assertEquals(2, metrics.getHoldTimeHistogram().getCount());
+        assertEquals(0, metrics.getValidationTimeHistogram().getCount());
+        System.out.println(metrics);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testLeakDetection() throws Exception {
+        ConnectionPoolImpl pool = (ConnectionPoolImpl) pool_;
+        pool.setLeakDetectionThreshold(200);
+        pool.init();
+        ConnectionWrapperImpl con = (ConnectionWrapperImpl) pool.checkOut();
+        assertNotNull(con.getCheckOutSite());
+        for (int i = 0; i < 50 && !con.isLeakReported(); ++i) {
+            Thread.sleep(100);
+        }
+        assertTrue(con.isLeakReported());
+        String dump = pool.dumpCheckedOutConnections();
+        System.out.println(dump);
+        assertTrue(dump.indexOf("testLeakDetection") > 0);
+        pool.checkIn(con);
+        assertEquals("", pool.dumpCheckedOutConnections());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testLeakDetection_sampling() throws Exception {
+        ConnectionPoolImpl pool = (ConnectionPoolImpl) pool_;
+        pool.setLeakDetectionThreshold(60000);
+        pool.setLeakDetectionSamplingInterval(2);
+        int sampled = 0;
+        for (int i = 0; i < 4; ++i) {
+            ConnectionWrapperImpl con = (ConnectionWrapperImpl) pool.checkOut();
+            if (con.getCheckOutSite() != null) {
+                ++sampled;
+            }
+            pool.checkIn(con);
+        }
+        assertEquals(2, sampled);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testLeakDetection_reclaim() throws Exception {
+        ConnectionPoolImpl pool = (ConnectionPoolImpl) pool_;
+        pool.setLeakDetectionThreshold(200);
+        pool.init();
+        tm_.begin();
+        pool.checkOut();
+        final Transaction tx = tm_.getTransaction();
+        Thread thread = new Thread() {
+            public void run() {
+                try {
+                    tm_.begin();
+                    tx.commit();
+                    tm_.rollback();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+        thread.start();
+        thread.join();
+        assertNull(tm_.getTransaction());
+        assertEquals(1, pool.getTxActivePoolSize());
+        for (int i = 0; i < 50 && pool.getTxActivePoolSize() > 0; ++i) {
+            Thread.sleep(100);
+        }
+        assertEquals(0, pool.getTxActivePoolSize());
+        assertEquals(1, pool.getFreePoolSize());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testFair() throws Exception {
+        final ConnectionPoolImpl pool = (ConnectionPoolImpl) pool_;
+        pool.setFair(true);
+        final List order = Collections.synchronizedList(new ArrayList());
+        ConnectionWrapper con = pool.checkOut();
+        Thread[] threads = new Thread[3];
+        for (int i = 0; i < threads.length; ++i) {
+            final Integer id = new Integer(i);
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        ConnectionWrapper c = pool.checkOut();
+                        order.add(id);
+                        Thread.sleep(10);
+                        pool.checkIn(c);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+            };
+            threads[i].start();
+            Thread.sleep(100);
+        }
+        pool.checkIn(con);
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i].join(5000);
+        }
+        assertEquals(3, order.size());
+        for (int i = 0; i < threads.length; ++i) {
+            assertEquals(new Integer(i), order.get(i));
+        }
+        assertEquals(0, pool.getActivePoolSize());
+        assertEquals(1, pool.getFreePoolSize());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testFair_maxWait() throws Exception {
+        ConnectionPoolImpl pool = (ConnectionPoolImpl) pool_;
+        pool.setFair(true);
+        pool.setMaxWait(200);
+        ConnectionWrapper con = pool.checkOut();
+        long start = System.currentTimeMillis();
+        try {
+            pool.checkOut();
+            fail();
+        } catch (SQLException expected) {
+        }
+        assertTrue(System.currentTimeMillis() - start >= 150);
+        assertEquals(1, pool.getMetrics().getCheckOutTimeoutCount());
+        pool.checkIn(con);
+        con = pool.checkOut();
+        pool.checkIn(con);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testCheckOutDeadline() throws Exception {
+        ConnectionPoolImpl pool = (ConnectionPoolImpl) pool_;
+        ConnectionWrapper con = pool.checkOut();
+        CheckOutDeadline.set(200);
+        try {
+            long start = System.currentTimeMillis();
+            try {
+                pool.checkOut();
+                fail();
+            } catch (SQLException expected) {
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            assertTrue(elapsed >= 150);
+            assertTrue(elapsed < 2000);
+            pool.setFair(true);
+            try {
+                pool.checkOut();
+                fail();
+            } catch (SQLException expected) {
+            }
+        } finally {
+            CheckOutDeadline.clear();
+        }
+        assertEquals(-1, CheckOutDeadline.getRemainingMillis());
+        pool.checkIn(con);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testPreparedStatementCache() throws Exception {
+        ((ConnectionPoolImpl) pool_).setPreparedStatementCacheSize(10);
+        ConnectionWrapper con = pool_.checkOut();
+        PreparedStatementCache cache = ((ConnectionWrapperImpl) con)
+                .getPreparedStatementCache();
+        assertNotNull(cache);
+        con.prepareStatement("select * from emp").close();
+        con.close();
+        assertEquals(1, cache.size());
+        ConnectionWrapper con2 = pool_.checkOut();
+        assertSame(cache, ((ConnectionWrapperImpl) con2)
+                .getPreparedStatementCache());
+        con2.prepareStatement("select * from emp").close();
+        assertEquals(1, cache.size());
+        con2.close();
+        pool_.close();
+        assertEquals(0, cache.size());
+    }
+
     protected void setUp() throws Exception {
         include(PATH);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
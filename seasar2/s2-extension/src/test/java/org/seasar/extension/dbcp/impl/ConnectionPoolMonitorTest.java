@@ -0,0 +1,84 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.dbcp.impl;
+
+import org.seasar.extension.dbcp.ConnectionPool;
+import org.seasar.extension.dbcp.ConnectionWrapper;
+import org.seasar.extension.unit.S2TestCase;
+
+/**
+ * 
+ */
+public class ConnectionPoolMonitorTest extends S2TestCase {
+
+    private static final String PATH = "connection.dicon";
+
+    private ConnectionPool pool_;
+
+    /**
+     * @throws Exception
+     */
+    public void testAttributes() throws Exception {
+        ConnectionPoolMonitor monitor = new ConnectionPoolMonitor(
+                (ConnectionPoolImpl) pool_);
+        ConnectionWrapper con = pool_.checkOut();
+        assertEquals(1, monitor.getActivePoolSize());
+        assertEquals(1, monitor.getMaxPoolSize());
+        Thread.sleep(10);
+        pool_.checkIn(con);
+        assertEquals(0, monitor.getActivePoolSize());
+        assertEquals(1, monitor.getFreePoolSize());
+        assertEquals(1, monitor.getCheckOutCount());
+        assertEquals(1, monitor.getCreatedCount());
+        assertTrue(monitor.getHoldTimeMax() >= 10000);
+        assertTrue(monitor.getHoldTime99thPercentile() >= 10000);
+        assertTrue(monitor.getConnectTimeMax() >= 0);
+        monitor.resetMetrics();
+        assertEquals(0, monitor.getCheckOutCount());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testRegister() throws Exception {
+        ConnectionPoolMonitor monitor = new ConnectionPoolMonitor(
+                (ConnectionPoolImpl) pool_);
+        monitor.setObjectName("org.seasar.extension.dbcp:type=ConnectionPool,name=test");
+        monitor.register();
+        try {
+            ConnectionPoolMonitor other = new ConnectionPoolMonitor(
+                    (ConnectionPoolImpl) pool_);
+            other.setObjectName(monitor.getObjectName());
+            try {
+                other.register();
+                fail();
+            } catch (RuntimeException expected) {
+                System.out.println(expected);
+            }
+        } finally {
+            monitor.unregister();
+        }
+        ConnectionPoolMonitor other = new ConnectionPoolMonitor(
+                (ConnectionPoolImpl) pool_);
+        other.setObjectName(monitor.getObjectName());
+        other.register();
+        other.unregister();
+    }
+
+    protected void setUp() throws Exception {
+        include(PATH);
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.seasar.extension.dbcp.impl;
 
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 
 import javax.sql.ConnectionEvent;
@@ -64,6 +65,29 @@ public class ConnectionWrapperImplTest extends S2TestCase {
         assertTrue(con.isClosed());
     }
 
+    /**
+     * @throws Exception
+     */
+    public void testPrepareStatement_cache() throws Exception {
+        MockXAConnection xaCon = new MockXAConnection();
+        PreparedStatementCache cache = new PreparedStatementCache(10);
+        ConnectionWrapperImpl wrapper = new ConnectionWrapperImpl(xaCon, xaCon
+                .getConnection(), dummyPool_, null, cache);
+        PreparedStatement ps = wrapper.prepareStatement("select * from emp");
+        ps.setMaxRows(10);
+        ps.close();
+        assertEquals(1, cache.size());
+        PreparedStatement ps2 = wrapper.prepareStatement("select * from emp");
+        assertEquals(0, cache.size());
+        assertEquals(0, ps2.getMaxRows());
+        PreparedStatement ps3 = wrapper.prepareStatement("select * from emp");
+        ps3.close();
+        ps2.close();
+        assertEquals(1, cache.size());
+        wrapper.closeReally();
+        assertEquals(0, cache.size());
+    }
+
     /**
      * @throws Exception
      */
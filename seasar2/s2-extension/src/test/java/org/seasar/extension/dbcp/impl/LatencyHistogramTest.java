@@ -0,0 +1,106 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.dbcp.impl;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ */
+public class LatencyHistogramTest extends TestCase {
+
+    /**
+     * @throws Exception
+     */
+    public void testGetBucketIndex() throws Exception {
+        assertEquals(0, LatencyHistogram.getBucketIndex(0));
+        assertEquals(31, LatencyHistogram.getBucketIndex(31));
+        assertEquals(32, LatencyHistogram.getBucketIndex(32));
+        assertEquals(32, LatencyHistogram.getBucketIndex(33));
+        assertEquals(33, LatencyHistogram.getBucketIndex(34));
+        assertEquals(47, LatencyHistogram.getBucketIndex(63));
+        assertEquals(48, LatencyHistogram.getBucketIndex(64));
+        for (long value = 0; value < 100000; value += 7) {
+            int index = LatencyHistogram.getBucketIndex(value);
+            assertTrue(LatencyHistogram.getBucketUpperBound(index) >= value);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.getBucketUpperBound(index - 1) < value);
+            }
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testRecord() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50.0));
+        for (int i = 1; i <= 1000; ++i) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMin());
+        assertEquals(1000000, histogram.getMax());
+        assertEquals(500500.0, histogram.getMean(), 0.1);
+        assertEquals(500000.0, histogram.getValueAtPercentile(50.0),
+                500000.0 / 16);
+        assertEquals(990000.0, histogram.getValueAtPercentile(99.0),
+                990000.0 / 16);
+        assertEquals(1000000, histogram.getValueAtPercentile(100.0));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testRecord_concurrent() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; ++i) {
+            final long value = i + 1;
+            threads[i] = new Thread(new Runnable() {
+                public void run() {
+                    for (int j = 0; j < 10000; ++j) {
+                        histogram.record(value);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i].join();
+        }
+        assertEquals(80000, histogram.getCount());
+        assertEquals(360000, histogram.getTotal());
+        assertEquals(1, histogram.getMin());
+        assertEquals(8, histogram.getMax());
+        assertEquals(8, histogram.getValueAtPercentile(100.0));
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testRecord_outOfRange() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-1);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(0, histogram.getMin());
+        assertEquals((1L << 40) - 1, histogram.getMax());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.dbcp.impl;
+
+import java.sql.ResultSet;
+
+import junit.framework.TestCase;
+
+import org.seasar.framework.mock.sql.MockConnection;
+import org.seasar.framework.mock.sql.MockPreparedStatement;
+
+public class PreparedStatementCacheTest extends TestCase {
+
+    private static final int TYPE = ResultSet.TYPE_FORWARD_ONLY;
+
+    private static final int CONCURRENCY = ResultSet.CONCUR_READ_ONLY;
+
+    private MockConnection con = new MockConnection();
+
+    /**
+     * @throws Exception
+     */
+    public void testGetAndPut() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(2);
+        assertNull(cache.get("aaa", TYPE, CONCURRENCY));
+        MockPreparedStatement ps = new MockPreparedStatement(con, "aaa");
+        cache.put("aaa", TYPE, CONCURRENCY, ps);
+        assertEquals(1, cache.size());
+        assertNull(cache.get("aaa", ResultSet.TYPE_SCROLL_INSENSITIVE,
+                CONCURRENCY));
+        assertSame(ps, cache.get("aaa", TYPE, CONCURRENCY));
+        assertEquals(0, cache.size());
+        assertNull(cache.get("aaa", TYPE, CONCURRENCY));
+        assertFalse(ps.isClosed());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testPut_duplicate() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(2);
+        MockPreparedStatement ps = new MockPreparedStatement(con, "aaa");
+        MockPreparedStatement ps2 = new MockPreparedStatement(con, "aaa");
+        cache.put("aaa", TYPE, CONCURRENCY, ps);
+        cache.put("aaa", TYPE, CONCURRENCY, ps2);
+        assertEquals(1, cache.size());
+        assertTrue(ps.isClosed());
+        assertFalse(ps2.isClosed());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testEviction() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(2);
+        MockPreparedStatement ps = new MockPreparedStatement(con, "aaa");
+        MockPreparedStatement ps2 = new MockPreparedStatement(con, "bbb");
+        MockPreparedStatement ps3 = new MockPreparedStatement(con, "ccc");
+        cache.put("aaa", TYPE, CONCURRENCY, ps);
+        cache.put("bbb", TYPE, CONCURRENCY, ps2);
+        cache.put("ccc", TYPE, CONCURRENCY, ps3);
+        assertEquals(2, cache.size());
+        assertTrue(ps.isClosed());
+        assertFalse(ps2.isClosed());
+        assertFalse(ps3.isClosed());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testDestroy() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(2);
+        MockPreparedStatement ps = new MockPreparedStatement(con, "aaa");
+        MockPreparedStatement ps2 = new MockPreparedStatement(con, "bbb");
+        cache.put("aaa", TYPE, CONCURRENCY, ps);
+        cache.destroy();
+        assertEquals(0, cache.size());
+        assertTrue(ps.isClosed());
+        cache.put("bbb", TYPE, CONCURRENCY, ps2);
+        assertEquals(0, cache.size());
+        assertTrue(ps2.isClosed());
+    }
+}
@@ -54,6 +54,24 @@ public class BasicHandlerTest extends S2TestCase {
         assertTrue(handler.getLoggerClass() == BasicHandlerTest.class);
     }
 
+    /**
+     * 
+     * @throws Exception
+     */
+    public void testLogSql_overrideCompleteSql() throws Exception {
+        final String sql = "update emp set ename = ? where empno = ?";
+        Object[] args = new Object[] { "hoge", new Integer(7788) };
+        Class[] argTypes = new Class[] { String.class, Integer.class };
+        BasicHandler handler = new BasicHandler(getDataSource(), sql) {
+            protected String getCompleteSql(Object[] args) {
+                return "overridden";
+            }
+        };
+        handler.logSql(args, argTypes);
+        SqlLogRegistry registry = SqlLogRegistryLocator.getInstance();
+        assertEquals("overridden", registry.getLast().getCompleteSql());
+    }
+
     private void assertSqlLog(final String sql, Object[] args, Class[] argTypes) {
         SqlLogRegistry registry = SqlLogRegistryLocator.getInstance();
         SqlLog sqlLog = registry.getLast();
@@ -15,8 +15,12 @@
  */
 package org.seasar.extension.jdbc.impl;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
+import org.seasar.extension.dbcp.ConnectionPool;
+import org.seasar.extension.jdbc.RowCallback;
 import org.seasar.extension.unit.S2TestCase;
 import org.seasar.framework.exception.SQLRuntimeException;
 import org.seasar.framework.exception.SSQLException;
@@ -73,8 +77,103 @@ public class BasicSelectHandlerTest extends S2TestCase {
         }
     }
 
+    /**
+     * @throws Exception
+     */
+    public void testExecute_beanCursor() throws Exception {
+        final List rows = new ArrayList();
+        BasicSelectHandler handler = new BasicSelectHandler(getDataSource(),
+                "select empno, ename from emp order by empno",
+                new BeanCursorResultSetHandler(Employee.class,
+                        new RowCallback() {
+                            public boolean handleRow(Object row) {
+                                rows.add(row);
+                                return rows.size() < 3;
+                            }
+                        }));
+        handler.setFetchSize(2);
+        assertEquals(new Integer(3), handler.execute(new Object[0]));
+        assertEquals(3, rows.size());
+        assertEquals(7369, ((Employee) rows.get(0)).getEmpno());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testExecute_mapCursor() throws Exception {
+        final List rows = new ArrayList();
+        BasicSelectHandler handler = new BasicSelectHandler(getDataSource(),
+                "select empno, ename from emp", new MapCursorResultSetHandler(
+                        new RowCallback() {
+                            public boolean handleRow(Object row) {
+                                rows.add(row);
+                                return true;
+                            }
+                        }));
+        assertEquals(new Integer(14), handler.execute(new Object[0]));
+        assertEquals(14, rows.size());
+        assertNotNull(((Map) rows.get(0)).get("ENAME"));
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testIterate() throws Exception {
+        ConnectionPool pool = (ConnectionPool) getComponent(ConnectionPool.class);
+        BasicSelectHandler handler = new BasicSelectHandler(getDataSource(),
+                "select empno, ename from emp where empno < ? order by empno",
+                null);
+        ResultSetIterator it = handler.iterate(
+                new Object[] { new Integer(7500) },
+                new BeanCursorResultSetHandler(Employee.class));
+        assertEquals(1, pool.getActivePoolSize());
+        assertTrue(it.hasNext());
+        assertTrue(it.hasNext());
+        assertEquals(7369, ((Employee) it.next()).getEmpno());
+        assertEquals(7499, ((Employee) it.next()).getEmpno());
+        assertFalse(it.hasNext());
+        assertTrue(it.isClosed());
+        assertEquals(0, pool.getActivePoolSize());
+        try {
+            it.next();
+            fail();
+        } catch (java.util.NoSuchElementException expected) {
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testIterate_close() throws Exception {
+        ConnectionPool pool = (ConnectionPool) getComponent(ConnectionPool.class);
+        BasicSelectHandler handler = new BasicSelectHandler(getDataSource(),
+                "select * from emp", null);
+        ResultSetIterator it = handler.iterate(null,
+                new MapCursorResultSetHandler());
+        assertTrue(it.next() instanceof Map);
+        it.close();
+        it.close();
+        assertFalse(it.hasNext());
+        assertEquals(0, pool.getActivePoolSize());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testIterate_exception() throws Exception {
+        ConnectionPool pool = (ConnectionPool) getComponent(ConnectionPool.class);
+        BasicSelectHandler handler = new BasicSelectHandler(getDataSource(),
+                "select * from UNKNOWN", null);
+        try {
+            handler.iterate(null, new MapCursorResultSetHandler());
+            fail();
+        } catch (SQLRuntimeException expected) {
+        }
+        assertEquals(0, pool.getActivePoolSize());
+    }
+
     public void setUp() {
         include("j2ee.dicon");
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
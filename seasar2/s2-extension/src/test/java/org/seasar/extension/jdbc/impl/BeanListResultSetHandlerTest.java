@@ -20,8 +20,10 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.List;
 
+import org.seasar.extension.jdbc.PropertyType;
 import org.seasar.extension.jdbc.ResultSetHandler;
 import org.seasar.extension.unit.S2TestCase;
+import org.seasar.framework.util.DisposableUtil;
 
 /**
  * @author higa
@@ -55,7 +57,70 @@ public class BeanListResultSetHandlerTest extends S2TestCase {
         }
     }
 
+    /**
+     * @throws Exception
+     */
+    public void testCreatePropertyTypes_cache() throws Exception {
+        AbstractBeanResultSetHandler.clearPropertyTypesCache();
+        BeanListResultSetHandler handler = new BeanListResultSetHandler(
+                Employee.class);
+        PropertyType[] propertyTypes = createPropertyTypes(handler,
+                "select empno, ename from emp");
+        assertEquals(2, propertyTypes.length);
+        assertEquals(1, AbstractBeanResultSetHandler
+                .getPropertyTypesCacheCount());
+        assertSame(propertyTypes, createPropertyTypes(
+                new BeanListResultSetHandler(Employee.class),
+                "select empno, ename from emp where empno = 7788"));
+        assertNotSame(propertyTypes, createPropertyTypes(handler,
+                "select ename, empno from emp"));
+        assertEquals(2, AbstractBeanResultSetHandler
+                .getPropertyTypesCacheCount());
+
+        DisposableUtil.dispose();
+        assertEquals(0, AbstractBeanResultSetHandler
+                .getPropertyTypesCacheCount());
+        assertNotSame(propertyTypes, createPropertyTypes(handler,
+                "select empno, ename from emp"));
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testCreatePropertyTypes_cacheBySubclass() throws Exception {
+        AbstractBeanResultSetHandler.clearPropertyTypesCache();
+        PropertyType[] propertyTypes = createPropertyTypes(
+                new BeanListResultSetHandler(Employee.class),
+                "select empno, ename from emp");
+        PropertyType[] propertyTypes2 = createPropertyTypes(
+                new BeanListResultSetHandler(Employee.class) {
+                    protected PropertyType[] createPropertyTypes(
+                            String[] columnNames) {
+                        return new PropertyType[0];
+                    }
+                }, "select empno, ename from emp");
+        assertEquals(2, propertyTypes.length);
+        assertEquals(0, propertyTypes2.length);
+        assertEquals(2, AbstractBeanResultSetHandler
+                .getPropertyTypesCacheCount());
+    }
+
+    private PropertyType[] createPropertyTypes(
+            AbstractBeanResultSetHandler handler, String sql) throws Exception {
+        PreparedStatement ps = getConnection().prepareStatement(sql);
+        try {
+            ResultSet rs = ps.executeQuery();
+            try {
+                return handler.createPropertyTypes(rs.getMetaData());
+            } finally {
+                rs.close();
+            }
+        } finally {
+            ps.close();
+        }
+    }
+
     public void setUp() {
         include("j2ee.dicon");
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.impl;
+
+import junit.framework.TestCase;
+
+import org.seasar.extension.jdbc.SqlLog;
+import org.seasar.framework.util.DisposableUtil;
+
+/**
+ * 
+ */
+public class RingBufferSqlLogSinkTest extends TestCase {
+
+    private RingBufferSqlLogSink sink;
+
+    protected void tearDown() throws Exception {
+        if (sink != null) {
+            sink.stop();
+        }
+    }
+
+    private SqlLog createSqlLog(int i) {
+        return new SqlLogImpl("select * from emp where empno = ?",
+                new Object[] { new Integer(i) },
+                new Class[] { Integer.class }, null);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testPut() throws Exception {
+        sink = new RingBufferSqlLogSink(3, 10);
+        for (int i = 0; i < 5; ++i) {
+            sink.put(createSqlLog(i));
+        }
+        assertTrue(sink.flush(10000));
+        SqlLog[] sqlLogs = sink.getSqlLogs();
+        assertEquals(3, sqlLogs.length);
+        assertEquals("select * from emp where empno = 2", sqlLogs[0]
+                .getCompleteSql());
+        assertEquals("select * from emp where empno = 4", sqlLogs[2]
+                .getCompleteSql());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testDrain() throws Exception {
+        sink = new RingBufferSqlLogSink(3);
+        sink.put(createSqlLog(1));
+        assertTrue(sink.flush(10000));
+        assertEquals(1, sink.drain().length);
+        assertEquals(0, sink.getSqlLogs().length);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testPut_queueFull() throws Exception {
+        sink = new RingBufferSqlLogSink(10, 2);
+        BlockingSqlLog blocking = new BlockingSqlLog();
+        sink.put(blocking);
+        blocking.waitForStarted();
+        sink.put(createSqlLog(1));
+        sink.put(createSqlLog(2));
+        sink.put(createSqlLog(3));
+        assertEquals(1, sink.getDroppedCount());
+        blocking.release();
+        assertTrue(sink.flush(10000));
+        assertEquals(3, sink.getSqlLogs().length);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testStop() throws Exception {
+        sink = new RingBufferSqlLogSink(3);
+        sink.put(createSqlLog(1));
+        assertTrue(sink.flush(10000));
+        sink.stop();
+        assertTrue(sink.isStopped());
+        sink.put(createSqlLog(2));
+        assertTrue(sink.flush(10000));
+        assertEquals(1, sink.getSqlLogs().length);
+        sink.start();
+        sink.put(createSqlLog(3));
+        assertTrue(sink.flush(10000));
+        assertEquals(2, sink.getSqlLogs().length);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testDispose() throws Exception {
+        sink = new RingBufferSqlLogSink(3);
+        sink.put(createSqlLog(1));
+        assertFalse(sink.isStopped());
+        DisposableUtil.dispose();
+        assertTrue(sink.isStopped());
+    }
+
+    private static class BlockingSqlLog extends SqlLogImpl {
+
+        private boolean started;
+
+        private boolean released;
+
+        private BlockingSqlLog() {
+            super("select * from emp", (Object[]) null, null, null);
+        }
+
+        public synchronized String getCompleteSql() {
+            started = true;
+            notifyAll();
+            while (!released) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e.toString());
+                }
+            }
+            return super.getCompleteSql();
+        }
+
+        private synchronized void waitForStarted() throws InterruptedException {
+            while (!started) {
+                wait();
+            }
+        }
+
+        private synchronized void release() {
+            released = true;
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.impl;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.seasar.extension.jdbc.PropertyType;
+import org.seasar.extension.jdbc.RowMapper;
+import org.seasar.extension.unit.S2TestCase;
+import org.seasar.framework.util.DisposableUtil;
+
+/**
+ * 
+ */
+public class RowMapperFactoryTest extends S2TestCase {
+
+    private static final String SQL = "select empno, ename, mgr, hiredate, sal, comm, deptno, tstamp from emp order by empno";
+
+    protected void setUp() throws Exception {
+        include("j2ee.dicon");
+        RowMapperFactory.clear();
+    }
+
+    protected void tearDown() throws Exception {
+        RowMapperFactory.setGenerationEnabled(true);
+        RowMapperFactory
+                .setGenerationLimit(RowMapperFactory.DEFAULT_GENERATION_LIMIT);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testGetRowMapper() throws Exception {
+        List generated = select(Employee.class);
+        assertEquals(1, RowMapperFactory.getCacheCount());
+        RowMapperFactory.setGenerationEnabled(false);
+        List reflected = select(Employee.class);
+        assertEquals(reflected.size(), generated.size());
+        for (int i = 0; i < generated.size(); ++i) {
+            Employee e1 = (Employee) generated.get(i);
+            Employee e2 = (Employee) reflected.get(i);
+            assertEquals(e2.getEmpno(), e1.getEmpno());
+            assertEquals(e2.getEname(), e1.getEname());
+            assertEquals(e2.getMgr(), e1.getMgr());
+            assertEquals(e2.getHiredate(), e1.getHiredate());
+            assertEquals(e2.getSal(), e1.getSal());
+            assertEquals(e2.getComm(), e1.getComm());
+            assertEquals(e2.getDeptno(), e1.getDeptno());
+            assertEquals(e2.getTstamp(), e1.getTstamp());
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testGetRowMapper_generated() throws Exception {
+        AbstractBeanResultSetHandler handler = new BeanListResultSetHandler(
+                FieldBean.class);
+        PreparedStatement ps = getConnection().prepareStatement(
+                "select empno, ename, mgr, sal, comm from emp where empno = 7369");
+        try {
+            ResultSet rs = ps.executeQuery();
+            try {
+                PropertyType[] propertyTypes = handler.createPropertyTypes(rs
+                        .getMetaData());
+                RowMapper rowMapper = RowMapperFactory.getRowMapper(
+                        FieldBean.class, propertyTypes);
+                assertTrue(rowMapper instanceof AbstractGeneratedRowMapper);
+                assertSame(rowMapper, RowMapperFactory.getRowMapper(
+                        FieldBean.class, propertyTypes));
+                assertTrue(rs.next());
+                FieldBean bean = (FieldBean) rowMapper.mapRow(rs);
+                assertEquals(7369, bean.empno);
+                assertEquals("SMITH", bean.getEname());
+                assertEquals(new Integer(7902), bean.mgr);
+                assertEquals(new BigDecimal("800"), bean.sal.setScale(0));
+                assertNull(bean.comm);
+            } finally {
+                rs.close();
+            }
+        } finally {
+            ps.close();
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testGetRowMapper_notPublic() throws Exception {
+        RowMapper rowMapper = RowMapperFactory.getRowMapper(
+                PackageBean.class, new PropertyType[0]);
+        assertTrue(rowMapper instanceof ReflectionRowMapper);
+        assertFalse(RowMapperGenerator.isGeneratable(PackageBean.class));
+        assertTrue(RowMapperGenerator.isGeneratable(FieldBean.class));
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testGetRowMapper_generationLimit() throws Exception {
+        DisposableUtil.dispose();
+        RowMapperFactory.setGenerationLimit(1);
+        RowMapper rowMapper = RowMapperFactory.getRowMapper(FieldBean.class,
+                new PropertyType[0]);
+        assertTrue(rowMapper instanceof AbstractGeneratedRowMapper);
+        assertEquals(1, RowMapperFactory.getGeneratedCount());
+        rowMapper = RowMapperFactory.getRowMapper(FieldBean.class,
+                new PropertyType[1]);
+        assertTrue(rowMapper instanceof ReflectionRowMapper);
+        assertEquals(1, RowMapperFactory.getGeneratedCount());
+
+        RowMapperFactory.clear();
+        rowMapper = RowMapperFactory.getRowMapper(FieldBean.class,
+                new PropertyType[2]);
+        assertTrue(rowMapper instanceof ReflectionRowMapper);
+
+        DisposableUtil.dispose();
+        assertEquals(0, RowMapperFactory.getGeneratedCount());
+        rowMapper = RowMapperFactory.getRowMapper(FieldBean.class,
+                new PropertyType[2]);
+        assertTrue(rowMapper instanceof AbstractGeneratedRowMapper);
+    }
+
+    private List select(Class beanClass) throws Exception {
+        PreparedStatement ps = getConnection().prepareStatement(SQL);
+        try {
+            ResultSet rs = ps.executeQuery();
+            try {
+                return (List) new BeanListResultSetHandler(beanClass)
+                        .handle(rs);
+            } finally {
+                rs.close();
+            }
+        } finally {
+            ps.close();
+        }
+    }
+
+    /**
+     * 
+     */
+    public static class FieldBean {
+
+        /**
+         * 
+         */
+        public int empno;
+
+        /**
+         * 
+         */
+        public Integer mgr;
+
+        /**
+         * 
+         */
+        public BigDecimal sal;
+
+        /**
+         * 
+         */
+        public Float comm;
+
+        private String ename;
+
+        /**
+         * @return ename
+         */
+        public String getEname() {
+            return ename;
+        }
+
+        /**
+         * @param ename
+         */
+        public void setEname(String ename) {
+            this.ename = ename;
+        }
+    }
+
+    static class PackageBean {
+
+        /**
+         * 
+         */
+        public Timestamp tstamp;
+
+        /**
+         * 
+         */
+        public List list = new ArrayList();
+    }
+}
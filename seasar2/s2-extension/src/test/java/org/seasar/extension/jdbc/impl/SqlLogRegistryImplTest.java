@@ -15,8 +15,12 @@
  */
 package org.seasar.extension.jdbc.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.seasar.extension.jdbc.SqlLog;
 import org.seasar.extension.jdbc.SqlLogRegistryLocator;
+import org.seasar.extension.jdbc.SqlLogSink;
 import org.seasar.extension.unit.S2TestCase;
 import org.seasar.framework.container.servlet.S2ContainerDestroyer;
 
@@ -108,4 +112,121 @@ public class SqlLogRegistryImplTest extends S2TestCase {
         S2ContainerDestroyer.destroy();
         assertTrue(registry.isEmpty());
     }
+
+    /**
+     * 
+     * @throws Exception
+     */
+    public void testNotifyExecuted() throws Exception {
+        SqlLogRegistryImpl registry = new SqlLogRegistryImpl(3);
+        MySqlLogSink sink = new MySqlLogSink();
+        registry.setSqlLogSink(sink);
+        SqlLogImpl log = new SqlLogImpl(rawSql, bindArgs, bindArgTypes, null);
+        registry.add(log);
+        assertEquals(-1, log.getElapsedTime());
+        registry.notifyExecuted(1);
+        assertTrue(log.getElapsedTime() >= 0);
+        assertEquals(1, log.getRowCount());
+        assertEquals(1, sink.sqlLogs.size());
+        assertSame(log, sink.sqlLogs.get(0));
+        registry.notifyExecuted(1);
+        assertEquals(1, sink.sqlLogs.size());
+    }
+
+    /**
+     * 
+     * @throws Exception
+     */
+    public void testNotifyExecuted_sampling() throws Exception {
+        SqlLogRegistryImpl registry = new SqlLogRegistryImpl(3);
+        MySqlLogSink sink = new MySqlLogSink();
+        registry.setSqlLogSink(sink);
+        registry.setSamplingInterval(3);
+        for (int i = 0; i < 7; ++i) {
+            registry.add(sqlLog);
+            registry.notifyExecuted(1);
+        }
+        assertEquals(2, sink.sqlLogs.size());
+        registry.setSamplingInterval(0);
+        registry.add(sqlLog);
+        registry.notifyExecuted(1);
+        assertEquals(2, sink.sqlLogs.size());
+    }
+
+    /**
+     * 
+     * @throws Exception
+     */
+    public void testNotifyExecuted_samplingPerThread() throws Exception {
+        final SqlLogRegistryImpl registry = new SqlLogRegistryImpl(3);
+        MySqlLogSink sink = new MySqlLogSink();
+        registry.setSqlLogSink(sink);
+        registry.setSamplingInterval(2);
+        registry.add(sqlLog);
+        registry.notifyExecuted(1);
+        Thread thread = new Thread() {
+            public void run() {
+                registry.add(sqlLog2);
+                registry.notifyExecuted(1);
+            }
+        };
+        thread.start();
+        thread.join();
+        assertEquals(0, sink.sqlLogs.size());
+        registry.add(sqlLog3);
+        registry.notifyExecuted(1);
+        assertEquals(1, sink.sqlLogs.size());
+        assertSame(sqlLog3, sink.sqlLogs.get(0));
+    }
+
+    /**
+     * 
+     * @throws Exception
+     */
+    public void testNotifyExecuted_completeSqlBeforeSink() throws Exception {
+        SqlLogRegistryImpl registry = new SqlLogRegistryImpl(3);
+        final Object[] args = new Object[] { new Integer(10) };
+        SqlLog log = new SqlLogImpl(rawSql, args, bindArgTypes, null);
+        registry.setSqlLogSink(new SqlLogSink() {
+            public void put(SqlLog sqlLog) {
+                args[0] = new Integer(20);
+            }
+        });
+        registry.add(log);
+        registry.notifyExecuted(1);
+        assertEquals(completeSql, log.getCompleteSql());
+    }
+
+    /**
+     * 
+     * @throws Exception
+     */
+    public void testNotifyExecuted_slowQuery() throws Exception {
+        SqlLogRegistryImpl registry = new SqlLogRegistryImpl(3);
+        MySqlLogSink sink = new MySqlLogSink();
+        registry.setSqlLogSink(sink);
+        registry.setSamplingInterval(0);
+        registry.setSlowQueryThreshold(0);
+        registry.add(sqlLog);
+        registry.notifyExecuted(1);
+        assertEquals(1, sink.sqlLogs.size());
+    }
+
+    /**
+     * 
+     * @throws Exception
+     */
+    public void testLazyCompleteSql() throws Exception {
+        SqlLog log = new SqlLogImpl(rawSql, bindArgs, bindArgTypes, null);
+        assertEquals(completeSql, log.getCompleteSql());
+    }
+
+    private static class MySqlLogSink implements SqlLogSink {
+
+        private List sqlLogs = new ArrayList();
+
+        public void put(SqlLog sqlLog) {
+            sqlLogs.add(sqlLog);
+        }
+    }
 }
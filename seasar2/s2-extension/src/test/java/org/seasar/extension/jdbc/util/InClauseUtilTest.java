@@ -0,0 +1,44 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.jdbc.util;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ */
+public class InClauseUtilTest extends TestCase {
+
+    /**
+     * 
+     */
+    public void testGetPaddedSize() {
+        assertEquals(1, InClauseUtil.getPaddedSize(1, 0));
+        assertEquals(4, InClauseUtil.getPaddedSize(3, 0));
+        assertEquals(64, InClauseUtil.getPaddedSize(33, 0));
+        assertEquals(1024, InClauseUtil.getPaddedSize(513, 0));
+    }
+
+    /**
+     * 
+     */
+    public void testGetPaddedSize_limit() {
+        assertEquals(512, InClauseUtil.getPaddedSize(300, 1000));
+        assertEquals(513, InClauseUtil.getPaddedSize(513, 1000));
+        assertEquals(1000, InClauseUtil.getPaddedSize(1000, 1000));
+        assertEquals(1024, InClauseUtil.getPaddedSize(1024, 1000));
+    }
+}
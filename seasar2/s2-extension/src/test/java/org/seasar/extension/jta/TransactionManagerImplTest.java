@@ -16,11 +16,14 @@
 package org.seasar.extension.jta;
 
 import javax.transaction.Status;
+import javax.transaction.Synchronization;
 import javax.transaction.Transaction;
 import javax.transaction.TransactionManager;
 
 import junit.framework.TestCase;
 
+import org.seasar.extension.jta.xa.DefaultXAResource;
+
 /**
  * @author higa
  * 
@@ -59,7 +62,48 @@ public class TransactionManagerImplTest extends TestCase {
         assertEquals("1", Status.STATUS_NO_TRANSACTION, tm_.getStatus());
     }
 
+    /**
+     * @throws Exception
+     */
+    public void testPerformance() throws Exception {
+        final int num = 200000;
+        final DefaultXAResource xaRes = new DefaultXAResource();
+        final Synchronization sync = new Synchronization() {
+
+            public void beforeCompletion() {
+            }
+
+            public void afterCompletion(int status) {
+            }
+        };
+        for (int i = 0; i < num; ++i) {
+            tm_.begin();
+            tm_.getTransaction().enlistResource(xaRes);
+            tm_.getTransaction().registerSynchronization(sync);
+            tm_.commit();
+        }
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < num; ++i) {
+            tm_.begin();
+            tm_.commit();
+        }
+        System.out.println("begin/commit:"
+                + (System.currentTimeMillis() - start));
+
+        start = System.currentTimeMillis();
+        for (int i = 0; i < num; ++i) {
+            tm_.begin();
+            tm_.getTransaction().enlistResource(xaRes);
+            tm_.getTransaction().registerSynchronization(sync);
+            tm_.commit();
+        }
+        System.out.println("begin/enlist/commit:"
+                + (System.currentTimeMillis() - start));
+        assertEquals(Status.STATUS_NO_TRANSACTION, tm_.getStatus());
+    }
+
     protected void setUp() throws Exception {
         tm_ = new TransactionManagerImpl();
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -40,6 +40,26 @@ public class XidImplTest extends TestCase {
         System.out.println(xid3);
     }
 
+    /**
+     * @throws Exception
+     */
+    public void testGlobalTransactionId() throws Exception {
+        XidImpl xid = new XidImpl();
+        String globalId = new String(xid.getGlobalTransactionId()).trim();
+        assertTrue(globalId.endsWith("/" + xid.hashCode()));
+        assertEquals(64, xid.getGlobalTransactionId().length);
+
+        XidImpl xid2 = new XidImpl(xid, 3);
+        assertEquals(globalId, new String(xid2.getGlobalTransactionId())
+                .trim());
+        assertEquals("3", new String(xid2.getBranchQualifier()).trim());
+        assertEquals("123", new String(new XidImpl(xid, 123)
+                .getBranchQualifier()).trim());
+        xid2.getBranchQualifier()[0] = 'x';
+        assertEquals("3", new String(new XidImpl(xid, 3)
+                .getBranchQualifier()).trim());
+    }
+
     /**
      * @throws Exception
      */
@@ -47,4 +67,4 @@ public class XidImplTest extends TestCase {
         XidImpl xid = new XidImpl();
         System.out.println(xid);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
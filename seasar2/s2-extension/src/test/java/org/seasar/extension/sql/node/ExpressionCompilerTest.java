@@ -0,0 +1,195 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.sql.node;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.seasar.extension.sql.SqlContext;
+import org.seasar.extension.sql.context.SqlContextImpl;
+import org.seasar.framework.util.OgnlUtil;
+
+/**
+ * 
+ */
+public class ExpressionCompilerTest extends TestCase {
+
+    private SqlContext ctx;
+
+    protected void setUp() throws Exception {
+        ctx = new SqlContextImpl();
+        Map map = new HashMap();
+        map.put("name", "SCOTT");
+        map.put("size", new Integer(3));
+        Hoge hoge = new Hoge();
+        hoge.setName("hoge");
+        hoge.setMap(map);
+        ctx.addArg("job", "CLERK", String.class);
+        ctx.addArg("empty", null, String.class);
+        ctx.addArg("deptno", new Integer(20), Integer.class);
+        ctx.addArg("sal", new Long(3000), Long.class);
+        ctx.addArg("rate", new Double(1.5), Double.class);
+        ctx.addArg("flag", Boolean.TRUE, Boolean.class);
+        ctx.addArg("hoge", hoge, Hoge.class);
+        ctx.addArg("map", map, Map.class);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testCompile() throws Exception {
+        String[] expressions = new String[] { "true", "false", "null",
+                "job != null", "empty == null", "job == \"CLERK\"",
+                "job == 'CLERK'", "job != 'MANAGER'", "deptno == 20",
+                "deptno > 10", "deptno >= 20", "deptno < 20L",
+                "deptno <= 19", "sal > deptno", "rate > 1", "rate lt 2",
+                "deptno eq 20 and job neq null", "!flag", "not flag",
+                "flag && deptno", "empty || job", "(job != null) && !(deptno < 10)",
+                "has_job", "has_unknown", "hoge.name == 'hoge'",
+                "hoge.map.name != null", "map.name", "map.unknown == null",
+                "job > 'AB'" };
+        for (int i = 0; i < expressions.length; ++i) {
+            String expression = expressions[i];
+            CompiledExpression compiled = ExpressionCompiler
+                    .compile(expression);
+            assertNotNull(expression, compiled);
+            Object expected = OgnlUtil.getValue(OgnlUtil
+                    .parseExpression(expression), ctx);
+            assertEquals(expression, expected, compiled.evaluate(ctx));
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testCompile_unsupported() throws Exception {
+        String[] expressions = new String[] { "job.length() > 0",
+                "deptno + 1 > 2", "job == 'a'", "rate > 1.5", "@foo@bar",
+                "#this", "list[0]", "x = 1", "deptno in {10, 20}",
+                "job instanceof String", "(job).length", "job ? true : false" };
+        for (int i = 0; i < expressions.length; ++i) {
+            assertNull(expressions[i], ExpressionCompiler
+                    .compile(expressions[i]));
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testEvaluate_fallback() throws Exception {
+        assertFallback("map.size > 0");
+        assertFallback("empty.name == null");
+        assertFallback("hoge.unknown == null");
+        assertFallback("deptno < empty");
+        assertFallback("job == deptno");
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testIfNode() throws Exception {
+        IfNode node = new IfNode("map.size > 0");
+        assertTrue(node.isCompiled());
+        node.addChild(new SqlNode("aaa"));
+        node.accept(ctx);
+        assertEquals("aaa", ctx.getSql());
+        assertTrue(node.isCompiled());
+        for (int i = 1; i < IfNode.MAX_FALLBACK_COUNT; ++i) {
+            node.accept(new SqlContextImpl(ctx));
+        }
+        assertFalse(node.isCompiled());
+
+        IfNode.setCompileEnabled(false);
+        try {
+            assertFalse(new IfNode("job != null").isCompiled());
+        } finally {
+            IfNode.setCompileEnabled(true);
+        }
+        assertTrue(new IfNode("job != null").isCompiled());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testIfNode_fallbackReset() throws Exception {
+        IfNode node = new IfNode("deptno < empty");
+        SqlContext ctx2 = new SqlContextImpl();
+        ctx2.addArg("deptno", new Integer(20), Integer.class);
+        ctx2.addArg("empty", new Integer(30), Integer.class);
+        for (int i = 0; i < IfNode.MAX_FALLBACK_COUNT * 2; ++i) {
+            node.evaluate(ctx);
+            assertEquals(Boolean.TRUE, node.evaluate(ctx2));
+        }
+        assertTrue(node.isCompiled());
+        for (int i = 1; i < IfNode.MAX_FALLBACK_COUNT; ++i) {
+            node.evaluate(ctx);
+        }
+        assertTrue(node.isCompiled());
+        node.evaluate(ctx);
+        assertFalse(node.isCompiled());
+        assertEquals(Boolean.TRUE, node.evaluate(ctx2));
+    }
+
+    private void assertFallback(String expression) {
+        CompiledExpression compiled = ExpressionCompiler.compile(expression);
+        assertNotNull(expression, compiled);
+        try {
+            compiled.evaluate(ctx);
+            fail(expression);
+        } catch (CompiledExpression.FallbackException expected) {
+        }
+    }
+
+    /**
+     * 
+     */
+    public static class Hoge {
+
+        private String name;
+
+        private Map map;
+
+        /**
+         * @return name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @param name
+         */
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return map
+         */
+        public Map getMap() {
+            return map;
+        }
+
+        /**
+         * @param map
+         */
+        public void setMap(Map map) {
+            this.map = map;
+        }
+    }
+}
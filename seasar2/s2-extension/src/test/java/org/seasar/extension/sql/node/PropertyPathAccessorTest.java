@@ -0,0 +1,226 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.sql.node;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.seasar.extension.sql.SqlContext;
+import org.seasar.extension.sql.context.SqlContextImpl;
+
+/**
+ * 
+ */
+public class PropertyPathAccessorTest extends TestCase {
+
+    /**
+     * @throws Exception
+     */
+    public void testCreateIfSimple() throws Exception {
+        assertNotNull(PropertyPathAccessor.createIfSimple("aaa"));
+        assertNotNull(PropertyPathAccessor.createIfSimple("aaa.bbb_1"));
+        assertNull(PropertyPathAccessor.createIfSimple("aaa..bbb"));
+        assertNull(PropertyPathAccessor.createIfSimple("aaa."));
+        assertNull(PropertyPathAccessor.createIfSimple("aaa[0]"));
+        assertNull(PropertyPathAccessor.createIfSimple("aaa.size()"));
+        assertNull(PropertyPathAccessor.createIfSimple("has_aaa"));
+        assertNull(PropertyPathAccessor.createIfSimple("null"));
+        assertNull(PropertyPathAccessor.createIfSimple("#this"));
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testBindDeclared() throws Exception {
+        PropertyPathAccessor accessor = new PropertyPathAccessor(new String[] {
+                "emp", "dept", "dname" });
+        Dept dept = new Dept();
+        dept.setDname("SALES");
+        Emp emp = new Emp();
+        emp.setDept(dept);
+        Object[] values = new Object[2];
+        Class[] types = new Class[2];
+        SqlContext ctx = new SqlContextImpl();
+        ctx.addArg("emp", emp, Emp.class);
+        accessor.bindDeclared(ctx, values, types, 1);
+        assertEquals("SALES", values[1]);
+        assertEquals(String.class, types[1]);
+
+        emp.setDept(null);
+        accessor.bindDeclared(ctx, values, types, 0);
+        assertNull(values[0]);
+        assertEquals(Dept.class, types[0]);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testBindDeclared_typeGuard() throws Exception {
+        PropertyPathAccessor accessor = new PropertyPathAccessor(new String[] {
+                "dto", "dname" });
+        Dept dept = new Dept();
+        dept.setDname("SALES");
+        Object[] values = new Object[1];
+        Class[] types = new Class[1];
+        SqlContext ctx = new SqlContextImpl();
+        ctx.addArg("dto", dept, Dept.class);
+        accessor.bindDeclared(ctx, values, types, 0);
+        assertEquals("SALES", values[0]);
+
+        Dept2 dept2 = new Dept2();
+        dept2.setDname(new Integer(10));
+        ctx = new SqlContextImpl();
+        ctx.addArg("dto", dept2, Dept2.class);
+        accessor.bindDeclared(ctx, values, types, 0);
+        assertEquals(new Integer(10), values[0]);
+        assertEquals(Integer.class, types[0]);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testGetValue() throws Exception {
+        PropertyPathAccessor accessor = PropertyPathAccessor
+                .createIfSimple("emp.dept.dname");
+        Dept dept = new Dept();
+        dept.setDname("SALES");
+        Emp emp = new Emp();
+        emp.setDept(dept);
+        SqlContext ctx = new SqlContextImpl();
+        ctx.addArg("emp", emp, Object.class);
+        assertEquals("SALES", accessor.getValue(ctx));
+
+        emp.setDept(null);
+        assertSame(PropertyPathAccessor.UNRESOLVED, accessor.getValue(ctx));
+
+        Map map = new HashMap();
+        map.put("dept", dept);
+        ctx = new SqlContextImpl();
+        ctx.addArg("emp", map, Map.class);
+        assertSame(PropertyPathAccessor.UNRESOLVED, accessor.getValue(ctx));
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testGetValue_caseSensitive() throws Exception {
+        PropertyPathAccessor accessor = PropertyPathAccessor
+                .createIfSimple("dept.DNAME");
+        Dept dept = new Dept();
+        dept.setDname("SALES");
+        SqlContext ctx = new SqlContextImpl();
+        ctx.addArg("dept", dept, Dept.class);
+        assertSame(PropertyPathAccessor.UNRESOLVED, accessor.getValue(ctx));
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testParenBindVariableNode() throws Exception {
+        Dept dept = new Dept();
+        dept.setDeptnos(new Integer[] { new Integer(10), new Integer(20) });
+        SqlContext ctx = new SqlContextImpl();
+        ctx.addArg("dept", dept, Dept.class);
+        new ParenBindVariableNode("dept.deptnos").accept(ctx);
+        assertEquals("(?, ?)", ctx.getSql());
+        assertTrue(Arrays.equals(dept.getDeptnos(), ctx.getBindVariables()));
+    }
+
+    /**
+     * 
+     */
+    public static class Emp {
+
+        private Dept dept;
+
+        /**
+         * @return dept
+         */
+        public Dept getDept() {
+            return dept;
+        }
+
+        /**
+         * @param dept
+         */
+        public void setDept(Dept dept) {
+            this.dept = dept;
+        }
+    }
+
+    /**
+     * 
+     */
+    public static class Dept {
+
+        private String dname;
+
+        private Integer[] deptnos;
+
+        /**
+         * @return dname
+         */
+        public String getDname() {
+            return dname;
+        }
+
+        /**
+         * @param dname
+         */
+        public void setDname(String dname) {
+            this.dname = dname;
+        }
+
+        /**
+         * @return deptnos
+         */
+        public Integer[] getDeptnos() {
+            return deptnos;
+        }
+
+        /**
+         * @param deptnos
+         */
+        public void setDeptnos(Integer[] deptnos) {
+            this.deptnos = deptnos;
+        }
+    }
+
+    /**
+     * 
+     */
+    public static class Dept2 {
+
+        private Integer dname;
+
+        /**
+         * @return dname
+         */
+        public Integer getDname() {
+            return dname;
+        }
+
+        /**
+         * @param dname
+         */
+        public void setDname(Integer dname) {
+            this.dname = dname;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2004-2014 the Seasar Foundation and the Others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.seasar.extension.sql.node;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.seasar.extension.sql.Node;
+import org.seasar.extension.sql.SqlContext;
+import org.seasar.extension.sql.context.SqlContextImpl;
+import org.seasar.extension.sql.parser.SqlParserImpl;
+
+/**
+ * 
+ */
+public class SqlTemplateCompilerTest extends TestCase {
+
+    /**
+     * @throws Exception
+     */
+    public void testCompile_static() throws Exception {
+        String sql = "SELECT * FROM emp WHERE job = /*job*/'CLERK' AND deptno = /*dept.deptno*/20";
+        Node node = SqlTemplateCompiler.compile(new SqlParserImpl(sql).parse());
+        assertTrue(node instanceof StaticSqlNode);
+        StaticSqlNode staticNode = (StaticSqlNode) node;
+        assertEquals("SELECT * FROM emp WHERE job = ? AND deptno = ?",
+                staticNode.getSql());
+        assertEquals(2, staticNode.getBindVariableNodes().length);
+        assertSameResult(sql);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testCompile_noBindVariable() throws Exception {
+        String sql = "SELECT * FROM emp";
+        Node node = SqlTemplateCompiler.compile(new SqlParserImpl(sql).parse());
+        assertTrue(node instanceof StaticSqlNode);
+        assertSameResult(sql);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testCompile_dynamic() throws Exception {
+        String sql = "SELECT * FROM emp WHERE sal > /*sal*/100 /*BEGIN*/AND /*IF job != null*/job = /*job*/'CLERK' AND 1 = 1/*END*/"
+                + "/*IF dept != null*/AND deptno = /*dept.deptno*/20/*END*//*END*/ ORDER BY /*$orderBy*/empno, /*sal*/1";
+        Node node = SqlTemplateCompiler.compile(new SqlParserImpl(sql).parse());
+        assertEquals(ContainerNode.class, node.getClass());
+        assertEquals(5, node.getChildSize());
+        assertEquals(SqlNode.class, node.getChild(2).getClass());
+        assertEquals(", ?", ((StaticSqlNode) node.getChild(4)).getSql());
+        assertEquals("SELECT * FROM emp WHERE sal > ? ",
+                ((StaticSqlNode) node.getChild(0)).getSql());
+        Node ifNode = node.getChild(1).getChild(1);
+        assertEquals("job = ? AND 1 = 1", ((StaticSqlNode) ifNode.getChild(0))
+                .getSql());
+        assertSameResult(sql);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testCompile_else() throws Exception {
+        String sql = "SELECT * FROM emp WHERE /*IF job != null*/job = /*job*/'CLERK'-- ELSE job is null AND deptno = /*dept.deptno*/20/*END*/";
+        Node node = SqlTemplateCompiler.compile(new SqlParserImpl(sql).parse());
+        IfNode ifNode = (IfNode) node.getChild(1);
+        assertTrue(ifNode.getChild(0) instanceof StaticSqlNode);
+        assertTrue(ifNode.getElseNode().getChild(0) instanceof StaticSqlNode);
+        assertSameResult(sql);
+    }
+
+    private void assertSameResult(String sql) {
+        Node expected = new SqlParserImpl(sql).parse();
+        Node actual = SqlTemplateCompiler.compile(new SqlParserImpl(sql)
+                .parse());
+        Dept dept = new Dept();
+        dept.setDeptno(new Integer(10));
+        Object[][] args = new Object[][] { { null, null, null },
+                { "MANAGER", null, null }, { null, dept, "ename" },
+                { "MANAGER", dept, "empno" } };
+        for (int i = 0; i < args.length; ++i) {
+            SqlContext expectedCtx = createContext(args[i]);
+            expected.accept(expectedCtx);
+            SqlContext actualCtx = createContext(args[i]);
+            actual.accept(actualCtx);
+            assertEquals(expectedCtx.getSql(), actualCtx.getSql());
+            assertTrue(Arrays.equals(expectedCtx.getBindVariables(), actualCtx
+                    .getBindVariables()));
+            assertTrue(Arrays.equals(expectedCtx.getBindVariableTypes(),
+                    actualCtx.getBindVariableTypes()));
+        }
+    }
+
+    private SqlContext createContext(Object[] args) {
+        SqlContext ctx = new SqlContextImpl();
+        ctx.addArg("sal", new Integer(1000), Integer.class);
+        ctx.addArg("job", args[0], String.class);
+        ctx.addArg("dept", args[1], Dept.class);
+        ctx.addArg("orderBy", args[2], String.class);
+        return ctx;
+    }
+
+    /**
+     * 
+     */
+    public static class Dept {
+
+        private Integer deptno;
+
+        /**
+         * @return deptno
+         */
+        public Integer getDeptno() {
+            return deptno;
+        }
+
+        /**
+         * @param deptno
+         */
+        public void setDeptno(Integer deptno) {
+            this.deptno = deptno;
+        }
+    }
+}
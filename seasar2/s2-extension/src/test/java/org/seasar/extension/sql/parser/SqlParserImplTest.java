@@ -481,6 +481,49 @@ public class SqlParserImplTest extends TestCase {
         assertEquals("bbb", ctx.getSql());
     }
 
+    /**
+     * @throws Exception
+     */
+    public void testIn_padding() throws Exception {
+        String sql = "SELECT * FROM emp WHERE /*BEGIN*//*IF deptnoList != null*/deptno IN /*deptnoList*/(10, 20)/*END*//*END*/";
+        String sql2 = "SELECT * FROM emp WHERE deptno IN (?, ?, ?, ?)";
+        SqlParser parser = new SqlParserImpl(sql);
+        Node root = parser.parse();
+        SqlContextImpl ctx = new SqlContextImpl();
+        ctx.setInClausePadding(true);
+        List deptnoList = new ArrayList();
+        deptnoList.add(new Integer(10));
+        deptnoList.add(new Integer(20));
+        deptnoList.add(new Integer(30));
+        ctx.addArg("deptnoList", deptnoList, List.class);
+        root.accept(ctx);
+        assertEquals(sql2, ctx.getSql());
+        Object[] vars = ctx.getBindVariables();
+        assertEquals(4, vars.length);
+        assertEquals(new Integer(30), vars[2]);
+        assertEquals(new Integer(30), vars[3]);
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testIn_paddingLimit() throws Exception {
+        String sql = "SELECT * FROM emp WHERE /*BEGIN*//*IF deptnoList != null*/deptno IN /*deptnoList*/(10, 20)/*END*//*END*/";
+        String sql2 = "SELECT * FROM emp WHERE deptno IN (?, ?, ?)";
+        SqlParser parser = new SqlParserImpl(sql);
+        Node root = parser.parse();
+        SqlContextImpl ctx = new SqlContextImpl();
+        ctx.setInClausePadding(true);
+        ctx.setInClausePaddingLimit(3);
+        List deptnoList = new ArrayList();
+        deptnoList.add(new Integer(10));
+        deptnoList.add(new Integer(20));
+        deptnoList.add(new Integer(30));
+        ctx.addArg("deptnoList", deptnoList, List.class);
+        root.accept(ctx);
+        assertEquals(sql2, ctx.getSql());
+    }
+
     /**
      * @throws Exception
      */
@@ -634,4 +677,30 @@ public class SqlParserImplTest extends TestCase {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * @throws Exception
+     */
+    public void testPerformance() throws Exception {
+        StringBuffer buf = new StringBuffer("SELECT * FROM emp");
+        buf.append("/*BEGIN*/ WHERE ");
+        for (int i = 0; i < 2000; ++i) {
+            buf.append("/*IF aaa != null*/AND aaa").append(i).append(
+                    " = /*aaa*/'x' /* comment */--ELSE AND bbb").append(i)
+                    .append(" IN /*bbb*/(1, 2)/*END*/\n");
+        }
+        buf.append("/*END*/");
+        String sql = buf.toString();
+        for (int i = 0; i < 10; ++i) {
+            new SqlParserImpl(sql).parse();
+        }
+        long start = System.currentTimeMillis();
+        Node root = null;
+        for (int i = 0; i < 10; ++i) {
+            root = new SqlParserImpl(sql).parse();
+        }
+        System.out.println("parse(" + sql.length() + " chars):"
+                + (System.currentTimeMillis() - start));
+        assertEquals(4001, root.getChild(1).getChildSize());
+    }
+
+}
@@ -226,4 +226,42 @@ public class SqlTokenizerImplTest extends TestCase {
         assertEquals("5", ")", tokenizer.getToken());
         assertEquals("6", SqlTokenizer.EOF, tokenizer.next());
     }
-}
\ No newline at end of file
+
+    /**
+     * @throws Exception
+     */
+    public void testTokenChar() throws Exception {
+        String sql = "SELECT * FROM emp/*END*/ WHERE a = /* comment */?";
+        SqlTokenizerImpl tokenizer = new SqlTokenizerImpl(sql);
+        assertEquals("1", SqlTokenizer.SQL, tokenizer.next());
+        assertEquals("2", 17, tokenizer.getTokenLength());
+        assertEquals("3", 'S', tokenizer.getTokenChar(0));
+        assertEquals("4", SqlTokenizer.COMMENT, tokenizer.next());
+        assertTrue("5", tokenizer.isTokenEqualTo("END"));
+        assertFalse("6", tokenizer.isTokenEqualTo("ENDX"));
+        assertEquals("7", SqlTokenizer.SQL, tokenizer.next());
+        assertEquals("8", SqlTokenizer.COMMENT, tokenizer.next());
+        assertEquals("9", ' ', tokenizer.getTokenChar(0));
+        assertEquals("10", SqlTokenizer.BIND_VARIABLE, tokenizer.next());
+        assertTrue("11", tokenizer.isTokenEqualTo("$1"));
+        assertEquals("12", SqlTokenizer.EOF, tokenizer.next());
+        assertEquals("13", -1, tokenizer.getTokenLength());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testLineCommentAndHashComment() throws Exception {
+        String sql = "aaa -- bbb\n#*ccc*# ddd/*eee*/";
+        SqlTokenizer tokenizer = new SqlTokenizerImpl(sql);
+        assertEquals("1", SqlTokenizer.SQL, tokenizer.next());
+        assertEquals("2", "aaa -- bbb\n", tokenizer.getToken());
+        assertEquals("3", SqlTokenizer.COMMENT, tokenizer.next());
+        assertEquals("4", "ccc", tokenizer.getToken());
+        assertEquals("5", SqlTokenizer.SQL, tokenizer.next());
+        assertEquals("6", " ddd", tokenizer.getToken());
+        assertEquals("7", SqlTokenizer.COMMENT, tokenizer.next());
+        assertEquals("8", "eee", tokenizer.getToken());
+        assertEquals("9", SqlTokenizer.EOF, tokenizer.next());
+    }
+}
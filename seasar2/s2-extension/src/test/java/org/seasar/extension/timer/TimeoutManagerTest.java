@@ -66,4 +66,66 @@ public class TimeoutManagerTest extends TestCase {
         assertNull(TimeoutManager.getInstance().thread);
     }
 
+    /**
+     * @throws Exception
+     */
+    public void testExpiredMillis() throws Exception {
+        TimeoutManager.getInstance().addTimeoutTargetMillis(
+                new TimeoutTarget() {
+                    public void expired() {
+                        expiredCount++;
+                    }
+                }, 200, false);
+        Thread.sleep(600);
+        assertEquals(1, expiredCount);
+        assertEquals(0, TimeoutManager.getInstance().getTimeoutTaskCount());
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testSlowTarget() throws Exception {
+        assertTrue(TimeoutManager.DEFAULT_EXECUTOR_THREAD_COUNT > 1);
+        final Object lock = new Object();
+        TimeoutManager.getInstance().addTimeoutTargetMillis(
+                new TimeoutTarget() {
+                    public void expired() {
+                        synchronized (lock) {
+                            try {
+                                lock.wait(2000);
+                            } catch (InterruptedException ignore) {
+                            }
+                        }
+                    }
+                }, 100, false);
+        TimeoutManager.getInstance().addTimeoutTargetMillis(
+                new TimeoutTarget() {
+                    public void expired() {
+                        expiredCount++;
+                    }
+                }, 300, false);
+        Thread.sleep(800);
+        assertEquals(1, expiredCount);
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    public void testCancel() throws Exception {
+        TimeoutTask task = TimeoutManager.getInstance().addTimeoutTarget(
+                new TimeoutTarget() {
+                    public void expired() {
+                        expiredCount++;
+                    }
+                }, 3600, false);
+        assertEquals(1, TimeoutManager.getInstance().getTimeoutTaskCount());
+        task.cancel();
+        Thread.sleep(500);
+        assertEquals(0, TimeoutManager.getInstance().getTimeoutTaskCount());
+        assertEquals(0, expiredCount);
+    }
+
 }